@@ -21,6 +21,12 @@ public class HtmlConverterFactory extends Converter.Factory {
     @Override
     public Converter<ResponseBody, Document> responseBodyConverter(Type type,
         Annotation[] annotations, Retrofit retrofit) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof HtmlExtract) {
+                // only the needed elements - no full DOM
+                return new HtmlResponseBodyConverter(this.baseUrl, ((HtmlExtract) annotation).value());
+            }
+        }
         return new HtmlResponseBodyConverter(this.baseUrl);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+package com.scott.pornhub;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method returning a {@link org.jsoup.nodes.Document} whose response only needs some elements: the {@link
+ * HtmlConverterFactory} then streams the response and extracts just the elements matching these simple selectors (see {@link
+ * org.tinymediamanager.scraper.util.HtmlExtractor}) instead of building the DOM of the whole page.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HtmlExtract {
+
+    /**
+     * @return the simple selectors of the elements to extract
+     */
+    String[] value();
+}
@@ -2,22 +2,39 @@ package com.scott.pornhub;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import okhttp3.ResponseBody;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
+import org.tinymediamanager.scraper.util.HtmlExtractor;
 import retrofit2.Converter;
 
 public class HtmlResponseBodyConverter implements Converter<ResponseBody, Document> {
     private String baseUrl;
+    private HtmlExtractor extractor;
 
     public HtmlResponseBodyConverter(String baseUrl) {
         this.baseUrl = baseUrl;
     }
 
+    /**
+     * a converter which only extracts the elements matching the given selectors
+     *
+     * @see HtmlExtractor
+     */
+    public HtmlResponseBodyConverter(String baseUrl, String... selectors) {
+        this.baseUrl = baseUrl;
+        this.extractor = new HtmlExtractor(selectors);
+    }
+
     @Override
     public Document convert(ResponseBody value) throws IOException {
         BufferedInputStream myStream = new BufferedInputStream(value.byteStream());
         try {
+            if (extractor != null) {
+                return extractor.extract(myStream,
+                    value.contentType() != null ? value.contentType().charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8, baseUrl);
+            }
             return Jsoup.parse(myStream, "UTF-8", baseUrl);
         }
         catch (IOException e) {
@@ -28,4 +45,4 @@ public class HtmlResponseBodyConverter implements Converter<ResponseBody, Docume
         }
         return new Document(baseUrl);
     }
-}
\ No newline at end of file
+}
@@ -9,8 +9,8 @@ import okhttp3.Request;
 import okhttp3.Response;
 
 /**
- * {@link Interceptor} to add the API key query parameter and if available session information. As it modifies the URL
- * and may retry requests, ensure this is added as an application interceptor (never a network interceptor), otherwise
+ * {@link Interceptor} to add the API key query parameter and if available session information. As it modifies the URL,
+ * ensure this is added as an application interceptor (never a network interceptor), otherwise
  * caching will be broken and requests will fail.
  */
 public class PornhubInterceptor implements Interceptor {
@@ -55,28 +55,8 @@ public class PornhubInterceptor implements Interceptor {
 
         Request.Builder builder = request.newBuilder();
         builder.url(urlBuilder.build());
-        Response response = chain.proceed(builder.build());
-
-        if (!response.isSuccessful()) {
-            // re-try if the server indicates we should
-            String retryHeader = response.header("Retry-After");
-            if (retryHeader != null) {
-                try {
-                    int retry = Integer.parseInt(retryHeader);
-                    Thread.sleep((int) ((retry + 0.5) * 1000));
-
-                    // close body of unsuccessful response
-                    if (response.body() != null) {
-                        response.body().close();
-                    }
-                    // is fine because, unlike a network interceptor, an application interceptor can re-try requests
-                    return handleIntercept(chain, pornhub);
-                } catch (NumberFormatException | InterruptedException ignored) {
-                }
-            }
-        }
-
-        return response;
+        // Retry-After is handled by the http client (backoff per host), not by sleeping here
+        return chain.proceed(builder.build());
     }
 
     private static void addSessionToken(Pornhub pornhub, HttpUrl.Builder urlBuilder) {
@@ -1,5 +1,6 @@
 package com.scott.pornhub.services;
 
+import com.scott.pornhub.HtmlExtract;
 import com.scott.pornhub.entities.AccountStates;
 import com.scott.pornhub.entities.AlternativeTitles;
 import com.scott.pornhub.entities.AppendToResponse;
@@ -52,6 +53,8 @@ public interface MoviesService {
      * @param appendToResponse <em>Optional.</em> extra requests to append to the result. <b>Accepted Value(s):</b> alternative_titles, changes, credits, images, keywords, release_dates, videos, translations, recommendations, similar, reviews, lists
      */
     @GET("view_video.php")
+    @HtmlExtract({ "[property=PornhubMovieMetadataProviderurl]", "[property=og:title]", "[property=og:description]",
+        "#videoElementPoster", ".votesUp" })
     Call<Document> summary(
             @Query("viewkey") String movieId,
             @Query("language") String language,
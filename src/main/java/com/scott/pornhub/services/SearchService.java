@@ -1,5 +1,6 @@
 package com.scott.pornhub.services;
 
+import com.scott.pornhub.HtmlExtract;
 import com.scott.pornhub.entities.CollectionResultsPage;
 import com.scott.pornhub.entities.CompanyResultsPage;
 import com.scott.pornhub.entities.KeywordResultsPage;
@@ -69,6 +70,7 @@ public interface SearchService {
    * @see <a href="https://www.pornhub.com/video/search?search=%E5%90%8C%E6%B5%8E%E5%A4%A7%E5%AD%A6%E9%AB%98%E6%95%B0&p=professional&hd=1&min_duration=10&max_duration=30&page=2">example</a>
    */
   @GET("video/search")
+  @HtmlExtract({ "#videoSearchResult", ".page_next_set" })
   Call<Document> videos(
       @Query("search") String query,
       @Query("page") Integer page,
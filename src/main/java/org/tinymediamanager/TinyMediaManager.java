@@ -37,9 +37,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -50,6 +52,9 @@ import org.apache.commons.io.IOUtils;
 import org.jdesktop.beansbinding.ELProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.Message;
+import org.tinymediamanager.core.Message.MessageLevel;
+import org.tinymediamanager.core.MessageManager;
 import org.tinymediamanager.core.Settings;
 import org.tinymediamanager.core.TmmModuleManager;
 import org.tinymediamanager.core.UTF8Control;
@@ -232,75 +237,96 @@ public class TinyMediaManager {
             Globals.settings.setProxy();
           }
 
-          // MediaInfo /////////////////////////////////////////////////////
-          if (g2 != null) {
-            updateProgress(g2, "loading MediaInfo libs", 20);
-            splash.update();
-          }
+          // start up the modules, providers and services - independent steps are running concurrently
+          TmmModuleManager moduleManager = TmmModuleManager.getInstance();
+          moduleManager.registerModule(MovieModuleManager.getInstance());
+          moduleManager.registerModule(TvShowModuleManager.getInstance());
+
+          moduleManager.addStartupStep("mediainfo", MediaInfoUtils::loadMediaInfo);
+          moduleManager.addStartupStep("mediainfo cache", moduleManager::startUp, "mediainfo");
+          moduleManager.addStartupStep("movies", () -> moduleManager.enableModule(MovieModuleManager.getInstance()));
+          moduleManager.addStartupStep("tvshows", () -> moduleManager.enableModule(TvShowModuleManager.getInstance()));
+          moduleManager.addStartupStep("providers", () -> {
+            // just instantiate static - will block (takes a few secs)
+            MediaProviders.loadMediaProviders();
+
+            if (Globals.settings.isNewConfig()) {
+              // add/set default scrapers
+              MovieModuleManager.SETTINGS.setDefaultScrapers();
+              TvShowModuleManager.SETTINGS.setDefaultScrapers();
+            }
+          });
+          moduleManager.addStartupStep("upnp", () -> {
+            Upnp u = Upnp.getInstance();
+            if (Globals.settings.isUpnpShareLibrary()) {
+              u.startWebServer();
+              u.createUpnpService();
+              u.startMediaServer();
+            }
+            if (Globals.settings.isUpnpRemotePlay()) {
+              u.createUpnpService();
+              u.sendPlayerSearchRequest();
+              u.startWebServer();
+            }
+          }, "movies", "tvshows");
+          moduleManager.addStartupStep("kodi", () -> {
+            try {
+              KodiRPC.getInstance().connect();
+            }
+            catch (Exception e) {
+              // catch all, to not kill JVM on any other exceptions!
+              LOGGER.error(e.getMessage());
+            }
+          }, "movies", "tvshows");
 
-          MediaInfoUtils.loadMediaInfo();
+          // do upgrade tasks after database loading
+          if (newVersion) {
+            moduleManager.addStartupStep("upgrade", () -> UpgradeTasks.performUpgradeTasksAfterDatabaseLoading(oldVersion), "movies", "tvshows",
+                "providers");
+          }
 
           // load modules //////////////////////////////////////////////////
           if (g2 != null) {
             updateProgress(g2, "loading movie module", 30);
             splash.update();
           }
-          TmmModuleManager.getInstance().startUp();
-          TmmModuleManager.getInstance().registerModule(MovieModuleManager.getInstance());
-          TmmModuleManager.getInstance().enableModule(MovieModuleManager.getInstance());
+          moduleManager.awaitStartupStep("movies");
 
           if (g2 != null) {
             updateProgress(g2, "loading TV show module", 40);
             splash.update();
           }
-          TmmModuleManager.getInstance().registerModule(TvShowModuleManager.getInstance());
-          TmmModuleManager.getInstance().enableModule(TvShowModuleManager.getInstance());
+          moduleManager.awaitStartupStep("tvshows");
 
           if (g2 != null) {
             updateProgress(g2, "loading plugins", 50);
             splash.update();
           }
-          // just instantiate static - will block (takes a few secs)
-          MediaProviders.loadMediaProviders();
+          moduleManager.awaitStartupStep("providers");
 
-          if (Globals.settings.isNewConfig()) {
-            // add/set default scrapers
-            MovieModuleManager.SETTINGS.setDefaultScrapers();
-            TvShowModuleManager.SETTINGS.setDefaultScrapers();
+          if (newVersion) {
+            if (g2 != null) {
+              updateProgress(g2, "upgrading database to new version", 70);
+              splash.update();
+            }
+            moduleManager.awaitStartupStep("upgrade");
           }
 
+          // the update and scrape tasks (which can be started right after the UI) need the mediainfo cache
           if (g2 != null) {
-            updateProgress(g2, "starting services", 60);
+            updateProgress(g2, "loading mediainfo", 75);
             splash.update();
           }
-          Upnp u = Upnp.getInstance();
-          if (Globals.settings.isUpnpShareLibrary()) {
-            u.startWebServer();
-            u.createUpnpService();
-            u.startMediaServer();
-          }
-          if (Globals.settings.isUpnpRemotePlay()) {
-            u.createUpnpService();
-            u.sendPlayerSearchRequest();
-            u.startWebServer();
-          }
           try {
-            // TODO: async?
-            KodiRPC.getInstance().connect();
+            moduleManager.awaitStartupStep("mediainfo cache");
           }
-          catch (Exception e) {
-            // catch all, to not kill JVM on any other exceptions!
-            LOGGER.error(e.getMessage());
+          catch (Exception | LinkageError e) {
+            // e.g. a missing libmediainfo - tmm works without it; the failure is reported with the other failed steps
+            LOGGER.error("could not load mediainfo: {}", e.toString());
           }
 
-          // do upgrade tasks after database loading
-          if (newVersion) {
-            if (g2 != null) {
-              updateProgress(g2, "upgrading database to new version", 70);
-              splash.update();
-            }
-            UpgradeTasks.performUpgradeTasksAfterDatabaseLoading(oldVersion);
-          }
+          // the services are not needed for the UI - they are finished in the background
+          CompletableFuture<List<String>> startupFinished = moduleManager.finishStartup();
 
           // launch application ////////////////////////////////////////////
           if (g2 != null) {
@@ -319,6 +345,9 @@ public class TinyMediaManager {
             TmmWindowSaver.getInstance().loadSettings(window);
             window.setVisible(true);
 
+            // the messages can be shown once the window is there
+            startupFinished.thenAccept(TinyMediaManager::reportFailedStartupSteps);
+
             // wizard for new user
             if (Globals.settings.isNewConfig()) {
               TinyMediaManagerWizard wizard = new TinyMediaManagerWizard();
@@ -332,6 +361,8 @@ public class TinyMediaManager {
             }
           }
           else {
+            // the command line tasks need everything
+            reportFailedStartupSteps(startupFinished.join());
             TinyMediaManagerCMD.startCommandLineTasks();
             // wait for other tmm threads (artwork download et all)
             while (TmmTaskManager.getInstance().poolRunning()) {
@@ -586,6 +617,16 @@ public class TinyMediaManager {
     }
   }
 
+  /**
+   * inform the user about all startup steps which failed (e.g. mediainfo or UPnP)
+   */
+  private static void reportFailedStartupSteps(List<String> failedSteps) {
+    if (!failedSteps.isEmpty()) {
+      String steps = String.join(", ", failedSteps);
+      MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, "tinyMediaManager", "message.startup.failed", new String[] { steps }));
+    }
+  }
+
   /**
    * debug various JVM character settings
    */
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.h2.mvstore.MVMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * The class BinaryRecordCodec. Used to store media entities in a compact binary (Smile) format in the database.<br>
+ * Every record starts with a small header (magic bytes + schema version), followed by the Smile encoded entity. The Smile payload carries the same
+ * properties as the JSON representation, so records can be migrated between both formats without decoding the entities
+ *
+ * @author Manuel Laggner
+ */
+public class BinaryRecordCodec<T> {
+  private static final Logger LOGGER                 = LoggerFactory.getLogger(BinaryRecordCodec.class);
+
+  public static final byte    SCHEMA_VERSION         = 1;
+  private static final byte[] MAGIC                  = { 'T', 'M', 'M' };
+  private static final int    HEADER_LENGTH          = MAGIC.length + 1;
+  // the amount of startups on which a record is tried to be migrated
+  static final int            MAX_MIGRATION_ATTEMPTS = 3;
+
+  private final ObjectMapper  smileMapper;
+  private final ObjectReader  objectReader;
+  private final ObjectWriter  objectWriter;
+
+  /**
+   * create a new codec for the given type
+   *
+   * @param smileMapper
+   *          an {@link ObjectMapper} backed by a SmileFactory and configured like the JSON mapper of the module
+   * @param type
+   *          the class of the entities to encode/decode
+   */
+  public BinaryRecordCodec(ObjectMapper smileMapper, Class<T> type) {
+    this.smileMapper = smileMapper;
+    this.objectReader = smileMapper.readerFor(type);
+    this.objectWriter = smileMapper.writerFor(type);
+  }
+
+  /**
+   * encode the given entity into a binary record
+   *
+   * @param entity
+   *          the entity to encode
+   * @return the binary record (header + payload)
+   * @throws IOException
+   *           any exception while encoding
+   */
+  public byte[] encode(T entity) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream(1024);
+    writeHeader(os);
+    objectWriter.writeValue(os, entity);
+    return os.toByteArray();
+  }
+
+  /**
+   * decode the given binary record into an entity
+   *
+   * @param record
+   *          the binary record
+   * @return the decoded entity
+   * @throws IOException
+   *           if the record is corrupt or has been written with an unknown schema version
+   */
+  public T decode(byte[] record) throws IOException {
+    checkHeader(record);
+    return objectReader.readValue(record, HEADER_LENGTH, record.length - HEADER_LENGTH);
+  }
+
+  /**
+   * convert a binary record into its JSON representation (for dumping and migration)
+   *
+   * @param record
+   *          the binary record
+   * @param jsonMapper
+   *          the mapper to write the JSON with
+   * @return the JSON string
+   * @throws IOException
+   *           if the record is corrupt
+   */
+  public String toJson(byte[] record, ObjectMapper jsonMapper) throws IOException {
+    checkHeader(record);
+    JsonNode node = smileMapper.readTree(smileMapper.getFactory().createParser(record, HEADER_LENGTH, record.length - HEADER_LENGTH));
+    return jsonMapper.writeValueAsString(node);
+  }
+
+  /**
+   * convert a JSON string into a binary record (for migration)
+   *
+   * @param json
+   *          the JSON string
+   * @param jsonMapper
+   *          the mapper to read the JSON with
+   * @return the binary record
+   * @throws IOException
+   *           if the JSON string is corrupt
+   */
+  public byte[] fromJson(String json, ObjectMapper jsonMapper) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream(json.length());
+    writeHeader(os);
+    smileMapper.writeValue(os, jsonMapper.readTree(json));
+    return os.toByteArray();
+  }
+
+  /**
+   * move all entries of the JSON map into the binary map
+   *
+   * @param jsonMap
+   *          the source map (JSON strings)
+   * @param binaryMap
+   *          the target map (binary records)
+   * @param failedMap
+   *          the amount of failed migration attempts per record
+   * @param jsonMapper
+   *          the mapper to read the JSON with
+   * @return the amount of migrated entries
+   */
+  public int migrateToBinary(MVMap<UUID, String> jsonMap, MVMap<UUID, byte[]> binaryMap, MVMap<UUID, Integer> failedMap,
+      ObjectMapper jsonMapper) {
+    return migrate(jsonMap, binaryMap, failedMap, json -> fromJson(json, jsonMapper));
+  }
+
+  /**
+   * move all entries of the binary map back into the JSON map
+   *
+   * @param binaryMap
+   *          the source map (binary records)
+   * @param jsonMap
+   *          the target map (JSON strings)
+   * @param failedMap
+   *          the amount of failed migration attempts per record
+   * @param jsonMapper
+   *          the mapper to write the JSON with
+   * @return the amount of migrated entries
+   */
+  public int migrateToJson(MVMap<UUID, byte[]> binaryMap, MVMap<UUID, String> jsonMap, MVMap<UUID, Integer> failedMap, ObjectMapper jsonMapper) {
+    return migrate(binaryMap, jsonMap, failedMap, record -> toJson(record, jsonMapper));
+  }
+
+  /**
+   * move all entries of the source map into the target map. Records which could not be converted are kept in the source map (never lose any data
+   * by migrating) and their attempts are counted in the failed map; after {@link #MAX_MIGRATION_ATTEMPTS} attempts they are not retried any more.
+   * The module managers load these records with the decoder of the old format and write them in the actual format
+   */
+  private <S, D> int migrate(MVMap<UUID, S> sourceMap, MVMap<UUID, D> targetMap, MVMap<UUID, Integer> failedMap, RecordConverter<S, D> converter) {
+    int count = 0;
+    int skipped = 0;
+    for (UUID uuid : new ArrayList<>(sourceMap.keyList())) {
+      int attempts = failedMap.getOrDefault(uuid, 0);
+      if (attempts >= MAX_MIGRATION_ATTEMPTS) {
+        skipped++;
+        continue;
+      }
+
+      try {
+        targetMap.put(uuid, converter.convert(sourceMap.get(uuid)));
+        sourceMap.remove(uuid);
+        if (attempts > 0) {
+          failedMap.remove(uuid);
+        }
+        count++;
+      }
+      catch (Exception e) {
+        // e.g. a record of a newer schema version (downgrade) - keep it in the source map
+        attempts++;
+        failedMap.put(uuid, attempts);
+        if (attempts < MAX_MIGRATION_ATTEMPTS) {
+          LOGGER.warn("could not migrate record {} - {}", uuid, e.getMessage());
+        }
+        else {
+          LOGGER.error("could not migrate record {} - giving up after {} attempts: {}", uuid, attempts, e.getMessage());
+        }
+      }
+    }
+
+    if (skipped > 0) {
+      LOGGER.info("skipped {} records which could not be migrated before", skipped);
+    }
+    return count;
+  }
+
+  /**
+   * drop the record of the given entity from the map of the old format (if it could not be migrated before). To be called after the entity has
+   * been written in the actual format
+   *
+   * @param oldMap
+   *          the map of the old format
+   * @param failedMap
+   *          the amount of failed migration attempts per record
+   * @param uuid
+   *          the db id of the entity
+   */
+  public static void removeUnmigrated(MVMap<UUID, ?> oldMap, MVMap<UUID, Integer> failedMap, UUID uuid) {
+    if (!oldMap.isEmpty() && oldMap.remove(uuid) != null) {
+      failedMap.remove(uuid);
+    }
+  }
+
+  private void writeHeader(ByteArrayOutputStream os) {
+    os.write(MAGIC, 0, MAGIC.length);
+    os.write(SCHEMA_VERSION);
+  }
+
+  private void checkHeader(byte[] record) throws IOException {
+    if (record == null || record.length <= HEADER_LENGTH) {
+      throw new IOException("record too short");
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (record[i] != MAGIC[i]) {
+        throw new IOException("invalid record header");
+      }
+    }
+    // newer versions must be migrated here once there are any
+    if (record[MAGIC.length] != SCHEMA_VERSION) {
+      throw new IOException("unsupported record version " + record[MAGIC.length]);
+    }
+  }
+
+  @FunctionalInterface
+  private interface RecordConverter<S, D> {
+    D convert(S source) throws IOException;
+  }
+}
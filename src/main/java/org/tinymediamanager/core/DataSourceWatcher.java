@@ -0,0 +1,522 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class DataSourceWatcher. Watches the given datasources for changes and reports the affected folders (e.g. the movie or TV show folder) to a
+ * listener. All events for a folder are debounced: the folder is reported once no further event for it arrived within the debounce time - so a
+ * running copy results in only one report.<br>
+ * Local datasources are watched via the {@link WatchService} of the OS; network mounts (where the OS does not get notified about remote changes)
+ * and datasources exceeding the watch limits of the OS are polled by comparing the last modified dates of their directories.<br>
+ * Changes made by tmm itself (NFOs, artwork, renaming; see {@link #markOwnChange(Path)}) and temporary download files are not reported
+ *
+ * @author Manuel Laggner
+ */
+public class DataSourceWatcher {
+  private static final Logger              LOGGER             = LoggerFactory.getLogger(DataSourceWatcher.class);
+  private static final List<String>        NETWORK_FS         = Arrays.asList("nfs", "cifs", "smb", "afp", "fuse.sshfs", "sshfs", "davfs", "webdav",
+      "9p");
+  private static final List<String>        TEMP_FILES         = Arrays.asList(".part", ".state");
+  private static final long                OWN_CHANGE_WINDOW  = 10000;
+  private static final int                 MAX_OWN_CHANGES    = 1000;
+  // paths changed by tmm itself (and their parent folders) -> time of the change; only recorded while a watcher is running
+  private static final Map<Path, Long>     OWN_CHANGES        = new ConcurrentHashMap<>();
+  private static final AtomicInteger       RUNNING_WATCHERS   = new AtomicInteger();
+  private static volatile long             ownChangeRetention = 2 * OWN_CHANGE_WINDOW;
+
+  private final String                     name;
+  private final long                       debounce;
+  private final long                       pollInterval;
+  private final int                        pollDepth;
+  private final FolderResolver             resolver;
+  private final ChangeListener             listener;
+
+  private final Map<Path, Path>            watchedDirs       = new ConcurrentHashMap<>();
+  private final Map<Path, Map<Path, Long>> pollSnapshots     = new ConcurrentHashMap<>();
+  private final Map<Path, PendingChange>   pending           = new ConcurrentHashMap<>();
+
+  private ScheduledThreadPoolExecutor      executor;
+  private WatchService                     watchService;
+  private Thread                           watchThread;
+
+  /**
+   * create a new datasource watcher
+   *
+   * @param name
+   *          the name of the watcher (used for the thread names and logging)
+   * @param debounce
+   *          the time (in ms) without any event for a folder until it is reported
+   * @param pollInterval
+   *          the interval (in ms) for polling datasources which cannot be watched
+   * @param pollDepth
+   *          the depth of the directory tree beneath the datasource which is checked while polling
+   * @param resolver
+   *          the resolver for mapping a changed path to the folder to report
+   * @param listener
+   *          the listener to report the changed folders to
+   */
+  public DataSourceWatcher(String name, long debounce, long pollInterval, int pollDepth, FolderResolver resolver, ChangeListener listener) {
+    this.name = name;
+    this.debounce = debounce;
+    this.pollInterval = pollInterval;
+    this.pollDepth = pollDepth;
+    this.resolver = resolver;
+    this.listener = listener;
+  }
+
+  /**
+   * start watching the given datasources. Registering the directory trees is done in the background
+   *
+   * @param dataSources
+   *          the datasources to watch
+   */
+  public synchronized void start(Collection<String> dataSources) {
+    if (executor != null) {
+      stop();
+    }
+
+    executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "watcher-" + name);
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    RUNNING_WATCHERS.incrementAndGet();
+    // own changes are needed until the next poll
+    ownChangeRetention = Math.max(ownChangeRetention, 2 * (pollInterval + OWN_CHANGE_WINDOW));
+
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+      watchThread = new Thread(this::processEvents, "watcher-events-" + name);
+      watchThread.setDaemon(true);
+      watchThread.start();
+    }
+    catch (Exception e) {
+      LOGGER.warn("could not create a watch service for {} - polling all datasources: {}", name, e.getMessage());
+      watchService = null;
+    }
+
+    List<Path> paths = new ArrayList<>();
+    for (String ds : dataSources) {
+      if (StringUtils.isNotBlank(ds)) {
+        paths.add(Paths.get(ds).toAbsolutePath().normalize());
+      }
+    }
+
+    executor.execute(() -> register(paths));
+    executor.scheduleWithFixedDelay(this::reportChanges, debounce, Math.max(debounce / 2, 100), TimeUnit.MILLISECONDS);
+    executor.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * stop watching; pending changes are dropped
+   */
+  public synchronized void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+      if (RUNNING_WATCHERS.decrementAndGet() <= 0) {
+        OWN_CHANGES.clear();
+      }
+    }
+    if (watchService != null) {
+      try {
+        // also ends the event thread
+        watchService.close();
+      }
+      catch (IOException e) {
+        LOGGER.debug("could not close watch service of {} - {}", name, e.getMessage());
+      }
+      watchService = null;
+      watchThread = null;
+    }
+    watchedDirs.clear();
+    pollSnapshots.clear();
+    pending.clear();
+  }
+
+  /**
+   * is the watcher running?
+   *
+   * @return true if the datasources are being watched
+   */
+  public synchronized boolean isRunning() {
+    return executor != null;
+  }
+
+  /**
+   * mark the given path as written/moved/deleted by tmm itself. Changes of this path (and the change of its parent folder) are not reported by any
+   * watcher. Nothing is recorded if no watcher is running
+   *
+   * @param path
+   *          the file or folder which is being changed by tmm
+   */
+  public static void markOwnChange(Path path) {
+    if (path == null || RUNNING_WATCHERS.get() <= 0) {
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    Path normalized = path.toAbsolutePath().normalize();
+    OWN_CHANGES.put(normalized, now);
+    if (normalized.getParent() != null) {
+      OWN_CHANGES.put(normalized.getParent(), now);
+    }
+
+    if (OWN_CHANGES.size() > MAX_OWN_CHANGES) {
+      pruneOwnChanges(now);
+    }
+  }
+
+  /*
+   * has the given path (or a direct child of it) been changed by tmm since the given time?
+   */
+  static boolean isOwnChange(Path path, long since) {
+    Long time = OWN_CHANGES.get(path.toAbsolutePath().normalize());
+    return time != null && time >= since;
+  }
+
+  private static void pruneOwnChanges(long now) {
+    long expired = now - ownChangeRetention;
+    OWN_CHANGES.values().removeIf(time -> time < expired);
+  }
+
+  /*
+   * temporary files of running downloads
+   */
+  private static boolean isTempFile(Path path) {
+    String filename = path.getFileName().toString().toLowerCase(Locale.ROOT);
+    for (String extension : TEMP_FILES) {
+      if (filename.endsWith(extension)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void register(List<Path> dataSources) {
+    for (Path dataSource : dataSources) {
+      if (!Files.isDirectory(dataSource)) {
+        LOGGER.warn("{} - datasource {} is not available - not watching it", name, dataSource);
+        continue;
+      }
+
+      if (watchService == null || isNetworkMount(dataSource)) {
+        startPolling(dataSource);
+        continue;
+      }
+
+      try {
+        registerTree(dataSource, dataSource);
+        LOGGER.info("{} - watching datasource {}", name, dataSource);
+      }
+      catch (Exception e) {
+        // most likely the limit of watches has been reached (inotify)
+        LOGGER.warn("{} - could not watch datasource {} ({}) - polling it", name, dataSource, e.getMessage());
+        unregisterTree(dataSource);
+        startPolling(dataSource);
+      }
+    }
+  }
+
+  private void registerTree(Path dataSource, Path dir) throws IOException {
+    Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path subdir, BasicFileAttributes attrs) throws IOException {
+        subdir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        watchedDirs.put(subdir, dataSource);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        // not accessible - nothing to watch
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void unregisterTree(Path dataSource) {
+    watchedDirs.values().removeIf(dataSource::equals);
+  }
+
+  private boolean isNetworkMount(Path dataSource) {
+    // UNC paths on windows
+    if (dataSource.toString().startsWith("\\\\")) {
+      return true;
+    }
+
+    try {
+      FileStore fileStore = Files.getFileStore(dataSource);
+      String type = fileStore.type().toLowerCase(Locale.ROOT);
+      for (String fs : NETWORK_FS) {
+        if (type.startsWith(fs)) {
+          return true;
+        }
+      }
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not get the file store of {} - {}", dataSource, e.getMessage());
+    }
+    return false;
+  }
+
+  /*
+   * the event loop of the watch service; runs until the watch service has been closed
+   */
+  private void processEvents() {
+    WatchService service = watchService;
+    while (true) {
+      WatchKey key;
+      try {
+        key = service.take();
+      }
+      catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+
+      Path dir = (Path) key.watchable();
+      Path dataSource = watchedDirs.get(dir);
+
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (dataSource == null) {
+          continue;
+        }
+
+        if (event.kind() == OVERFLOW) {
+          // we lost events - report the whole datasource
+          LOGGER.debug("{} - event overflow in {}", name, dataSource);
+          addChange(dataSource, dataSource);
+          continue;
+        }
+
+        Path changed = dir.resolve((Path) event.context());
+        if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+          try {
+            registerTree(dataSource, changed);
+          }
+          catch (Exception e) {
+            LOGGER.debug("{} - could not watch {} - {}", name, changed, e.getMessage());
+          }
+        }
+
+        // our own changes would just put the folder in the update queue again
+        if (isTempFile(changed) || isOwnChange(changed, System.currentTimeMillis() - OWN_CHANGE_WINDOW)) {
+          continue;
+        }
+        addChange(dataSource, changed);
+      }
+
+      if (!key.reset()) {
+        // the directory is not accessible any more
+        watchedDirs.remove(dir);
+        if (dir.equals(dataSource)) {
+          LOGGER.warn("{} - datasource {} vanished - polling it", name, dataSource);
+          unregisterTree(dataSource);
+          startPolling(dataSource);
+        }
+      }
+    }
+  }
+
+  private void startPolling(Path dataSource) {
+    pollSnapshots.put(dataSource, snapshot(dataSource));
+    LOGGER.info("{} - polling datasource {} every {}s", name, dataSource, TimeUnit.MILLISECONDS.toSeconds(pollInterval));
+  }
+
+  private void poll() {
+    // every own change since the last poll
+    long since = System.currentTimeMillis() - pollInterval - OWN_CHANGE_WINDOW;
+
+    for (Map.Entry<Path, Map<Path, Long>> entry : pollSnapshots.entrySet()) {
+      Path dataSource = entry.getKey();
+      Map<Path, Long> oldSnapshot = entry.getValue();
+      Map<Path, Long> newSnapshot = snapshot(dataSource);
+
+      // an empty datasource is most likely offline - do not report everything as deleted
+      if (newSnapshot.isEmpty() && !oldSnapshot.isEmpty()) {
+        continue;
+      }
+
+      for (Map.Entry<Path, Long> dir : newSnapshot.entrySet()) {
+        if (!dir.getValue().equals(oldSnapshot.get(dir.getKey())) && !isOwnChange(dir.getKey(), since)) {
+          addChange(dataSource, dir.getKey());
+        }
+      }
+      for (Path dir : oldSnapshot.keySet()) {
+        if (!newSnapshot.containsKey(dir) && !isOwnChange(dir, since)) {
+          addChange(dataSource, dir);
+        }
+      }
+      entry.setValue(newSnapshot);
+    }
+  }
+
+  /*
+   * the last modified dates of all directories beneath the datasource (up to the poll depth)
+   */
+  private Map<Path, Long> snapshot(Path dataSource) {
+    Map<Path, Long> snapshot = new HashMap<>();
+    try {
+      Files.walkFileTree(dataSource, EnumSet.noneOf(FileVisitOption.class), pollDepth, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          if (!dir.equals(dataSource)) {
+            snapshot.put(dir, attrs.lastModifiedTime().toMillis());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          // directories at the max depth are passed as files
+          if (attrs.isDirectory()) {
+            snapshot.put(file, attrs.lastModifiedTime().toMillis());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+    catch (Exception e) {
+      LOGGER.debug("{} - could not poll {} - {}", name, dataSource, e.getMessage());
+    }
+    return snapshot;
+  }
+
+  private void addChange(Path dataSource, Path changed) {
+    Path folder = changed.equals(dataSource) ? dataSource : resolver.resolve(dataSource, changed);
+    if (folder == null) {
+      return;
+    }
+    pending.put(folder, new PendingChange(dataSource, System.currentTimeMillis()));
+  }
+
+  /*
+   * report all folders which had no event within the debounce time
+   */
+  private void reportChanges() {
+    long threshold = System.currentTimeMillis() - debounce;
+
+    pruneOwnChanges(System.currentTimeMillis());
+
+    Map<Path, Set<Path>> changes = new HashMap<>();
+
+    for (Map.Entry<Path, PendingChange> entry : pending.entrySet()) {
+      PendingChange change = entry.getValue();
+      // only remove it if there was no newer event in the meantime
+      if (change.lastEvent <= threshold && pending.remove(entry.getKey(), change)) {
+        changes.computeIfAbsent(change.dataSource, ds -> new HashSet<>()).add(entry.getKey());
+      }
+    }
+
+    for (Map.Entry<Path, Set<Path>> entry : changes.entrySet()) {
+      LOGGER.debug("{} - changes in {}: {}", name, entry.getKey(), entry.getValue());
+      try {
+        listener.changed(entry.getKey(), entry.getValue());
+      }
+      catch (Exception e) {
+        LOGGER.warn("{} - could not process changes in {}: {}", name, entry.getKey(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Resolves the folder to report for a changed path
+   */
+  @FunctionalInterface
+  public interface FolderResolver {
+    /**
+     * get the folder which contains the changed path (e.g. the movie folder)
+     *
+     * @param dataSource
+     *          the datasource containing the changed path
+     * @param changed
+     *          the changed file/directory
+     * @return the folder to report or null if the change should be ignored
+     */
+    Path resolve(Path dataSource, Path changed);
+  }
+
+  /**
+   * Gets informed about changed folders
+   */
+  @FunctionalInterface
+  public interface ChangeListener {
+    /**
+     * the given folders of the datasource have been changed (created, modified or deleted). If the whole datasource needs to be re-read, the
+     * datasource itself is in the set
+     *
+     * @param dataSource
+     *          the datasource
+     * @param folders
+     *          the changed folders
+     */
+    void changed(Path dataSource, Set<Path> folders);
+  }
+
+  private static class PendingChange {
+    private final Path dataSource;
+    private final long lastEvent;
+
+    private PendingChange(Path dataSource, long lastEvent) {
+      this.dataSource = dataSource;
+      this.lastEvent = lastEvent;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.h2.mvstore.MVMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.entities.MediaEntity;
+
+/**
+ * The class DatabaseLoader. Used to decode all entities of a {@link MVMap} at startup. Big maps are split into key ranges which are decoded on a
+ * fork-join pool; the results are merged in the original key order
+ *
+ * @author Manuel Laggner
+ */
+public class DatabaseLoader<V, T extends MediaEntity> {
+  private static final Logger       LOGGER               = LoggerFactory.getLogger(DatabaseLoader.class);
+
+  /** below this amount of entries we do not split the work any further */
+  private static final int          SEQUENTIAL_THRESHOLD = 512;
+  private static final String       PARALLEL_PROPERTY    = "tmm.parallelload";
+
+  private final MVMap<UUID, V>      map;
+  private final RecordDecoder<V, T> decoder;
+  private final List<UUID>          keys;
+
+  public DatabaseLoader(MVMap<UUID, V> map, RecordDecoder<V, T> decoder) {
+    this.map = map;
+    this.decoder = decoder;
+    this.keys = new ArrayList<>(map.keyList());
+  }
+
+  /**
+   * is the parallel loading mode active? It can be disabled by passing -Dtmm.parallelload=false
+   *
+   * @return true if the maps should be loaded in parallel
+   */
+  public static boolean isParallelLoadingEnabled() {
+    return Boolean.parseBoolean(System.getProperty(PARALLEL_PROPERTY, "true")) && Runtime.getRuntime().availableProcessors() > 1;
+  }
+
+  /**
+   * decode all entries of the map. The keys of entries which could not be decoded are put into the given list - removing them from the database is
+   * up to the caller
+   *
+   * @param corruptEntries
+   *          a list to collect the keys of all corrupt entries
+   * @return a list of all decoded entities (in key order) with their db id set
+   */
+  public List<T> load(List<UUID> corruptEntries) {
+    if (keys.size() <= SEQUENTIAL_THRESHOLD || !isParallelLoadingEnabled()) {
+      return decodeRange(0, keys.size(), corruptEntries);
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    try {
+      DecodeResult<T> result = pool.invoke(new DecodeTask(0, keys.size()));
+      corruptEntries.addAll(result.corruptEntries);
+      return result.entities;
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  private List<T> decodeRange(int from, int to, List<UUID> corruptEntries) {
+    List<T> entities = new ArrayList<>(to - from);
+
+    for (int i = from; i < to; i++) {
+      UUID uuid = keys.get(i);
+      V record = null;
+      try {
+        record = map.get(uuid);
+        T entity = decoder.decode(record);
+        entity.setDbId(uuid);
+        entities.add(entity);
+      }
+      catch (Exception e) {
+        LOGGER.warn("problem decoding database record {}: {}", uuid, e.getMessage());
+        if (record instanceof String) {
+          LOGGER.info("corrupt record: {}", record);
+        }
+        corruptEntries.add(uuid);
+      }
+    }
+
+    return entities;
+  }
+
+  /**
+   * decodes a single database record into an entity
+   */
+  @FunctionalInterface
+  public interface RecordDecoder<V, T> {
+    T decode(V record) throws Exception;
+  }
+
+  /*
+   * helper classes
+   */
+  private static class DecodeResult<T> {
+    private final List<T>    entities;
+    private final List<UUID> corruptEntries;
+
+    private DecodeResult(List<T> entities, List<UUID> corruptEntries) {
+      this.entities = entities;
+      this.corruptEntries = corruptEntries;
+    }
+  }
+
+  private class DecodeTask extends RecursiveTask<DecodeResult<T>> {
+    private static final long serialVersionUID = 1L;
+
+    private final int         from;
+    private final int         to;
+
+    private DecodeTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected DecodeResult<T> compute() {
+      if (to - from <= SEQUENTIAL_THRESHOLD) {
+        List<UUID> corruptEntries = new ArrayList<>();
+        return new DecodeResult<>(decodeRange(from, to, corruptEntries), corruptEntries);
+      }
+
+      int middle = (from + to) >>> 1;
+      DecodeTask left = new DecodeTask(from, middle);
+      DecodeTask right = new DecodeTask(middle, to);
+      left.fork();
+      DecodeResult<T> rightResult = right.compute();
+      DecodeResult<T> leftResult = left.join();
+
+      // merge in key order
+      leftResult.entities.addAll(rightResult.entities);
+      leftResult.corruptEntries.addAll(rightResult.corruptEntries);
+      return leftResult;
+    }
+  }
+}
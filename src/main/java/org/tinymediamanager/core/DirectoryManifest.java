@@ -0,0 +1,370 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.h2.mvstore.MVMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.scraper.util.StrgUtils;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * The class DirectoryManifest. Used for incremental updates of datasources: for every visited directory the last modified date, the amount of
+ * entries and a hash of all entry names is persisted. A directory tree is unchanged if the last modified date of every (known) directory is the
+ * same as in the last run - or if the entries are still the same if the date has changed.<br>
+ * Since the last modified date of a directory only changes when entries are added/removed/renamed, changes of the file contents are not detected
+ * here
+ *
+ * @author Manuel Laggner
+ */
+public class DirectoryManifest {
+  private static final Logger         LOGGER = LoggerFactory.getLogger(DirectoryManifest.class);
+
+  private final MVMap<String, String> map;
+  private final ObjectReader          objectReader;
+  private final ObjectWriter          objectWriter;
+
+  /**
+   * create a new manifest which is persisted in the given map
+   *
+   * @param map
+   *          the map to store the manifest in
+   */
+  public DirectoryManifest(MVMap<String, String> map) {
+    this.map = map;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    objectReader = objectMapper.readerFor(Entry.class);
+    objectWriter = objectMapper.writerFor(Entry.class);
+  }
+
+  /**
+   * check if the directory tree beneath the given directory is unchanged since it has been recorded the last time
+   *
+   * @param dir
+   *          the root of the directory tree
+   * @param knownPaths
+   *          a collection where all known files/directories of the tree are added to (only if the tree is unchanged)
+   * @return true if the tree has not been changed
+   */
+  public boolean isUnchanged(Path dir, Collection<Path> knownPaths) {
+    List<Path> paths = new ArrayList<>();
+    Map<String, Entry> touched = new HashMap<>();
+
+    if (!isUnchanged(dir.toAbsolutePath().normalize(), paths, touched)) {
+      return false;
+    }
+
+    // the entries where only the date changed - store the new date to avoid listing them again
+    for (Map.Entry<String, Entry> entry : touched.entrySet()) {
+      put(entry.getKey(), entry.getValue());
+    }
+    knownPaths.addAll(paths);
+    return true;
+  }
+
+  private boolean isUnchanged(Path dir, List<Path> paths, Map<String, Entry> touched) {
+    String key = dir.toString();
+    Entry entry = get(key);
+    if (entry == null) {
+      return false;
+    }
+
+    long lastModified;
+    try {
+      lastModified = Files.readAttributes(dir, BasicFileAttributes.class).lastModifiedTime().toMillis();
+    }
+    catch (IOException e) {
+      // vanished
+      return false;
+    }
+
+    if (lastModified != entry.lastModified) {
+      // for skipped directories we do not know the content
+      if (entry.hash == null) {
+        return false;
+      }
+
+      // the date has changed - compare the entries
+      List<String> names = listNames(dir);
+      if (names.size() != entry.count || !entry.hash.equals(hash(names))) {
+        return false;
+      }
+
+      entry.lastModified = lastModified;
+      touched.put(key, entry);
+    }
+
+    paths.add(dir);
+    for (String file : entry.files) {
+      paths.add(dir.resolve(file));
+    }
+    for (String subdir : entry.dirs) {
+      if (!isUnchanged(dir.resolve(subdir), paths, touched)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * start recording a new directory tree
+   *
+   * @param root
+   *          the root of the directory tree
+   * @return the {@link Recorder} to collect the directory information
+   */
+  public Recorder startRecording(Path root) {
+    return new Recorder(root.toAbsolutePath().normalize());
+  }
+
+  /**
+   * store the recorded directory tree. All entries from a previous recording of this tree are removed
+   *
+   * @param recorder
+   *          the recorder
+   */
+  public void commit(Recorder recorder) {
+    removeTree(recorder.root.toString());
+
+    for (Map.Entry<Path, Entry> entry : recorder.entries.entrySet()) {
+      Entry value = entry.getValue();
+      if (value.hash == null && !value.skipped) {
+        value.hash = hash(value.names);
+        value.count = value.names.size();
+      }
+      put(entry.getKey().toString(), value);
+    }
+  }
+
+  /**
+   * remove the given directory from the manifest. Every tree containing this directory will be treated as changed the next time
+   *
+   * @param dir
+   *          the directory to remove
+   */
+  public void invalidate(Path dir) {
+    if (dir == null) {
+      return;
+    }
+    map.remove(dir.toAbsolutePath().normalize().toString());
+  }
+
+  /**
+   * remove all entries from the manifest
+   */
+  public void clear() {
+    map.clear();
+  }
+
+  private void removeTree(String root) {
+    String prefix = root.endsWith(File.separator) ? root : root + File.separator;
+    map.remove(root);
+
+    // the keys are sorted - all children are following directly
+    Iterator<String> iterator = map.keyIterator(prefix);
+    List<String> toRemove = new ArrayList<>();
+    while (iterator.hasNext()) {
+      String key = iterator.next();
+      if (!key.startsWith(prefix)) {
+        break;
+      }
+      toRemove.add(key);
+    }
+    for (String key : toRemove) {
+      map.remove(key);
+    }
+  }
+
+  private Entry get(String key) {
+    String json = map.get(key);
+    if (json == null) {
+      return null;
+    }
+
+    try {
+      return objectReader.readValue(json);
+    }
+    catch (Exception e) {
+      LOGGER.debug("dropping corrupt manifest entry for {} - {}", key, e.getMessage());
+      map.remove(key);
+      return null;
+    }
+  }
+
+  private void put(String key, Entry entry) {
+    try {
+      map.put(key, objectWriter.writeValueAsString(entry));
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not store manifest entry for {} - {}", key, e.getMessage());
+    }
+  }
+
+  private static List<String> listNames(Path dir) {
+    List<String> names = new ArrayList<>();
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(dir)) {
+      for (Path path : directoryStream) {
+        names.add(path.getFileName().toString());
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not list {} - {}", dir, e.getMessage());
+    }
+    return names;
+  }
+
+  private static String hash(List<String> names) {
+    List<String> sorted = new ArrayList<>(names);
+    Collections.sort(sorted);
+
+    try {
+      MessageDigest md = MessageDigest.getInstance("MD5");
+      for (String name : sorted) {
+        md.update(name.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+      }
+      return StrgUtils.bytesToHex(md.digest());
+    }
+    catch (Exception e) {
+      // MD5 is always available
+      return Integer.toHexString(sorted.hashCode());
+    }
+  }
+
+  /**
+   * The class Recorder. Collects the directory information while walking a directory tree (e.g. from a {@link java.nio.file.FileVisitor})
+   */
+  public static class Recorder {
+    private final Path             root;
+    private final Map<Path, Entry> entries = new HashMap<>();
+
+    private Recorder(Path root) {
+      this.root = root;
+    }
+
+    /**
+     * get the root of the recorded directory tree
+     *
+     * @return the root (absolute and normalized)
+     */
+    public Path getRoot() {
+      return root;
+    }
+
+    /**
+     * record a visited directory
+     *
+     * @param dir
+     *          the directory
+     * @param attrs
+     *          the attributes of the directory
+     */
+    public synchronized void directory(Path dir, BasicFileAttributes attrs) {
+      addDirectory(dir, attrs, false);
+    }
+
+    /**
+     * record a directory which has been skipped (the content is unknown)
+     *
+     * @param dir
+     *          the directory
+     * @param attrs
+     *          the attributes of the directory
+     */
+    public synchronized void skippedDirectory(Path dir, BasicFileAttributes attrs) {
+      addDirectory(dir, attrs, true);
+    }
+
+    /**
+     * record a visited file
+     *
+     * @param file
+     *          the file
+     */
+    public synchronized void file(Path file) {
+      Entry parent = entries.get(file.toAbsolutePath().normalize().getParent());
+      if (parent != null) {
+        String name = file.getFileName().toString();
+        parent.names.add(name);
+        parent.files.add(name);
+      }
+    }
+
+    private void addDirectory(Path dir, BasicFileAttributes attrs, boolean skipped) {
+      Path normalized = dir.toAbsolutePath().normalize();
+      Entry entry = new Entry();
+      entry.lastModified = attrs.lastModifiedTime().toMillis();
+      entry.skipped = skipped;
+      entries.put(normalized, entry);
+
+      if (!normalized.equals(root)) {
+        Entry parent = entries.get(normalized.getParent());
+        if (parent != null) {
+          String name = normalized.getFileName().toString();
+          parent.names.add(name);
+          parent.dirs.add(name);
+        }
+      }
+    }
+  }
+
+  /**
+   * The persisted information of a directory
+   */
+  static class Entry {
+    @JsonProperty
+    long         lastModified;
+    @JsonProperty
+    int          count;
+    @JsonProperty
+    String       hash;
+    @JsonProperty
+    boolean      skipped;
+    @JsonProperty
+    List<String> files = new ArrayList<>();
+    @JsonProperty
+    List<String> dirs  = new ArrayList<>();
+
+    // only needed while recording
+    @JsonIgnore
+    List<String> names = new ArrayList<>();
+  }
+}
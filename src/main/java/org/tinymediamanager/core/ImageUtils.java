@@ -29,6 +29,12 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
@@ -44,10 +50,18 @@ import org.imgscalr.Scalr;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.scraper.http.Url;
+import org.tinymediamanager.scraper.util.CacheMap;
 import org.tinymediamanager.thirdparty.ImageLoader;
 
 public class ImageUtils {
-  private static final Logger LOGGER = LoggerFactory.getLogger(ImageUtils.class);
+  private static final Logger                                 LOGGER              = LoggerFactory.getLogger(ImageUtils.class);
+
+  // recently downloaded images (the same artwork is often written to several filenames) and the running downloads
+  private static final CacheMap<String, byte[]>               DOWNLOADED_IMAGES   = new CacheMap<>(60, 10, 100, 32L * 1024 * 1024,
+      (url, bytes) -> bytes.length);
+  private static final Map<String, CompletableFuture<byte[]>> DOWNLOADS_IN_FLIGHT = new ConcurrentHashMap<>();
+  // the max time to wait for the download of another thread (the download itself has its own timeouts)
+  private static final long                                   DOWNLOAD_WAIT_TIME  = 300;
 
   /**
    * Scale image to fit in the given width.
@@ -311,27 +325,16 @@ public class ImageUtils {
       }
 
       // fetch and store images
-      Url url;
-      try {
-        url = new Url(urlAsString);
-      }
-      catch (Exception e) {
-        LOGGER.error("downloading {} - {}", urlAsString, e.getMessage());
-        throw e;
-      }
+      byte[] bytes = fetchImage(urlAsString);
 
       if (!rescale || newWidth == 0) {
-        try (InputStream is = url.getInputStreamWithRetry(5); FileOutputStream outputStream = new FileOutputStream(tempFile.toFile())) {
-
-          IOUtils.copy(is, outputStream);
+        try (FileOutputStream outputStream = new FileOutputStream(tempFile.toFile())) {
+          outputStream.write(bytes);
           Utils.flushFileOutputStreamToDisk(outputStream);
         }
       }
       else {
-        try (InputStream is = url.getInputStreamWithRetry(5);
-            InputStream scaledIs = ImageUtils.scaleImage(IOUtils.toByteArray(is), newWidth);
-            FileOutputStream outputStream = new FileOutputStream(tempFile.toFile())) {
-
+        try (InputStream scaledIs = ImageUtils.scaleImage(bytes, newWidth); FileOutputStream outputStream = new FileOutputStream(tempFile.toFile())) {
           IOUtils.copy(scaledIs, outputStream);
           Utils.flushFileOutputStreamToDisk(outputStream);
         }
@@ -361,4 +364,83 @@ public class ImageUtils {
 
     return destFile;
   }
+
+  /**
+   * fetch the image from the given url. Concurrent requests for the same url share one download and the downloaded image is held in memory for
+   * a short time - so writing the same artwork to several filenames (e.g. poster.jpg and folder.jpg) needs only one download
+   *
+   * @param urlAsString
+   *          the url of the image
+   * @return the raw bytes of the image
+   * @throws InterruptedException
+   *           if the download has been interrupted
+   * @throws IOException
+   *           if the image could not be downloaded
+   */
+  public static byte[] fetchImage(String urlAsString) throws InterruptedException, IOException {
+    // local files may change at any time - always read them
+    if (urlAsString.startsWith("file:")) {
+      return download(urlAsString);
+    }
+
+    byte[] bytes = DOWNLOADED_IMAGES.get(urlAsString);
+    if (bytes != null) {
+      LOGGER.trace("re-using downloaded image {}", urlAsString);
+      return bytes;
+    }
+
+    CompletableFuture<byte[]> download = new CompletableFuture<>();
+    CompletableFuture<byte[]> runningDownload = DOWNLOADS_IN_FLIGHT.putIfAbsent(urlAsString, download);
+    if (runningDownload != null) {
+      // another thread is already downloading this image - wait for it
+      try {
+        return runningDownload.get(DOWNLOAD_WAIT_TIME, TimeUnit.SECONDS);
+      }
+      catch (TimeoutException e) {
+        throw new IOException("timeout waiting for the download of " + urlAsString);
+      }
+      catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        if (e.getCause() instanceof InterruptedException) {
+          throw (InterruptedException) e.getCause();
+        }
+        throw new IOException(e.getCause());
+      }
+    }
+
+    try {
+      bytes = download(urlAsString);
+      DOWNLOADED_IMAGES.put(urlAsString, bytes);
+      download.complete(bytes);
+      return bytes;
+    }
+    catch (Throwable t) { // NOSONAR
+      // the waiting threads need to be released on any error
+      download.completeExceptionally(t);
+      throw t;
+    }
+    finally {
+      DOWNLOADS_IN_FLIGHT.remove(urlAsString, download);
+    }
+  }
+
+  private static byte[] download(String urlAsString) throws InterruptedException, IOException {
+    Url url;
+    try {
+      url = new Url(urlAsString);
+    }
+    catch (Exception e) {
+      LOGGER.error("downloading {} - {}", urlAsString, e.getMessage());
+      throw e;
+    }
+
+    try (InputStream is = url.getInputStreamWithRetry(5)) {
+      if (is == null) {
+        throw new IOException("could not fetch " + urlAsString + " - " + url.getStatusCode());
+      }
+      return IOUtils.toByteArray(is);
+    }
+  }
 }
@@ -18,16 +18,23 @@ package org.tinymediamanager.core;
 import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -43,6 +50,8 @@ import com.floreysoft.jmte.encoder.XMLEncoder;
 public abstract class MediaEntityExporter {
   private static final Logger   LOGGER             = LoggerFactory.getLogger(MediaEntityExporter.class);
   protected static final String TEMPLATE_DIRECTORY = "templates";
+  // the amount of threads rendering the detail pages
+  private static final int      EXPORT_THREADS     = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
 
   protected Engine              engine;
   protected Properties          properties;
@@ -50,13 +59,41 @@ public abstract class MediaEntityExporter {
   protected String              listTemplate       = "";
   protected String              detailTemplate     = "";
   protected Path                templateDir;
-  protected boolean             cancel             = false;
+  protected volatile boolean    cancel             = false;
+  private ProgressListener      progressListener   = null;
 
   public enum TemplateType {
     MOVIE,
     TV_SHOW
   }
 
+  /**
+   * gets informed about the progress of the export (always from the exporting thread, with an increasing progress)
+   */
+  public interface ProgressListener {
+    void progress(int done, int total);
+  }
+
+  /**
+   * exports the detail page(s) of one entity
+   *
+   * @param <T>
+   *          the type of the entity
+   */
+  protected interface DetailPageExporter<T> {
+    /**
+     * export the detail page(s) of the given entity
+     *
+     * @param entity
+     *          the entity to export
+     * @param engine
+     *          the engine of the actual thread
+     * @throws Exception
+     *           any exception while exporting
+     */
+    void export(T entity, Engine engine) throws Exception;
+  }
+
   protected MediaEntityExporter(Path templatePath, TemplateType type) throws Exception {
     templateDir = templatePath;
 
@@ -94,14 +131,7 @@ public abstract class MediaEntityExporter {
         : properties.getProperty("extension").toLowerCase();
 
     // set up engine
-    engine = Engine.createEngine();
-
-    if ("html".equals(fileExtension)) {
-      engine.setEncoder(new HtmlEncoder()); // special char replacement
-    }
-    if ("xml".equals(fileExtension)) {
-      engine.setEncoder(new XMLEncoder()); // special char replacement
-    }
+    engine = createEngine();
 
     // load list template from File
     listTemplate = Utils.readFileToString(templateDir.resolve(listTemplateFile));
@@ -112,6 +142,16 @@ public abstract class MediaEntityExporter {
 
   public abstract <T extends MediaEntity> void export(List<T> entitiesToExport, Path pathToExport) throws Exception;
 
+  /**
+   * register the renderers of the exporter in the given engine
+   *
+   * @param engine
+   *          the engine
+   * @param pathToExport
+   *          the path to export
+   */
+  protected abstract void registerRenderers(Engine engine, Path pathToExport);
+
   /**
    * cancel the export
    */
@@ -119,6 +159,147 @@ public abstract class MediaEntityExporter {
     this.cancel = true;
   }
 
+  /**
+   * set a listener for the progress of the export (the detail pages)
+   *
+   * @param progressListener
+   *          the listener
+   */
+  public void setProgressListener(ProgressListener progressListener) {
+    this.progressListener = progressListener;
+  }
+
+  private Engine createEngine() {
+    Engine newEngine = Engine.createEngine();
+
+    if ("html".equals(fileExtension)) {
+      newEngine.setEncoder(new HtmlEncoder()); // special char replacement
+    }
+    if ("xml".equals(fileExtension)) {
+      newEngine.setEncoder(new XMLEncoder()); // special char replacement
+    }
+
+    return newEngine;
+  }
+
+  /**
+   * create a new engine with all renderers of the exporter
+   *
+   * @param pathToExport
+   *          the path to export
+   * @return the engine
+   */
+  protected Engine createEngine(Path pathToExport) {
+    Engine newEngine = createEngine();
+    registerRenderers(newEngine, pathToExport);
+    return newEngine;
+  }
+
+  /**
+   * render the list template and write it to the given file
+   *
+   * @param listExportFile
+   *          the file to write
+   * @param model
+   *          the model for the list template
+   * @throws IOException
+   *           any exception while writing the file
+   */
+  protected void writeList(Path listExportFile, Map<String, Object> model) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(listExportFile, StandardCharsets.UTF_8)) {
+      writer.write(engine.transform(listTemplate, model));
+    }
+  }
+
+  /**
+   * export the detail pages of all entities in parallel. Every thread uses its own engine, because JMTE engines (and their model adaptors) must
+   * not be shared between threads. The progress is published by the calling thread only
+   *
+   * @param entities
+   *          the entities to export
+   * @param pathToExport
+   *          the path to export
+   * @param detailPageExporter
+   *          exports the detail page(s) of one entity
+   * @throws Exception
+   *           the first exception while exporting a detail page
+   */
+  protected <T> void exportDetailPages(List<T> entities, Path pathToExport, DetailPageExporter<T> detailPageExporter) throws Exception {
+    ThreadLocal<Engine> engines = ThreadLocal.withInitial(() -> createEngine(pathToExport));
+    publishProgress(0, entities.size());
+
+    ExecutorService executor = Executors.newFixedThreadPool(EXPORT_THREADS, r -> {
+      Thread thread = new Thread(r, "export");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    try {
+      List<Future<?>> futures = new ArrayList<>(entities.size());
+      for (T entity : entities) {
+        futures.add(executor.submit(() -> {
+          if (!cancel) {
+            detailPageExporter.export(entity, engines.get());
+          }
+          return null;
+        }));
+      }
+      executor.shutdown();
+
+      int done = 0;
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+          publishProgress(++done, entities.size());
+        }
+        catch (ExecutionException e) {
+          // stop all other pages
+          cancel = true;
+          if (e.getCause() instanceof Exception) {
+            throw (Exception) e.getCause();
+          }
+          throw e;
+        }
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * render a detail page and write it to the given file - if the new content differs from the existing file
+   *
+   * @param engine
+   *          the engine of the actual thread
+   * @param template
+   *          the template to render
+   * @param model
+   *          the model for the template
+   * @param file
+   *          the file to write
+   * @return true if the file has been written, false if it did not change
+   * @throws IOException
+   *           any exception while writing the file
+   */
+  protected boolean writeDetailPage(Engine engine, String template, Map<String, Object> model, Path file) throws IOException {
+    byte[] content = engine.transform(template, model).getBytes(StandardCharsets.UTF_8);
+
+    if (Files.isRegularFile(file) && Files.size(file) == content.length && Arrays.equals(content, Files.readAllBytes(file))) {
+      return false;
+    }
+
+    Files.write(file, content);
+    return true;
+  }
+
+  private void publishProgress(int done, int total) {
+    ProgressListener listener = progressListener;
+    if (listener != null) {
+      listener.progress(done, total);
+    }
+  }
+
   /**
    * Find templates for the given type.
    * 
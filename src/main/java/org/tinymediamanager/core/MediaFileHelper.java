@@ -53,6 +53,7 @@ import org.tinymediamanager.scraper.util.MetadataUtil;
 import org.tinymediamanager.scraper.util.StrgUtils;
 import org.tinymediamanager.thirdparty.MediaInfo;
 import org.tinymediamanager.thirdparty.MediaInfoFile;
+import org.tinymediamanager.thirdparty.MediaInfoPool;
 import org.tinymediamanager.thirdparty.MediaInfoUtils;
 import org.tinymediamanager.thirdparty.MediaInfoXMLParser;
 
@@ -894,7 +895,7 @@ public class MediaFileHelper {
    *          the media file
    * @return a map with all libmediainfo data
    */
-  private static synchronized Map<MediaInfo.StreamKind, List<Map<String, String>>> getMediaInfoSnapshot(MediaFile mediaFile) {
+  private static Map<MediaInfo.StreamKind, List<Map<String, String>>> getMediaInfoSnapshot(MediaFile mediaFile) {
     Map<MediaInfo.StreamKind, List<Map<String, String>>> miSnapshot = null;
 
     // check if we have a snapshot xml
@@ -925,13 +926,26 @@ public class MediaFileHelper {
       return new HashMap<>();
     }
 
+    // maybe we already have probed this file (also if it has been moved/renamed)
+    MediaInfoCache cache = MediaInfoCache.getInstance();
+    String cacheKey = null;
+    if (cache.isOpen()) {
+      cacheKey = MediaInfoCache.createKey(mediaFile);
+      miSnapshot = cache.get(cacheKey);
+      if (miSnapshot != null) {
+        LOGGER.trace("got MI from cache for {}", mediaFile.getFileAsPath());
+        return miSnapshot;
+      }
+    }
+
     // open mediaInfo directly on file
-    try (MediaInfo mediaInfo = new MediaInfo()) {
+    try (MediaInfo mediaInfo = MediaInfoPool.acquire()) {
       if (!mediaInfo.open(mediaFile.getFileAsPath())) {
         LOGGER.error("Mediainfo could not open file: {}", mediaFile.getFileAsPath());
       }
       else {
         miSnapshot = mediaInfo.snapshot();
+        cache.put(cacheKey, miSnapshot);
       }
     }
     // sometimes also an error is thrown
@@ -949,7 +963,7 @@ public class MediaFileHelper {
    *          the media file
    * @return a map with all libmediainfo data
    */
-  private static synchronized void getMediaInfoSnapshotFromISO(MediaFile mediaFile) {
+  private static void getMediaInfoSnapshotFromISO(MediaFile mediaFile) {
     List<MediaInfoFile> miFiles = new ArrayList<>();
 
     // check if we have a snapshot xml, and load all DVD files from XML
@@ -985,7 +999,7 @@ public class MediaFileHelper {
           MediaFile mf = new MediaFile(Paths.get(mediaFile.getFileAsPath().toString(), entry.getPath())); // set ISO as MF path
           if (mf.isDiscFile()) { // count all known DVD files!
 
-            try (MediaInfo fileMI = new MediaInfo()) {
+            try (MediaInfo fileMI = MediaInfoPool.acquire()) {
               byte[] fromBuffer = new byte[bufferSize];
               int fromBufferSize; // The size of the read file buffer
               long fileSize = entry.getSize();
@@ -1058,7 +1072,7 @@ public class MediaFileHelper {
         MediaFile mf = new MediaFile(Paths.get(mediaFile.getFileAsPath().toString(), biggest.getPath())); // set ISO as MF path
         if (mf.isDiscFile()) { // count all known DVD files!
 
-          try (MediaInfo fileMI = new MediaInfo()) {
+          try (MediaInfo fileMI = MediaInfoPool.acquire()) {
             byte[] fromBuffer = new byte[bufferSize];
             int fromBufferSize; // The size of the read file buffer
             long fileSize = biggest.getSize();
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.scraper.util.StrgUtils;
+import org.tinymediamanager.thirdparty.MediaInfo;
+import org.tinymediamanager.thirdparty.MediaInfo.StreamKind;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * The class MediaInfoCache. A persistent cache of libmediainfo snapshots. The entries are keyed by the identity of the file (size, last modified
+ * and a hash of the first/last bytes) rather than by its path, so unchanged files do not need to be probed again - even if they have been moved or
+ * renamed.<br>
+ * Entries which have not been used for {@link #MAX_AGE_DAYS} days are evicted on close; if there are more than {@link #MAX_ENTRIES} entries, the
+ * least recently used ones are evicted too (also while running, as soon as the cache grew {@link #EVICTION_BATCH} entries over the limit)
+ *
+ * @author Manuel Laggner
+ */
+public class MediaInfoCache {
+  private static final Logger            LOGGER         = LoggerFactory.getLogger(MediaInfoCache.class);
+  private static final String            VERSION_KEY    = "libmediainfo";
+  private static final int               HASH_CHUNK     = 64 * 1024;
+
+  static final int                       MAX_ENTRIES    = 200000;
+  static final int                       MAX_AGE_DAYS   = 365;
+  static final int                       EVICTION_BATCH = MAX_ENTRIES / 10;
+
+  private static MediaInfoCache          instance;
+
+  private final ObjectReader             objectReader;
+  private final ObjectWriter             objectWriter;
+  private final AtomicLong               hits           = new AtomicLong(0);
+  private final AtomicLong               misses         = new AtomicLong(0);
+  private final AtomicLong               puts           = new AtomicLong(0);
+  private final AtomicLong               evictions      = new AtomicLong(0);
+
+  private volatile MVStore               mvStore;
+  private volatile MVMap<String, String> snapshotMap;
+  private volatile MVMap<String, Long>   accessMap;
+  private MVMap<String, String>          metaMap;
+
+  private MediaInfoCache() {
+    TypeReference<Map<StreamKind, List<Map<String, String>>>> type = new TypeReference<Map<StreamKind, List<Map<String, String>>>>() {
+    };
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectReader = objectMapper.readerFor(type);
+    objectWriter = objectMapper.writerFor(type);
+  }
+
+  public static synchronized MediaInfoCache getInstance() {
+    if (instance == null) {
+      instance = new MediaInfoCache();
+    }
+    return instance;
+  }
+
+  /**
+   * open the cache file. If the cache has been filled by another version of libmediainfo, it will be cleared
+   *
+   * @param cacheFile
+   *          the path to the cache file
+   * @param mediaInfoVersion
+   *          the version of the used libmediainfo
+   */
+  public synchronized void open(Path cacheFile, String mediaInfoVersion) {
+    if (mvStore != null) {
+      return;
+    }
+
+    try {
+      mvStore = new MVStore.Builder().fileName(cacheFile.toString()).compressHigh().autoCommitBufferSize(4096).open();
+    }
+    catch (Exception e) {
+      // look if the file is locked by another process
+      if (e instanceof IllegalStateException && e.getMessage().contains("file is locked")) {
+        LOGGER.warn("mediainfo cache is locked - not using it");
+        return;
+      }
+
+      // it is just a cache - start over with an empty one
+      LOGGER.warn("could not open mediainfo cache - starting over: {}", e.getMessage());
+      Utils.deleteFileSafely(cacheFile);
+      try {
+        mvStore = new MVStore.Builder().fileName(cacheFile.toString()).compressHigh().autoCommitBufferSize(4096).open();
+      }
+      catch (Exception e1) {
+        LOGGER.error("could not create mediainfo cache: {}", e1.getMessage());
+        return;
+      }
+    }
+    mvStore.setAutoCommitDelay(2000); // 2 sec
+    mvStore.setRetentionTime(0);
+    mvStore.setReuseSpace(true);
+    mvStore.setCacheSize(8);
+
+    snapshotMap = mvStore.openMap("snapshots");
+    accessMap = mvStore.openMap("access");
+    metaMap = mvStore.openMap("meta");
+
+    // snapshots of another libmediainfo version may differ - drop them
+    String version = StringUtils.defaultString(mediaInfoVersion);
+    if (!version.equals(metaMap.get(VERSION_KEY))) {
+      if (!snapshotMap.isEmpty()) {
+        LOGGER.info("libmediainfo version changed to '{}' - clearing mediainfo cache", version);
+      }
+      snapshotMap.clear();
+      accessMap.clear();
+      metaMap.put(VERSION_KEY, version);
+    }
+
+    LOGGER.debug("opened mediainfo cache with {} entries", snapshotMap.size());
+  }
+
+  /**
+   * evict old entries and close the cache file
+   */
+  public synchronized void close() {
+    if (mvStore == null) {
+      return;
+    }
+
+    evict(getMaxAgeTimestamp(), MAX_ENTRIES);
+    LOGGER.info("mediainfo cache - {} hits, {} misses, {} new entries, {} evicted, {} entries", hits.get(), misses.get(), puts.get(),
+        evictions.get(), snapshotMap.size());
+
+    try {
+      mvStore.compactMoveChunks();
+      mvStore.close();
+    }
+    catch (Exception e) {
+      LOGGER.warn("could not close mediainfo cache: {}", e.getMessage());
+    }
+    mvStore = null;
+    snapshotMap = null;
+    accessMap = null;
+    metaMap = null;
+  }
+
+  /**
+   * is the cache file opened?
+   *
+   * @return true if the cache is usable
+   */
+  public boolean isOpen() {
+    return mvStore != null;
+  }
+
+  /**
+   * get the cached snapshot for the given key
+   *
+   * @param key
+   *          the key of the file (see {@link #createKey(MediaFile)})
+   * @return the cached snapshot or null if there is none
+   */
+  public Map<MediaInfo.StreamKind, List<Map<String, String>>> get(String key) {
+    // the maps may be closed concurrently
+    MVMap<String, String> snapshots = snapshotMap;
+    MVMap<String, Long> access = accessMap;
+    if (snapshots == null || access == null || key == null) {
+      return null;
+    }
+
+    try {
+      String json = snapshots.get(key);
+      if (json == null) {
+        misses.incrementAndGet();
+        return null;
+      }
+
+      Map<MediaInfo.StreamKind, List<Map<String, String>>> snapshot;
+      try {
+        snapshot = objectReader.readValue(json);
+      }
+      catch (IOException e) {
+        LOGGER.debug("dropping corrupt mediainfo cache entry {} - {}", key, e.getMessage());
+        snapshots.remove(key);
+        access.remove(key);
+        misses.incrementAndGet();
+        return null;
+      }
+
+      access.put(key, System.currentTimeMillis());
+      hits.incrementAndGet();
+      return snapshot;
+    }
+    catch (Exception e) {
+      // closed in the meantime
+      LOGGER.debug("could not read mediainfo cache entry {} - {}", key, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * store the snapshot for the given key
+   *
+   * @param key
+   *          the key of the file (see {@link #createKey(MediaFile)})
+   * @param snapshot
+   *          the snapshot from libmediainfo
+   */
+  public void put(String key, Map<MediaInfo.StreamKind, List<Map<String, String>>> snapshot) {
+    // the maps may be closed concurrently
+    MVMap<String, String> snapshots = snapshotMap;
+    MVMap<String, Long> access = accessMap;
+    if (snapshots == null || access == null || key == null || snapshot == null || snapshot.isEmpty()) {
+      return;
+    }
+
+    try {
+      snapshots.put(key, objectWriter.writeValueAsString(snapshot));
+      access.put(key, System.currentTimeMillis());
+      puts.incrementAndGet();
+
+      if (snapshots.size() > MAX_ENTRIES + EVICTION_BATCH) {
+        evictIfFull();
+      }
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not cache mediainfo {} - {}", key, e.getMessage());
+    }
+  }
+
+  /**
+   * remove all entries from the cache
+   */
+  public synchronized void clear() {
+    if (snapshotMap != null) {
+      snapshotMap.clear();
+      accessMap.clear();
+    }
+  }
+
+  /**
+   * evict all entries which have not been accessed since the given time and the least recently used ones exceeding the given amount
+   *
+   * @param notAccessedSince
+   *          the timestamp (in ms) of the oldest access to keep
+   * @param maxEntries
+   *          the maximum amount of entries to keep
+   */
+  synchronized void evict(long notAccessedSince, int maxEntries) {
+    if (snapshotMap == null) {
+      return;
+    }
+
+    // entries without an access time (should not happen) are evicted first
+    for (String key : new ArrayList<>(snapshotMap.keyList())) {
+      if (!accessMap.containsKey(key)) {
+        remove(key);
+      }
+    }
+
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(accessMap.entrySet());
+    entries.sort(Comparator.comparing(Map.Entry::getValue));
+    int toRemove = Math.max(0, entries.size() - maxEntries);
+    for (Map.Entry<String, Long> entry : entries) {
+      if (toRemove > 0 || entry.getValue() < notAccessedSince) {
+        remove(entry.getKey());
+        toRemove--;
+      }
+      else {
+        break;
+      }
+    }
+  }
+
+  /**
+   * evict entries while running - only once per exceeded batch (other threads may have evicted in the meantime)
+   */
+  private synchronized void evictIfFull() {
+    if (snapshotMap != null && snapshotMap.size() > MAX_ENTRIES + EVICTION_BATCH) {
+      evict(getMaxAgeTimestamp(), MAX_ENTRIES);
+    }
+  }
+
+  private static long getMaxAgeTimestamp() {
+    return System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+  }
+
+  private void remove(String key) {
+    snapshotMap.remove(key);
+    accessMap.remove(key);
+    evictions.incrementAndGet();
+  }
+
+  public int getEntryCount() {
+    MVMap<String, String> snapshots = snapshotMap;
+    return snapshots == null ? 0 : snapshots.size();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * create the cache key for the given {@link MediaFile}: size, last modified and a MD5 hash of the first and last 64kb of the file
+   *
+   * @param mediaFile
+   *          the media file (with filesize and filedate already gathered)
+   * @return the key or null if the file could not be read
+   */
+  public static String createKey(MediaFile mediaFile) {
+    long size = mediaFile.getFilesize();
+    if (size <= 0) {
+      return null;
+    }
+
+    try {
+      return size + "-" + mediaFile.getFiledate() + "-" + hashHeadAndTail(mediaFile.getFileAsPath(), size);
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not create mediainfo cache key for {} - {}", mediaFile.getFilename(), e.getMessage());
+      return null;
+    }
+  }
+
+  private static String hashHeadAndTail(Path file, long size) throws Exception {
+    MessageDigest md = MessageDigest.getInstance("MD5");
+    ByteBuffer buffer = ByteBuffer.allocate(HASH_CHUNK);
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      readFully(channel, buffer, 0);
+      md.update(buffer);
+
+      if (size > HASH_CHUNK) {
+        buffer.clear();
+        readFully(channel, buffer, Math.max(HASH_CHUNK, size - HASH_CHUNK));
+        md.update(buffer);
+      }
+    }
+
+    return StrgUtils.bytesToHex(md.digest());
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    long pos = position;
+    int read;
+    while (buffer.hasRemaining() && (read = channel.read(buffer, pos)) > 0) {
+      pos += read;
+    }
+    buffer.flip();
+  }
+}
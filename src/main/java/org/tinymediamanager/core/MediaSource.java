@@ -114,7 +114,7 @@ public class MediaSource extends DynaEnum<MediaSource> {
    * @return the media source
    */
   @JsonCreator
-  public static MediaSource getMediaSource(String name) {
+  public static synchronized MediaSource getMediaSource(String name) {
     for (MediaSource mediaSource : values()) {
       // check if the "enum" name matches
       if (mediaSource.name().equals(name)) {
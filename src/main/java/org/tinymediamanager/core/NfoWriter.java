@@ -0,0 +1,226 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Node;
+
+/**
+ * The class NfoWriter is used to render the XML of an NFO once and write it to all NFO files of an entity. The XML is serialized straight into UTF-8
+ * bytes (with windows conform line endings). Before writing a file, the hash of the new content is compared with the hash of the existing file - XML
+ * comments (like the creation date) are ignored - to not touch unchanged NFO files
+ *
+ * @author Manuel Laggner
+ */
+public class NfoWriter {
+  private final ByteArrayOutputStream content = new ByteArrayOutputStream(16 * 1024);
+  private final Writer                writer  = new CrLfWriter(new OutputStreamWriter(content, StandardCharsets.UTF_8));
+
+  private byte[]                      bytes   = null;
+  private byte[]                      hash    = null;
+
+  /**
+   * serialize the given XML node and append it to the content
+   *
+   * @param transformer
+   *          the transformer for the XML output
+   * @param node
+   *          the XML node (document) to serialize
+   * @throws TransformerException
+   *           any error while serializing the XML
+   * @throws IOException
+   *           any error while writing the content
+   */
+  public void append(Transformer transformer, Node node) throws TransformerException, IOException {
+    transformer.transform(new DOMSource(node), new StreamResult(writer));
+    writer.flush();
+    bytes = null;
+    hash = null;
+  }
+
+  /**
+   * get the rendered content
+   *
+   * @return the content as UTF-8 bytes
+   */
+  public byte[] getContent() {
+    if (bytes == null) {
+      bytes = content.toByteArray();
+    }
+    return bytes;
+  }
+
+  /**
+   * write the content to the given file if its content differs (XML comments are not compared)
+   *
+   * @param file
+   *          the file to write
+   * @return true if the file has been written, false if it did not change
+   * @throws IOException
+   *           any error while reading/writing the file
+   */
+  public boolean write(Path file) throws IOException {
+    byte[] data = getContent();
+    if (hash == null) {
+      hash = hash(new ByteArrayInputStream(data));
+    }
+
+    if (Files.isRegularFile(file)) {
+      try (InputStream is = new BufferedInputStream(Files.newInputStream(file))) {
+        if (Arrays.equals(hash, hash(is))) {
+          return false;
+        }
+      }
+      catch (IOException ignored) {
+        // just write the file
+      }
+    }
+
+    DataSourceWatcher.markOwnChange(file);
+    Files.write(file, data);
+    return true;
+  }
+
+  /**
+   * hash the content line by line without XML comments
+   */
+  static byte[] hash(InputStream is) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+
+    ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    int b;
+    while ((b = is.read()) != -1) {
+      if (b == '\r' || b == '\n') {
+        updateWithoutComment(digest, line.toByteArray());
+        digest.update((byte) b);
+        line.reset();
+      }
+      else {
+        line.write(b);
+      }
+    }
+    updateWithoutComment(digest, line.toByteArray());
+
+    return digest.digest();
+  }
+
+  /**
+   * strip everything from the first comment start to the last comment end of this line
+   */
+  private static void updateWithoutComment(MessageDigest digest, byte[] line) {
+    int end = lastIndexOf(line, new byte[] { '-', '-', '>' });
+    int start = end < 0 ? -1 : indexOf(line, new byte[] { '<', '!', '-', '-' });
+    if (start < 0 || start + 4 > end) {
+      digest.update(line);
+      return;
+    }
+    digest.update(line, 0, start);
+    digest.update(line, end + 3, line.length - end - 3);
+  }
+
+  private static int indexOf(byte[] array, byte[] search) {
+    for (int i = 0; i <= array.length - search.length; i++) {
+      if (startsWith(array, i, search)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int lastIndexOf(byte[] array, byte[] search) {
+    for (int i = array.length - search.length; i >= 0; i--) {
+      if (startsWith(array, i, search)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean startsWith(byte[] array, int offset, byte[] search) {
+    for (int i = 0; i < search.length; i++) {
+      if (array[offset + i] != search[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * converts all single \n to \r\n while writing
+   */
+  private static class CrLfWriter extends FilterWriter {
+    private int last = -1;
+
+    private CrLfWriter(Writer out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+      if (c == '\n' && last != '\r') {
+        out.write('\r');
+      }
+      out.write(c);
+      last = c;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      write(new String(cbuf, off, len), 0, len);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+      // write the chunks between the line feeds at once
+      int start = off;
+      for (int i = off; i < off + len; i++) {
+        char c = str.charAt(i);
+        if (c == '\n' && last != '\r') {
+          out.write(str, start, i - start);
+          out.write('\r');
+          start = i;
+        }
+        last = c;
+      }
+      out.write(str, start, off + len - start);
+    }
+  }
+}
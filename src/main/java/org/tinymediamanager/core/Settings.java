@@ -17,9 +17,11 @@ package org.tinymediamanager.core;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -110,6 +112,10 @@ public class Settings extends AbstractSettings {
   private boolean               upnpRemotePlay         = false;
 
   private boolean               ignoreSSLProblems      = false;
+  private boolean               binaryDatabaseFormat   = false;
+  private int                   databaseWriteDelay     = 1000;
+  private int                   mediaInfoThreads       = 4;
+  private Map<String, Integer>  mediaInfoDsThreads     = new HashMap<>();
 
   static {
     if (System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("windows")) {
@@ -961,4 +967,122 @@ public class Settings extends AbstractSettings {
     this.maximumDownloadThreads = newValue;
     firePropertyChange("maximumDownloadThreads", oldValue, newValue);
   }
+
+  /**
+   * should the movie/TV show databases be stored in the compact binary format (rather than JSON)?
+   *
+   * @return true if the binary format should be used
+   */
+  public boolean isBinaryDatabaseFormat() {
+    return binaryDatabaseFormat;
+  }
+
+  /**
+   * set whether the movie/TV show databases should be stored in the compact binary format. The databases are migrated on the next start
+   *
+   * @param newValue
+   *          true if the binary format should be used
+   */
+  public void setBinaryDatabaseFormat(boolean newValue) {
+    boolean oldValue = this.binaryDatabaseFormat;
+    this.binaryDatabaseFormat = newValue;
+    firePropertyChange("binaryDatabaseFormat", oldValue, newValue);
+  }
+
+  /**
+   * get the maximum delay (in ms) for writing changed movies/TV shows to the database. Changes within this time are collected and written only
+   * once
+   *
+   * @return the delay in ms (0 = write immediately)
+   */
+  public int getDatabaseWriteDelay() {
+    return databaseWriteDelay;
+  }
+
+  /**
+   * set the maximum delay (in ms) for writing changed movies/TV shows to the database
+   *
+   * @param newValue
+   *          the delay in ms (0 = write immediately)
+   */
+  public void setDatabaseWriteDelay(int newValue) {
+    int oldValue = this.databaseWriteDelay;
+    this.databaseWriteDelay = newValue;
+    firePropertyChange("databaseWriteDelay", oldValue, newValue);
+  }
+
+  /**
+   * get the default amount of parallel mediainfo workers (used for all datasources without an own setting)
+   *
+   * @return the amount of parallel mediainfo workers
+   */
+  public int getMediaInfoThreads() {
+    return mediaInfoThreads;
+  }
+
+  /**
+   * set the default amount of parallel mediainfo workers
+   *
+   * @param newValue
+   *          the amount of parallel mediainfo workers
+   */
+  public void setMediaInfoThreads(int newValue) {
+    int oldValue = this.mediaInfoThreads;
+    this.mediaInfoThreads = newValue;
+    firePropertyChange("mediaInfoThreads", oldValue, newValue);
+  }
+
+  /**
+   * get the amount of parallel mediainfo workers per datasource (if it differs from the default). Network shares (e.g. on a NAS) are latency bound
+   * and profit from more workers
+   *
+   * @return a map datasource -> amount of parallel mediainfo workers
+   */
+  public Map<String, Integer> getMediaInfoDsThreads() {
+    return mediaInfoDsThreads;
+  }
+
+  /**
+   * set the amount of parallel mediainfo workers per datasource
+   *
+   * @param newValues
+   *          a map datasource -> amount of parallel mediainfo workers
+   */
+  public void setMediaInfoDsThreads(Map<String, Integer> newValues) {
+    this.mediaInfoDsThreads = new HashMap<>(newValues);
+    firePropertyChange("mediaInfoDsThreads", null, mediaInfoDsThreads);
+  }
+
+  /**
+   * get the amount of parallel mediainfo workers for the given datasource
+   *
+   * @param dataSource
+   *          the datasource
+   * @return the amount of parallel mediainfo workers for this datasource (at least 1)
+   */
+  public int getMediaInfoThreads(String dataSource) {
+    Integer threads = mediaInfoDsThreads.get(dataSource);
+    if (threads == null) {
+      threads = mediaInfoThreads;
+    }
+    return Math.max(1, threads);
+  }
+
+  /**
+   * set the amount of parallel mediainfo workers for the given datasource
+   *
+   * @param dataSource
+   *          the datasource
+   * @param threads
+   *          the amount of parallel mediainfo workers; 0 or less to use the default
+   */
+  public void setMediaInfoThreads(String dataSource, int threads) {
+    if (threads > 0) {
+      mediaInfoDsThreads.put(dataSource, threads);
+    }
+    else {
+      mediaInfoDsThreads.remove(dataSource);
+    }
+    firePropertyChange("mediaInfoDsThreads", null, mediaInfoDsThreads);
+  }
 }
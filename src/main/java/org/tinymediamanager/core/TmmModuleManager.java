@@ -15,26 +15,45 @@
  */
 package org.tinymediamanager.core;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
+import org.tinymediamanager.thirdparty.MediaInfo;
+import org.tinymediamanager.thirdparty.MediaInfoPool;
+import org.tinymediamanager.thirdparty.MediaInfoUtils;
 
 /**
- * The class TmmModuleManager. Used to manage all modules inside tmm
+ * The class TmmModuleManager. Used to manage all modules inside tmm<br>
+ * The startup of tmm is organized as a pipeline of steps: every step declares the steps it depends on and is started as soon as all of them
+ * are finished - so independent steps (e.g. loading the movie and the TV show database) run concurrently
  * 
  * @author Manuel Laggner
  */
 public class TmmModuleManager {
-  private static final Logger     LOGGER = LoggerFactory.getLogger(TmmModuleManager.class);
-  private static TmmModuleManager instance;
+  private static final Logger      LOGGER          = LoggerFactory.getLogger(TmmModuleManager.class);
+  private static final String      MEDIAINFO_CACHE = "mediainfo.db";
+  private static TmmModuleManager  instance;
 
-  private Set<ITmmModule>         modules;
+  private Set<ITmmModule>          modules;
+  private Map<String, StartupStep> startupSteps;
+  private ExecutorService          startupExecutor;
+  private long                     startupBegin;
 
   private TmmModuleManager() {
     modules = new LinkedHashSet<>();
+    startupSteps = new LinkedHashMap<>();
   }
 
   public static TmmModuleManager getInstance() {
@@ -72,7 +91,146 @@ public class TmmModuleManager {
    * start up tmm - do initialization code here
    */
   public void startUp() {
+    // open the persistent mediainfo cache
+    if (MediaInfoUtils.USE_LIBMEDIAINFO) {
+      MediaInfoCache.getInstance().open(Paths.get(Globals.CACHE_FOLDER, MEDIAINFO_CACHE), MediaInfo.version());
+    }
+  }
+
+  /**
+   * add a step to the startup pipeline. The step is started as soon as all its dependencies are finished successfully; if a dependency fails,
+   * this step fails too
+   *
+   * @param name
+   *          the name of the step
+   * @param action
+   *          the action to run
+   * @param dependencies
+   *          the names of the steps which need to be finished before (they must have been added already)
+   */
+  public synchronized void addStartupStep(String name, StartupAction action, String... dependencies) {
+    if (startupSteps.containsKey(name)) {
+      throw new IllegalArgumentException("startup step '" + name + "' already added");
+    }
+
+    if (startupExecutor == null) {
+      int threads = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+      startupExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+        Thread thread = new Thread(runnable, "startup");
+        thread.setDaemon(true);
+        return thread;
+      });
+      startupBegin = System.currentTimeMillis();
+    }
 
+    List<CompletableFuture<Void>> dependencyFutures = new ArrayList<>();
+    for (String dependency : dependencies) {
+      StartupStep step = startupSteps.get(dependency);
+      if (step == null) {
+        throw new IllegalArgumentException("unknown dependency '" + dependency + "' of startup step '" + name + "'");
+      }
+      dependencyFutures.add(step.future);
+    }
+
+    StartupStep step = new StartupStep(name);
+    step.future = CompletableFuture.allOf(dependencyFutures.toArray(new CompletableFuture[0])).thenRunAsync(() -> step.run(action),
+        startupExecutor);
+    startupSteps.put(name, step);
+  }
+
+  /**
+   * wait until the given startup step has been finished
+   *
+   * @param name
+   *          the name of the step
+   * @throws Exception
+   *           the exception of the step (or of one of its dependencies)
+   */
+  public void awaitStartupStep(String name) throws Exception {
+    StartupStep step;
+    synchronized (this) {
+      step = startupSteps.get(name);
+    }
+    if (step == null) {
+      throw new IllegalArgumentException("unknown startup step '" + name + "'");
+    }
+
+    try {
+      step.future.join();
+    }
+    catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * wait until all startup steps have been finished
+   *
+   * @throws Exception
+   *           the exception of the first failed step
+   */
+  public void awaitStartup() throws Exception {
+    List<String> names;
+    synchronized (this) {
+      names = new ArrayList<>(startupSteps.keySet());
+    }
+    for (String name : names) {
+      awaitStartupStep(name);
+    }
+  }
+
+  /**
+   * finish the startup pipeline in the background: the timings of all steps are logged once they are finished
+   *
+   * @return a future which completes with the names of all failed (or skipped) steps once all steps have been finished
+   */
+  public synchronized CompletableFuture<List<String>> finishStartup() {
+    List<StartupStep> steps = new ArrayList<>(startupSteps.values());
+    ExecutorService executor = startupExecutor;
+    long begin = startupBegin;
+    startupSteps.clear();
+    startupExecutor = null;
+
+    CompletableFuture<?>[] futures = new CompletableFuture[steps.size()];
+    for (int i = 0; i < steps.size(); i++) {
+      futures[i] = steps.get(i).future;
+    }
+
+    // wait for all steps - regardless of failures
+    return CompletableFuture.allOf(futures).handle((result, throwable) -> {
+      List<String> failedSteps = new ArrayList<>();
+      for (StartupStep step : steps) {
+        if (step.error != null) {
+          LOGGER.error("startup step '{}' failed after {} ms: {}", step.name, step.end - step.start, step.error.toString());
+          failedSteps.add(step.name);
+        }
+        else if (step.start == 0) {
+          LOGGER.warn("startup step '{}' skipped - a dependency failed", step.name);
+          failedSteps.add(step.name);
+        }
+        else {
+          LOGGER.info("startup step '{}' - started after {} ms, took {} ms", step.name, step.start - begin, step.end - step.start);
+        }
+      }
+      if (failedSteps.isEmpty()) {
+        LOGGER.info("startup finished - took {} ms", System.currentTimeMillis() - begin);
+      }
+      else {
+        LOGGER.error("startup finished with failed steps {} - took {} ms", failedSteps, System.currentTimeMillis() - begin);
+      }
+
+      if (executor != null) {
+        executor.shutdown();
+      }
+      return failedSteps;
+    });
   }
 
   /**
@@ -92,6 +250,9 @@ public class TmmModuleManager {
     }
 
     // do cleanup tasks
+    MediaInfoCache.getInstance().close();
+    // release the pooled native mediainfo handles
+    MediaInfoPool.clear();
   }
 
   /**
@@ -128,4 +289,40 @@ public class TmmModuleManager {
       }
     }
   }
+
+  /**
+   * An action of a startup step
+   */
+  @FunctionalInterface
+  public interface StartupAction {
+    void run() throws Exception;
+  }
+
+  private static class StartupStep {
+    private final String            name;
+    private CompletableFuture<Void> future;
+    private volatile long           start = 0;
+    private volatile long           end   = 0;
+    private volatile Throwable      error;
+
+    private StartupStep(String name) {
+      this.name = name;
+    }
+
+    private void run(StartupAction action) {
+      start = System.currentTimeMillis();
+      try {
+        action.run();
+      }
+      catch (Throwable t) { // NOSONAR
+        // also errors like an UnsatisfiedLinkError of a native library
+        error = t;
+        throw new CompletionException(t);
+      }
+      finally {
+        end = System.currentTimeMillis();
+        LOGGER.debug("startup step '{}' finished - took {} ms", name, end - start);
+      }
+    }
+  }
 }
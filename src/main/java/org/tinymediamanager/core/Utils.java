@@ -583,6 +583,8 @@ public class Utils {
     }
     if (!srcDir.toAbsolutePath().toString().equals(destDir.toAbsolutePath().toString())) {
       LOGGER.debug("try to move folder {} to {}", srcDir, destDir);
+      DataSourceWatcher.markOwnChange(srcDir);
+      DataSourceWatcher.markOwnChange(destDir);
       if (!Files.isDirectory(srcDir)) {
         throw new FileNotFoundException("Source '{}" + srcDir + "' does not exist, or is not a directory"); // NOSONAR
       }
@@ -709,6 +711,8 @@ public class Utils {
     }
     if (!srcFile.toAbsolutePath().toString().equals(destFile.toAbsolutePath().toString())) {
       LOGGER.debug("try to move file {} to {}", srcFile, destFile);
+      DataSourceWatcher.markOwnChange(srcFile);
+      DataSourceWatcher.markOwnChange(destFile);
       if (!Files.exists(srcFile)) {
         // allow moving of symlinks
         // https://github.com/tinyMediaManager/tinyMediaManager/issues/410
@@ -826,6 +830,7 @@ public class Utils {
     }
     if (!srcFile.toAbsolutePath().toString().equals(destFile.toAbsolutePath().toString())) {
       LOGGER.debug("try to copy file {} to {}", srcFile, destFile);
+      DataSourceWatcher.markOwnChange(destFile);
       if (!Files.exists(srcFile)) {
         throw new FileNotFoundException("Source '" + srcFile + "' does not exist");
       }
@@ -954,6 +959,7 @@ public class Utils {
       return false;
     }
     try {
+      DataSourceWatcher.markOwnChange(file);
       Files.deleteIfExists(file);
     }
     catch (Exception e) {
@@ -49,6 +49,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -78,49 +79,52 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * @author Manuel Laggner
  */
 public abstract class MediaEntity extends AbstractModelObject {
-  private static final Logger          LOGGER            = LoggerFactory.getLogger(MediaEntity.class);
+  private static final Logger                          LOGGER            = LoggerFactory.getLogger(MediaEntity.class);
   /** The id for the database. */
-  protected UUID                       dbId              = UUID.randomUUID();
+  protected UUID                                       dbId              = UUID.randomUUID();
 
   @JsonProperty
-  protected String                     dataSource        = "";
+  protected String                                     dataSource        = "";
 
   /** The ids to store the ID from several metadataproviders. */
   @JsonProperty
-  protected Map<String, Object>        ids               = new ConcurrentHashMap<>(0);
+  protected Map<String, Object>                        ids               = new ConcurrentHashMap<>(0);
 
   @JsonProperty
-  protected String                     title             = "";
+  protected String                                     title             = "";
   @JsonProperty
-  protected String                     originalTitle     = "";
+  protected String                                     originalTitle     = "";
   @JsonProperty
-  protected int                        year              = 0;
+  protected int                                        year              = 0;
   @JsonProperty
-  protected String                     plot              = "";
+  protected String                                     plot              = "";
   @JsonProperty
-  protected String                     path              = "";
+  protected String                                     path              = "";
   @JsonProperty
-  protected Date                       dateAdded         = new Date();
+  protected Date                                       dateAdded         = new Date();
   @JsonProperty
-  protected String                     productionCompany = "";
+  protected String                                     productionCompany = "";
   @JsonProperty
-  protected boolean                    scraped           = false;
+  protected boolean                                    scraped           = false;
   @JsonProperty
-  protected String                     note              = "";
+  protected String                                     note              = "";
 
   @JsonProperty
-  protected Map<String, MediaRating>   ratings           = new ConcurrentHashMap<>(0);
+  protected Map<String, MediaRating>                   ratings           = new ConcurrentHashMap<>(0);
   @JsonProperty
-  private List<MediaFile>              mediaFiles        = new ArrayList<>();
+  private List<MediaFile>                              mediaFiles        = new ArrayList<>();
   @JsonProperty
-  protected Map<MediaFileType, String> artworkUrlMap     = new HashMap<>();
+  protected Map<MediaFileType, String>                 artworkUrlMap     = new HashMap<>();
 
-  protected boolean                    newlyAdded        = false;
-  protected boolean                    duplicate         = false;
-  protected ReadWriteLock              readWriteLock     = new ReentrantReadWriteLock();
+  protected boolean                                    newlyAdded        = false;
+  protected boolean                                    duplicate         = false;
+  protected ReadWriteLock                              readWriteLock     = new ReentrantReadWriteLock();
+
+  // the media files per type - an immutable snapshot which is replaced under the write lock on every change of the media files
+  private volatile Map<MediaFileType, List<MediaFile>> mediaFileIndex    = null;
 
   @JsonProperty
-  protected String                     originalFilename  = "";
+  protected String                                     originalFilename  = "";
 
   public MediaEntity() {
   }
@@ -171,8 +175,6 @@ public abstract class MediaEntity extends AbstractModelObject {
     if (force) {
       ids.clear();
       ratings.clear();
-
-      artworkUrlMap.clear();
     }
 
     setRatings(other.ratings);
@@ -182,11 +184,21 @@ public abstract class MediaEntity extends AbstractModelObject {
         ids.put(key, other.getId(key));
       }
     }
-    for (MediaFileType key : other.getArtworkUrls().keySet()) {
-      if (!artworkUrlMap.containsKey(key)) {
-        artworkUrlMap.put(key, other.getArtworkUrl(key));
+
+    readWriteLock.writeLock().lock();
+    try {
+      if (force) {
+        artworkUrlMap.clear();
+      }
+      for (MediaFileType key : other.getArtworkUrls().keySet()) {
+        if (!artworkUrlMap.containsKey(key)) {
+          artworkUrlMap.put(key, other.getArtworkUrl(key));
+        }
       }
     }
+    finally {
+      readWriteLock.writeLock().unlock();
+    }
   }
 
   /**
@@ -204,6 +216,47 @@ public abstract class MediaEntity extends AbstractModelObject {
     else {
       Collections.sort(mediaFiles);
     }
+    updateMediaFileIndex();
+  }
+
+  /**
+   * rebuild the index of the media files per type; must be called (holding the write lock) after every change of the media files
+   */
+  private void updateMediaFileIndex() {
+    Map<MediaFileType, List<MediaFile>> index = new EnumMap<>(MediaFileType.class);
+    for (MediaFile mediaFile : mediaFiles) {
+      index.computeIfAbsent(mediaFile.getType(), k -> new ArrayList<>()).add(mediaFile);
+    }
+    for (Entry<MediaFileType, List<MediaFile>> entry : index.entrySet()) {
+      entry.setValue(Collections.unmodifiableList(entry.getValue()));
+    }
+    mediaFileIndex = index;
+  }
+
+  /**
+   * get the media files of the given type out of the index
+   *
+   * @param type
+   *          the type
+   * @return an unmodifiable list of the media files in the sort order of all media files (may be empty, but never null)
+   */
+  private List<MediaFile> getIndexedMediaFiles(MediaFileType type) {
+    Map<MediaFileType, List<MediaFile>> index = mediaFileIndex;
+    if (index == null) {
+      // not yet built (e.g. directly after loading from the database)
+      readWriteLock.readLock().lock();
+      try {
+        if (mediaFileIndex == null) {
+          updateMediaFileIndex();
+        }
+        index = mediaFileIndex;
+      }
+      finally {
+        readWriteLock.readLock().unlock();
+      }
+    }
+    List<MediaFile> mf = index.get(type);
+    return mf != null ? mf : Collections.emptyList();
   }
 
   /**
@@ -480,11 +533,17 @@ public abstract class MediaEntity extends AbstractModelObject {
       case CLEARLOGO:
       case CHARACTERART:
       case KEYART:
-        if (StringUtils.isBlank(url)) {
-          artworkUrlMap.remove(type);
+        readWriteLock.writeLock().lock();
+        try {
+          if (StringUtils.isBlank(url)) {
+            artworkUrlMap.remove(type);
+          }
+          else {
+            artworkUrlMap.put(type, url);
+          }
         }
-        else {
-          artworkUrlMap.put(type, url);
+        finally {
+          readWriteLock.writeLock().unlock();
         }
         break;
       default:
@@ -513,7 +572,13 @@ public abstract class MediaEntity extends AbstractModelObject {
    *          the artwork type
    */
   public void removeArtworkUrl(MediaFileType type) {
-    artworkUrlMap.remove(type);
+    readWriteLock.writeLock().lock();
+    try {
+      artworkUrlMap.remove(type);
+    }
+    finally {
+      readWriteLock.writeLock().unlock();
+    }
   }
 
   /**
@@ -898,6 +963,16 @@ public abstract class MediaEntity extends AbstractModelObject {
     return mf;
   }
 
+  /**
+   * get the lock which guards the media files and artwork urls of this entity. Hold the read lock to get a consistent state of the whole entity
+   * (e.g. for serializing it)
+   *
+   * @return the read write lock of this entity
+   */
+  public ReadWriteLock getReadWriteLock() {
+    return readWriteLock;
+  }
+
   public boolean hasMediaFiles() {
     return !mediaFiles.isEmpty();
   }
@@ -911,6 +986,10 @@ public abstract class MediaEntity extends AbstractModelObject {
    * @return list of MF (may be empty, but never null)
    */
   public List<MediaFile> getMediaFiles(MediaFileType... types) {
+    if (types.length == 1) {
+      return new ArrayList<>(getIndexedMediaFiles(types[0]));
+    }
+
     List<MediaFile> mf = new ArrayList<>();
     readWriteLock.readLock().lock();
     for (MediaFile mediaFile : mediaFiles) {
@@ -928,6 +1007,41 @@ public abstract class MediaEntity extends AbstractModelObject {
     return mf;
   }
 
+  /**
+   * gets the first MediaFile of the given type (without copying any list)
+   *
+   * @param type
+   *          the type
+   * @return the first MF of this type or null
+   */
+  public MediaFile getFirstMediaFile(MediaFileType type) {
+    List<MediaFile> mf = getIndexedMediaFiles(type);
+    return mf.isEmpty() ? null : mf.get(0);
+  }
+
+  /**
+   * checks if there is at least one MediaFile of the given type (without copying any list)
+   *
+   * @param type
+   *          the type
+   * @return true if there is a MF of this type
+   */
+  public boolean hasMediaFiles(MediaFileType type) {
+    return !getIndexedMediaFiles(type).isEmpty();
+  }
+
+  /**
+   * gets all MediaFiles of the given type without copying them into a new list. The returned list is an unmodifiable snapshot, which does not change
+   * if MediaFiles are added/removed afterwards - so it can be iterated without any locking
+   *
+   * @param type
+   *          the type
+   * @return an unmodifiable list of MF (may be empty, but never null)
+   */
+  public List<MediaFile> getMediaFilesOfType(MediaFileType type) {
+    return getIndexedMediaFiles(type);
+  }
+
   /**
    * gets the BIGGEST MediaFile of type(s)<br>
    * useful for getting the right MF for displaying mediaInformation
@@ -937,6 +1051,15 @@ public abstract class MediaEntity extends AbstractModelObject {
   public MediaFile getBiggestMediaFile(MediaFileType... types) {
     MediaFile mf = null;
 
+    if (types.length == 1) {
+      for (MediaFile mediaFile : getIndexedMediaFiles(types[0])) {
+        if (mf == null || mediaFile.getFilesize() >= mf.getFilesize()) {
+          mf = mediaFile;
+        }
+      }
+      return mf;
+    }
+
     readWriteLock.readLock().lock();
     for (MediaFile mediaFile : mediaFiles) {
       for (MediaFileType type : types) {
@@ -1007,6 +1130,7 @@ public abstract class MediaEntity extends AbstractModelObject {
     for (int i = mediaFiles.size() - 1; i >= 0; i--) {
       mediaFiles.remove(i);
     }
+    updateMediaFileIndex();
     readWriteLock.writeLock().unlock();
     for (MediaFile mediaFile : changedMediafiles) {
       fireRemoveEventForMediaFile(mediaFile);
@@ -1017,6 +1141,7 @@ public abstract class MediaEntity extends AbstractModelObject {
     readWriteLock.writeLock().lock();
     try {
       mediaFiles.remove(mediaFile);
+      updateMediaFileIndex();
     }
     finally {
       readWriteLock.writeLock().unlock();
@@ -1037,6 +1162,7 @@ public abstract class MediaEntity extends AbstractModelObject {
         changedMediafiles.add(mediaFile);
       }
     }
+    updateMediaFileIndex();
     readWriteLock.writeLock().unlock();
     for (MediaFile mediaFile : changedMediafiles) {
       fireRemoveEventForMediaFile(mediaFile);
@@ -1054,6 +1180,7 @@ public abstract class MediaEntity extends AbstractModelObject {
         changedMediafiles.add(mediaFile);
       }
     }
+    updateMediaFileIndex();
     readWriteLock.writeLock().unlock();
     for (MediaFile mediaFile : changedMediafiles) {
       fireRemoveEventForMediaFile(mediaFile);
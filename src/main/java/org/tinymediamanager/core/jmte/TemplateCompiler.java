@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.jmte;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import com.floreysoft.jmte.Engine;
+import com.floreysoft.jmte.Template;
+
+/**
+ * The class TemplateCompiler is used to transform (renamer) patterns with one shared and fully configured JMTE {@link Engine}. Every pattern is
+ * morphed and parsed only once into a {@link Template}, which is cached by the pattern string and reused for every further transformation (JMTE
+ * templates serialize their transformations, so they can be used from any thread)
+ *
+ * @author Manuel Laggner
+ */
+public class TemplateCompiler {
+  private static final int            MAX_CACHED_TEMPLATES = 200;
+
+  private final Engine                engine;
+  private final UnaryOperator<String> morpher;
+  private final Map<String, Template> templates;
+
+  /**
+   * create a new template compiler
+   *
+   * @param engine
+   *          the configured engine (renderers, model adaptor); must not be changed afterwards
+   * @param morpher
+   *          converts a pattern into the JMTE syntax (e.g. token names to the model expressions)
+   */
+  public TemplateCompiler(Engine engine, UnaryOperator<String> morpher) {
+    this.engine = engine;
+    this.morpher = morpher;
+    // LRU: typing patterns in the renamer settings produces many short lived patterns
+    this.templates = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+        return size() > MAX_CACHED_TEMPLATES;
+      }
+    };
+  }
+
+  /**
+   * get the compiled template of the given pattern
+   *
+   * @param pattern
+   *          the pattern
+   * @return the compiled template
+   */
+  public Template compile(String pattern) {
+    synchronized (templates) {
+      Template template = templates.get(pattern);
+      if (template == null) {
+        template = engine.getTemplate(morpher.apply(pattern));
+        templates.put(pattern, template);
+      }
+      return template;
+    }
+  }
+
+  /**
+   * transform the given pattern with the given model
+   *
+   * @param pattern
+   *          the pattern
+   * @param model
+   *          the model
+   * @return the transformed pattern
+   */
+  public String transform(String pattern, Map<String, Object> model) {
+    return compile(pattern).transform(model, Locale.getDefault());
+  }
+}
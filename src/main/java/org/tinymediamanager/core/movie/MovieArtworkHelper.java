@@ -23,6 +23,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.DataSourceWatcher;
 import org.tinymediamanager.core.IFileNaming;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.ScraperMetadataConfig;
@@ -1192,6 +1193,7 @@ public class MovieArtworkHelper {
       try {
         String filename = fileNaming.getFilename(basename, "jpg"); // need to force jpg here since we do know it better
         MediaFile mf = new MediaFile(vsMetaFile.getFileAsPath().getParent().resolve(filename), MediaFileType.getMediaFileType(artworkType));
+        DataSourceWatcher.markOwnChange(mf.getFileAsPath());
         Files.write(mf.getFileAsPath(), bytes);
         movie.addToMediaFiles(mf);
       }
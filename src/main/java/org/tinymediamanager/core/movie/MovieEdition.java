@@ -122,7 +122,7 @@ public class MovieEdition extends DynaEnum<MovieEdition> {
    * @return the movie edition
    */
   @JsonCreator
-  public static MovieEdition getMovieEdition(String name) {
+  public static synchronized MovieEdition getMovieEdition(String name) {
     for (MovieEdition edition : values()) {
       // check if the "enum" name matches
       if (edition.name().equals(name)) {
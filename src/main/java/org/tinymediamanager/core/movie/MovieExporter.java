@@ -47,6 +47,7 @@ import org.tinymediamanager.core.jmte.NamedNumberRenderer;
 import org.tinymediamanager.core.jmte.NamedUpperCaseRenderer;
 import org.tinymediamanager.core.movie.entities.Movie;
 
+import com.floreysoft.jmte.Engine;
 import com.floreysoft.jmte.NamedRenderer;
 import com.floreysoft.jmte.RenderFormatInfo;
 
@@ -80,13 +81,8 @@ public class MovieExporter extends MediaEntityExporter {
       return;
     }
 
-    // register own renderers
-    engine.registerNamedRenderer(new NamedDateRenderer());
-    engine.registerNamedRenderer(new NamedNumberRenderer());
-    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
-    engine.registerNamedRenderer(new NamedFirstCharacterRenderer());
-    engine.registerNamedRenderer(new MovieFilenameRenderer());
-    engine.registerNamedRenderer(new MovieArtworkCopyRenderer(exportDir));
+    // set up the engine with own renderers
+    engine = createEngine(exportDir);
 
     // prepare export destination
     if (!Files.exists(exportDir)) {
@@ -106,9 +102,7 @@ public class MovieExporter extends MediaEntityExporter {
     Map<String, Object> root = new HashMap<>();
     root.put("movies", new ArrayList<>(moviesToExport));
 
-    String output = engine.transform(listTemplate, root);
-
-    Utils.writeStringToFile(listExportFile, output);
+    writeList(listExportFile, root);
     LOGGER.info("movie list generated: {}", listExportFile);
 
     // create details for
@@ -121,11 +115,7 @@ public class MovieExporter extends MediaEntityExporter {
         LOGGER.debug("Folder already exists...");
       }
 
-      for (T me : moviesToExport) {
-        if (cancel) {
-          return;
-        }
-
+      exportDetailPages(moviesToExport, exportDir, (me, detailEngine) -> {
         Movie movie = (Movie) me;
         LOGGER.debug("processing movie {}", movie.getTitle());
         // get preferred movie name like set up in movie renamer
@@ -135,13 +125,13 @@ public class MovieExporter extends MediaEntityExporter {
         }
         Path detailsExportFile = detailsDir.resolve(detailFilename + "." + fileExtension);
 
-        root = new HashMap<>();
-        root.put("movie", movie);
+        Map<String, Object> model = new HashMap<>();
+        model.put("movie", movie);
 
-        output = engine.transform(detailTemplate, root);
-        Utils.writeStringToFile(detailsExportFile, output);
-
-      }
+        if (!writeDetailPage(detailEngine, detailTemplate, model, detailsExportFile)) {
+          LOGGER.trace("detail page of {} did not change", movie.getTitle());
+        }
+      });
 
       LOGGER.info("movie detail pages generated: {}", exportDir);
     }
@@ -169,6 +159,16 @@ public class MovieExporter extends MediaEntityExporter {
     }
   }
 
+  @Override
+  protected void registerRenderers(Engine engine, Path exportDir) {
+    engine.registerNamedRenderer(new NamedDateRenderer());
+    engine.registerNamedRenderer(new NamedNumberRenderer());
+    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
+    engine.registerNamedRenderer(new NamedFirstCharacterRenderer());
+    engine.registerNamedRenderer(new MovieFilenameRenderer());
+    engine.registerNamedRenderer(new MovieArtworkCopyRenderer(exportDir));
+  }
+
   private static String getMovieFilename(Movie movie) {
     String filename = MovieRenamer.createDestinationForFilename(MovieModuleManager.SETTINGS.getRenamerFilename(), movie);
     if (StringUtils.isNotBlank(filename)) {
@@ -311,7 +311,7 @@ public class MovieExporter extends MediaEntityExporter {
         try {
           // create the image dir
           if (!Files.exists(imageDir)) {
-            Files.createDirectory(imageDir);
+            Files.createDirectories(imageDir);
           }
 
           // we need to rescale the image; scale factor is fixed to
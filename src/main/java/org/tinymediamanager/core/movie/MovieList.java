@@ -19,6 +19,7 @@ import static org.tinymediamanager.core.Constants.CERTIFICATION;
 import static org.tinymediamanager.core.Constants.GENRE;
 import static org.tinymediamanager.core.Constants.MEDIA_FILES;
 import static org.tinymediamanager.core.Constants.MEDIA_INFORMATION;
+import static org.tinymediamanager.core.Constants.PATH;
 import static org.tinymediamanager.core.Constants.TAG;
 import static org.tinymediamanager.core.Constants.YEAR;
 
@@ -40,6 +41,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.apache.commons.lang3.StringUtils;
@@ -48,6 +51,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.AbstractModelObject;
 import org.tinymediamanager.core.Constants;
+import org.tinymediamanager.core.DatabaseLoader;
+import org.tinymediamanager.core.DatabaseLoader.RecordDecoder;
 import org.tinymediamanager.core.MediaCertification;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.MediaSource;
@@ -68,9 +73,6 @@ import org.tinymediamanager.scraper.entities.MediaLanguages;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
 import org.tinymediamanager.scraper.interfaces.IMovieMetadataProvider;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
-
 import ca.odell.glazedlists.BasicEventList;
 import ca.odell.glazedlists.GlazedLists;
 import ca.odell.glazedlists.ObservableElementList;
@@ -87,6 +89,8 @@ public class MovieList extends AbstractModelObject {
   private final MovieSettings           movieSettings;
   private final List<Movie>             movieList;
   private final List<MovieSet>          movieSetList;
+  private final Map<UUID, Movie>        movieIndex;
+  private final Map<Path, List<Movie>>  moviePathIndex;
 
   private final Set<Integer>            yearsInMovies;
   private final Set<String>             tagsInMovies;
@@ -108,6 +112,8 @@ public class MovieList extends AbstractModelObject {
     // create all lists
     movieList = new ObservableElementList<>(GlazedLists.threadSafeList(new BasicEventList<>()), GlazedLists.beanConnector(Movie.class));
     movieSetList = new ObservableCopyOnWriteArrayList<>();
+    movieIndex = new ConcurrentHashMap<>();
+    moviePathIndex = new ConcurrentHashMap<>();
 
     yearsInMovies = new CopyOnWriteArraySet<>();
     tagsInMovies = new CopyOnWriteArraySet<>();
@@ -144,6 +150,14 @@ public class MovieList extends AbstractModelObject {
           case MEDIA_INFORMATION:
             updateMediaInformationLists(movie);
             break;
+
+          case PATH:
+            // only re-index movies which are still in the list
+            if (movieIndex.get(movie.getDbId()) == movie) {
+              removeFromPathIndex((String) evt.getOldValue(), movie);
+              addToPathIndex((String) evt.getNewValue(), movie);
+            }
+            break;
         }
       }
     };
@@ -185,6 +199,7 @@ public class MovieList extends AbstractModelObject {
     if (!movieList.contains(movie)) {
       int oldValue = movieList.size();
       movieList.add(movie);
+      addToIndex(movie);
 
       updateLists(movie);
       movie.addPropertyChangeListener(movieListener);
@@ -271,6 +286,7 @@ public class MovieList extends AbstractModelObject {
     for (int i = movies.size() - 1; i >= 0; i--) {
       Movie movie = movies.get(i);
       movieList.remove(movie);
+      removeFromIndex(movie);
       if (movie.getMovieSet() != null) {
         MovieSet movieSet = movie.getMovieSet();
 
@@ -308,6 +324,7 @@ public class MovieList extends AbstractModelObject {
       Movie movie = movies.get(i);
       movie.deleteFilesSafely();
       movieList.remove(movie);
+      removeFromIndex(movie);
       if (movie.getMovieSet() != null) {
         MovieSet movieSet = movie.getMovieSet();
         movieSet.removeMovie(movie, false);
@@ -338,55 +355,109 @@ public class MovieList extends AbstractModelObject {
   /**
    * Load movies from database.
    */
-  void loadMoviesFromDatabase(MVMap<UUID, String> movieMap, ObjectMapper objectMapper) {
-    // load movies
-    ObjectReader movieObjectReader = objectMapper.readerFor(Movie.class);
+  <V> void loadMoviesFromDatabase(MVMap<UUID, V> movieMap, RecordDecoder<V, Movie> decoder) {
+    // load movies; the decoding of big databases is spread over all available cores
+    List<UUID> corruptMovies = new ArrayList<>();
+    List<Movie> movies = new DatabaseLoader<>(movieMap, decoder).load(corruptMovies);
+
+    for (UUID uuid : corruptMovies) {
+      LOGGER.info("dropping corrupt movie: {}", uuid);
+      movieMap.remove(uuid);
+    }
 
-    for (UUID uuid : new ArrayList<>(movieMap.keyList())) {
-      String json = "";
-      try {
-        json = movieMap.get(uuid);
-        Movie movie = movieObjectReader.readValue(json);
-        movie.setDbId(uuid);
-
-        // sanity check: only movies with a video file are valid
-        if (movie.getMediaFiles(MediaFileType.VIDEO).isEmpty()) {
-          // no video file? drop it
-          LOGGER.info("movie \"{}\" without video file - dropping", movie.getTitle());
-          movieMap.remove(uuid);
-        }
+    for (Movie movie : movies) {
+      // sanity check: only movies with a video file are valid
+      if (!movie.hasMediaFiles(MediaFileType.VIDEO)) {
+        // no video file? drop it
+        LOGGER.info("movie \"{}\" without video file - dropping", movie.getTitle());
+        movieMap.remove(movie.getDbId());
+      }
+    }
+
+    // for performance reasons we add movies directly (in one go)
+    movieList.addAll(movies);
+    for (Movie movie : movies) {
+      addToIndex(movie);
+    }
 
-        // for performance reasons we add movies directly
-        movieList.add(movie);
+    LOGGER.info("found {} movies in database", movieList.size());
+  }
+
+  /**
+   * load the movies which could not be migrated to the actual database format (with the decoder of the old format). Records which cannot be
+   * decoded are kept in the database (they may be readable by another version of tmm)
+   *
+   * @param movieMap
+   *          the map of the old database format
+   * @param decoder
+   *          the decoder of the old database format
+   * @param unreadable
+   *          a list to collect the keys of all records which could not be decoded
+   * @return the loaded movies
+   */
+  <V> List<Movie> loadUnmigratedMoviesFromDatabase(MVMap<UUID, V> movieMap, RecordDecoder<V, Movie> decoder, List<UUID> unreadable) {
+    List<Movie> movies = new ArrayList<>();
+    for (Movie movie : new DatabaseLoader<>(movieMap, decoder).load(unreadable)) {
+      if (lookupMovie(movie.getDbId()) == null && movie.hasMediaFiles(MediaFileType.VIDEO)) {
+        movies.add(movie);
       }
-      catch (Exception e) {
-        LOGGER.warn("problem decoding movie json string: {}", e.getMessage());
-        LOGGER.info("dropping corrupt movie: {}", json);
-        movieMap.remove(uuid);
+      else {
+        // already loaded from the actual map or without video file
+        movieMap.remove(movie.getDbId());
       }
     }
-    LOGGER.info("found {} movies in database", movieList.size());
+
+    movieList.addAll(movies);
+    for (Movie movie : movies) {
+      addToIndex(movie);
+    }
+
+    LOGGER.info("found {} movies in the old database format", movies.size());
+    return movies;
   }
 
-  void loadMovieSetsFromDatabase(MVMap<UUID, String> movieSetMap, ObjectMapper objectMapper) {
+  <V> void loadMovieSetsFromDatabase(MVMap<UUID, V> movieSetMap, RecordDecoder<V, MovieSet> decoder) {
     // load movie sets
-    ObjectReader movieSetObjectReader = objectMapper.readerFor(MovieSet.class);
+    List<UUID> corruptMovieSets = new ArrayList<>();
+    List<MovieSet> movieSets = new DatabaseLoader<>(movieSetMap, decoder).load(corruptMovieSets);
 
-    for (UUID uuid : new ArrayList<>(movieSetMap.keyList())) {
-      try {
-        MovieSet movieSet = movieSetObjectReader.readValue(movieSetMap.get(uuid));
-        movieSet.setDbId(uuid);
-        // for performance reasons we add movies sets directly
-        movieSetList.add(movieSet);
+    for (UUID uuid : corruptMovieSets) {
+      LOGGER.info("dropping corrupt movie set: {}", uuid);
+      movieSetMap.remove(uuid);
+    }
+
+    // for performance reasons we add movies sets directly
+    movieSetList.addAll(movieSets);
+
+    LOGGER.info("found {} movieSets in database", movieSetList.size());
+  }
+
+  /**
+   * load the movie sets which could not be migrated to the actual database format (with the decoder of the old format)
+   *
+   * @param movieSetMap
+   *          the map of the old database format
+   * @param decoder
+   *          the decoder of the old database format
+   * @param unreadable
+   *          a list to collect the keys of all records which could not be decoded
+   * @return the loaded movie sets
+   */
+  <V> List<MovieSet> loadUnmigratedMovieSetsFromDatabase(MVMap<UUID, V> movieSetMap, RecordDecoder<V, MovieSet> decoder, List<UUID> unreadable) {
+    List<MovieSet> movieSets = new ArrayList<>();
+    for (MovieSet movieSet : new DatabaseLoader<>(movieSetMap, decoder).load(unreadable)) {
+      if (lookupMovieSet(movieSet.getDbId()) == null) {
+        movieSets.add(movieSet);
       }
-      catch (Exception e) {
-        LOGGER.warn("problem decoding movie set json string: {}", e.getMessage());
-        LOGGER.info("dropping corrupt movie set");
-        movieSetMap.remove(uuid);
+      else {
+        movieSetMap.remove(movieSet.getDbId());
       }
     }
 
-    LOGGER.info("found {} movieSets in database", movieSetList.size());
+    movieSetList.addAll(movieSets);
+
+    LOGGER.info("found {} movieSets in the old database format", movieSets.size());
+    return movieSets;
   }
 
   void initDataAfterLoading() {
@@ -454,13 +525,18 @@ public class MovieList extends AbstractModelObject {
     return null;
   }
 
+  /**
+   * get the movie with the given db id
+   *
+   * @param uuid
+   *          the db id of the movie
+   * @return the movie or null
+   */
   public Movie lookupMovie(UUID uuid) {
-    for (Movie movie : movieList) {
-      if (movie.getDbId().equals(uuid)) {
-        return movie;
-      }
+    if (uuid == null) {
+      return null;
     }
-    return null;
+    return movieIndex.get(uuid);
   }
 
   /**
@@ -470,16 +546,15 @@ public class MovieList extends AbstractModelObject {
    *          the path
    * @return the movie by path
    */
-  public synchronized Movie getMovieByPath(Path path) {
-
-    for (Movie movie : movieList) {
-      if (movie.getPathNIO().compareTo(path.toAbsolutePath()) == 0) {
-        LOGGER.debug("Ok, found already existing movie '{}' in DB (path: {})", movie.getTitle(), path);
-        return movie;
-      }
+  public Movie getMovieByPath(Path path) {
+    List<Movie> movies = moviePathIndex.get(path.toAbsolutePath().normalize());
+    if (movies == null || movies.isEmpty()) {
+      return null;
     }
 
-    return null;
+    Movie movie = movies.get(0);
+    LOGGER.debug("Ok, found already existing movie '{}' in DB (path: {})", movie.getTitle(), path);
+    return movie;
   }
 
   /**
@@ -489,14 +564,65 @@ public class MovieList extends AbstractModelObject {
    *          the path
    * @return the movie list
    */
-  public synchronized List<Movie> getMoviesByPath(Path path) {
-    ArrayList<Movie> movies = new ArrayList<>();
-    for (Movie movie : movieList) {
-      if (movie.getPathNIO().compareTo(path) == 0) {
+  public List<Movie> getMoviesByPath(Path path) {
+    List<Movie> movies = moviePathIndex.get(path.toAbsolutePath().normalize());
+    if (movies == null) {
+      return new ArrayList<>();
+    }
+    return new ArrayList<>(movies);
+  }
+
+  private void addToIndex(Movie movie) {
+    movieIndex.put(movie.getDbId(), movie);
+    addToPathIndex(movie.getPath(), movie);
+  }
+
+  private void removeFromIndex(Movie movie) {
+    movieIndex.remove(movie.getDbId(), movie);
+    removeFromPathIndex(movie.getPath(), movie);
+  }
+
+  private void addToPathIndex(String path, Movie movie) {
+    Path key = getPathIndexKey(path);
+    if (key == null) {
+      return;
+    }
+
+    moviePathIndex.compute(key, (k, movies) -> {
+      if (movies == null) {
+        movies = new CopyOnWriteArrayList<>();
+      }
+      if (!movies.contains(movie)) {
         movies.add(movie);
       }
+      return movies;
+    });
+  }
+
+  private void removeFromPathIndex(String path, Movie movie) {
+    Path key = getPathIndexKey(path);
+    if (key == null) {
+      return;
+    }
+
+    moviePathIndex.computeIfPresent(key, (k, movies) -> {
+      movies.remove(movie);
+      return movies.isEmpty() ? null : movies;
+    });
+  }
+
+  private Path getPathIndexKey(String path) {
+    if (StringUtils.isBlank(path)) {
+      return null;
+    }
+
+    try {
+      return Paths.get(path).toAbsolutePath().normalize();
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not index path '{}' - {}", path, e.getMessage());
+      return null;
     }
-    return movies;
   }
 
   /**
@@ -854,7 +980,7 @@ public class MovieList extends AbstractModelObject {
    *          the movie
    */
   private void updateMediaInformationLists(Movie movie) {
-    for (MediaFile mf : movie.getMediaFiles(MediaFileType.VIDEO)) {
+    for (MediaFile mf : movie.getMediaFilesOfType(MediaFileType.VIDEO)) {
       // video codec
       if (StringUtils.isNotBlank(mf.getVideoCodec()) && videoCodecsInMovies.add(mf.getVideoCodec())) {
         firePropertyChange(Constants.VIDEO_CODEC, null, videoCodecsInMovies);
@@ -15,22 +15,32 @@
  */
 package org.tinymediamanager.core.movie;
 
+import java.beans.PropertyChangeListener;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.StopWatch;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
+import org.tinymediamanager.core.BinaryRecordCodec;
 import org.tinymediamanager.core.Constants;
 import org.tinymediamanager.core.CustomNullStringSerializerProvider;
+import org.tinymediamanager.core.DataSourceWatcher;
+import org.tinymediamanager.core.DirectoryManifest;
 import org.tinymediamanager.core.ITmmModule;
 import org.tinymediamanager.core.NullKeySerializer;
 import org.tinymediamanager.core.Settings;
@@ -38,12 +48,19 @@ import org.tinymediamanager.core.UTF8Control;
 import org.tinymediamanager.core.Utils;
 import org.tinymediamanager.core.movie.entities.Movie;
 import org.tinymediamanager.core.movie.entities.MovieSet;
+import org.tinymediamanager.core.movie.tasks.MovieUpdateDatasourceTask;
+import org.tinymediamanager.core.threading.TmmTaskManager;
+import org.tinymediamanager.core.threading.TmmThreadPool;
+import org.tinymediamanager.core.threading.TmmWriteBehindQueue;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
 /**
  * The class MovieModuleManager. Used to manage the movies module
@@ -51,23 +68,39 @@ import com.fasterxml.jackson.databind.ObjectWriter;
  * @author Manuel Laggner
  */
 public class MovieModuleManager implements ITmmModule {
-  private static final ResourceBundle BUNDLE       = ResourceBundle.getBundle("messages", new UTF8Control());
-  public static final MovieSettings   SETTINGS     = MovieSettings.getInstance();
-
-  private static final String         MODULE_TITLE = "Movie management";
-  private static final String         MOVIE_DB     = "movies.db";
-  private static final Logger         LOGGER       = LoggerFactory.getLogger(MovieModuleManager.class);
-  private static MovieModuleManager   instance;
-
-  private boolean                     enabled;
-  private MVStore                     mvStore;
-  private ObjectWriter                movieObjectWriter;
-  private ObjectWriter                movieSetObjectWriter;
-
-  private MVMap<UUID, String>         movieMap;
-  private MVMap<UUID, String>         movieSetMap;
-
-  private List<String>                startupMessages;
+  private static final ResourceBundle   BUNDLE       = ResourceBundle.getBundle("messages", new UTF8Control());
+  public static final MovieSettings     SETTINGS     = MovieSettings.getInstance();
+
+  private static final String           MODULE_TITLE = "Movie management";
+  private static final String           MOVIE_DB     = "movies.db";
+  private static final long             WATCH_DELAY  = 10000;         // 10 sec without changes in a folder
+  private static final long             POLL_DELAY   = 5 * 60 * 1000; // 5 min
+  private static final Logger           LOGGER       = LoggerFactory.getLogger(MovieModuleManager.class);
+  private static MovieModuleManager     instance;
+
+  private volatile boolean              enabled;
+  private boolean                       binaryFormat;
+  private MVStore                       mvStore;
+  private ObjectMapper                  objectMapper;
+  private ObjectWriter                  movieObjectWriter;
+  private ObjectWriter                  movieSetObjectWriter;
+  private BinaryRecordCodec<Movie>      movieCodec;
+  private BinaryRecordCodec<MovieSet>   movieSetCodec;
+
+  private MVMap<UUID, String>           movieMap;
+  private MVMap<UUID, String>           movieSetMap;
+  private MVMap<UUID, byte[]>           movieBinaryMap;
+  private MVMap<UUID, byte[]>           movieSetBinaryMap;
+  private MVMap<UUID, Integer>          movieMigrationFailedMap;
+  private MVMap<UUID, Integer>          movieSetMigrationFailedMap;
+  private DirectoryManifest             directoryManifest;
+
+  private TmmWriteBehindQueue<Movie>    movieQueue;
+  private TmmWriteBehindQueue<MovieSet> movieSetQueue;
+  private DataSourceWatcher             dataSourceWatcher;
+  private PropertyChangeListener        settingsListener;
+
+  private List<String>                  startupMessages;
 
   private MovieModuleManager() {
     enabled = false;
@@ -88,6 +121,9 @@ public class MovieModuleManager implements ITmmModule {
 
   @Override
   public void startUp() {
+    StopWatch stopWatch = new StopWatch();
+    stopWatch.start();
+
     // configure database
     Path databaseFile = Paths.get(Globals.settings.getSettingsFolder(), MOVIE_DB);
     try {
@@ -118,37 +154,211 @@ public class MovieModuleManager implements ITmmModule {
     mvStore.setRetentionTime(0);
     mvStore.setReuseSpace(true);
     mvStore.setCacheSize(8);
+    logStartupPhase(stopWatch, "open database");
 
     // configure JSON
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.configure(MapperFeature.AUTO_DETECT_GETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_IS_GETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_SETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_FIELDS, false);
-    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    objectMapper.setTimeZone(TimeZone.getDefault());
-    objectMapper.setSerializationInclusion(Include.NON_DEFAULT);
-    objectMapper.setSerializerProvider(new CustomNullStringSerializerProvider());
-    objectMapper.getSerializerProvider().setNullKeySerializer(new NullKeySerializer());
-
+    objectMapper = createObjectMapper(new JsonFactory());
     movieObjectWriter = objectMapper.writerFor(Movie.class);
     movieSetObjectWriter = objectMapper.writerFor(MovieSet.class);
 
+    // configure the binary format
+    ObjectMapper smileMapper = createObjectMapper(new SmileFactory());
+    movieCodec = new BinaryRecordCodec<>(smileMapper, Movie.class);
+    movieSetCodec = new BinaryRecordCodec<>(smileMapper, MovieSet.class);
+
     movieMap = mvStore.openMap("movies");
     movieSetMap = mvStore.openMap("movieSets");
+    movieBinaryMap = mvStore.openMap("moviesBinary");
+    movieSetBinaryMap = mvStore.openMap("movieSetsBinary");
+    directoryManifest = new DirectoryManifest(mvStore.openMap("movieDirManifest"));
+    movieMigrationFailedMap = mvStore.openMap("moviesMigrationFailed");
+    movieSetMigrationFailedMap = mvStore.openMap("movieSetsMigrationFailed");
+
+    // migrate the records if the format has been changed
+    binaryFormat = Globals.settings.isBinaryDatabaseFormat();
+    if (binaryFormat && (!movieMap.isEmpty() || !movieSetMap.isEmpty())) {
+      LOGGER.info("migrating {} movies to the binary database format",
+          movieCodec.migrateToBinary(movieMap, movieBinaryMap, movieMigrationFailedMap, objectMapper));
+      LOGGER.info("migrating {} movie sets to the binary database format",
+          movieSetCodec.migrateToBinary(movieSetMap, movieSetBinaryMap, movieSetMigrationFailedMap, objectMapper));
+      logStartupPhase(stopWatch, "migrate database");
+    }
+    else if (!binaryFormat && (!movieBinaryMap.isEmpty() || !movieSetBinaryMap.isEmpty())) {
+      LOGGER.info("migrating {} movies to the JSON database format",
+          movieCodec.migrateToJson(movieBinaryMap, movieMap, movieMigrationFailedMap, objectMapper));
+      LOGGER.info("migrating {} movie sets to the JSON database format",
+          movieSetCodec.migrateToJson(movieSetBinaryMap, movieSetMap, movieSetMigrationFailedMap, objectMapper));
+      logStartupPhase(stopWatch, "migrate database");
+    }
+
+    // write changed entities asynchronously (multiple changes of the same entity are written only once)
+    int writeDelay = Globals.settings.getDatabaseWriteDelay();
+    movieQueue = new TmmWriteBehindQueue<>("movies", writeDelay, this::writeMovie);
+    movieSetQueue = new TmmWriteBehindQueue<>("movieSets", writeDelay, this::writeMovieSet);
+
+    ObjectReader movieObjectReader = objectMapper.readerFor(Movie.class);
+    ObjectReader movieSetObjectReader = objectMapper.readerFor(MovieSet.class);
+    MovieList movieList = MovieList.getInstance();
+    // records which could not be migrated are read with the decoder of the old format
+    List<Movie> unmigratedMovies = new ArrayList<>();
+    List<MovieSet> unmigratedMovieSets = new ArrayList<>();
+    List<UUID> unreadable = new ArrayList<>();
+    if (binaryFormat) {
+      movieList.loadMoviesFromDatabase(movieBinaryMap, movieCodec::decode);
+      logStartupPhase(stopWatch, "load movies");
+      movieList.loadMovieSetsFromDatabase(movieSetBinaryMap, movieSetCodec::decode);
+      logStartupPhase(stopWatch, "load movie sets");
+      if (!movieMap.isEmpty()) {
+        unmigratedMovies = movieList.loadUnmigratedMoviesFromDatabase(movieMap, movieObjectReader::readValue, unreadable);
+      }
+      if (!movieSetMap.isEmpty()) {
+        unmigratedMovieSets = movieList.loadUnmigratedMovieSetsFromDatabase(movieSetMap, movieSetObjectReader::readValue, unreadable);
+      }
+    }
+    else {
+      movieList.loadMoviesFromDatabase(movieMap, movieObjectReader::readValue);
+      logStartupPhase(stopWatch, "load movies");
+      movieList.loadMovieSetsFromDatabase(movieSetMap, movieSetObjectReader::readValue);
+      logStartupPhase(stopWatch, "load movie sets");
+      if (!movieBinaryMap.isEmpty()) {
+        unmigratedMovies = movieList.loadUnmigratedMoviesFromDatabase(movieBinaryMap, movieCodec::decode, unreadable);
+      }
+      if (!movieSetBinaryMap.isEmpty()) {
+        unmigratedMovieSets = movieList.loadUnmigratedMovieSetsFromDatabase(movieSetBinaryMap, movieSetCodec::decode, unreadable);
+      }
+    }
+    movieList.initDataAfterLoading();
+    logStartupPhase(stopWatch, "initialize data");
+
+    // write the records of the old format in the actual format (this removes them from the old map)
+    unmigratedMovies.forEach(this::persistMovie);
+    unmigratedMovieSets.forEach(this::persistMovieSet);
+    if (!unreadable.isEmpty()) {
+      // they are kept in the database, but the user should know that they are missing
+      LOGGER.error("could not read {} movies/movie sets of the old database format", unreadable.size());
+      startupMessages.add(MessageFormat.format(BUNDLE.getString("movie.loaddb.migrationfailed"), unreadable.size()));
+    }
+
+    // update changed movie folders automatically (depth 2 for polling: movie folder and its sub folders)
+    dataSourceWatcher = new DataSourceWatcher("movies", WATCH_DELAY, POLL_DELAY, 2, this::resolveChangedFolder, this::updateChangedFolders);
+    settingsListener = evt -> {
+      // a late event must not start the watcher of a shut down module again
+      if (!enabled) {
+        return;
+      }
+      if ("watchDataSources".equals(evt.getPropertyName()) || Constants.DATA_SOURCE.equals(evt.getPropertyName())) {
+        updateDataSourceWatcher();
+      }
+    };
+    SETTINGS.addPropertyChangeListener(settingsListener);
+    updateDataSourceWatcher();
 
-    MovieList.getInstance().loadMoviesFromDatabase(movieMap, objectMapper);
-    MovieList.getInstance().loadMovieSetsFromDatabase(movieSetMap, objectMapper);
-    MovieList.getInstance().initDataAfterLoading();
     enabled = true;
   }
 
+  private void updateDataSourceWatcher() {
+    if (SETTINGS.isWatchDataSources()) {
+      dataSourceWatcher.start(SETTINGS.getMovieDataSource());
+    }
+    else if (dataSourceWatcher.isRunning()) {
+      dataSourceWatcher.stop();
+    }
+  }
+
+  /*
+   * the movie folder (first level beneath the datasource) containing the changed path
+   */
+  private Path resolveChangedFolder(Path dataSource, Path changed) {
+    Path relative = dataSource.relativize(changed);
+    String name = relative.getName(0).toString();
+
+    // hidden folders (e.g. our backup folder or NAS thumbnails) are not parsed
+    if (name.startsWith(".") || name.startsWith("@")) {
+      return null;
+    }
+
+    if (relative.getNameCount() == 1 && !Files.isDirectory(changed)) {
+      // a deleted/renamed movie folder is no directory anymore either
+      boolean vanished = !Files.exists(changed);
+      if (vanished && MovieList.getInstance().getMovieByPath(changed) != null) {
+        return changed;
+      }
+
+      // movie files in the datasource root can only be parsed along with the whole datasource
+      String extension = "." + Utils.getExtension(changed).toLowerCase(Locale.ROOT);
+      if (Globals.settings.getVideoFileType().contains(extension)) {
+        return dataSource;
+      }
+
+      // treat any other vanished entry as folder (the cleanup removes the movies in there)
+      return vanished ? changed : null;
+    }
+
+    return dataSource.resolve(relative.getName(0));
+  }
+
+  private void updateChangedFolders(Path dataSource, Set<Path> folders) {
+    // use the datasource as it has been entered in the settings
+    String ds = null;
+    for (String entry : SETTINGS.getMovieDataSource()) {
+      if (Paths.get(entry).toAbsolutePath().normalize().equals(dataSource)) {
+        ds = entry;
+        break;
+      }
+    }
+    if (ds == null) {
+      return;
+    }
+
+    TmmThreadPool task;
+    if (folders.contains(dataSource)) {
+      task = new MovieUpdateDatasourceTask(ds);
+    }
+    else {
+      task = new MovieUpdateDatasourceTask(ds, folders);
+    }
+    TmmTaskManager.getInstance().addMainTask(task);
+  }
+
+  private ObjectMapper createObjectMapper(JsonFactory factory) {
+    ObjectMapper mapper = new ObjectMapper(factory);
+    mapper.configure(MapperFeature.AUTO_DETECT_GETTERS, false);
+    mapper.configure(MapperFeature.AUTO_DETECT_IS_GETTERS, false);
+    mapper.configure(MapperFeature.AUTO_DETECT_SETTERS, false);
+    mapper.configure(MapperFeature.AUTO_DETECT_FIELDS, false);
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    mapper.setTimeZone(TimeZone.getDefault());
+    mapper.setSerializationInclusion(Include.NON_DEFAULT);
+    mapper.setSerializerProvider(new CustomNullStringSerializerProvider());
+    mapper.getSerializerProvider().setNullKeySerializer(new NullKeySerializer());
+    return mapper;
+  }
+
+  private void logStartupPhase(StopWatch stopWatch, String phase) {
+    stopWatch.stop();
+    LOGGER.info("startup phase '{}' - took {}", phase, stopWatch);
+    stopWatch.reset();
+    stopWatch.start();
+  }
+
   @Override
   public void shutDown() throws Exception {
-    mvStore.compactMoveChunks();
-    mvStore.close();
-
     enabled = false;
+    SETTINGS.removePropertyChangeListener(settingsListener);
+    dataSourceWatcher.stop();
+    // close the database even if some changes could not be persisted
+    try {
+      movieQueue.shutdown();
+    }
+    finally {
+      try {
+        movieSetQueue.shutdown();
+      }
+      finally {
+        mvStore.compactMoveChunks();
+        mvStore.close();
+      }
+    }
 
     if (Globals.settings.isDeleteTrashOnExit()) {
       for (String ds : SETTINGS.getMovieDataSource()) {
@@ -171,8 +381,12 @@ public class MovieModuleManager implements ITmmModule {
    */
   public void dump(Movie movie) {
     try {
+      // make sure the latest state has been written
+      movieQueue.flush(movie.getDbId());
+
       ObjectMapper mapper = new ObjectMapper();
-      Object json = mapper.readValue(movieMap.get(movie.getDbId()), Object.class);
+      String value = binaryFormat ? movieCodec.toJson(movieBinaryMap.get(movie.getDbId()), objectMapper) : movieMap.get(movie.getDbId());
+      Object json = mapper.readValue(value, Object.class);
       String s = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
       LOGGER.info("Dumping Movie: {}\n{}", movie.getDbId(), s);
     }
@@ -189,8 +403,13 @@ public class MovieModuleManager implements ITmmModule {
    */
   public void dump(MovieSet movieSet) {
     try {
+      // make sure the latest state has been written
+      movieSetQueue.flush(movieSet.getDbId());
+
       ObjectMapper mapper = new ObjectMapper();
-      Object json = mapper.readValue(movieSetMap.get(movieSet.getDbId()), Object.class);
+      String value = binaryFormat ? movieSetCodec.toJson(movieSetBinaryMap.get(movieSet.getDbId()), objectMapper)
+          : movieSetMap.get(movieSet.getDbId());
+      Object json = mapper.readValue(value, Object.class);
       String s = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
       LOGGER.info("Dumping MovieSet: {}\n{}", movieSet.getDbId(), s);
     }
@@ -199,7 +418,21 @@ public class MovieModuleManager implements ITmmModule {
     }
   }
 
-  void persistMovie(Movie movie) throws Exception {
+  void persistMovie(Movie movie) {
+    movieQueue.enqueue(movie);
+  }
+
+  private void writeMovie(Movie movie) throws Exception {
+    if (binaryFormat) {
+      byte[] newValue = movieCodec.encode(movie);
+      byte[] oldValue = movieBinaryMap.get(movie.getDbId());
+      if (!Arrays.equals(newValue, oldValue)) {
+        movieBinaryMap.put(movie.getDbId(), newValue);
+      }
+      BinaryRecordCodec.removeUnmigrated(movieMap, movieMigrationFailedMap, movie.getDbId());
+      return;
+    }
+
     String newValue = movieObjectWriter.writeValueAsString(movie);
     String oldValue = movieMap.get(movie.getDbId());
 
@@ -207,22 +440,67 @@ public class MovieModuleManager implements ITmmModule {
       // write movie to DB
       movieMap.put(movie.getDbId(), newValue);
     }
+    BinaryRecordCodec.removeUnmigrated(movieBinaryMap, movieMigrationFailedMap, movie.getDbId());
   }
 
   void removeMovieFromDb(Movie movie) {
-    movieMap.remove(movie.getDbId());
+    movieQueue.discard(movie.getDbId());
+    // the next incremental update must not skip this folder
+    directoryManifest.invalidate(movie.getPathNIO());
+
+    if (binaryFormat) {
+      movieBinaryMap.remove(movie.getDbId());
+      BinaryRecordCodec.removeUnmigrated(movieMap, movieMigrationFailedMap, movie.getDbId());
+    }
+    else {
+      movieMap.remove(movie.getDbId());
+      BinaryRecordCodec.removeUnmigrated(movieBinaryMap, movieMigrationFailedMap, movie.getDbId());
+    }
   }
 
-  void persistMovieSet(MovieSet movieSet) throws Exception {
+  /**
+   * get the manifest of all visited directories (for incremental updates of the datasources)
+   *
+   * @return the {@link DirectoryManifest}
+   */
+  public DirectoryManifest getDirectoryManifest() {
+    return directoryManifest;
+  }
+
+  void persistMovieSet(MovieSet movieSet) {
+    movieSetQueue.enqueue(movieSet);
+  }
+
+  private void writeMovieSet(MovieSet movieSet) throws Exception {
+    if (binaryFormat) {
+      byte[] newValue = movieSetCodec.encode(movieSet);
+      byte[] oldValue = movieSetBinaryMap.get(movieSet.getDbId());
+      if (!Arrays.equals(newValue, oldValue)) {
+        movieSetBinaryMap.put(movieSet.getDbId(), newValue);
+      }
+      BinaryRecordCodec.removeUnmigrated(movieSetMap, movieSetMigrationFailedMap, movieSet.getDbId());
+      return;
+    }
+
     String newValue = movieSetObjectWriter.writeValueAsString(movieSet);
     String oldValue = movieSetMap.get(movieSet.getDbId());
     if (!StringUtils.equals(newValue, oldValue)) {
       movieSetMap.put(movieSet.getDbId(), newValue);
     }
+    BinaryRecordCodec.removeUnmigrated(movieSetBinaryMap, movieSetMigrationFailedMap, movieSet.getDbId());
   }
 
   void removeMovieSetFromDb(MovieSet movieSet) {
-    movieSetMap.remove(movieSet.getDbId());
+    movieSetQueue.discard(movieSet.getDbId());
+
+    if (binaryFormat) {
+      movieSetBinaryMap.remove(movieSet.getDbId());
+      BinaryRecordCodec.removeUnmigrated(movieSetMap, movieSetMigrationFailedMap, movieSet.getDbId());
+    }
+    else {
+      movieSetMap.remove(movieSet.getDbId());
+      BinaryRecordCodec.removeUnmigrated(movieSetBinaryMap, movieSetMigrationFailedMap, movieSet.getDbId());
+    }
   }
 
   @Override
@@ -54,6 +54,7 @@ import org.tinymediamanager.core.jmte.NamedFilesizeRenderer;
 import org.tinymediamanager.core.jmte.NamedLowerCaseRenderer;
 import org.tinymediamanager.core.jmte.NamedTitleCaseRenderer;
 import org.tinymediamanager.core.jmte.NamedUpperCaseRenderer;
+import org.tinymediamanager.core.jmte.TemplateCompiler;
 import org.tinymediamanager.core.jmte.TmmModelAdaptor;
 import org.tinymediamanager.core.jmte.ZeroNumberRenderer;
 import org.tinymediamanager.core.movie.connector.MovieConnectors;
@@ -94,6 +95,8 @@ public class MovieRenamer {
   private static final Pattern            YEAR_ID_PATTERN             = Pattern.compile("\\$\\{.*?(year|imdb|tmdb).*?\\}", Pattern.CASE_INSENSITIVE);
 
   public static final Map<String, String> TOKEN_MAP                   = createTokenMap();
+  // every pattern is parsed only once
+  private static final TemplateCompiler   TEMPLATES                   = new TemplateCompiler(createEngine(), MovieRenamer::morphTemplate);
 
   private MovieRenamer() {
     // hide public constructor for utility classes
@@ -152,6 +155,25 @@ public class MovieRenamer {
     return tokenMap;
   }
 
+  /**
+   * create the JMTE engine for the renamer
+   *
+   * @return the configured engine
+   */
+  private static Engine createEngine() {
+    Engine engine = Engine.createEngine();
+    engine.registerRenderer(Number.class, new ZeroNumberRenderer());
+    engine.registerNamedRenderer(new NamedDateRenderer());
+    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
+    engine.registerNamedRenderer(new NamedLowerCaseRenderer());
+    engine.registerNamedRenderer(new NamedTitleCaseRenderer());
+    engine.registerNamedRenderer(new MovieNamedFirstCharacterRenderer());
+    engine.registerNamedRenderer(new NamedArrayRenderer());
+    engine.registerNamedRenderer(new NamedFilesizeRenderer());
+    engine.setModelAdaptor(new MovieRenamerModelAdaptor());
+    return engine;
+  }
+
   /**
    * morph the given template to the JMTE template
    *
@@ -1157,16 +1179,6 @@ public class MovieRenamer {
    */
   public static String getTokenValue(Movie movie, String token) {
     try {
-      Engine engine = Engine.createEngine();
-      engine.registerRenderer(Number.class, new ZeroNumberRenderer());
-      engine.registerNamedRenderer(new NamedDateRenderer());
-      engine.registerNamedRenderer(new NamedUpperCaseRenderer());
-      engine.registerNamedRenderer(new NamedLowerCaseRenderer());
-      engine.registerNamedRenderer(new NamedTitleCaseRenderer());
-      engine.registerNamedRenderer(new MovieNamedFirstCharacterRenderer());
-      engine.registerNamedRenderer(new NamedArrayRenderer());
-      engine.registerNamedRenderer(new NamedFilesizeRenderer());
-      engine.setModelAdaptor(new MovieRenamerModelAdaptor());
       Map<String, Object> root = new HashMap<>();
       root.put("movie", movie);
 
@@ -1176,7 +1188,7 @@ public class MovieRenamer {
         root.put("movieSet", movie.getMovieSet());
       }
 
-      return engine.transform(morphTemplate(token), root);
+      return TEMPLATES.transform(token, root);
     }
     catch (Exception e) {
       LOGGER.warn("unable to process token: {}", token);
@@ -123,6 +123,8 @@ public class MovieSettings extends AbstractSettings {
 
   // data sources / NFO settings
   private boolean                          buildImageCacheOnImport             = false;
+  private boolean                          incrementalUpdate                   = false;
+  private boolean                          watchDataSources                    = false;
   private MovieConnectors                  movieConnector                      = MovieConnectors.KODI;
   private CertificationStyle               certificationStyle                  = CertificationStyle.LARGE;
   private boolean                          writeCleanNfo                       = false;
@@ -980,6 +982,36 @@ public class MovieSettings extends AbstractSettings {
     firePropertyChange("buildImageCacheOnImport", oldValue, newValue);
   }
 
+  /**
+   * only re-parse folders which have been changed since the last update of the datasource (detected via the last modified date of the folders)
+   *
+   * @return true if the update should be incremental
+   */
+  public boolean isIncrementalUpdate() {
+    return incrementalUpdate;
+  }
+
+  public void setIncrementalUpdate(boolean newValue) {
+    boolean oldValue = this.incrementalUpdate;
+    this.incrementalUpdate = newValue;
+    firePropertyChange("incrementalUpdate", oldValue, newValue);
+  }
+
+  /**
+   * watch the datasources for changes and update the changed folders automatically
+   *
+   * @return true if the datasources should be watched
+   */
+  public boolean isWatchDataSources() {
+    return watchDataSources;
+  }
+
+  public void setWatchDataSources(boolean newValue) {
+    boolean oldValue = this.watchDataSources;
+    this.watchDataSources = newValue;
+    firePropertyChange("watchDataSources", oldValue, newValue);
+  }
+
   public boolean isRenamerCreateMoviesetForSingleMovie() {
     return renamerCreateMoviesetForSingleMovie;
   }
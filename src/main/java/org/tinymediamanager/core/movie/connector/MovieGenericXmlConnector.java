@@ -17,8 +17,6 @@
 package org.tinymediamanager.core.movie.connector;
 
 import java.io.ByteArrayInputStream;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.nio.file.Path;
 import java.text.Format;
 import java.text.SimpleDateFormat;
@@ -32,8 +30,6 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -43,7 +39,7 @@ import org.tinymediamanager.core.MediaCertification;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.Message;
 import org.tinymediamanager.core.MessageManager;
-import org.tinymediamanager.core.Utils;
+import org.tinymediamanager.core.NfoWriter;
 import org.tinymediamanager.core.entities.MediaFile;
 import org.tinymediamanager.core.entities.MediaGenres;
 import org.tinymediamanager.core.entities.MediaRating;
@@ -107,6 +103,7 @@ public abstract class MovieGenericXmlConnector implements IMovieConnector {
     }
 
     List<MediaFile> newNfos = new ArrayList<>(1);
+    NfoWriter nfo = null;
 
     for (MovieNfoNaming nfoNaming : nfoNames) {
       String nfoFilename = movie.getNfoFilename(nfoNaming);
@@ -115,89 +112,15 @@ public abstract class MovieGenericXmlConnector implements IMovieConnector {
       }
 
       try {
-        // create the new NFO file according to the specifications
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance(); // NOSONAR
-        document = factory.newDocumentBuilder().newDocument();
-        document.setXmlStandalone(true);
-
-        // tmm comment
-        Format formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        String dat = formatter.format(new Date());
-        document.appendChild(document.createComment("created on " + dat + " - tinyMediaManager " + Globals.settings.getVersion()));
-
-        root = document.createElement("movie");
-        document.appendChild(root);
-
-        // add well known tags
-        addTitle();
-        addOriginaltitle();
-        addSorttitle();
-        addYear();
-        addRating();
-        addUserrating();
-        addVotes();
-        addSet();
-        addPlot();
-        addOutline();
-        addTagline();
-        addRuntime();
-        addThumb();
-        addFanart();
-        addMpaa();
-        addCertification();
-        addId();
-        addTmdbid();
-        addTmdbCollectionId();
-        addIds();
-        addCountry();
-        addPremiered();
-        addWatched();
-        addPlaycount();
-        addGenres();
-        addStudios();
-        addCredits();
-        addDirectors();
-        addTags();
-        addActors();
-        addProducers();
-        addTrailer();
-        addLanguages();
-        addDateAdded();
-
-        // add connector specific tags
-        addOwnTags();
-
-        // add unsupported tags
-        addUnsupportedTags();
-
-        // add tinyMediaManagers own data
-        addTinyMediaManagerTags();
-
-        // serialize to string
-        Writer out = new StringWriter();
-        getTransformer().transform(new DOMSource(document), new StreamResult(out));
-        String xml = out.toString().replaceAll("(?<!\r)\n", "\r\n"); // windows conform line endings
+        // the content is the same for all NFO names - render it only once
+        if (nfo == null) {
+          nfo = createNfo();
+        }
 
         Path f = movie.getPathNIO().resolve(nfoFilename);
 
-        // compare old vs new
-        boolean changed = true;
-        try {
-          String xmlOld = Utils.readFileToString(f).replaceAll("\\<\\!\\-\\-.*\\-\\-\\>", ""); // replace xml comments
-          String xmlNew = xml.replaceAll("\\<\\!\\-\\-.*\\-\\-\\>", "");
-          if (xmlOld.equals(xmlNew)) {
-            changed = false;
-          }
-        }
-        catch (Exception e) {
-          // ignore
-        }
-
-        // write to file
-        if (changed) {
-          Utils.writeStringToFile(f, xml);
-        }
-        else {
+        // write to file (if it changed)
+        if (!nfo.write(f)) {
           getLogger().debug("NFO did not change - do not write it!");
         }
         MediaFile mf = new MediaFile(f);
@@ -217,6 +140,77 @@ public abstract class MovieGenericXmlConnector implements IMovieConnector {
     }
   }
 
+  /**
+   * create the XML document of the NFO and render it
+   *
+   * @return the {@link NfoWriter} with the rendered NFO
+   * @throws Exception
+   *           any Exception that has been thrown
+   */
+  private NfoWriter createNfo() throws Exception {
+    // create the new NFO file according to the specifications
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance(); // NOSONAR
+    document = factory.newDocumentBuilder().newDocument();
+    document.setXmlStandalone(true);
+
+    // tmm comment
+    Format formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    String dat = formatter.format(new Date());
+    document.appendChild(document.createComment("created on " + dat + " - tinyMediaManager " + Globals.settings.getVersion()));
+
+    root = document.createElement("movie");
+    document.appendChild(root);
+
+    // add well known tags
+    addTitle();
+    addOriginaltitle();
+    addSorttitle();
+    addYear();
+    addRating();
+    addUserrating();
+    addVotes();
+    addSet();
+    addPlot();
+    addOutline();
+    addTagline();
+    addRuntime();
+    addThumb();
+    addFanart();
+    addMpaa();
+    addCertification();
+    addId();
+    addTmdbid();
+    addTmdbCollectionId();
+    addIds();
+    addCountry();
+    addPremiered();
+    addWatched();
+    addPlaycount();
+    addGenres();
+    addStudios();
+    addCredits();
+    addDirectors();
+    addTags();
+    addActors();
+    addProducers();
+    addTrailer();
+    addLanguages();
+    addDateAdded();
+
+    // add connector specific tags
+    addOwnTags();
+
+    // add unsupported tags
+    addUnsupportedTags();
+
+    // add tinyMediaManagers own data
+    addTinyMediaManagerTags();
+
+    NfoWriter nfo = new NfoWriter();
+    nfo.append(getTransformer(), document);
+    return nfo;
+  }
+
   /**
    * add the title in the form <title>xxx</title>
    */
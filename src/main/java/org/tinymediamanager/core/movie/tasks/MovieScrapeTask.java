@@ -36,6 +36,7 @@ import org.tinymediamanager.core.movie.MovieModuleManager;
 import org.tinymediamanager.core.movie.MovieScraperMetadataConfig;
 import org.tinymediamanager.core.movie.MovieSearchAndScrapeOptions;
 import org.tinymediamanager.core.movie.entities.Movie;
+import org.tinymediamanager.core.threading.TmmProviderFanOut;
 import org.tinymediamanager.core.threading.TmmTask;
 import org.tinymediamanager.core.threading.TmmTaskManager;
 import org.tinymediamanager.core.threading.TmmThreadPool;
@@ -49,6 +50,7 @@ import org.tinymediamanager.scraper.entities.MediaArtwork.MediaArtworkType;
 import org.tinymediamanager.scraper.entities.MediaType;
 import org.tinymediamanager.scraper.exceptions.MissingIdException;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
+import org.tinymediamanager.scraper.http.TmmHttpHostLimiter;
 import org.tinymediamanager.scraper.interfaces.IMovieArtworkProvider;
 import org.tinymediamanager.scraper.interfaces.IMovieMetadataProvider;
 import org.tinymediamanager.scraper.interfaces.IMovieTrailerProvider;
@@ -81,7 +83,10 @@ public class MovieScrapeTask extends TmmThreadPool {
 
   @Override
   protected void doInBackground() {
-    initThreadPool(3, "scrape");
+    // as many threads as the hosts of the metadata scraper currently allow parallel requests
+    MediaScraper metadataScraper = searchAndScrapeOptions.getMetadataScraper();
+    String providerId = metadataScraper != null ? metadataScraper.getId() : null;
+    initThreadPool(TmmHttpHostLimiter.getInstance().getSuggestedThreads(providerId, 3, 8), "scrape");
     start();
 
     smartScrapeList = new ArrayList<>(0);
@@ -156,6 +161,11 @@ public class MovieScrapeTask extends TmmThreadPool {
         List<MediaScraper> artworkScrapers = searchAndScrapeOptions.getArtworkScrapers();
         List<MediaScraper> trailerScrapers = searchAndScrapeOptions.getTrailerScrapers();
 
+        // remember the hosts of the metadata scraper for sizing the thread pool
+        if (mediaMetadataScraper != null) {
+          TmmHttpHostLimiter.getInstance().setCurrentProvider(mediaMetadataScraper.getId());
+        }
+
         // search movie
         MediaSearchResult result1 = null;
         if (doSearch) {
@@ -232,6 +242,9 @@ public class MovieScrapeTask extends TmmThreadPool {
         MessageManager.instance.pushMessage(
             new Message(MessageLevel.ERROR, "MovieScraper", "message.scrape.threadcrashed", new String[] { ":", e.getLocalizedMessage() }));
       }
+      finally {
+        TmmHttpHostLimiter.getInstance().setCurrentProvider(null);
+      }
     }
 
     private MediaSearchResult searchForMovie(MediaScraper mediaMetadataProvider) {
@@ -281,20 +294,17 @@ public class MovieScrapeTask extends TmmThreadPool {
       options.setFanartSize(MovieModuleManager.SETTINGS.getImageFanartSize());
       options.setPosterSize(MovieModuleManager.SETTINGS.getImagePosterSize());
 
-      // scrape providers till one artwork has been found
-      for (MediaScraper scraper : artworkScrapers) {
-        IMovieArtworkProvider artworkProvider = (IMovieArtworkProvider) scraper.getMediaProvider();
-        try {
-          artwork.addAll(artworkProvider.getArtwork(options));
-        }
-        catch (ScrapeException e) {
-          LOGGER.error("getArtwork", e);
-          MessageManager.instance.pushMessage(
-              new Message(MessageLevel.ERROR, movie, "message.scrape.movieartworkfailed", new String[] { ":", e.getLocalizedMessage() }));
-        }
-        catch (MissingIdException ignored) {
-        }
-      }
+      // ask all providers at the same time; the results are merged in the order of the scrapers
+      artwork.addAll(TmmProviderFanOut.callAll(artworkScrapers, MediaScraper::getId,
+          scraper -> ((IMovieArtworkProvider) scraper.getMediaProvider()).getArtwork(options), (scraper, e) -> {
+            if (e instanceof MissingIdException) {
+              LOGGER.debug("no usable ID found for scraper {}", scraper.getId());
+              return;
+            }
+            LOGGER.error("getArtwork", e);
+            MessageManager.instance.pushMessage(
+                new Message(MessageLevel.ERROR, movie, "message.scrape.movieartworkfailed", new String[] { ":", e.getLocalizedMessage() }));
+          }));
 
       return artwork;
     }
@@ -307,21 +317,17 @@ public class MovieScrapeTask extends TmmThreadPool {
       options.setMetadata(metadata);
       options.setIds(metadata.getIds());
 
-      // scrape trailers
-      for (MediaScraper trailerScraper : trailerScrapers) {
-        try {
-          IMovieTrailerProvider trailerProvider = (IMovieTrailerProvider) trailerScraper.getMediaProvider();
-          trailers.addAll(trailerProvider.getTrailers(options));
-        }
-        catch (ScrapeException e) {
-          LOGGER.error("getTrailers", e);
-          MessageManager.instance.pushMessage(
-                  new Message(MessageLevel.ERROR, movie, "message.scrape.trailerfailed", new String[]{":", e.getLocalizedMessage()}));
-        }
-        catch (MissingIdException e) {
-          LOGGER.debug("no usable ID found for scraper {}", trailerScraper.getMediaProvider().getProviderInfo().getId());
-        }
-      }
+      // scrape trailers - all providers at the same time, merged in the order of the scrapers
+      trailers.addAll(TmmProviderFanOut.callAll(trailerScrapers, MediaScraper::getId,
+          trailerScraper -> ((IMovieTrailerProvider) trailerScraper.getMediaProvider()).getTrailers(options), (trailerScraper, e) -> {
+            if (e instanceof MissingIdException) {
+              LOGGER.debug("no usable ID found for scraper {}", trailerScraper.getMediaProvider().getProviderInfo().getId());
+              return;
+            }
+            LOGGER.error("getTrailers", e);
+            MessageManager.instance.pushMessage(
+                new Message(MessageLevel.ERROR, movie, "message.scrape.trailerfailed", new String[] { ":", e.getLocalizedMessage() }));
+          }));
 
       return trailers;
     }
@@ -29,6 +29,7 @@ import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -51,6 +52,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
 import org.tinymediamanager.core.AbstractFileVisitor;
+import org.tinymediamanager.core.DirectoryManifest;
+import org.tinymediamanager.core.DirectoryManifest.Recorder;
 import org.tinymediamanager.core.MediaFileHelper;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.MediaSource;
@@ -106,9 +109,17 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
 
   private List<String>                dataSources;
   private List<Movie>                 movieFolders   = new ArrayList<>();
+  private List<Path>                  changedFolders = new ArrayList<>();
+  private String                      changedDataSource;
   private MovieList                   movieList;
   private Set<Path>                   filesFound     = ConcurrentHashMap.newKeySet();
   private List<Runnable>              miTasks        = Collections.synchronizedList(new ArrayList<>());
+  private List<Recorder>              recorders      = new ArrayList<>();
+  private Set<Path>                   failedFolders  = ConcurrentHashMap.newKeySet();
+  private Set<Path>                   movieTrees     = new HashSet<>();
+  private DirectoryManifest           manifest;
+  private boolean                     incremental;
+  private int                         unchangedDirs  = 0;
 
   public MovieUpdateDatasourceTask() {
     super(BUNDLE.getString("update.datasource"));
@@ -130,11 +141,27 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     movieFolders.addAll(movies);
   }
 
+  /**
+   * update only the given folders of the datasource (new, changed and vanished movie folders)
+   *
+   * @param datasource
+   *          the datasource containing the folders
+   * @param folders
+   *          the folders to update (first level beneath the datasource)
+   */
+  public MovieUpdateDatasourceTask(String datasource, Collection<Path> folders) {
+    super(BUNDLE.getString("update.datasource") + " (" + datasource + ")");
+    movieList = MovieList.getInstance();
+    dataSources = new ArrayList<>(0);
+    changedDataSource = datasource;
+    changedFolders.addAll(folders);
+  }
+
   @Override
   public void doInBackground() {
     // check if there is at least one DS to update
     Utils.removeEmptyStringsFromList(dataSources);
-    if (dataSources.isEmpty() && movieFolders.isEmpty()) {
+    if (dataSources.isEmpty() && movieFolders.isEmpty() && changedFolders.isEmpty()) {
       LOGGER.info("no datasource to update");
       MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, "update.datasource", "update.datasource.nonespecified"));
       return;
@@ -146,10 +173,19 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     postDirAll = 0;
     visFileAll = 0;
 
+    manifest = MovieModuleManager.getInstance().getDirectoryManifest();
+    incremental = MovieModuleManager.SETTINGS.isIncrementalUpdate();
+
     // get existing movie folders
     List<Path> existing = new ArrayList<>();
+    movieTrees.clear();
     for (Movie movie : movieList.getMovies()) {
       existing.add(movie.getPathNIO());
+      // all folders containing a movie (for the incremental update)
+      Path folder = movie.getPathNIO().toAbsolutePath().normalize();
+      while (folder != null && movieTrees.add(folder)) {
+        folder = folder.getParent();
+      }
     }
 
     try {
@@ -157,7 +193,7 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
       stopWatch.start();
       List<MediaFile> imageFiles = new ArrayList<>();
 
-      if (movieFolders.isEmpty()) {
+      if (movieFolders.isEmpty() && changedFolders.isEmpty()) {
         for (String ds : dataSources) {
           LOGGER.info("Start UDS on datasource: {}", ds);
           miTasks.clear();
@@ -209,11 +245,12 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
           rootList.clear();
           publishState();
 
+          unchangedDirs = 0;
           for (Path path : newMovieDirs) {
-            searchAndParse(dsAsPath.toAbsolutePath(), path, Integer.MAX_VALUE);
+            searchAndParseIfChanged(dsAsPath.toAbsolutePath(), path);
           }
           for (Path path : existingMovieDirs) {
-            searchAndParse(dsAsPath.toAbsolutePath(), path, Integer.MAX_VALUE);
+            searchAndParseIfChanged(dsAsPath.toAbsolutePath(), path);
           }
           if (!rootFiles.isEmpty()) {
             submitTask(new parseMultiMovieDirTask(dsAsPath.toAbsolutePath(), dsAsPath.toAbsolutePath(), rootFiles));
@@ -221,9 +258,12 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
 
           waitForCompletionOrCancel();
 
+          commitManifest();
+
           // print stats
           LOGGER.info("FilesFound: {}", filesFound.size());
           LOGGER.info("moviesFound: {}", movieList.getMovieCount());
+          LOGGER.info("unchangedDirs: {}", unchangedDirs);
           LOGGER.debug("PreDir: {}", preDir);
           LOGGER.debug("PostDir: {}", postDir);
           LOGGER.debug("VisFile: {}", visFile);
@@ -273,6 +313,13 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
         for (Movie m : movieFolders) {
           folder.put(m.getPathNIO(), m.getDataSource());
         }
+        // changed folders: the movies in there (for the cleanup) and the folder itself (for new movies)
+        for (Path dir : changedFolders) {
+          movieFolders.addAll(getMoviesInFolder(dir));
+          if (Files.isDirectory(dir)) {
+            folder.put(dir, changedDataSource);
+          }
+        }
         for (Map.Entry<Path, String> entry : folder.entrySet()) {
           Path dir = entry.getKey();
           String ds = entry.getValue();
@@ -280,6 +327,8 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
         }
         waitForCompletionOrCancel();
 
+        commitManifest();
+
         // print stats
         LOGGER.info("FilesFound: {}", filesFound.size());
         LOGGER.info("moviesFound: {}", movieList.getMovieCount());
@@ -290,6 +339,15 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
         LOGGER.debug("PostDirAll: {}", postDirAll);
         LOGGER.debug("VisFileAll: {}", visFileAll);
 
+        // new movies in the changed folders
+        for (Path dir : changedFolders) {
+          for (Movie movie : getMoviesInFolder(dir)) {
+            if (!movieFolders.contains(movie)) {
+              movieFolders.add(movie);
+            }
+          }
+        }
+
         // cleanup
         cleanup(movieFolders);
 
@@ -316,6 +374,16 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     }
   }
 
+  private List<Movie> getMoviesInFolder(Path folder) {
+    List<Movie> movies = new ArrayList<>();
+    for (Movie movie : movieList.getMovies()) {
+      if (movie.getPathNIO().startsWith(folder)) {
+        movies.add(movie);
+      }
+    }
+    return movies;
+  }
+
   /**
    * ThreadpoolWorker to work off ONE possible movie from root datasource directory
    * 
@@ -343,7 +411,13 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
       name = name.replaceAll("\\-G\\d+", "-G" + uniqueId);
       Thread.currentThread().setName(name);
 
-      parseMovieDirectory(subdir, datasource);
+      try {
+        parseMovieDirectory(subdir, datasource);
+      }
+      catch (Exception e) {
+        failedFolders.add(subdir.toAbsolutePath().normalize());
+        throw e;
+      }
       return subdir.toString();
     }
   }
@@ -368,7 +442,13 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
 
     @Override
     public String call() {
-      createMultiMovieFromDir(datasource, movieDir, allFiles);
+      try {
+        createMultiMovieFromDir(datasource, movieDir, allFiles);
+      }
+      catch (Exception e) {
+        failedFolders.add(movieDir.toAbsolutePath().normalize());
+        throw e;
+      }
       return movieDir.toString();
     }
   }
@@ -1145,7 +1225,7 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     setTaskName(BUNDLE.getString("update.mediainfo"));
     publishState();
 
-    initThreadPool(1, "mediainfo");
+    initThreadPool(Globals.settings.getMediaInfoThreads(datasource), "mediainfo");
 
     LOGGER.info("getting Mediainfo...");
 
@@ -1192,7 +1272,12 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     setTaskName(BUNDLE.getString("update.mediainfo"));
     publishState();
 
-    initThreadPool(1, "mediainfo");
+    // the movies could be spread over several datasources - take the widest pool of them
+    int threads = 1;
+    for (Movie movie : movies) {
+      threads = Math.max(threads, Globals.settings.getMediaInfoThreads(movie.getDataSource()));
+    }
+    initThreadPool(threads, "mediainfo");
 
     LOGGER.info("getting Mediainfo...");
     for (Movie movie : movies) {
@@ -1384,6 +1469,21 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     }
   }
 
+  /**
+   * remember the state of all parsed folders for the next incremental update; folders where parsing failed have to be parsed again next time
+   */
+  private void commitManifest() {
+    if (!cancel) {
+      for (Recorder recorder : recorders) {
+        if (failedFolders.stream().noneMatch(folder -> folder.startsWith(recorder.getRoot()))) {
+          manifest.commit(recorder);
+        }
+      }
+    }
+    recorders.clear();
+    failedFolders.clear();
+  }
+
   // **************************************
   // gets all files recursive,
   // detects movieRootDir (in case of stacked/disc folder)
@@ -1391,7 +1491,9 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
   // **************************************
   public void searchAndParse(Path datasource, Path folder, int deep) {
     folder = folder.toAbsolutePath();
-    SearchAndParseVisitor visitor = new SearchAndParseVisitor(datasource);
+    Recorder recorder = manifest.startRecording(folder);
+    recorders.add(recorder);
+    SearchAndParseVisitor visitor = new SearchAndParseVisitor(datasource, recorder);
     try {
       Files.walkFileTree(folder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), deep, visitor);
     }
@@ -1400,8 +1502,27 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     }
   }
 
+  /**
+   * search and parse the given folder; in the incremental mode only if it has been changed since the last update
+   *
+   * @param datasource
+   *          the datasource
+   * @param folder
+   *          the folder to search and parse
+   */
+  private void searchAndParseIfChanged(Path datasource, Path folder) {
+    // only skip folders with known movies - otherwise removed or never found movies would not be picked up again
+    if (incremental && movieTrees.contains(folder.toAbsolutePath().normalize()) && manifest.isUnchanged(folder, filesFound)) {
+      LOGGER.debug("Skipping unchanged dir: {}", folder);
+      unchangedDirs++;
+      return;
+    }
+    searchAndParse(datasource, folder, Integer.MAX_VALUE);
+  }
+
   private class SearchAndParseVisitor extends AbstractFileVisitor {
     private Path              datasource;
+    private Recorder          recorder;
     private ArrayList<String> unstackedRoot = new ArrayList<>(); // only for
                                                                  // folder
                                                                  // stacking
@@ -1409,13 +1530,15 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
                                                                  // video
                                                                  // folders
 
-    SearchAndParseVisitor(Path datasource) {
+    SearchAndParseVisitor(Path datasource, Recorder recorder) {
       this.datasource = datasource;
+      this.recorder = recorder;
     }
 
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attr) {
       incVisFile();
+      recorder.file(file);
       if (Utils.isRegularFile(attr) && !file.getFileName().toString().matches(skipRegex)) {
         // check for video?
         if (Globals.settings.getVideoFileType().contains("." + FilenameUtils.getExtension(file.toString()).toLowerCase(Locale.ROOT))) {
@@ -1443,8 +1566,10 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
       if (skipFolders.contains(fn) || fn.matches(skipRegex) || Files.exists(dir.resolve(".tmmignore")) || Files.exists(dir.resolve("tmmignore"))
           || Files.exists(dir.resolve(".nomedia")) || MovieModuleManager.SETTINGS.getSkipFolder().contains(dir.toFile().getAbsolutePath())) {
         LOGGER.debug("Skipping dir: {}", dir);
+        recorder.skippedDirectory(dir, attrs);
         return SKIP_SUBTREE;
       }
+      recorder.directory(dir, attrs);
       return CONTINUE;
     }
 
@@ -17,13 +17,21 @@ package org.tinymediamanager.core.tasks;
 
 import java.io.BufferedInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -50,14 +58,25 @@ import okhttp3.Headers;
  * @author Myron Boyle, Manuel Laggner
  */
 public class DownloadTask extends TmmTask {
-  private static final Logger         LOGGER    = LoggerFactory.getLogger(DownloadTask.class);
-  private static final ResourceBundle BUNDLE    = ResourceBundle.getBundle("messages", new UTF8Control());
+  private static final Logger         LOGGER            = LoggerFactory.getLogger(DownloadTask.class);
+  private static final ResourceBundle BUNDLE            = ResourceBundle.getBundle("messages", new UTF8Control());
+  // temp files of the running downloads
+  private static final Set<Path>      ACTIVE_TEMP_FILES = ConcurrentHashMap.newKeySet();
+  // interrupted downloads are kept for resuming at most 2 days and 5GB in sum; files changed within the last hour are never touched
+  private static final String         TEMP_SUBFOLDER    = "downloads";
+  private static final long           MAX_TEMP_AGE      = TimeUnit.DAYS.toMillis(2);
+  private static final long           MIN_TEMP_AGE      = TimeUnit.HOURS.toMillis(1);
+  private static final long           MAX_TEMP_SIZE     = 5L * 1024 * 1024 * 1024;
 
   protected String                    url;
   protected Path                      file;
   protected MediaEntity               media;
   protected MediaFileType             fileType;
-  protected String                    userAgent = "";
+  protected String                    userAgent         = "";
+
+  private Path                        activeTempFile;
+  private String                      validator         = "";
+  private boolean                     resumable         = false;
 
   /**
    * Downloads an url to a file, and does correct http encoding on querystring.<br>
@@ -136,35 +155,36 @@ public class DownloadTask extends TmmTask {
       }
 
       LOGGER.info("Downloading {}", url);
-      StreamingUrl u = new StreamingUrl(UrlUtil.getURIEncoded(url).toASCIIString());
-      if (StringUtils.isNotBlank(userAgent)) {
-        u.setUserAgent(userAgent);
-      }
-
-      long timestamp = System.currentTimeMillis();
+      StreamingUrl u = createUrl();
 
+      // the same download (url -> file) always gets the same temp file to be able to resume it
+      String downloadId = Integer.toHexString((url + "|" + file.toAbsolutePath()).hashCode());
+      boolean inTempFolder = false;
       try {
-        // create a temp file/folder inside the temp folder or tmm folder
-        Path tempFolder = Paths.get(Utils.getTempFolder());
+        // create a temp file inside an own folder of the temp folder (the other files in the temp folder are none of our business)
+        Path tempFolder = Paths.get(Utils.getTempFolder(), TEMP_SUBFOLDER);
         if (!Files.exists(tempFolder)) {
-          Files.createDirectory(tempFolder);
+          Files.createDirectories(tempFolder);
         }
-        tempFile = tempFolder.resolve(file.getFileName() + "." + timestamp + ".part"); // multi episode same file
+        cleanupTempFiles(tempFolder);
+        tempFile = tempFolder.resolve(file.getFileName() + "." + downloadId + ".part");
+        inTempFolder = true;
       }
       catch (Exception e) {
         LOGGER.debug("could not write to temp folder: {}", e.getMessage());
 
-        // could not create the temp folder somehow - put the files into the entity dir
-        tempFile = file.resolveSibling(file.getFileName() + "." + timestamp + ".part"); // multi episode same file
+        // could not create the temp folder somehow - put the files into the entity dir (not resumable; nobody would clean them up)
+        tempFile = file.resolveSibling(file.getFileName() + "." + downloadId + ".part");
       }
-
-      // try to resume if the temp file exists
-      boolean resume = false;
-      if (Files.exists(tempFile)) {
-        resume = true;
-        u.addHeader("Range", "bytes=" + tempFile.toFile().length() + "-");
+      if (!ACTIVE_TEMP_FILES.add(tempFile)) {
+        // the same download is already running (multi episode same file)
+        tempFile = tempFile.resolveSibling(file.getFileName() + "." + System.currentTimeMillis() + ".part");
+        ACTIVE_TEMP_FILES.add(tempFile);
       }
+      activeTempFile = tempFile;
 
+      // ask for the whole file as range to find out if the server supports ranges
+      u.addHeader("Range", "bytes=0-");
       InputStream is = u.getInputStream();
 
       // trace server headers
@@ -181,6 +201,14 @@ public class DownloadTask extends TmmTask {
       }
 
       long length = u.getContentLength();
+      boolean rangesSupported = u.getStatusCode() == 206 || "bytes".equalsIgnoreCase(u.getHeader("Accept-Ranges"));
+
+      // the remote file must be recognizable to resume the download later (strong ETags only - weak ones are not allowed in If-Range)
+      String etag = StringUtils.defaultString(u.getHeader("ETag"));
+      validator = etag.startsWith("W/") ? "" : etag;
+      if (validator.isEmpty()) {
+        validator = StringUtils.defaultString(u.getHeader("Last-Modified"));
+      }
       String type = u.getContentEncoding();
       if (StringUtils.isBlank(ext)) {
         // still empty? try to parse from mime header
@@ -203,55 +231,70 @@ public class DownloadTask extends TmmTask {
 
       LOGGER.info("Downloading to {}", file);
 
-      BufferedInputStream bufferedInputStream = new BufferedInputStream(is);
-
-      try (FileOutputStream outputStream = new FileOutputStream(tempFile.toFile(), resume)) {
-        int count = 0;
-        byte[] buffer = new byte[2048];
-        Long timestamp1 = System.nanoTime();
-        Long timestamp2;
-        long bytesDone = 0;
-        long bytesDonePrevious = 0;
-        double speed = 0;
+      if (rangesSupported && SegmentedDownload.isSegmentable(length)) {
+        // big file: download it in segments over several connections; the probing connection is not needed any more
+        is.close();
 
-        while ((count = bufferedInputStream.read(buffer, 0, buffer.length)) != -1) {
-          if (cancel) {
-            Thread.currentThread().interrupt();
-          }
+        SegmentedDownload download = new SegmentedDownload(tempFile, length, inTempFolder ? validator : "", SegmentedDownload.MAX_CONNECTIONS);
+        if (download.isResumed()) {
+          LOGGER.info("Resuming download of {} at {}", file, formatBytesForOutput(download.getBytesDone()));
+        }
+        try {
+          download.download(this::openRange, () -> cancel, this::publishProgress);
+        }
+        catch (IOException e) {
+          // keep the temp file and its state to resume the download next time
+          resumable = download.isResumable();
+          throw e;
+        }
+      }
+      else {
+        // the state of a previous segmented download is useless now
+        Utils.deleteFileSafely(SegmentedDownload.getStateFile(tempFile));
+
+        BufferedInputStream bufferedInputStream = new BufferedInputStream(is);
+
+        try (FileOutputStream outputStream = new FileOutputStream(tempFile.toFile())) {
+          int count = 0;
+          byte[] buffer = new byte[64 * 1024];
+          Long timestamp1 = System.nanoTime();
+          Long timestamp2;
+          long bytesDone = 0;
+          long bytesDonePrevious = 0;
+          double speed = 0;
+
+          while ((count = bufferedInputStream.read(buffer, 0, buffer.length)) != -1) {
+            if (cancel) {
+              Thread.currentThread().interrupt();
+            }
 
-          outputStream.write(buffer, 0, count);
-          bytesDone += count;
+            outputStream.write(buffer, 0, count);
+            bytesDone += count;
 
-          // we push the progress only once per 250ms (to use less performance and get a better download speed)
-          timestamp2 = System.nanoTime();
-          if (timestamp2 - timestamp1 > 250000000) {
-            // avg. speed between the actual and the previous
-            speed = (speed + (bytesDone - bytesDonePrevious) / ((double) (timestamp2 - timestamp1) / 1000000000)) / 2;
+            // we push the progress only once per 250ms (to use less performance and get a better download speed)
+            timestamp2 = System.nanoTime();
+            if (timestamp2 - timestamp1 > 250000000) {
+              // avg. speed between the actual and the previous
+              speed = (speed + (bytesDone - bytesDonePrevious) / ((double) (timestamp2 - timestamp1) / 1000000000)) / 2;
 
-            timestamp1 = timestamp2;
-            bytesDonePrevious = bytesDone;
+              timestamp1 = timestamp2;
+              bytesDonePrevious = bytesDone;
 
-            if (length > 0) {
-              publishState(formatBytesForOutput(bytesDone) + "/" + formatBytesForOutput(length) + " @" + formatSpeedForOutput(speed),
-                  (int) (bytesDone * 100 / length));
-            }
-            else {
-              setWorkUnits(0);
-              publishState(formatBytesForOutput(bytesDone) + " @" + formatSpeedForOutput(speed), 0);
+              publishProgress(bytesDone, length, speed);
             }
-
           }
         }
-      }
 
-      // we must not close the input stream on cancel(the rest will be downloaded if we close it on cancel)
-      if (!cancel) {
-        is.close();
+        // we must not close the input stream on cancel(the rest will be downloaded if we close it on cancel)
+        if (!cancel) {
+          is.close();
+        }
       }
 
       if (cancel) {
         // delete half downloaded file
         Utils.deleteFileSafely(tempFile);
+        Utils.deleteFileSafely(SegmentedDownload.getStateFile(tempFile));
       }
       else {
         if (ext.isEmpty()) {
@@ -293,13 +336,100 @@ public class DownloadTask extends TmmTask {
       LOGGER.error("problem downloading: ", e);
     }
     finally {
-      // remove temp file
-      if (tempFile != null && Files.exists(tempFile)) {
+      // remove temp file (unless the download can be resumed)
+      if (tempFile != null && Files.exists(tempFile) && (!resumable || cancel)) {
         Utils.deleteFileSafely(tempFile);
+        Utils.deleteFileSafely(SegmentedDownload.getStateFile(tempFile));
+      }
+      if (activeTempFile != null) {
+        ACTIVE_TEMP_FILES.remove(activeTempFile);
       }
     }
   }
 
+  private StreamingUrl createUrl() throws IOException {
+    StreamingUrl u = new StreamingUrl(UrlUtil.getURIEncoded(url).toASCIIString());
+    if (StringUtils.isNotBlank(userAgent)) {
+      u.setUserAgent(userAgent);
+    }
+    return u;
+  }
+
+  /**
+   * open a connection for the given range of the download
+   */
+  private InputStream openRange(long from, long to) throws IOException, InterruptedException {
+    StreamingUrl u = createUrl();
+    u.addHeader("Range", "bytes=" + from + "-" + to);
+    if (StringUtils.isNotBlank(validator)) {
+      // the server answers with the whole file (200) if the remote file has been changed meanwhile
+      u.addHeader("If-Range", validator);
+    }
+    InputStream is = u.getInputStream();
+    if (u.getStatusCode() != 206) {
+      is.close();
+      throw new IOException("range request not supported or remote file changed: " + u.getStatusLine());
+    }
+    return is;
+  }
+
+  /**
+   * remove the temp files of interrupted downloads which are too old or take too much space (the oldest ones first). Files of running downloads
+   * and files which have been changed recently (e.g. by a download of another tmm instance) are kept
+   *
+   * @param tempFolder
+   *          the folder containing the temp files of the downloads only
+   */
+  static void cleanupTempFiles(Path tempFolder) {
+    List<Path> tempFiles = new ArrayList<>();
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(tempFolder, "*.{part,state,state.tmp}")) {
+      for (Path path : directoryStream) {
+        if (Files.isRegularFile(path) && !isActiveTempFile(path)) {
+          tempFiles.add(path);
+        }
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not list temp files: {}", e.getMessage());
+      return;
+    }
+
+    // newest first
+    tempFiles.sort(Comparator.comparingLong((Path path) -> path.toFile().lastModified()).reversed());
+
+    long now = System.currentTimeMillis();
+    long size = 0;
+    for (Path path : tempFiles) {
+      size += path.toFile().length();
+      long age = now - path.toFile().lastModified();
+      if (age > MAX_TEMP_AGE || (size > MAX_TEMP_SIZE && age > MIN_TEMP_AGE)) {
+        LOGGER.debug("deleting stale temp file {}", path);
+        Utils.deleteFileSafely(path);
+      }
+    }
+  }
+
+  private static boolean isActiveTempFile(Path path) {
+    for (Path tempFile : ACTIVE_TEMP_FILES) {
+      if (path.getFileName().toString().startsWith(tempFile.getFileName().toString())) {
+        // the temp file itself or its state files
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void publishProgress(long bytesDone, long length, double speed) {
+    if (length > 0) {
+      publishState(formatBytesForOutput(bytesDone) + "/" + formatBytesForOutput(length) + " @" + formatSpeedForOutput(speed),
+          (int) (bytesDone * 100 / length));
+    }
+    else {
+      setWorkUnits(0);
+      publishState(formatBytesForOutput(bytesDone) + " @" + formatSpeedForOutput(speed), 0);
+    }
+  }
+
   private String formatBytesForOutput(long bytes) {
     return String.format("%.2fM", (double) bytes / (1000d * 1000d));
   }
@@ -48,6 +48,11 @@ public class ExportTask extends TmmThreadPool {
   protected void doInBackground() {
     start();
     try {
+      // the exporter reports the progress of the detail pages
+      exporter.setProgressListener((done, total) -> {
+        setWorkUnits(total);
+        publishState(done);
+      });
       exporter.export(entities, exportPath);
     }
     catch (Exception e) {
@@ -64,6 +69,6 @@ public class ExportTask extends TmmThreadPool {
 
   @Override
   public void callback(Object obj) {
-    // we cannot do any progress here since there is no response of progress from jmte
+    // the progress is reported by the exporter
   }
 }
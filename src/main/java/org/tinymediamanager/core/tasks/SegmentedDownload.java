@@ -0,0 +1,420 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.tasks;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.Utils;
+
+/**
+ * The class SegmentedDownload downloads a file over several connections at once: the file is split into segments, which are fetched with HTTP
+ * range requests and written with positional writes into the target file. The progress of all segments is persisted in a state file next to the
+ * target file, so an interrupted download (even after a crash) can be resumed where it stopped. A download is only resumed if the remote file is
+ * still the same (same length and same ETag/Last-Modified validator)
+ *
+ * @author Manuel Laggner
+ */
+class SegmentedDownload {
+  private static final Logger LOGGER            = LoggerFactory.getLogger(SegmentedDownload.class);
+
+  /** the minimum size of a segment; smaller files are not split */
+  static final long           MIN_SEGMENT_SIZE  = 8L * 1024 * 1024;
+  /** the maximum amount of concurrent connections */
+  static final int            MAX_CONNECTIONS   = 4;
+
+  private static final int    BUFFER_SIZE       = 64 * 1024;
+  private static final int    RETRIES           = 3;
+  private static final long   PROGRESS_INTERVAL = 250;
+  private static final long   STATE_INTERVAL    = 1000;
+
+  /**
+   * opens a connection for a range of the file
+   */
+  interface RangeConnection {
+    /**
+     * open a stream of the given range
+     *
+     * @param from
+     *          the first byte
+     * @param to
+     *          the last byte (inclusive)
+     * @return the stream of exactly this range
+     * @throws IOException
+     *           any exception while connecting, also if the server does not answer with the requested range
+     * @throws InterruptedException
+     *           if the thread has been interrupted
+     */
+    InputStream open(long from, long to) throws IOException, InterruptedException;
+  }
+
+  /**
+   * gets informed about the progress of the whole download
+   */
+  interface ProgressListener {
+    void progress(long bytesDone, long length, double speed);
+  }
+
+  private final Path          file;
+  private final Path          stateFile;
+  private final long          length;
+  private final String        validator;
+  private final List<Segment> segments;
+  private final boolean       resumed;
+  private volatile boolean    aborted = false;
+
+  /**
+   * create a new segmented download. If there is a state file of a previous (interrupted) download of the same remote file, this download is
+   * resumed
+   *
+   * @param file
+   *          the file to download to
+   * @param length
+   *          the length of the whole file
+   * @param validator
+   *          the ETag or Last-Modified value of the remote file; if empty, the download cannot be resumed
+   * @param connections
+   *          the amount of connections to use (at most {@link #MAX_CONNECTIONS})
+   */
+  SegmentedDownload(Path file, long length, String validator, int connections) {
+    this.file = file;
+    this.stateFile = getStateFile(file);
+    this.length = length;
+    this.validator = validator == null ? "" : validator.trim();
+
+    List<Segment> state = loadState();
+    this.resumed = state != null;
+    this.segments = resumed ? state : split(length, connections);
+  }
+
+  /**
+   * is a file of the given length worth being split into segments?
+   *
+   * @param length
+   *          the length of the file
+   * @return true if the file is big enough for at least two segments
+   */
+  static boolean isSegmentable(long length) {
+    return length >= 2 * MIN_SEGMENT_SIZE;
+  }
+
+  static Path getStateFile(Path file) {
+    return file.resolveSibling(file.getFileName() + ".state");
+  }
+
+  boolean isResumed() {
+    return resumed;
+  }
+
+  /**
+   * can this download be resumed later (if it gets interrupted)?
+   *
+   * @return true if the remote file can be recognized again
+   */
+  boolean isResumable() {
+    return !validator.isEmpty();
+  }
+
+  long getBytesDone() {
+    long bytesDone = 0;
+    for (Segment segment : segments) {
+      bytesDone += segment.done;
+    }
+    return bytesDone;
+  }
+
+  /**
+   * download all missing segments
+   *
+   * @param connection
+   *          the connection factory for the ranges
+   * @param cancelled
+   *          tells if the download has been cancelled
+   * @param listener
+   *          the listener for progress updates
+   * @return true if the download has been finished, false if it has been cancelled
+   * @throws IOException
+   *           any exception while downloading; the state is persisted to resume the download later
+   * @throws InterruptedException
+   *           if the thread has been interrupted
+   */
+  boolean download(RangeConnection connection, BooleanSupplier cancelled, ProgressListener listener) throws IOException, InterruptedException {
+    List<Segment> missing = new ArrayList<>();
+    for (Segment segment : segments) {
+      if (!segment.isComplete()) {
+        missing.add(segment);
+      }
+    }
+
+    LOGGER.debug("downloading {} segments of {} over {} connections", missing.size(), file, missing.size());
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, missing.size()), r -> {
+      Thread thread = new Thread(r, "download-segment");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Segment segment : missing) {
+        futures.add(executor.submit(() -> {
+          fetch(segment, channel, connection, cancelled);
+          return null;
+        }));
+      }
+      executor.shutdown();
+
+      long lastProgress = System.nanoTime();
+      long lastState = lastProgress;
+      long bytesDonePrevious = getBytesDone();
+      double speed = 0;
+
+      try {
+        for (Future<?> future : futures) {
+          while (true) {
+            try {
+              future.get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+              break;
+            }
+            catch (TimeoutException e) {
+              // still running - just report the progress
+            }
+
+            long now = System.nanoTime();
+            long bytesDone = getBytesDone();
+            // avg. speed between the actual and the previous
+            speed = (speed + (bytesDone - bytesDonePrevious) / ((double) (now - lastProgress) / 1000000000)) / 2;
+            lastProgress = now;
+            bytesDonePrevious = bytesDone;
+            listener.progress(bytesDone, length, speed);
+
+            if (now - lastState > TimeUnit.MILLISECONDS.toNanos(STATE_INTERVAL)) {
+              // only persist the progress which is on the disk for sure
+              long[] done = snapshot();
+              channel.force(false);
+              saveState(done);
+              lastState = now;
+            }
+          }
+        }
+      }
+      catch (ExecutionException e) {
+        // stop all other segments and remember how far we got
+        abort(executor);
+        long[] done = snapshot();
+        channel.force(false);
+        saveState(done);
+
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        if (cause instanceof InterruptedException) {
+          throw (InterruptedException) cause;
+        }
+        throw new IOException(cause);
+      }
+      catch (InterruptedException e) {
+        aborted = true;
+        // do not touch the channel in an interrupted thread (it would be closed)
+        saveState(snapshot());
+        throw e;
+      }
+
+      if (cancelled.getAsBoolean()) {
+        return false;
+      }
+
+      // a previous download into this file might have been longer
+      channel.truncate(length);
+      listener.progress(getBytesDone(), length, speed);
+    }
+    finally {
+      executor.shutdown();
+    }
+
+    Utils.deleteFileSafely(stateFile);
+    return true;
+  }
+
+  private void abort(ExecutorService executor) throws InterruptedException {
+    // no interrupt: an interrupted positional write would close the channel for all segments
+    aborted = true;
+    executor.awaitTermination(30, TimeUnit.SECONDS);
+  }
+
+  private void fetch(Segment segment, FileChannel channel, RangeConnection connection, BooleanSupplier cancelled)
+      throws IOException, InterruptedException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int retries = 0;
+
+    while (!segment.isComplete()) {
+      try (InputStream is = connection.open(segment.start + segment.done, segment.end)) {
+        int count;
+        while (!segment.isComplete() && (count = is.read(buffer, 0, (int) Math.min(buffer.length, segment.remaining()))) != -1) {
+          if (aborted || cancelled.getAsBoolean()) {
+            return;
+          }
+
+          ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, count);
+          long position = segment.start + segment.done;
+          while (byteBuffer.hasRemaining()) {
+            position += channel.write(byteBuffer, position);
+          }
+          // only count what has been written
+          segment.done += count;
+        }
+
+        if (!segment.isComplete()) {
+          throw new EOFException("connection closed after " + segment.done + " of " + segment.size() + " bytes");
+        }
+      }
+      catch (InterruptedIOException e) {
+        throw e;
+      }
+      catch (IOException e) {
+        if (aborted || ++retries > RETRIES) {
+          throw e;
+        }
+        LOGGER.debug("segment {}-{} failed ({}) - retrying", segment.start, segment.end, e.getMessage());
+      }
+    }
+  }
+
+  private static List<Segment> split(long length, int connections) {
+    int count = (int) Math.max(1, Math.min(Math.min(connections, MAX_CONNECTIONS), length / MIN_SEGMENT_SIZE));
+    long size = length / count;
+
+    List<Segment> segments = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      long start = i * size;
+      long end = i == count - 1 ? length - 1 : start + size - 1;
+      segments.add(new Segment(start, end, 0));
+    }
+    return segments;
+  }
+
+  /*
+   * the progress of all segments at this moment
+   */
+  private long[] snapshot() {
+    long[] done = new long[segments.size()];
+    for (int i = 0; i < done.length; i++) {
+      done[i] = segments.get(i).done;
+    }
+    return done;
+  }
+
+  /*
+   * state file: the length of the file in the first line, the validator in the second line, followed by one line per segment: "start end done"
+   */
+  private void saveState(long[] done) throws IOException {
+    if (!isResumable()) {
+      return;
+    }
+
+    List<String> lines = new ArrayList<>();
+    lines.add(Long.toString(length));
+    lines.add(validator);
+    for (int i = 0; i < done.length; i++) {
+      Segment segment = segments.get(i);
+      lines.add(segment.start + " " + segment.end + " " + done[i]);
+    }
+
+    Path tempState = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+    Files.write(tempState, lines, StandardCharsets.UTF_8);
+    try {
+      Files.move(tempState, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempState, stateFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private List<Segment> loadState() {
+    if (!isResumable() || !Files.exists(stateFile) || !Files.exists(file)) {
+      return null;
+    }
+
+    try {
+      List<String> lines = Files.readAllLines(stateFile, StandardCharsets.UTF_8);
+      if (lines.size() < 2 || Long.parseLong(lines.get(0).trim()) != length || !validator.equals(lines.get(1).trim())) {
+        // another (or a changed) remote file
+        LOGGER.debug("state of {} does not match - starting from scratch", file);
+        return null;
+      }
+
+      List<Segment> state = new ArrayList<>();
+      for (String line : lines.subList(2, lines.size())) {
+        String[] parts = line.trim().split(" ");
+        state.add(new Segment(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+      }
+      return state.isEmpty() ? null : state;
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not read download state {}: {}", stateFile, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * a range of the file; only one thread writes the progress
+   */
+  private static class Segment {
+    private final long    start;
+    private final long    end;
+    private volatile long done;
+
+    private Segment(long start, long end, long done) {
+      this.start = start;
+      this.end = end;
+      this.done = done;
+    }
+
+    private long size() {
+      return end - start + 1;
+    }
+
+    private long remaining() {
+      return size() - done;
+    }
+
+    private boolean isComplete() {
+      return done >= size();
+    }
+  }
+}
@@ -15,7 +15,6 @@
  */
 package org.tinymediamanager.core.tasks;
 
-import java.io.BufferedInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -70,6 +69,10 @@ public class YoutubeDownloadTask extends TmmTask {
   private long                        bytesDone                   = 0;
   private long                        bytesDonePrevious           = 0;
   private double                      speed                       = 0;
+  private final StreamProgress        videoProgress               = new StreamProgress("video");
+  private final StreamProgress        audioProgress               = new StreamProgress("audio");
+  /* if one stream fails, the other one is useless */
+  private volatile boolean            streamFailed                = false;
 
   public YoutubeDownloadTask(MediaTrailer mediaTrailer, MediaEntity mediaEntity, String filename) {
     super(BUNDLE.getString("task.download") + " " + mediaTrailer.getName(), 100, TaskType.BACKGROUND_TASK);
@@ -102,10 +105,11 @@ public class YoutubeDownloadTask extends TmmTask {
       Future<Path> futureVideo = executorService.submit(() -> {
         try {
           LOGGER.debug("Downloading video....");
-          return download(videoFormat);
+          return download(videoFormat, videoProgress);
         }
         catch (Exception e) {
           LOGGER.error("Could not download video stream: {}", e.getMessage());
+          streamFailed = true;
           return null;
         }
 
@@ -113,18 +117,23 @@ public class YoutubeDownloadTask extends TmmTask {
       Future<Path> futureAudio = executorService.submit(() -> {
         try {
           LOGGER.debug("Downloading audio....");
-          return download(audioFormat);
+          return download(audioFormat, audioProgress);
         }
         catch (Exception e) {
           LOGGER.error("Could not download audio stream: {}", e.getMessage());
+          streamFailed = true;
           return null;
         }
       });
+      executorService.shutdown();
 
       Path videoFile = futureVideo.get();
       Path audioFile = futureAudio.get();
 
-      if (videoFile != null && audioFile != null) {
+      videoProgress.log();
+      audioProgress.log();
+
+      if (videoFile != null && audioFile != null && !streamFailed) {
 
         // Mux the audio and video
         LOGGER.debug("Muxing...");
@@ -165,6 +174,10 @@ public class YoutubeDownloadTask extends TmmTask {
    *           any {@link Exception} occurred while downloading
    */
   public Path download(Format format) throws Exception {
+    return download(format, format.itag().isVideo() ? videoProgress : audioProgress);
+  }
+
+  private Path download(Format format, StreamProgress progress) throws Exception {
     String fileName;
     Path tempDir = Paths.get(Utils.getTempFolder());
 
@@ -180,35 +193,37 @@ public class YoutubeDownloadTask extends TmmTask {
     Path outputFile = tempDir.resolve(cleanFilename(fileName));
 
     StreamingUrl url = new StreamingUrl(format.url());
-    try (InputStream is = url.getInputStream();
-        BufferedInputStream bis = new BufferedInputStream(is);
-        FileOutputStream fileOutputStream = new FileOutputStream(outputFile.toFile())) {
-      addContentLength(url.getContentLength());
+    try (InputStream is = url.getInputStream(); FileOutputStream fileOutputStream = new FileOutputStream(outputFile.toFile())) {
+      addContentLength(progress, url.getContentLength());
 
-      byte[] buffer = new byte[2048];
+      byte[] buffer = new byte[64 * 1024];
       int count;
 
-      while ((count = bis.read(buffer, 0, buffer.length)) != -1) {
-        if (cancel) {
+      while ((count = is.read(buffer, 0, buffer.length)) != -1) {
+        if (cancel || streamFailed) {
           Thread.currentThread().interrupt();
           LOGGER.info("download of {} aborted", url);
           return null;
         }
 
         fileOutputStream.write(buffer, 0, count);
-        addBytesDone(count);
+        addBytesDone(progress, count);
       }
 
-      Utils.flushFileOutputStreamToDisk(fileOutputStream);
+      progress.finish();
+
+      // no need to flush the temp file to disk - the muxer reads it right away
       return outputFile;
     }
   }
 
-  private synchronized void addContentLength(long length) {
+  private synchronized void addContentLength(StreamProgress progress, long length) {
+    progress.start(length);
     this.length += length;
   }
 
-  private synchronized void addBytesDone(long count) {
+  private synchronized void addBytesDone(StreamProgress progress, long count) {
+    progress.bytesDone += count;
     bytesDone += count;
 
     // we push the progress only once per 250ms (to use less performance and get a better download speed)
@@ -221,8 +236,8 @@ public class YoutubeDownloadTask extends TmmTask {
       bytesDonePrevious = bytesDone;
 
       if (length > 0) {
-        publishState(formatBytesForOutput(bytesDone) + "/" + formatBytesForOutput(length) + " @" + formatSpeedForOutput(speed),
-            (int) (bytesDone * 100 / length));
+        publishState(formatBytesForOutput(bytesDone) + "/" + formatBytesForOutput(length) + " @" + formatSpeedForOutput(speed) + " (V "
+            + videoProgress.getPercent() + "% / A " + audioProgress.getPercent() + "%)", (int) (bytesDone * 100 / length));
       }
       else {
         setWorkUnits(0);
@@ -246,4 +261,39 @@ public class YoutubeDownloadTask extends TmmTask {
     }
     return filename;
   }
+
+  /**
+   * progress and throughput of one of the streams
+   */
+  private class StreamProgress {
+    private final String name;
+    private long         length    = -1;
+    private long         bytesDone = 0;
+    private long         start     = 0;
+    private long         end       = 0;
+
+    private StreamProgress(String name) {
+      this.name = name;
+    }
+
+    private void start(long length) {
+      this.length = length;
+      this.start = System.nanoTime();
+    }
+
+    private int getPercent() {
+      return length > 0 ? (int) (bytesDone * 100 / length) : 0;
+    }
+
+    private void finish() {
+      end = System.nanoTime();
+    }
+
+    private void log() {
+      if (start > 0 && end > start) {
+        LOGGER.debug("{} stream: {} in {}ms @{}", name, formatBytesForOutput(bytesDone), (end - start) / 1000000,
+            formatSpeedForOutput(bytesDone / ((double) (end - start) / 1000000000)));
+      }
+    }
+  }
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.threading.TmmThreadPool.TmmThreadFactory;
+import org.tinymediamanager.scraper.http.TmmHttpHostLimiter;
+
+/**
+ * The class TmmProviderFanOut. Used to call several scraper providers for one item at the same time: the scrape time of an item is bounded by the
+ * slowest provider (or the deadline) and not by the sum of all providers. The results are always merged in the order of the given providers, so
+ * the outcome does not depend on which provider answered first.<br>
+ * The http requests of every call are attributed to its provider (see {@link TmmHttpHostLimiter#setCurrentProvider(String)}) - also if the call is
+ * done in the calling thread
+ *
+ * @author Manuel Laggner
+ */
+public class TmmProviderFanOut {
+  private static final Logger             LOGGER           = LoggerFactory.getLogger(TmmProviderFanOut.class);
+
+  /** the default deadline for all provider calls of one item (in ms) */
+  public static final long                DEFAULT_DEADLINE = 120000;
+
+  // calls which ignore the interruption keep their thread until they finish - so the amount of threads must be bounded
+  private static final int                POOL_SIZE        = 16;
+  private static final int                QUEUE_SIZE       = 64;
+  private static final ThreadPoolExecutor EXECUTOR         = createExecutor();
+
+  private TmmProviderFanOut() {
+    // private constructor for utility classes
+  }
+
+  /**
+   * a call to one provider
+   *
+   * @param <P>
+   *          the provider type
+   * @param <R>
+   *          the result type
+   */
+  @FunctionalInterface
+  public interface ProviderCall<P, R> {
+    List<R> call(P provider) throws Exception;
+  }
+
+  /**
+   * handles a failed provider call. Invoked in the calling thread and in the order of the providers
+   *
+   * @param <P>
+   *          the provider type
+   */
+  @FunctionalInterface
+  public interface ErrorHandler<P> {
+    void onError(P provider, Exception e);
+  }
+
+  private static ThreadPoolExecutor createExecutor() {
+    // idle threads die after a minute; if the pool and the queue are exhausted (e.g. by hanging providers), the calling thread does the call
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+        new TmmThreadFactory("provider-fanout"), new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * call all providers concurrently with the default deadline and merge the results in the order of the providers
+   *
+   * @param providers
+   *          the providers to call
+   * @param call
+   *          the call for one provider
+   * @param errorHandler
+   *          the handler for failed calls
+   * @return the merged results of all providers which succeeded within the deadline
+   */
+  public static <P, R> List<R> callAll(List<P> providers, ProviderCall<P, R> call, ErrorHandler<P> errorHandler) {
+    return callAll(providers, provider -> null, call, errorHandler, DEFAULT_DEADLINE);
+  }
+
+  /**
+   * call all providers concurrently with the default deadline and merge the results in the order of the providers
+   *
+   * @param providers
+   *          the providers to call
+   * @param providerId
+   *          the id of a provider (for the attribution of its http requests)
+   * @param call
+   *          the call for one provider
+   * @param errorHandler
+   *          the handler for failed calls
+   * @return the merged results of all providers which succeeded within the deadline
+   */
+  public static <P, R> List<R> callAll(List<P> providers, Function<P, String> providerId, ProviderCall<P, R> call, ErrorHandler<P> errorHandler) {
+    return callAll(providers, providerId, call, errorHandler, DEFAULT_DEADLINE);
+  }
+
+  /**
+   * call all providers concurrently and merge the results in the order of the providers. Calls which have not finished within the deadline are
+   * cancelled and their results are dropped
+   *
+   * @param providers
+   *          the providers to call
+   * @param call
+   *          the call for one provider
+   * @param errorHandler
+   *          the handler for failed calls
+   * @param deadline
+   *          the deadline for all calls (in ms)
+   * @return the merged results of all providers which succeeded within the deadline
+   */
+  public static <P, R> List<R> callAll(List<P> providers, ProviderCall<P, R> call, ErrorHandler<P> errorHandler, long deadline) {
+    return callAll(providers, provider -> null, call, errorHandler, deadline);
+  }
+
+  /**
+   * call all providers concurrently and merge the results in the order of the providers. Calls which have not finished within the deadline are
+   * cancelled and their results are dropped
+   *
+   * @param providers
+   *          the providers to call
+   * @param providerId
+   *          the id of a provider (for the attribution of its http requests)
+   * @param call
+   *          the call for one provider
+   * @param errorHandler
+   *          the handler for failed calls
+   * @param deadline
+   *          the deadline for all calls (in ms)
+   * @return the merged results of all providers which succeeded within the deadline
+   */
+  public static <P, R> List<R> callAll(List<P> providers, Function<P, String> providerId, ProviderCall<P, R> call, ErrorHandler<P> errorHandler,
+      long deadline) {
+    List<R> results = new ArrayList<>();
+
+    if (providers.isEmpty()) {
+      return results;
+    }
+
+    // only one provider: no need to switch the thread
+    if (providers.size() == 1) {
+      P provider = providers.get(0);
+      try {
+        results.addAll(nullSafe(callFor(providerId, call, provider)));
+      }
+      catch (Exception e) {
+        errorHandler.onError(provider, e);
+      }
+      return results;
+    }
+
+    List<Future<List<R>>> futures = new ArrayList<>(providers.size());
+    for (P provider : providers) {
+      futures.add(EXECUTOR.submit(() -> callFor(providerId, call, provider)));
+    }
+
+    long end = System.currentTimeMillis() + deadline;
+    for (int i = 0; i < providers.size(); i++) {
+      P provider = providers.get(i);
+      Future<List<R>> future = futures.get(i);
+      try {
+        results.addAll(nullSafe(future.get(Math.max(0, end - System.currentTimeMillis()), TimeUnit.MILLISECONDS)));
+      }
+      catch (TimeoutException e) {
+        LOGGER.warn("provider '{}' did not answer within {} ms - skipping", provider, deadline);
+        future.cancel(true);
+      }
+      catch (ExecutionException e) {
+        errorHandler.onError(provider, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+      }
+      catch (CancellationException e) {
+        LOGGER.debug("provider call '{}' has been cancelled", provider);
+      }
+      catch (InterruptedException e) {
+        // cancel all outstanding calls and pass the interruption on
+        for (Future<List<R>> f : futures) {
+          f.cancel(true);
+        }
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    return results;
+  }
+
+  private static <P, R> List<R> callFor(Function<P, String> providerId, ProviderCall<P, R> call, P provider) throws Exception {
+    return TmmHttpHostLimiter.getInstance().callFor(providerId.apply(provider), () -> call.call(provider));
+  }
+
+  private static <R> List<R> nullSafe(List<R> list) {
+    return list != null ? list : Collections.emptyList();
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.entities.MediaEntity;
+import org.tinymediamanager.core.threading.TmmThreadPool.TmmThreadFactory;
+
+/**
+ * The class TmmWriteBehindQueue. Used to persist media entities asynchronously: all entities which have been marked as dirty are collected (per db
+ * id, so multiple changes of the same entity result in only one write) and written in batches by a background thread - at the latest after the
+ * configured delay<br>
+ * Lock order: the read lock of the entity is always taken <b>before</b> the internal write monitor. So code holding the write lock of an entity may
+ * enqueue/flush it without any risk of a deadlock
+ *
+ * @author Manuel Laggner
+ */
+public class TmmWriteBehindQueue<T extends MediaEntity> {
+  private static final Logger               LOGGER         = LoggerFactory.getLogger(TmmWriteBehindQueue.class);
+  private static final int                  BATCH_SIZE     = 500;
+  private static final long                 RETRY_DELAY    = 5000;
+
+  private final String                      name;
+  private final EntityWriter<T>             writer;
+  private final long                        delay;
+  private final Map<UUID, T>                pending        = new ConcurrentHashMap<>();
+  private final AtomicBoolean               flushScheduled = new AtomicBoolean(false);
+  private final AtomicLong                  enqueued       = new AtomicLong(0);
+  private final AtomicLong                  written        = new AtomicLong(0);
+  private final Object                      writeLock      = new Object();
+  private final ScheduledThreadPoolExecutor executor;
+
+  // set as soon as the final flush of shutdown() starts - the database is closed afterwards
+  private volatile boolean                  closed         = false;
+
+  /**
+   * create a new write behind queue
+   *
+   * @param name
+   *          the name of the queue (used for the thread name and logging)
+   * @param delay
+   *          the maximum delay (in ms) until a dirty entity is written; 0 or less for writing through
+   * @param writer
+   *          the writer which finally persists an entity
+   */
+  public TmmWriteBehindQueue(String name, long delay, EntityWriter<T> writer) {
+    this.name = name;
+    this.delay = delay;
+    this.writer = writer;
+
+    executor = new ScheduledThreadPoolExecutor(1, new TmmThreadFactory("db-writer-" + name));
+    executor.setKeepAliveTime(5, TimeUnit.SECONDS);
+    executor.allowCoreThreadTimeOut(true);
+    // pending entities are written by shutdown() directly - no need to wait for the delay
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  /**
+   * mark the given entity as dirty. The entity will be written by the background thread
+   *
+   * @param entity
+   *          the entity to persist
+   * @throws IllegalStateException
+   *           if the queue has already been shut down
+   */
+  public void enqueue(T entity) {
+    if (closed) {
+      throw new IllegalStateException("db writer '" + name + "' has been shut down - cannot persist " + entity.getDbId());
+    }
+
+    if (delay <= 0 || executor.isShutdown()) {
+      // write through
+      Lock readLock = entity.getReadWriteLock().readLock();
+      readLock.lock();
+      try {
+        synchronized (writeLock) {
+          pending.remove(entity.getDbId());
+          write(entity);
+        }
+      }
+      finally {
+        readLock.unlock();
+      }
+      return;
+    }
+
+    enqueued.incrementAndGet();
+    pending.put(entity.getDbId(), entity);
+    if (flushScheduled.compareAndSet(false, true)) {
+      try {
+        executor.schedule(this::flushBatch, delay, TimeUnit.MILLISECONDS);
+      }
+      catch (RejectedExecutionException e) {
+        // shut down in the meantime - write it directly
+        flush(entity.getDbId());
+      }
+    }
+  }
+
+  /**
+   * remove the entity with the given db id from the queue. After this call there is no pending and no running write for this entity
+   *
+   * @param dbId
+   *          the db id of the entity
+   */
+  public void discard(UUID dbId) {
+    synchronized (writeLock) {
+      pending.remove(dbId);
+    }
+  }
+
+  /**
+   * write the entity with the given db id immediately (if it is pending)
+   *
+   * @param dbId
+   *          the db id of the entity
+   */
+  public void flush(UUID dbId) {
+    T entity = pending.get(dbId);
+    if (entity == null) {
+      return;
+    }
+
+    // other threads must not change the entity while it is being serialized
+    Lock readLock = entity.getReadWriteLock().readLock();
+    readLock.lock();
+    try {
+      synchronized (writeLock) {
+        // not discarded or replaced in the meantime (a replaced entity is written by the next flush)
+        if (pending.remove(dbId, entity)) {
+          write(entity);
+        }
+      }
+    }
+    finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * write all pending entities immediately
+   */
+  public void flush() {
+    for (UUID dbId : new ArrayList<>(pending.keySet())) {
+      flush(dbId);
+    }
+  }
+
+  /**
+   * stop the background thread and write all pending entities. Entities cannot be enqueued any more afterwards
+   *
+   * @throws IllegalStateException
+   *           if any pending entity could not be written
+   */
+  public void shutdown() {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+        LOGGER.warn("db writer '{}' did not finish in time", name);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    // the remaining (scheduled but not executed) entities - there is no retry any more
+    closed = true;
+    int lost = 0;
+    for (UUID dbId : new ArrayList<>(pending.keySet())) {
+      try {
+        flush(dbId);
+      }
+      catch (IllegalStateException e) {
+        lost++;
+      }
+    }
+
+    LOGGER.debug("db writer '{}' - {} changes coalesced to {} writes", name, enqueued.get(), written.get());
+
+    if (lost > 0) {
+      throw new IllegalStateException("db writer '" + name + "' - " + lost + " changes could not be persisted");
+    }
+  }
+
+  /**
+   * get the amount of entities waiting to be written
+   *
+   * @return the amount of pending entities
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  private void flushBatch() {
+    flushScheduled.set(false);
+
+    int count = 0;
+    for (UUID dbId : new ArrayList<>(pending.keySet())) {
+      if (count++ >= BATCH_SIZE) {
+        break;
+      }
+      flush(dbId);
+    }
+
+    // still some entities left? write the next batch right away
+    if (!pending.isEmpty() && !executor.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+      try {
+        executor.execute(this::flushBatch);
+      }
+      catch (RejectedExecutionException e) {
+        // shut down in the meantime - the rest is written by shutdown()
+        flushScheduled.set(false);
+      }
+    }
+  }
+
+  /*
+   * the caller must hold the read lock of the entity and the write monitor (in this order)
+   */
+  private void write(T entity) {
+    try {
+      writer.write(entity);
+      written.incrementAndGet();
+    }
+    catch (Exception e) {
+      LOGGER.error("db writer '{}' - failed to persist {}: {}", name, entity.getDbId(), e.getMessage());
+      retry(entity, e);
+    }
+  }
+
+  /**
+   * put the entity back into the queue (if it has not been enqueued again in the meantime) and write it with the next batch
+   *
+   * @throws IllegalStateException
+   *           if the final flush is already running - the change cannot be written any more
+   */
+  private void retry(T entity, Exception cause) {
+    if (closed) {
+      LOGGER.error("db writer '{}' has been shut down - the change of {} is lost", name, entity.getDbId());
+      throw new IllegalStateException("db writer '" + name + "' could not persist " + entity.getDbId(), cause);
+    }
+
+    // a shut down executor schedules nothing - the entity is written by the final flush of shutdown()
+    pending.putIfAbsent(entity.getDbId(), entity);
+    if (!executor.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+      try {
+        // do not retry in a tight loop
+        executor.schedule(this::flushBatch, Math.max(delay, RETRY_DELAY), TimeUnit.MILLISECONDS);
+      }
+      catch (RejectedExecutionException e) {
+        flushScheduled.set(false);
+      }
+    }
+  }
+
+  /**
+   * the writer which finally persists an entity
+   */
+  @FunctionalInterface
+  public interface EntityWriter<T> {
+    void write(T entity) throws Exception;
+  }
+}
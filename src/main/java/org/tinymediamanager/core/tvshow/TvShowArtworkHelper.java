@@ -42,6 +42,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.DataSourceWatcher;
 import org.tinymediamanager.core.IFileNaming;
 import org.tinymediamanager.core.ImageCache;
 import org.tinymediamanager.core.ImageUtils;
@@ -869,6 +870,7 @@ public class TvShowArtworkHelper {
       try {
         String filename = fileNaming.getFilename(basename, "jpg"); // need to force jpg here since we do know it better
         MediaFile mf = new MediaFile(vsMetaFile.getFileAsPath().getParent().resolve(filename), MediaFileType.getMediaFileType(artworkType));
+        DataSourceWatcher.markOwnChange(mf.getFileAsPath());
         Files.write(mf.getFileAsPath(), bytes);
         mediaEntity.addToMediaFiles(mf);
       }
@@ -49,6 +49,7 @@ import org.tinymediamanager.core.jmte.NamedUpperCaseRenderer;
 import org.tinymediamanager.core.tvshow.entities.TvShow;
 import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
 
+import com.floreysoft.jmte.Engine;
 import com.floreysoft.jmte.NamedRenderer;
 import com.floreysoft.jmte.RenderFormatInfo;
 
@@ -82,13 +83,8 @@ public class TvShowExporter extends MediaEntityExporter {
       return;
     }
 
-    // register own renderers
-    engine.registerNamedRenderer(new NamedDateRenderer());
-    engine.registerNamedRenderer(new NamedNumberRenderer());
-    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
-    engine.registerNamedRenderer(new NamedFirstCharacterRenderer());
-    engine.registerNamedRenderer(new TvShowFilenameRenderer());
-    engine.registerNamedRenderer(new TvShowArtworkCopyRenderer(exportDir));
+    // set up the engine with own renderers
+    engine = createEngine(exportDir);
 
     // prepare export destination
     if (!Files.exists(exportDir)) {
@@ -103,10 +99,7 @@ public class TvShowExporter extends MediaEntityExporter {
 
     // load episode template
     String episodeTemplateFile = properties.getProperty("episode");
-    String episodeTemplate = "";
-    if (StringUtils.isNotBlank(episodeTemplateFile)) {
-      episodeTemplate = Utils.readFileToString(templateDir.resolve(episodeTemplateFile));
-    }
+    String episodeTemplate = StringUtils.isNotBlank(episodeTemplateFile) ? Utils.readFileToString(templateDir.resolve(episodeTemplateFile)) : "";
 
     // create the list
     LOGGER.info("generating tv show list");
@@ -114,16 +107,11 @@ public class TvShowExporter extends MediaEntityExporter {
 
     Map<String, Object> root = new HashMap<>();
     root.put("tvShows", new ArrayList<>(tvShowsToExport));
-    String output = engine.transform(listTemplate, root);
-    Utils.writeStringToFile(listExportFile, output);
+    writeList(listExportFile, root);
     LOGGER.info("TvShow list generated: {}", listExportFile);
 
     if (StringUtils.isNotBlank(detailTemplate)) {
-      for (T me : tvShowsToExport) {
-        if (cancel) {
-          return;
-        }
-
+      exportDetailPages(tvShowsToExport, exportDir, (me, detailEngine) -> {
         TvShow show = (TvShow) me;
         // create a TV show dir
         Path showDir = exportDir.resolve(getFilename(show));
@@ -135,11 +123,9 @@ public class TvShowExporter extends MediaEntityExporter {
         }
 
         Path detailsExportFile = showDir.resolve("tvshow." + fileExtension);
-        root = new HashMap<>();
-        root.put("tvShow", show);
-
-        output = engine.transform(detailTemplate, root);
-        Utils.writeStringToFile(detailsExportFile, output);
+        Map<String, Object> model = new HashMap<>();
+        model.put("tvShow", show);
+        writeDetailPage(detailEngine, detailTemplate, model, detailsExportFile);
 
         if (StringUtils.isNotBlank(episodeTemplate)) {
           for (TvShowEpisode episode : show.getEpisodes()) {
@@ -156,14 +142,13 @@ public class TvShowExporter extends MediaEntityExporter {
 
               String episodeFileName = getFilename(episode) + "." + fileExtension;
               Path episodeExportFile = seasonDir.resolve(episodeFileName);
-              root = new HashMap<>();
-              root.put("episode", episode);
-              output = engine.transform(episodeTemplate, root);
-              Utils.writeStringToFile(episodeExportFile, output);
+              model = new HashMap<>();
+              model.put("episode", episode);
+              writeDetailPage(detailEngine, episodeTemplate, model, episodeExportFile);
             }
           }
         }
-      }
+      });
     }
 
     if (cancel) {
@@ -189,6 +174,16 @@ public class TvShowExporter extends MediaEntityExporter {
     }
   }
 
+  @Override
+  protected void registerRenderers(Engine engine, Path exportDir) {
+    engine.registerNamedRenderer(new NamedDateRenderer());
+    engine.registerNamedRenderer(new NamedNumberRenderer());
+    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
+    engine.registerNamedRenderer(new NamedFirstCharacterRenderer());
+    engine.registerNamedRenderer(new TvShowFilenameRenderer());
+    engine.registerNamedRenderer(new TvShowArtworkCopyRenderer(exportDir));
+  }
+
   private static String getFilename(MediaEntity entity) {
     if (entity instanceof TvShow) {
       return TvShowRenamer.createDestination("${showTitle} (${showYear})", (TvShow) entity);
@@ -329,7 +324,7 @@ public class TvShowExporter extends MediaEntityExporter {
         try {
           // create the image dir
           if (!Files.exists(imageDir)) {
-            Files.createDirectory(imageDir);
+            Files.createDirectories(imageDir);
           }
 
           // we need to rescale the image; scale factor is fixed to
@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.h2.mvstore.MVMap;
@@ -44,6 +45,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.AbstractModelObject;
 import org.tinymediamanager.core.Constants;
+import org.tinymediamanager.core.DatabaseLoader;
+import org.tinymediamanager.core.DatabaseLoader.RecordDecoder;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.Message;
 import org.tinymediamanager.core.Message.MessageLevel;
@@ -61,9 +64,6 @@ import org.tinymediamanager.scraper.entities.MediaLanguages;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
 import org.tinymediamanager.scraper.interfaces.ITvShowMetadataProvider;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
-
 import ca.odell.glazedlists.BasicEventList;
 import ca.odell.glazedlists.GlazedLists;
 import ca.odell.glazedlists.ObservableElementList;
@@ -74,18 +74,19 @@ import ca.odell.glazedlists.ObservableElementList;
  * @author Manuel Laggner
  */
 public class TvShowList extends AbstractModelObject {
-  private static final Logger    LOGGER   = LoggerFactory.getLogger(TvShowList.class);
-  private static TvShowList      instance = null;
+  private static final Logger     LOGGER   = LoggerFactory.getLogger(TvShowList.class);
+  private static TvShowList       instance = null;
 
-  private final List<TvShow>     tvShowList;
-  private final List<String>     tvShowTagsObservable;
-  private final List<String>     episodeTagsObservable;
-  private final List<String>     videoCodecsObservable;
-  private final List<String>     videoContainersObservable;
-  private final List<String>     audioCodecsObservable;
-  private final List<Double>     frameRateObservable;
+  private final List<TvShow>      tvShowList;
+  private final Map<UUID, TvShow> tvShowIndex;
+  private final List<String>      tvShowTagsObservable;
+  private final List<String>      episodeTagsObservable;
+  private final List<String>      videoCodecsObservable;
+  private final List<String>      videoContainersObservable;
+  private final List<String>      audioCodecsObservable;
+  private final List<Double>      frameRateObservable;
 
-  private PropertyChangeListener propertyChangeListener;
+  private PropertyChangeListener  propertyChangeListener;
 
   /**
    * Instantiates a new TvShowList.
@@ -93,6 +94,7 @@ public class TvShowList extends AbstractModelObject {
   private TvShowList() {
     // create the lists
     tvShowList = new ObservableElementList<>(GlazedLists.threadSafeList(new BasicEventList<>()), GlazedLists.beanConnector(TvShow.class));
+    tvShowIndex = new ConcurrentHashMap<>();
     tvShowTagsObservable = new ObservableCopyOnWriteArrayList<>();
     episodeTagsObservable = new ObservableCopyOnWriteArrayList<>();
     videoCodecsObservable = new ObservableCopyOnWriteArrayList<>();
@@ -201,6 +203,7 @@ public class TvShowList extends AbstractModelObject {
     int oldValue = tvShowList.size();
 
     tvShowList.add(newValue);
+    tvShowIndex.put(newValue.getDbId(), newValue);
     newValue.addPropertyChangeListener(propertyChangeListener);
     firePropertyChange(TV_SHOWS, null, tvShowList);
     firePropertyChange(ADDED_TV_SHOW, null, newValue);
@@ -236,6 +239,7 @@ public class TvShowList extends AbstractModelObject {
     int oldValue = tvShowList.size();
     tvShow.removeAllEpisodes();
     tvShowList.remove(tvShow);
+    tvShowIndex.remove(tvShow.getDbId());
 
     try {
       TvShowModuleManager.getInstance().removeTvShowFromDb(tvShow);
@@ -261,6 +265,7 @@ public class TvShowList extends AbstractModelObject {
     tvShow.deleteFilesSafely();
     tvShow.removeAllEpisodes();
     tvShowList.remove(tvShow);
+    tvShowIndex.remove(tvShow.getDbId());
 
     try {
       TvShowModuleManager.getInstance().removeTvShowFromDb(tvShow);
@@ -325,87 +330,110 @@ public class TvShowList extends AbstractModelObject {
     return false;
   }
 
+  /**
+   * get the TV show with the given db id
+   *
+   * @param uuid
+   *          the db id of the TV show
+   * @return the TV show or null
+   */
   public TvShow lookupTvShow(UUID uuid) {
-    for (TvShow tvShow : tvShowList) {
-      if (tvShow.getDbId().equals(uuid)) {
-        return tvShow;
-      }
+    if (uuid == null) {
+      return null;
     }
-    return null;
+    return tvShowIndex.get(uuid);
   }
 
   /**
    * Load tv shows from database.
    */
-  void loadTvShowsFromDatabase(MVMap<UUID, String> tvShowMap, ObjectMapper objectMapper) {
-    // load all TV shows from the database
-    ObjectReader tvShowObjectReader = objectMapper.readerFor(TvShow.class);
-
-    for (UUID uuid : new ArrayList<>(tvShowMap.keyList())) {
-      String json = "";
-      try {
-        json = tvShowMap.get(uuid);
-        TvShow tvShow = tvShowObjectReader.readValue(json);
-        tvShow.setDbId(uuid);
-
-        // for performance reasons we add tv shows directly
-        tvShowList.add(tvShow);
+  <V> void loadTvShowsFromDatabase(MVMap<UUID, V> tvShowMap, RecordDecoder<V, TvShow> decoder) {
+    // load all TV shows from the database; the decoding of big databases is spread over all available cores
+    List<UUID> corruptTvShows = new ArrayList<>();
+    List<TvShow> tvShows = new DatabaseLoader<>(tvShowMap, decoder).load(corruptTvShows);
+
+    for (UUID uuid : corruptTvShows) {
+      LOGGER.info("dropping corrupt TV show: {}", uuid);
+      tvShowMap.remove(uuid);
+    }
+
+    // for performance reasons we add tv shows directly (in one go)
+    tvShowList.addAll(tvShows);
+    for (TvShow tvShow : tvShows) {
+      tvShowIndex.put(tvShow.getDbId(), tvShow);
+    }
+
+    LOGGER.info("found {} TV shows in database", tvShowList.size());
+  }
+
+  /**
+   * load the TV shows which could not be migrated to the actual database format (with the decoder of the old format). Records which cannot be
+   * decoded are kept in the database (they may be readable by another version of tmm)
+   *
+   * @param tvShowMap
+   *          the map of the old database format
+   * @param decoder
+   *          the decoder of the old database format
+   * @param unreadable
+   *          a list to collect the keys of all records which could not be decoded
+   * @return the loaded TV shows
+   */
+  <V> List<TvShow> loadUnmigratedTvShowsFromDatabase(MVMap<UUID, V> tvShowMap, RecordDecoder<V, TvShow> decoder, List<UUID> unreadable) {
+    List<TvShow> tvShows = new ArrayList<>();
+    for (TvShow tvShow : new DatabaseLoader<>(tvShowMap, decoder).load(unreadable)) {
+      if (lookupTvShow(tvShow.getDbId()) == null) {
+        tvShows.add(tvShow);
       }
-      catch (Exception e) {
-        LOGGER.warn("problem decoding TV show json string: {}", e.getMessage());
-        LOGGER.info("dropping corrupt TV show: {}", json);
-        tvShowMap.remove(uuid);
+      else {
+        // already loaded from the actual map
+        tvShowMap.remove(tvShow.getDbId());
       }
     }
-    LOGGER.info("found {} TV shows in database", tvShowList.size());
+
+    tvShowList.addAll(tvShows);
+    for (TvShow tvShow : tvShows) {
+      tvShowIndex.put(tvShow.getDbId(), tvShow);
+    }
+
+    LOGGER.info("found {} TV shows in the old database format", tvShows.size());
+    return tvShows;
   }
 
   /**
    * Load episodes from database.
    */
-  void loadEpisodesFromDatabase(MVMap<UUID, String> episodesMap, ObjectMapper objectMapper) {
+  <V> void loadEpisodesFromDatabase(MVMap<UUID, V> episodesMap, RecordDecoder<V, TvShowEpisode> decoder) {
     List<UUID> orphanedEpisodes = new ArrayList<>();
 
-    // load all episodes from the database
-    ObjectReader episodeObjectReader = objectMapper.readerFor(TvShowEpisode.class);
-    int episodeCount = 0;
+    // load all episodes from the database; the decoding of big databases is spread over all available cores
+    List<UUID> corruptEpisodes = new ArrayList<>();
+    List<TvShowEpisode> episodes = new DatabaseLoader<>(episodesMap, decoder).load(corruptEpisodes);
 
-    for (UUID uuid : new ArrayList<>(episodesMap.keyList())) {
-      String json = "";
-      try {
-        json = episodesMap.get(uuid);
-        TvShowEpisode episode = episodeObjectReader.readValue(json);
-        episode.setDbId(uuid);
-
-        // sanity check: only episodes with a video file are valid
-        if (episode.getMediaFiles(MediaFileType.VIDEO).isEmpty()) {
-          // no video file? drop it
-          LOGGER.info("episode \"S{}E{}\" without video file - dropping", episode.getSeason(), episode.getEpisode());
-          episodesMap.remove(uuid);
-        }
+    for (UUID uuid : corruptEpisodes) {
+      LOGGER.info("dropping corrupt episode: {}", uuid);
+      episodesMap.remove(uuid);
+    }
 
-        // check for orphaned episodes
-        boolean found = false;
-
-        // and assign it the the right TV show
-        for (TvShow tvShow : tvShowList) {
-          if (tvShow.getDbId().equals(episode.getTvShowDbId())) {
-            episodeCount++;
-            episode.setTvShow(tvShow);
-            tvShow.addEpisode(episode);
-            found = true;
-            break;
-          }
-        }
+    int episodeCount = 0;
 
-        if (!found) {
-          orphanedEpisodes.add(uuid);
-        }
+    for (TvShowEpisode episode : episodes) {
+      // sanity check: only episodes with a video file are valid
+      if (!episode.hasMediaFiles(MediaFileType.VIDEO)) {
+        // no video file? drop it
+        LOGGER.info("episode \"S{}E{}\" without video file - dropping", episode.getSeason(), episode.getEpisode());
+        episodesMap.remove(episode.getDbId());
+      }
+
+      // and assign it the the right TV show
+      TvShow tvShow = lookupTvShow(episode.getTvShowDbId());
+      if (tvShow != null) {
+        episodeCount++;
+        episode.setTvShow(tvShow);
+        tvShow.addEpisode(episode);
       }
-      catch (Exception e) {
-        LOGGER.warn("problem decoding episode json string: {}", e.getMessage());
-        LOGGER.info("dropping corrupt episode: {}", json);
-        episodesMap.remove(uuid);
+      else {
+        // orphaned episode
+        orphanedEpisodes.add(episode.getDbId());
       }
     }
 
@@ -417,6 +445,50 @@ public class TvShowList extends AbstractModelObject {
     LOGGER.info("found {} episodes in database", episodeCount);
   }
 
+  /**
+   * load the episodes which could not be migrated to the actual database format (with the decoder of the old format)
+   *
+   * @param episodesMap
+   *          the map of the old database format
+   * @param decoder
+   *          the decoder of the old database format
+   * @param unreadable
+   *          a list to collect the keys of all records which could not be decoded
+   * @return the loaded episodes
+   */
+  <V> List<TvShowEpisode> loadUnmigratedEpisodesFromDatabase(MVMap<UUID, V> episodesMap, RecordDecoder<V, TvShowEpisode> decoder,
+      List<UUID> unreadable) {
+    List<TvShowEpisode> episodes = new ArrayList<>();
+    for (TvShowEpisode episode : new DatabaseLoader<>(episodesMap, decoder).load(unreadable)) {
+      TvShow tvShow = lookupTvShow(episode.getTvShowDbId());
+      if (tvShow == null) {
+        // the TV show may be one of the unreadable records - keep it
+        continue;
+      }
+      if (!episode.hasMediaFiles(MediaFileType.VIDEO) || containsEpisode(tvShow, episode.getDbId())) {
+        // without video file or already loaded from the actual map
+        episodesMap.remove(episode.getDbId());
+        continue;
+      }
+
+      episode.setTvShow(tvShow);
+      tvShow.addEpisode(episode);
+      episodes.add(episode);
+    }
+
+    LOGGER.info("found {} episodes in the old database format", episodes.size());
+    return episodes;
+  }
+
+  private boolean containsEpisode(TvShow tvShow, UUID uuid) {
+    for (TvShowEpisode episode : tvShow.getEpisodes()) {
+      if (uuid.equals(episode.getDbId())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   void initDataAfterLoading() {
     // check for corrupted media entities
     checkAndCleanupMediaFiles();
@@ -705,7 +777,7 @@ public class TvShowList extends AbstractModelObject {
   }
 
   private void updateMediaInformationLists(TvShowEpisode episode) {
-    for (MediaFile mf : episode.getMediaFiles(MediaFileType.VIDEO)) {
+    for (MediaFile mf : episode.getMediaFilesOfType(MediaFileType.VIDEO)) {
       // video codec
       String codec = mf.getVideoCodec();
       if (StringUtils.isNotBlank(codec) && !videoCodecsObservable.contains(codec)) {
@@ -923,7 +995,7 @@ public class TvShowList extends AbstractModelObject {
     boolean problemsDetected = false;
     for (TvShow tvShow : tvShowList) {
       for (TvShowEpisode episode : new ArrayList<>(tvShow.getEpisodes())) {
-        List<MediaFile> mfs = episode.getMediaFiles(MediaFileType.VIDEO);
+        List<MediaFile> mfs = episode.getMediaFilesOfType(MediaFileType.VIDEO);
         if (mfs.isEmpty()) {
           tvShow.removeEpisode(episode);
           problemsDetected = true;
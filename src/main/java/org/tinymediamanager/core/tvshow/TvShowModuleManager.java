@@ -15,38 +15,54 @@
  */
 package org.tinymediamanager.core.tvshow;
 
+import java.beans.PropertyChangeListener;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.StopWatch;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
+import org.tinymediamanager.core.BinaryRecordCodec;
 import org.tinymediamanager.core.Constants;
 import org.tinymediamanager.core.CustomNullStringSerializerProvider;
+import org.tinymediamanager.core.DataSourceWatcher;
+import org.tinymediamanager.core.DirectoryManifest;
 import org.tinymediamanager.core.ITmmModule;
 import org.tinymediamanager.core.NullKeySerializer;
 import org.tinymediamanager.core.Settings;
 import org.tinymediamanager.core.UTF8Control;
 import org.tinymediamanager.core.Utils;
+import org.tinymediamanager.core.threading.TmmTaskManager;
+import org.tinymediamanager.core.threading.TmmThreadPool;
+import org.tinymediamanager.core.threading.TmmWriteBehindQueue;
 import org.tinymediamanager.core.tvshow.entities.TvShow;
 import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
+import org.tinymediamanager.core.tvshow.tasks.TvShowUpdateDatasourceTask;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
 /**
  * The class TvShowModuleManager. Used to manage the tv show module
@@ -54,23 +70,39 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  * @author Manuel Laggner
  */
 public class TvShowModuleManager implements ITmmModule {
-  private static final ResourceBundle BUNDLE       = ResourceBundle.getBundle("messages", new UTF8Control());
-  public static final TvShowSettings  SETTINGS     = TvShowSettings.getInstance();
-
-  private static final String         MODULE_TITLE = "TV show management";
-  private static final String         TV_SHOW_DB   = "tvshows.db";
-  private static final Logger         LOGGER       = LoggerFactory.getLogger(TvShowModuleManager.class);
-  private static TvShowModuleManager  instance;
-
-  private boolean                     enabled;
-  private MVStore                     mvStore;
-  private ObjectWriter                tvShowObjectWriter;
-  private ObjectWriter                episodeObjectWriter;
-
-  private MVMap<UUID, String>         tvShowMap;
-  private MVMap<UUID, String>         episodeMap;
-
-  private List<String>                startupMessages;
+  private static final ResourceBundle        BUNDLE       = ResourceBundle.getBundle("messages", new UTF8Control());
+  public static final TvShowSettings         SETTINGS     = TvShowSettings.getInstance();
+
+  private static final String                MODULE_TITLE = "TV show management";
+  private static final String                TV_SHOW_DB   = "tvshows.db";
+  private static final long                  WATCH_DELAY  = 10000;         // 10 sec without changes in a folder
+  private static final long                  POLL_DELAY   = 5 * 60 * 1000; // 5 min
+  private static final Logger                LOGGER       = LoggerFactory.getLogger(TvShowModuleManager.class);
+  private static TvShowModuleManager         instance;
+
+  private volatile boolean                   enabled;
+  private boolean                            binaryFormat;
+  private MVStore                            mvStore;
+  private ObjectMapper                       objectMapper;
+  private ObjectWriter                       tvShowObjectWriter;
+  private ObjectWriter                       episodeObjectWriter;
+  private BinaryRecordCodec<TvShow>          tvShowCodec;
+  private BinaryRecordCodec<TvShowEpisode>   episodeCodec;
+
+  private MVMap<UUID, String>                tvShowMap;
+  private MVMap<UUID, String>                episodeMap;
+  private MVMap<UUID, byte[]>                tvShowBinaryMap;
+  private MVMap<UUID, byte[]>                episodeBinaryMap;
+  private MVMap<UUID, Integer>               tvShowMigrationFailedMap;
+  private MVMap<UUID, Integer>               episodeMigrationFailedMap;
+  private DirectoryManifest                  directoryManifest;
+
+  private TmmWriteBehindQueue<TvShow>        tvShowQueue;
+  private TmmWriteBehindQueue<TvShowEpisode> episodeQueue;
+  private DataSourceWatcher                  dataSourceWatcher;
+  private PropertyChangeListener             settingsListener;
+
+  private List<String>                       startupMessages;
 
   private TvShowModuleManager() {
     enabled = false;
@@ -91,6 +123,9 @@ public class TvShowModuleManager implements ITmmModule {
 
   @Override
   public void startUp() {
+    StopWatch stopWatch = new StopWatch();
+    stopWatch.start();
+
     // configure database
     Path databaseFile = Paths.get(Globals.settings.getSettingsFolder(), TV_SHOW_DB);
     try {
@@ -121,37 +156,211 @@ public class TvShowModuleManager implements ITmmModule {
     mvStore.setRetentionTime(0);
     mvStore.setReuseSpace(true);
     mvStore.setCacheSize(8);
+    logStartupPhase(stopWatch, "open database");
 
     // configure JSON
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.configure(MapperFeature.AUTO_DETECT_GETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_IS_GETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_SETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_FIELDS, false);
-    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    objectMapper.setTimeZone(TimeZone.getDefault());
-    objectMapper.setSerializationInclusion(Include.NON_DEFAULT);
-    objectMapper.setSerializerProvider(new CustomNullStringSerializerProvider());
-    objectMapper.getSerializerProvider().setNullKeySerializer(new NullKeySerializer());
-
+    objectMapper = createObjectMapper(new JsonFactory());
     tvShowObjectWriter = objectMapper.writerFor(TvShow.class);
     episodeObjectWriter = objectMapper.writerFor(TvShowEpisode.class);
 
+    // configure the binary format
+    ObjectMapper smileMapper = createObjectMapper(new SmileFactory());
+    tvShowCodec = new BinaryRecordCodec<>(smileMapper, TvShow.class);
+    episodeCodec = new BinaryRecordCodec<>(smileMapper, TvShowEpisode.class);
+
     tvShowMap = mvStore.openMap("tvshows");
     episodeMap = mvStore.openMap("episodes");
+    tvShowBinaryMap = mvStore.openMap("tvshowsBinary");
+    episodeBinaryMap = mvStore.openMap("episodesBinary");
+    directoryManifest = new DirectoryManifest(mvStore.openMap("tvShowDirManifest"));
+    tvShowMigrationFailedMap = mvStore.openMap("tvshowsMigrationFailed");
+    episodeMigrationFailedMap = mvStore.openMap("episodesMigrationFailed");
+
+    // migrate the records if the format has been changed
+    binaryFormat = Globals.settings.isBinaryDatabaseFormat();
+    if (binaryFormat && (!tvShowMap.isEmpty() || !episodeMap.isEmpty())) {
+      LOGGER.info("migrating {} TV shows to the binary database format",
+          tvShowCodec.migrateToBinary(tvShowMap, tvShowBinaryMap, tvShowMigrationFailedMap, objectMapper));
+      LOGGER.info("migrating {} episodes to the binary database format",
+          episodeCodec.migrateToBinary(episodeMap, episodeBinaryMap, episodeMigrationFailedMap, objectMapper));
+      logStartupPhase(stopWatch, "migrate database");
+    }
+    else if (!binaryFormat && (!tvShowBinaryMap.isEmpty() || !episodeBinaryMap.isEmpty())) {
+      LOGGER.info("migrating {} TV shows to the JSON database format",
+          tvShowCodec.migrateToJson(tvShowBinaryMap, tvShowMap, tvShowMigrationFailedMap, objectMapper));
+      LOGGER.info("migrating {} episodes to the JSON database format",
+          episodeCodec.migrateToJson(episodeBinaryMap, episodeMap, episodeMigrationFailedMap, objectMapper));
+      logStartupPhase(stopWatch, "migrate database");
+    }
+
+    // write changed entities asynchronously (multiple changes of the same entity are written only once)
+    int writeDelay = Globals.settings.getDatabaseWriteDelay();
+    tvShowQueue = new TmmWriteBehindQueue<>("tvShows", writeDelay, this::writeTvShow);
+    episodeQueue = new TmmWriteBehindQueue<>("episodes", writeDelay, this::writeEpisode);
+
+    ObjectReader tvShowObjectReader = objectMapper.readerFor(TvShow.class);
+    ObjectReader episodeObjectReader = objectMapper.readerFor(TvShowEpisode.class);
+    TvShowList tvShowList = TvShowList.getInstance();
+    // records which could not be migrated are read with the decoder of the old format; the TV shows must be loaded before the episodes
+    List<TvShow> unmigratedTvShows = new ArrayList<>();
+    List<TvShowEpisode> unmigratedEpisodes = new ArrayList<>();
+    List<UUID> unreadable = new ArrayList<>();
+    if (binaryFormat) {
+      tvShowList.loadTvShowsFromDatabase(tvShowBinaryMap, tvShowCodec::decode);
+      if (!tvShowMap.isEmpty()) {
+        unmigratedTvShows = tvShowList.loadUnmigratedTvShowsFromDatabase(tvShowMap, tvShowObjectReader::readValue, unreadable);
+      }
+      logStartupPhase(stopWatch, "load TV shows");
+      tvShowList.loadEpisodesFromDatabase(episodeBinaryMap, episodeCodec::decode);
+      if (!episodeMap.isEmpty()) {
+        unmigratedEpisodes = tvShowList.loadUnmigratedEpisodesFromDatabase(episodeMap, episodeObjectReader::readValue, unreadable);
+      }
+      logStartupPhase(stopWatch, "load episodes");
+    }
+    else {
+      tvShowList.loadTvShowsFromDatabase(tvShowMap, tvShowObjectReader::readValue);
+      if (!tvShowBinaryMap.isEmpty()) {
+        unmigratedTvShows = tvShowList.loadUnmigratedTvShowsFromDatabase(tvShowBinaryMap, tvShowCodec::decode, unreadable);
+      }
+      logStartupPhase(stopWatch, "load TV shows");
+      tvShowList.loadEpisodesFromDatabase(episodeMap, episodeObjectReader::readValue);
+      if (!episodeBinaryMap.isEmpty()) {
+        unmigratedEpisodes = tvShowList.loadUnmigratedEpisodesFromDatabase(episodeBinaryMap, episodeCodec::decode, unreadable);
+      }
+      logStartupPhase(stopWatch, "load episodes");
+    }
+    tvShowList.initDataAfterLoading();
+    logStartupPhase(stopWatch, "initialize data");
+
+    // write the records of the old format in the actual format (this removes them from the old map)
+    unmigratedTvShows.forEach(this::persistTvShow);
+    unmigratedEpisodes.forEach(this::persistEpisode);
+    if (!unreadable.isEmpty()) {
+      // they are kept in the database, but the user should know that they are missing
+      LOGGER.error("could not read {} TV shows/episodes of the old database format", unreadable.size());
+      startupMessages.add(MessageFormat.format(BUNDLE.getString("tvshow.loaddb.migrationfailed"), unreadable.size()));
+    }
+
+    // update changed TV show folders automatically (depth 3 for polling: A-Z folder, TV show folder and season folder)
+    dataSourceWatcher = new DataSourceWatcher("tvShows", WATCH_DELAY, POLL_DELAY, 3, this::resolveChangedFolder, this::updateChangedFolders);
+    settingsListener = evt -> {
+      // a late event must not start the watcher of a shut down module again
+      if (!enabled) {
+        return;
+      }
+      if ("watchDataSources".equals(evt.getPropertyName()) || Constants.DATA_SOURCE.equals(evt.getPropertyName())) {
+        updateDataSourceWatcher();
+      }
+    };
+    SETTINGS.addPropertyChangeListener(settingsListener);
+    updateDataSourceWatcher();
 
-    TvShowList.getInstance().loadTvShowsFromDatabase(tvShowMap, objectMapper);
-    TvShowList.getInstance().loadEpisodesFromDatabase(episodeMap, objectMapper);
-    TvShowList.getInstance().initDataAfterLoading();
     enabled = true;
   }
 
+  private void updateDataSourceWatcher() {
+    if (SETTINGS.isWatchDataSources()) {
+      dataSourceWatcher.start(SETTINGS.getTvShowDataSource());
+    }
+    else if (dataSourceWatcher.isRunning()) {
+      dataSourceWatcher.stop();
+    }
+  }
+
+  /*
+   * the TV show folder (first level beneath the datasource or second level in A-Z folders) containing the changed path
+   */
+  private Path resolveChangedFolder(Path dataSource, Path changed) {
+    Path relative = dataSource.relativize(changed);
+    String name = relative.getName(0).toString();
+
+    // hidden folders (e.g. our backup folder or NAS thumbnails) are not parsed
+    if (name.startsWith(".") || name.startsWith("@")) {
+      return null;
+    }
+
+    if (relative.getNameCount() == 1) {
+      // a deleted/renamed TV show folder is no directory anymore - treat every vanished entry as folder (the cleanup removes the shows in there)
+      if (Files.exists(changed) && !Files.isDirectory(changed)) {
+        // files in the datasource root are not parsed
+        return null;
+      }
+      if (name.length() == 1) {
+        // a new (or vanished) A-Z folder - can only be parsed along with the whole datasource
+        return dataSource;
+      }
+      return changed;
+    }
+
+    // additional datasource/A/show sub dirs
+    if (name.length() == 1 && Files.isDirectory(dataSource.resolve(name))) {
+      return dataSource.resolve(relative.subpath(0, 2));
+    }
+    return dataSource.resolve(name);
+  }
+
+  private void updateChangedFolders(Path dataSource, Set<Path> folders) {
+    // use the datasource as it has been entered in the settings
+    String ds = null;
+    for (String entry : SETTINGS.getTvShowDataSource()) {
+      if (Paths.get(entry).toAbsolutePath().normalize().equals(dataSource)) {
+        ds = entry;
+        break;
+      }
+    }
+    if (ds == null) {
+      return;
+    }
+
+    TmmThreadPool task;
+    if (folders.contains(dataSource)) {
+      task = new TvShowUpdateDatasourceTask(ds);
+    }
+    else {
+      task = new TvShowUpdateDatasourceTask(ds, folders);
+    }
+    TmmTaskManager.getInstance().addMainTask(task);
+  }
+
+  private ObjectMapper createObjectMapper(JsonFactory factory) {
+    ObjectMapper mapper = new ObjectMapper(factory);
+    mapper.configure(MapperFeature.AUTO_DETECT_GETTERS, false);
+    mapper.configure(MapperFeature.AUTO_DETECT_IS_GETTERS, false);
+    mapper.configure(MapperFeature.AUTO_DETECT_SETTERS, false);
+    mapper.configure(MapperFeature.AUTO_DETECT_FIELDS, false);
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    mapper.setTimeZone(TimeZone.getDefault());
+    mapper.setSerializationInclusion(Include.NON_DEFAULT);
+    mapper.setSerializerProvider(new CustomNullStringSerializerProvider());
+    mapper.getSerializerProvider().setNullKeySerializer(new NullKeySerializer());
+    return mapper;
+  }
+
+  private void logStartupPhase(StopWatch stopWatch, String phase) {
+    stopWatch.stop();
+    LOGGER.info("startup phase '{}' - took {}", phase, stopWatch);
+    stopWatch.reset();
+    stopWatch.start();
+  }
+
   @Override
   public void shutDown() throws Exception {
-    mvStore.compactMoveChunks();
-    mvStore.close();
-
     enabled = false;
+    SETTINGS.removePropertyChangeListener(settingsListener);
+    dataSourceWatcher.stop();
+    // close the database even if some changes could not be persisted
+    try {
+      tvShowQueue.shutdown();
+    }
+    finally {
+      try {
+        episodeQueue.shutdown();
+      }
+      finally {
+        mvStore.compactMoveChunks();
+        mvStore.close();
+      }
+    }
 
     if (Globals.settings.isDeleteTrashOnExit()) {
       for (String ds : SETTINGS.getTvShowDataSource()) {
@@ -174,12 +383,18 @@ public class TvShowModuleManager implements ITmmModule {
    */
   public void dump(TvShow tvshow) {
     try {
+      // make sure the latest state has been written
+      tvShowQueue.flush(tvshow.getDbId());
+
       ObjectMapper mapper = new ObjectMapper();
-      ObjectNode node = mapper.readValue(tvShowMap.get(tvshow.getDbId()), ObjectNode.class);
+      String tvShowJson = binaryFormat ? tvShowCodec.toJson(tvShowBinaryMap.get(tvshow.getDbId()), objectMapper) : tvShowMap.get(tvshow.getDbId());
+      ObjectNode node = mapper.readValue(tvShowJson, ObjectNode.class);
 
       ArrayNode episodes = JsonNodeFactory.instance.arrayNode();
       for (TvShowEpisode ep : tvshow.getEpisodes()) {
-        ObjectNode epNode = mapper.readValue(episodeMap.get(ep.getDbId()), ObjectNode.class);
+        episodeQueue.flush(ep.getDbId());
+        String episodeJson = binaryFormat ? episodeCodec.toJson(episodeBinaryMap.get(ep.getDbId()), objectMapper) : episodeMap.get(ep.getDbId());
+        ObjectNode epNode = mapper.readValue(episodeJson, ObjectNode.class);
         episodes.add(epNode);
         // TODO: dump EP IDs !!!
       }
@@ -193,7 +408,21 @@ public class TvShowModuleManager implements ITmmModule {
     }
   }
 
-  void persistTvShow(TvShow tvShow) throws Exception {
+  void persistTvShow(TvShow tvShow) {
+    tvShowQueue.enqueue(tvShow);
+  }
+
+  private void writeTvShow(TvShow tvShow) throws Exception {
+    if (binaryFormat) {
+      byte[] newValue = tvShowCodec.encode(tvShow);
+      byte[] oldValue = tvShowBinaryMap.get(tvShow.getDbId());
+      if (!Arrays.equals(newValue, oldValue)) {
+        tvShowBinaryMap.put(tvShow.getDbId(), newValue);
+      }
+      BinaryRecordCodec.removeUnmigrated(tvShowMap, tvShowMigrationFailedMap, tvShow.getDbId());
+      return;
+    }
+
     String newValue = tvShowObjectWriter.writeValueAsString(tvShow);
     String oldValue = tvShowMap.get(tvShow.getDbId());
 
@@ -201,23 +430,70 @@ public class TvShowModuleManager implements ITmmModule {
       // write to DB
       tvShowMap.put(tvShow.getDbId(), newValue);
     }
+    BinaryRecordCodec.removeUnmigrated(tvShowBinaryMap, tvShowMigrationFailedMap, tvShow.getDbId());
   }
 
   void removeTvShowFromDb(TvShow tvShow) {
-    tvShowMap.remove(tvShow.getDbId());
+    tvShowQueue.discard(tvShow.getDbId());
+    // the next incremental update must not skip this folder
+    directoryManifest.invalidate(tvShow.getPathNIO());
+
+    if (binaryFormat) {
+      tvShowBinaryMap.remove(tvShow.getDbId());
+      BinaryRecordCodec.removeUnmigrated(tvShowMap, tvShowMigrationFailedMap, tvShow.getDbId());
+    }
+    else {
+      tvShowMap.remove(tvShow.getDbId());
+      BinaryRecordCodec.removeUnmigrated(tvShowBinaryMap, tvShowMigrationFailedMap, tvShow.getDbId());
+    }
+  }
+
+  void persistEpisode(TvShowEpisode episode) {
+    episodeQueue.enqueue(episode);
   }
 
-  void persistEpisode(TvShowEpisode episode) throws Exception {
+  private void writeEpisode(TvShowEpisode episode) throws Exception {
+    if (binaryFormat) {
+      byte[] newValue = episodeCodec.encode(episode);
+      byte[] oldValue = episodeBinaryMap.get(episode.getDbId());
+      if (!Arrays.equals(newValue, oldValue)) {
+        episodeBinaryMap.put(episode.getDbId(), newValue);
+      }
+      BinaryRecordCodec.removeUnmigrated(episodeMap, episodeMigrationFailedMap, episode.getDbId());
+      return;
+    }
+
     String newValue = episodeObjectWriter.writeValueAsString(episode);
     String oldValue = episodeMap.get(episode.getDbId());
 
     if (!StringUtils.equals(newValue, oldValue)) {
       episodeMap.put(episode.getDbId(), newValue);
     }
+    BinaryRecordCodec.removeUnmigrated(episodeBinaryMap, episodeMigrationFailedMap, episode.getDbId());
+  }
+
+  /**
+   * get the manifest of all visited directories (for incremental updates of the datasources)
+   *
+   * @return the {@link DirectoryManifest}
+   */
+  public DirectoryManifest getDirectoryManifest() {
+    return directoryManifest;
   }
 
   void removeEpisodeFromDb(TvShowEpisode episode) {
-    episodeMap.remove(episode.getDbId());
+    episodeQueue.discard(episode.getDbId());
+    // the next incremental update must not skip this folder
+    directoryManifest.invalidate(episode.getPathNIO());
+
+    if (binaryFormat) {
+      episodeBinaryMap.remove(episode.getDbId());
+      BinaryRecordCodec.removeUnmigrated(episodeMap, episodeMigrationFailedMap, episode.getDbId());
+    }
+    else {
+      episodeMap.remove(episode.getDbId());
+      BinaryRecordCodec.removeUnmigrated(episodeBinaryMap, episodeMigrationFailedMap, episode.getDbId());
+    }
   }
 
   @Override
@@ -60,6 +60,7 @@ import org.tinymediamanager.core.jmte.NamedLowerCaseRenderer;
 import org.tinymediamanager.core.jmte.NamedNumberRenderer;
 import org.tinymediamanager.core.jmte.NamedTitleCaseRenderer;
 import org.tinymediamanager.core.jmte.NamedUpperCaseRenderer;
+import org.tinymediamanager.core.jmte.TemplateCompiler;
 import org.tinymediamanager.core.jmte.TmmModelAdaptor;
 import org.tinymediamanager.core.jmte.ZeroNumberRenderer;
 import org.tinymediamanager.core.tvshow.entities.TvShow;
@@ -98,6 +99,8 @@ public class TvShowRenamer {
   private static final Pattern            seDelimiter    = Pattern.compile("((staffel|season|s)\\s?)\\$\\{.*?\\}", Pattern.CASE_INSENSITIVE);
 
   public static final Map<String, String> TOKEN_MAP      = createTokenMap();
+  // every pattern is parsed only once
+  private static final TemplateCompiler   TEMPLATES      = new TemplateCompiler(createEngine(), TvShowRenamer::morphTemplate);
 
   /**
    * initialize the token map for the renamer
@@ -157,6 +160,26 @@ public class TvShowRenamer {
     return tokenMap;
   }
 
+  /**
+   * create the JMTE engine for the renamer
+   *
+   * @return the configured engine
+   */
+  private static Engine createEngine() {
+    Engine engine = Engine.createEngine();
+    engine.registerRenderer(Number.class, new ZeroNumberRenderer());
+    engine.registerNamedRenderer(new NamedDateRenderer());
+    engine.registerNamedRenderer(new NamedNumberRenderer());
+    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
+    engine.registerNamedRenderer(new NamedLowerCaseRenderer());
+    engine.registerNamedRenderer(new NamedTitleCaseRenderer());
+    engine.registerNamedRenderer(new TvShowNamedFirstCharacterRenderer());
+    engine.registerNamedRenderer(new NamedArrayRenderer());
+    engine.registerNamedRenderer(new NamedFilesizeRenderer());
+    engine.setModelAdaptor(new TvShowRenamerModelAdaptor());
+    return engine;
+  }
+
   /**
    * morph the given template to the JMTE template
    *
@@ -1114,24 +1137,13 @@ public class TvShowRenamer {
    */
   public static String getTokenValue(TvShow show, TvShowEpisode episode, String token) {
     try {
-      Engine engine = Engine.createEngine();
-      engine.registerRenderer(Number.class, new ZeroNumberRenderer());
-      engine.registerNamedRenderer(new NamedDateRenderer());
-      engine.registerNamedRenderer(new NamedNumberRenderer());
-      engine.registerNamedRenderer(new NamedUpperCaseRenderer());
-      engine.registerNamedRenderer(new NamedLowerCaseRenderer());
-      engine.registerNamedRenderer(new NamedTitleCaseRenderer());
-      engine.registerNamedRenderer(new TvShowNamedFirstCharacterRenderer());
-      engine.registerNamedRenderer(new NamedArrayRenderer());
-      engine.registerNamedRenderer(new NamedFilesizeRenderer());
-      engine.setModelAdaptor(new TvShowRenamerModelAdaptor());
       Map<String, Object> root = new HashMap<>();
       if (episode != null) {
         root.put("episode", episode);
         root.put("season", episode.getTvShowSeason());
       }
       root.put("tvShow", show);
-      return engine.transform(morphTemplate(token), root);
+      return TEMPLATES.transform(token, root);
     }
     catch (Exception e) {
       LOGGER.warn("unable to process token: {}", token);
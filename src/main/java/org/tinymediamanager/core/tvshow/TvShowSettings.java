@@ -194,6 +194,8 @@ public class TvShowSettings extends AbstractSettings {
 
   // misc
   private boolean                                  buildImageCacheOnImport                = false;
+  private boolean                                  incrementalUpdate                      = false;
+  private boolean                                  watchDataSources                       = false;
   private boolean                                  syncTrakt                              = false;
   private boolean                                  dvdOrder                               = false;
   private boolean                                  preferPersonalRating                   = true;
@@ -575,6 +577,36 @@ public class TvShowSettings extends AbstractSettings {
     firePropertyChange("buildImageCacheOnImport", oldValue, newValue);
   }
 
+  /**
+   * only re-parse folders which have been changed since the last update of the datasource (detected via the last modified date of the folders)
+   *
+   * @return true if the update should be incremental
+   */
+  public boolean isIncrementalUpdate() {
+    return incrementalUpdate;
+  }
+
+  public void setIncrementalUpdate(boolean newValue) {
+    boolean oldValue = this.incrementalUpdate;
+    this.incrementalUpdate = newValue;
+    firePropertyChange("incrementalUpdate", oldValue, newValue);
+  }
+
+  /**
+   * watch the datasources for changes and update the changed folders automatically
+   *
+   * @return true if the datasources should be watched
+   */
+  public boolean isWatchDataSources() {
+    return watchDataSources;
+  }
+
+  public void setWatchDataSources(boolean newValue) {
+    boolean oldValue = this.watchDataSources;
+    this.watchDataSources = newValue;
+    firePropertyChange("watchDataSources", oldValue, newValue);
+  }
+
   public boolean isExtractArtworkFromVsmeta() {
     return extractArtworkFromVsmeta;
   }
@@ -17,8 +17,6 @@
 package org.tinymediamanager.core.tvshow.connector;
 
 import java.io.ByteArrayInputStream;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.nio.file.Path;
 import java.text.Format;
 import java.text.SimpleDateFormat;
@@ -32,8 +30,6 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -43,7 +39,7 @@ import org.tinymediamanager.core.MediaCertification;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.Message;
 import org.tinymediamanager.core.MessageManager;
-import org.tinymediamanager.core.Utils;
+import org.tinymediamanager.core.NfoWriter;
 import org.tinymediamanager.core.entities.MediaFile;
 import org.tinymediamanager.core.entities.MediaRating;
 import org.tinymediamanager.core.entities.Person;
@@ -109,6 +105,7 @@ public abstract class TvShowEpisodeGenericXmlConnector implements ITvShowEpisode
     }
 
     List<MediaFile> newNfos = new ArrayList<>(1);
+    NfoWriter nfo = null;
 
     for (TvShowEpisodeNfoNaming nfoNaming : nfoNames) {
       String nfoFilename = firstEpisode.getNfoFilename(nfoNaming);
@@ -117,110 +114,15 @@ public abstract class TvShowEpisodeGenericXmlConnector implements ITvShowEpisode
       }
 
       try {
-        boolean first = true;
-        StringBuilder xmlString = new StringBuilder();
-
-        // add well known tags
-        for (TvShowEpisode episode : episodes) {
-          // create the new NFO file according to the specifications
-          DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance(); // NOSONAR
-          document = factory.newDocumentBuilder().newDocument();
-          document.setXmlStandalone(true);
-
-          // tmm comment
-          if (first) {
-            Format formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            String dat = formatter.format(new Date());
-            document.appendChild(document.createComment("created on " + dat + " - tinyMediaManager " + Globals.settings.getVersion()));
-          }
-
-          root = document.createElement("episodedetails");
-          document.appendChild(root);
-
-          // try to get the right episode out of the parser
-          TvShowEpisodeNfoParser.Episode parserEpisode = null;
-          if (parser != null) {
-            for (TvShowEpisodeNfoParser.Episode ep : parser.episodes) {
-              if (ep.season == episode.getSeason() && ep.episode == episode.getEpisode()) {
-                parserEpisode = ep;
-                break;
-              }
-            }
-          }
-
-          addTitle(episode, parserEpisode);
-          addOriginalTitle(episode, parserEpisode);
-          addShowTitle(episode, parserEpisode);
-          addSeason(episode, parserEpisode);
-          addEpisode(episode, parserEpisode);
-          addDisplaySeason(episode, parserEpisode);
-          addDisplayEpisode(episode, parserEpisode);
-          addId(episode, parserEpisode);
-          addIds(episode, parserEpisode);
-          addRating(episode, parserEpisode);
-          addUserrating(episode, parserEpisode);
-          addVotes(episode, parserEpisode);
-          addPlot(episode, parserEpisode);
-          addRuntime(episode, parserEpisode);
-          addThumb(episode, parserEpisode);
-          addMpaa(episode, parserEpisode);
-          addPremiered(episode, parserEpisode);
-          addAired(episode, parserEpisode);
-          addWatched(episode, parserEpisode);
-          addPlaycount(episode, parserEpisode);
-          addLastplayed(episode, parserEpisode);
-          addStudios(episode, parserEpisode);
-          addTags(episode, parserEpisode);
-          addCredits(episode, parserEpisode);
-          addDirectors(episode, parserEpisode);
-          addActors(episode, parserEpisode);
-          addTrailer(episode, parserEpisode);
-          addDateAdded(episode, parserEpisode);
-
-          // add connector specific tags
-          addOwnTags(episode, parserEpisode);
-
-          // add unsupported tags
-          addUnsupportedTags(episode, parserEpisode);
-
-          // add tinyMediaManagers own data
-          addTinyMediaManagerTags(episode, parserEpisode);
-
-          // serialize to string
-          Writer out = new StringWriter();
-          Transformer transformer = getTransformer();
-
-          // suppress xml header on all episode but the first
-          if (!first) {
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-          }
-          transformer.transform(new DOMSource(document), new StreamResult(out));
-
-          xmlString.append(out.toString().replaceAll("(?<!\r)\n", "\r\n")); // windows conform line endings
-          first = false;
+        // the content is the same for all NFO names - render it only once
+        if (nfo == null) {
+          nfo = createNfo(parser);
         }
 
-        String xml = xmlString.toString();
         Path f = firstEpisode.getPathNIO().resolve(nfoFilename);
 
-        // compare old vs new
-        boolean changed = true;
-        try {
-          String xmlOld = Utils.readFileToString(f).replaceAll("\\<\\!\\-\\-.*\\-\\-\\>", ""); // replace xml comments
-          String xmlNew = xml.replaceAll("\\<\\!\\-\\-.*\\-\\-\\>", "");
-          if (xmlOld.equals(xmlNew)) {
-            changed = false;
-          }
-        }
-        catch (Exception e) {
-          // ignore
-        }
-
-        // write to file
-        if (changed) {
-          Utils.writeStringToFile(f, xml);
-        }
-        else {
+        // write to file (if it changed)
+        if (!nfo.write(f)) {
           getLogger().debug("NFO did not change - do not write it!");
         }
 
@@ -243,6 +145,99 @@ public abstract class TvShowEpisodeGenericXmlConnector implements ITvShowEpisode
     }
   }
 
+  /**
+   * create the XML documents of all episodes in the NFO and render them
+   *
+   * @param parser
+   *          the parser of the previous NFO (or null)
+   * @return the {@link NfoWriter} with the rendered NFO
+   * @throws Exception
+   *           any Exception that has been thrown
+   */
+  private NfoWriter createNfo(TvShowEpisodeNfoParser parser) throws Exception {
+    boolean first = true;
+    NfoWriter nfo = new NfoWriter();
+
+    // add well known tags
+    for (TvShowEpisode episode : episodes) {
+      // create the new NFO file according to the specifications
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance(); // NOSONAR
+      document = factory.newDocumentBuilder().newDocument();
+      document.setXmlStandalone(true);
+
+      // tmm comment
+      if (first) {
+        Format formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        String dat = formatter.format(new Date());
+        document.appendChild(document.createComment("created on " + dat + " - tinyMediaManager " + Globals.settings.getVersion()));
+      }
+
+      root = document.createElement("episodedetails");
+      document.appendChild(root);
+
+      // try to get the right episode out of the parser
+      TvShowEpisodeNfoParser.Episode parserEpisode = null;
+      if (parser != null) {
+        for (TvShowEpisodeNfoParser.Episode ep : parser.episodes) {
+          if (ep.season == episode.getSeason() && ep.episode == episode.getEpisode()) {
+            parserEpisode = ep;
+            break;
+          }
+        }
+      }
+
+      addTitle(episode, parserEpisode);
+      addOriginalTitle(episode, parserEpisode);
+      addShowTitle(episode, parserEpisode);
+      addSeason(episode, parserEpisode);
+      addEpisode(episode, parserEpisode);
+      addDisplaySeason(episode, parserEpisode);
+      addDisplayEpisode(episode, parserEpisode);
+      addId(episode, parserEpisode);
+      addIds(episode, parserEpisode);
+      addRating(episode, parserEpisode);
+      addUserrating(episode, parserEpisode);
+      addVotes(episode, parserEpisode);
+      addPlot(episode, parserEpisode);
+      addRuntime(episode, parserEpisode);
+      addThumb(episode, parserEpisode);
+      addMpaa(episode, parserEpisode);
+      addPremiered(episode, parserEpisode);
+      addAired(episode, parserEpisode);
+      addWatched(episode, parserEpisode);
+      addPlaycount(episode, parserEpisode);
+      addLastplayed(episode, parserEpisode);
+      addStudios(episode, parserEpisode);
+      addTags(episode, parserEpisode);
+      addCredits(episode, parserEpisode);
+      addDirectors(episode, parserEpisode);
+      addActors(episode, parserEpisode);
+      addTrailer(episode, parserEpisode);
+      addDateAdded(episode, parserEpisode);
+
+      // add connector specific tags
+      addOwnTags(episode, parserEpisode);
+
+      // add unsupported tags
+      addUnsupportedTags(episode, parserEpisode);
+
+      // add tinyMediaManagers own data
+      addTinyMediaManagerTags(episode, parserEpisode);
+
+      // serialize
+      Transformer transformer = getTransformer();
+
+      // suppress xml header on all episode but the first
+      if (!first) {
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+      }
+      nfo.append(transformer, document);
+      first = false;
+    }
+
+    return nfo;
+  }
+
   /**
    * add the title in the form <title>xxx</title>
    */
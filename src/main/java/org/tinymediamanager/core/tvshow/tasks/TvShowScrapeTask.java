@@ -29,6 +29,7 @@ import org.tinymediamanager.core.ScraperMetadataConfig;
 import org.tinymediamanager.core.UTF8Control;
 import org.tinymediamanager.core.entities.MediaTrailer;
 import org.tinymediamanager.core.entities.Person;
+import org.tinymediamanager.core.threading.TmmProviderFanOut;
 import org.tinymediamanager.core.threading.TmmTask;
 import org.tinymediamanager.core.threading.TmmTaskManager;
 import org.tinymediamanager.core.threading.TmmThreadPool;
@@ -52,6 +53,7 @@ import org.tinymediamanager.scraper.entities.MediaType;
 import org.tinymediamanager.scraper.exceptions.MissingIdException;
 import org.tinymediamanager.scraper.exceptions.NothingFoundException;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
+import org.tinymediamanager.scraper.http.TmmHttpHostLimiter;
 import org.tinymediamanager.scraper.interfaces.ITvShowArtworkProvider;
 import org.tinymediamanager.scraper.interfaces.ITvShowMetadataProvider;
 import org.tinymediamanager.scraper.interfaces.ITvShowTrailerProvider;
@@ -97,7 +99,10 @@ public class TvShowScrapeTask extends TmmThreadPool {
     LOGGER.debug("start scraping tv shows...");
     start();
 
-    initThreadPool(3, "scrape");
+    // as many threads as the hosts of the metadata scraper currently allow parallel requests
+    MediaScraper metadataScraper = scrapeOptions.getMetadataScraper();
+    String providerId = metadataScraper != null ? metadataScraper.getId() : null;
+    initThreadPool(TmmHttpHostLimiter.getInstance().getSuggestedThreads(providerId, 3, 8), "scrape");
     for (TvShow tvShow : tvShowsToScrape) {
       submitTask(new Worker(tvShow));
     }
@@ -127,6 +132,11 @@ public class TvShowScrapeTask extends TmmThreadPool {
         MediaScraper mediaMetadataScraper = scrapeOptions.getMetadataScraper();
         List<MediaScraper> trailerScrapers = scrapeOptions.getTrailerScrapers();
 
+        // remember the hosts of the metadata scraper for sizing the thread pool
+        if (mediaMetadataScraper != null) {
+          TmmHttpHostLimiter.getInstance().setCurrentProvider(mediaMetadataScraper.getId());
+        }
+
         // scrape tv show
 
         // search for tv show
@@ -264,6 +274,9 @@ public class TvShowScrapeTask extends TmmThreadPool {
         MessageManager.instance.pushMessage(
             new Message(MessageLevel.ERROR, "TvShowScraper", "message.scrape.threadcrashed", new String[] { ":", e.getLocalizedMessage() }));
       }
+      finally {
+        TmmHttpHostLimiter.getInstance().setCurrentProvider(null);
+      }
     }
 
     /**
@@ -285,20 +298,17 @@ public class TvShowScrapeTask extends TmmThreadPool {
         options.setId(entry.getKey(), entry.getValue().toString());
       }
 
-      // scrape providers till one artwork has been found
-      for (MediaScraper artworkScraper : scrapeOptions.getArtworkScrapers()) {
-        ITvShowArtworkProvider artworkProvider = (ITvShowArtworkProvider) artworkScraper.getMediaProvider();
-        try {
-          artwork.addAll(artworkProvider.getArtwork(options));
-        }
-        catch (ScrapeException e) {
-          LOGGER.error("getArtwork", e);
-          MessageManager.instance.pushMessage(
-                  new Message(Message.MessageLevel.ERROR, tvShow, "message.scrape.tvshowartworkfailed", new String[]{":", e.getLocalizedMessage()}));
-        } catch (MissingIdException ignored) {
-          LOGGER.debug("no id avaiable for scraper {}", artworkScraper.getId());
-        }
-      }
+      // ask all providers at the same time; the results are merged in the order of the scrapers
+      artwork.addAll(TmmProviderFanOut.callAll(scrapeOptions.getArtworkScrapers(), MediaScraper::getId,
+          artworkScraper -> ((ITvShowArtworkProvider) artworkScraper.getMediaProvider()).getArtwork(options), (artworkScraper, e) -> {
+            if (e instanceof MissingIdException) {
+              LOGGER.debug("no id avaiable for scraper {}", artworkScraper.getId());
+              return;
+            }
+            LOGGER.error("getArtwork", e);
+            MessageManager.instance.pushMessage(new Message(Message.MessageLevel.ERROR, tvShow, "message.scrape.tvshowartworkfailed",
+                new String[] { ":", e.getLocalizedMessage() }));
+          }));
       return artwork;
     }
 
@@ -314,19 +324,17 @@ public class TvShowScrapeTask extends TmmThreadPool {
         options.setId(entry.getKey(), entry.getValue().toString());
       }
 
-      // scrape trailers
-      for (MediaScraper trailerScraper : trailerScrapers) {
-        try {
-          ITvShowTrailerProvider trailerProvider = (ITvShowTrailerProvider) trailerScraper.getMediaProvider();
-          trailers.addAll(trailerProvider.getTrailers(options));
-        } catch (ScrapeException e) {
-          LOGGER.error("getTrailers", e);
-          MessageManager.instance.pushMessage(
-                  new Message(MessageLevel.ERROR, tvShow, "message.scrape.trailerfailed", new String[]{":", e.getLocalizedMessage()}));
-        } catch (MissingIdException e) {
-          LOGGER.debug("no usable ID found for scraper {}", trailerScraper.getMediaProvider().getProviderInfo().getId());
-        }
-      }
+      // scrape trailers - all providers at the same time, merged in the order of the scrapers
+      trailers.addAll(TmmProviderFanOut.callAll(trailerScrapers, MediaScraper::getId,
+          trailerScraper -> ((ITvShowTrailerProvider) trailerScraper.getMediaProvider()).getTrailers(options), (trailerScraper, e) -> {
+            if (e instanceof MissingIdException) {
+              LOGGER.debug("no usable ID found for scraper {}", trailerScraper.getMediaProvider().getProviderInfo().getId());
+              return;
+            }
+            LOGGER.error("getTrailers", e);
+            MessageManager.instance.pushMessage(
+                new Message(MessageLevel.ERROR, tvShow, "message.scrape.trailerfailed", new String[] { ":", e.getLocalizedMessage() }));
+          }));
 
       return trailers;
     }
@@ -26,6 +26,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
+import org.tinymediamanager.core.DataSourceWatcher;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.Utils;
 import org.tinymediamanager.core.entities.MediaFile;
@@ -76,6 +77,7 @@ public class TvShowSubtitleDownloadTask extends DownloadTask {
           }
 
           Path destination = file.getParent().resolve(basename + "." + extension);
+          DataSourceWatcher.markOwnChange(destination);
           try (FileOutputStream os = new FileOutputStream(destination.toFile())) {
 
             int len;
@@ -28,6 +28,8 @@ import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
@@ -36,6 +38,7 @@ import java.util.ResourceBundle;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,6 +49,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
 import org.tinymediamanager.core.AbstractFileVisitor;
+import org.tinymediamanager.core.DirectoryManifest;
+import org.tinymediamanager.core.DirectoryManifest.Recorder;
 import org.tinymediamanager.core.MediaFileHelper;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.MediaSource;
@@ -103,8 +108,14 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
 
   private List<String>                dataSources;
   private List<Path>                  tvShowFolders = new ArrayList<>();
+  private String                      tvShowFoldersDataSource;
   private TvShowList                  tvShowList;
   private Set<Path>                   filesFound    = ConcurrentHashMap.newKeySet();
+  private List<Recorder>              recorders     = Collections.synchronizedList(new ArrayList<>());
+  private Set<Path>                   failedFolders = ConcurrentHashMap.newKeySet();
+  private AtomicInteger               unchangedDirs = new AtomicInteger(0);
+  private DirectoryManifest           manifest;
+  private boolean                     incremental;
 
   /**
    * Instantiates a new scrape task - to update all datasources
@@ -142,6 +153,22 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
     this.tvShowFolders.addAll(tvShowFolders);
   }
 
+  /**
+   * Instantiates a new scrape task - to update the given (new, changed or vanished) TV show folders of a datasource
+   * 
+   * @param datasource
+   *          the data source containing the TV show folders
+   * @param tvShowFolders
+   *          a list of TV show folders to start the task for
+   */
+  public TvShowUpdateDatasourceTask(String datasource, Collection<Path> tvShowFolders) {
+    super(BUNDLE.getString("update.datasource") + " (" + datasource + ")");
+    tvShowList = TvShowList.getInstance();
+    dataSources = new ArrayList<>(0);
+    tvShowFoldersDataSource = datasource;
+    this.tvShowFolders.addAll(tvShowFolders);
+  }
+
   @Override
   public void doInBackground() {
     // check if there is at least one DS to update
@@ -154,6 +181,9 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
 
     resetCounters();
 
+    manifest = TvShowModuleManager.getInstance().getDirectoryManifest();
+    incremental = TvShowModuleManager.SETTINGS.isIncrementalUpdate() && tvShowFolders.isEmpty();
+
     try {
       StopWatch stopWatch = new StopWatch();
       stopWatch.start();
@@ -250,11 +280,13 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
             submitTask(new FindTvShowTask(subdir, dsAsPath.toAbsolutePath()));
           }
           waitForCompletionOrCancel();
+          commitManifest();
 
           // print stats
           LOGGER.info("FilesFound: {}", filesFound.size());
           LOGGER.info("tvShowsFound: {}", tvShowList.getTvShowCount());
           LOGGER.info("episodesFound: {}", tvShowList.getEpisodeCount());
+          LOGGER.info("unchangedDirs: {}", unchangedDirs.get());
           LOGGER.debug("PreDir: {}", preDir);
           LOGGER.debug("PostDir: {}", postDir);
           LOGGER.debug("VisFile: {}", visFile);
@@ -280,15 +312,21 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
           // Files.exist here:
           // if the DS exists (and we have access to read it): Files.exist = true
           if (!Files.exists(path)) {
+            if (tvShowFoldersDataSource != null) {
+              // the folder has been removed from the datasource - the TV show will be removed in the cleanup
+              continue;
+            }
             // error - continue with next datasource
             LOGGER.warn("Datasource not available/empty - {}", path.toAbsolutePath());
             MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, "update.datasource", "update.datasource.unavailable",
                 new String[] { path.toAbsolutePath().toString() }));
             continue;
           }
-          submitTask(new FindTvShowTask(path, path.getParent().toAbsolutePath()));
+          Path dataSource = tvShowFoldersDataSource != null ? Paths.get(tvShowFoldersDataSource) : path.getParent();
+          submitTask(new FindTvShowTask(path, dataSource.toAbsolutePath()));
         }
         waitForCompletionOrCancel();
+        commitManifest();
 
         // print stats
         LOGGER.info("FilesFound: {}", filesFound.size());
@@ -306,7 +344,17 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
 
       LOGGER.info("getting Mediainfo...");
 
-      initThreadPool(1, "mediainfo");
+      // the shows could be spread over several datasources - take the widest pool of them
+      int threads = 1;
+      for (String dataSource : dataSources) {
+        threads = Math.max(threads, Globals.settings.getMediaInfoThreads(dataSource));
+      }
+      for (TvShow tvShow : tvShowList.getTvShows()) {
+        if (tvShowFolders.contains(tvShow.getPathNIO())) {
+          threads = Math.max(threads, Globals.settings.getMediaInfoThreads(tvShow.getDataSource()));
+        }
+      }
+      initThreadPool(threads, "mediainfo");
       setTaskName(BUNDLE.getString("update.mediainfo"));
       setTaskDescription(null);
       setProgressDone(0);
@@ -352,6 +400,23 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
     }
   }
 
+  /**
+   * remember the state of all parsed folders for the next incremental update; folders where parsing failed have to be parsed again next time
+   */
+  private void commitManifest() {
+    if (!cancel) {
+      synchronized (recorders) {
+        for (Recorder recorder : recorders) {
+          if (!failedFolders.contains(recorder.getRoot())) {
+            manifest.commit(recorder);
+          }
+        }
+      }
+    }
+    recorders.clear();
+    failedFolders.clear();
+  }
+
   private void cleanupShows() {
     setTaskName(BUNDLE.getString("update.cleanup"));
     setTaskDescription(null);
@@ -523,6 +588,16 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
 
     @Override
     public String call() throws Exception {
+      try {
+        return findTvShow();
+      }
+      catch (Exception e) {
+        failedFolders.add(showDir.toAbsolutePath().normalize());
+        throw e;
+      }
+    }
+
+    private String findTvShow() throws Exception {
       String name = Thread.currentThread().getName();
       if (!name.contains("-G")) {
         name = name + "-G0";
@@ -535,7 +610,16 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
         return "";
       }
 
-      Set<Path> allFiles = getAllFilesRecursive(showDir, Integer.MAX_VALUE);
+      // incremental update: nothing to do if there is no change in the folder
+      if (incremental && tvShowList.getTvShowByPath(showDir) != null && manifest.isUnchanged(showDir, filesFound)) {
+        LOGGER.debug("Skipping unchanged dir: {}", showDir);
+        unchangedDirs.incrementAndGet();
+        return "";
+      }
+
+      Recorder recorder = manifest.startRecording(showDir);
+      recorders.add(recorder);
+      Set<Path> allFiles = getAllFilesRecursive(showDir, Integer.MAX_VALUE, recorder);
       if (allFiles == null || allFiles.isEmpty()) {
         LOGGER.info("skip empty directory: {}", showDir);
         return "";
@@ -1077,11 +1161,13 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
      *          the folder to search for
      * @param deep
      *          how much levels to search for
+     * @param recorder
+     *          the {@link Recorder} to store the visited directories in
      * @return a {@link Set} of all found {@link Path}s
      */
-    private Set<Path> getAllFilesRecursive(Path path, int deep) {
+    private Set<Path> getAllFilesRecursive(Path path, int deep, Recorder recorder) {
       Path folder = path.toAbsolutePath();
-      AllFilesRecursive visitor = new AllFilesRecursive();
+      AllFilesRecursive visitor = new AllFilesRecursive(recorder);
       try {
         Files.walkFileTree(folder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), deep, visitor);
       }
@@ -1130,11 +1216,17 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
   }
 
   private static class AllFilesRecursive extends AbstractFileVisitor {
-    private HashSet<Path> fFound = new HashSet<>();
+    private HashSet<Path>  fFound = new HashSet<>();
+    private final Recorder recorder;
+
+    AllFilesRecursive(Recorder recorder) {
+      this.recorder = recorder;
+    }
 
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attr) {
       incVisFile();
+      recorder.file(file);
       if (Utils.isRegularFile(attr) && !file.getFileName().toString().matches(skipRegex)) {
         fFound.add(file.toAbsolutePath());
       }
@@ -1150,8 +1242,10 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
               || skipFolders.contains(dir.getFileName().toString().toUpperCase(Locale.ROOT)) || dir.getFileName().toString().matches(skipRegex))
           || TvShowModuleManager.SETTINGS.getSkipFolder().contains(dir.toFile().getAbsolutePath())) {
         LOGGER.debug("Skipping dir: {}", dir);
+        recorder.skippedDirectory(dir, attrs);
         return SKIP_SUBTREE;
       }
+      recorder.directory(dir, attrs);
       return CONTINUE;
     }
 
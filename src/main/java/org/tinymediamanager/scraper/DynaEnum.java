@@ -21,10 +21,11 @@ import java.io.ObjectInputStream;
 import java.io.ObjectStreamException;
 import java.lang.reflect.Array;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * The class DynaEnum is used to create a "dynamic" enum - an enum which is extensible at runtime
@@ -35,8 +36,10 @@ import java.util.Set;
  * @since 1.0
  */
 public abstract class DynaEnum<E extends DynaEnum<E>> {
+  // guarded by itself - values may be added while loading the databases in several threads
   private static Map<Class<? extends DynaEnum<?>>, Map<String, DynaEnum<?>>>   elements  = new LinkedHashMap<>();
-  private static Map<Class<? extends DynaEnum<?>>, Set<DynaEnumEventListener>> listeners = new LinkedHashMap<>();
+  // listeners are informed from the threads adding values (e.g. the parallel database load)
+  private static Map<Class<? extends DynaEnum<?>>, Set<DynaEnumEventListener>> listeners = new ConcurrentHashMap<>();
   private final String                                                         name;
   protected final int                                                          ordinal;
 
@@ -70,12 +73,14 @@ public abstract class DynaEnum<E extends DynaEnum<E>> {
    * add this element to the list of elements
    */
   protected void addElement() {
-    Map<String, DynaEnum<?>> typeElements = elements.get(getClass());
-    if (typeElements == null) {
-      typeElements = new LinkedHashMap<>();
-      elements.put(getDynaEnumClass(), typeElements);
+    synchronized (elements) {
+      Map<String, DynaEnum<?>> typeElements = elements.get(getClass());
+      if (typeElements == null) {
+        typeElements = new LinkedHashMap<>();
+        elements.put(getDynaEnumClass(), typeElements);
+      }
+      typeElements.put(name, this);
     }
-    typeElements.put(name, this);
 
     valueAdded(getClass(), this);
   }
@@ -139,7 +144,9 @@ public abstract class DynaEnum<E extends DynaEnum<E>> {
    */
   @SuppressWarnings("unchecked")
   public static <T extends DynaEnum<T>> T valueOf(Class<T> enumType, String name) {
-    return (T) elements.get(enumType).get(name);
+    synchronized (elements) {
+      return (T) elements.get(enumType).get(name);
+    }
   }
 
   /**
@@ -189,16 +196,18 @@ public abstract class DynaEnum<E extends DynaEnum<E>> {
    */
   @SuppressWarnings("unchecked")
   public static <E> E[] values(Class<E> enumType) {
-    Collection<DynaEnum<?>> values = elements.get(enumType).values();
-    int n = values.size();
-    E[] typedValues = (E[]) Array.newInstance(enumType, n);
-    int i = 0;
-    for (DynaEnum<?> value : values) {
-      Array.set(typedValues, i, value);
-      i++;
-    }
+    synchronized (elements) {
+      Collection<DynaEnum<?>> values = elements.get(enumType).values();
+      int n = values.size();
+      E[] typedValues = (E[]) Array.newInstance(enumType, n);
+      int i = 0;
+      for (DynaEnum<?> value : values) {
+        Array.set(typedValues, i, value);
+        i++;
+      }
 
-    return typedValues;
+      return typedValues;
+    }
   }
 
   /**
@@ -210,12 +219,7 @@ public abstract class DynaEnum<E extends DynaEnum<E>> {
    *          the new listener to be added
    */
   protected static void addListener(Class<? extends DynaEnum<?>> clazz, DynaEnumEventListener listener) {
-    Set<DynaEnumEventListener> listenerSet = listeners.get(clazz);
-    if (listenerSet == null) {
-      listenerSet = new HashSet<>();
-      listeners.put(clazz, listenerSet);
-    }
-    listenerSet.add(listener);
+    listeners.computeIfAbsent(clazz, key -> new CopyOnWriteArraySet<>()).add(listener);
   }
 
   /**
@@ -25,8 +25,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Scanner;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -63,7 +61,6 @@ import org.tinymediamanager.scraper.http.Url;
 import org.tinymediamanager.scraper.interfaces.IMediaArtworkProvider;
 import org.tinymediamanager.scraper.interfaces.ITvShowMetadataProvider;
 import org.tinymediamanager.scraper.util.RingBuffer;
-import org.tinymediamanager.scraper.util.Similarity;
 import org.tinymediamanager.scraper.util.StrgUtils;
 import org.tinymediamanager.scraper.util.UrlUtil;
 
@@ -73,15 +70,16 @@ import org.tinymediamanager.scraper.util.UrlUtil;
  * @author Manuel Laggner
  */
 public class AniDBMetadataProvider implements ITvShowMetadataProvider, IMediaArtworkProvider {
-  public static final String                ID                = "anidb";
-  private static final Logger               LOGGER            = LoggerFactory.getLogger(AniDBMetadataProvider.class);
-  private static final String               IMAGE_SERVER      = "http://img7.anidb.net/pics/anime/";
+  public static final String            ID                 = "anidb";
+  private static final Logger           LOGGER             = LoggerFactory.getLogger(AniDBMetadataProvider.class);
+  private static final String           IMAGE_SERVER       = "http://img7.anidb.net/pics/anime/";
   // flood: pager every 2 seconds
   // protection: https://wiki.anidb.net/w/HTTP_API_Definition
-  private static final RingBuffer<Long>     connectionCounter = new RingBuffer<>(1);
-  private static MediaProviderInfo          providerInfo      = createMediaProviderInfo();
+  private static final RingBuffer<Long> connectionCounter  = new RingBuffer<>(1);
+  private static MediaProviderInfo      providerInfo       = createMediaProviderInfo();
+  private static final int              MAX_SEARCH_RESULTS = 50;
 
-  private HashMap<Integer, List<AniDBShow>> showsForLookup    = new HashMap<>();
+  private final AniDBTitleIndex         titleIndex         = new AniDBTitleIndex();
 
   private static MediaProviderInfo createMediaProviderInfo() {
     MediaProviderInfo providerInfo = new MediaProviderInfo(ID, "aniDB",
@@ -436,7 +434,7 @@ public class AniDBMetadataProvider implements ITvShowMetadataProvider, IMediaArt
 
     synchronized (AniDBMetadataProvider.class) {
       // first run: build up the anime name list
-      if (showsForLookup.isEmpty()) {
+      if (titleIndex.isEmpty()) {
         buildTitleHashMap();
       }
     }
@@ -454,26 +452,14 @@ public class AniDBMetadataProvider implements ITvShowMetadataProvider, IMediaArt
       return results;
     }
 
-    for (Entry<Integer, List<AniDBShow>> entry : showsForLookup.entrySet()) {
-      for (AniDBShow show : entry.getValue()) {
-
-        MediaSearchResult result = new MediaSearchResult(providerInfo.getId(), MediaType.TV_SHOW);
-        result.setId(String.valueOf(show.aniDbId));
-        result.setTitle(show.title);
-        result.setScore(Similarity.compareStrings(show.title, searchString));
-        results.add(result);
-      }
-    }
-
-    // filter out duplicates - just keep the "title" with the highest rating from a show
-    Map<Object, MediaSearchResult> filteredResults = new HashMap<>();
-    for (MediaSearchResult result : results) {
-      if (!filteredResults.containsKey(result.getId())) {
-        filteredResults.put(result.getId(), result);
-      }
+    // only the titles sharing letter pairs with the search string are scored
+    for (AniDBTitleIndex.Match match : titleIndex.search(searchString, MAX_SEARCH_RESULTS)) {
+      MediaSearchResult result = new MediaSearchResult(providerInfo.getId(), MediaType.TV_SHOW);
+      result.setId(String.valueOf(match.aniDbId));
+      result.setTitle(match.title);
+      result.setScore(match.score);
+      results.add(result);
     }
-    results.clear();
-    results.addAll(filteredResults.values());
 
     return results;
   }
@@ -555,7 +541,7 @@ public class AniDBMetadataProvider implements ITvShowMetadataProvider, IMediaArt
   }
 
   /*
-   * build up the hashmap for a fast title search
+   * build up the title index for a fast title search
    */
   private void buildTitleHashMap() {
     // <aid>|<type>|<language>|<title>
@@ -583,15 +569,10 @@ public class AniDBMetadataProvider implements ITvShowMetadataProvider, IMediaArt
         Matcher matcher = pattern.matcher(scanner.nextLine());
 
         if (matcher.matches()) {
-          AniDBShow show = new AniDBShow();
-          show.aniDbId = Integer.parseInt(matcher.group(1));
-          show.language = matcher.group(3);
-          show.title = matcher.group(4);
-
-          List<AniDBShow> shows = showsForLookup.computeIfAbsent(show.aniDbId, k -> new ArrayList<>());
-          shows.add(show);
+          titleIndex.add(Integer.parseInt(matcher.group(1)), matcher.group(4));
         }
       }
+      LOGGER.debug("indexed {} AniDB titles", titleIndex.size());
     }
     catch (InterruptedException | InterruptedIOException e) {
       // do not swallow these Exceptions
@@ -666,15 +647,6 @@ public class AniDBMetadataProvider implements ITvShowMetadataProvider, IMediaArt
     return artwork;
   }
 
-  /****************************************************************************
-   * helper class to buffer search results from AniDB
-   ****************************************************************************/
-  private static class AniDBShow {
-    int    aniDbId;
-    String language;
-    String title;
-  }
-
   /****************************************************************************
    * helper class for episode extraction
    ****************************************************************************/
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.anidb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.tinymediamanager.scraper.util.Similarity;
+
+/**
+ * The class AniDBTitleIndex is an inverted index of the letter pairs of all AniDB titles. A search only looks at the titles which share at least one
+ * letter pair with the search string and calculates the same score as {@link Similarity#compareStrings(String, String)} out of the counted common
+ * letter pairs - so no title has to be compared char by char
+ *
+ * @author Manuel Laggner
+ */
+class AniDBTitleIndex {
+  private final List<String>          titles   = new ArrayList<>();
+  private final List<Integer>         ids      = new ArrayList<>();
+  private final List<Integer>         pairSize = new ArrayList<>();
+  private final Map<String, Postings> postings = new HashMap<>();
+
+  /**
+   * add a title of an anime
+   *
+   * @param aniDbId
+   *          the AniDB id of the anime
+   * @param title
+   *          the title
+   */
+  void add(int aniDbId, String title) {
+    int index = titles.size();
+    List<String> pairs = Similarity.wordLetterPairs(title.toUpperCase(Locale.ROOT));
+
+    titles.add(title);
+    ids.add(aniDbId);
+    pairSize.add(pairs.size());
+
+    for (Map.Entry<String, Integer> entry : count(pairs).entrySet()) {
+      postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(index, entry.getValue());
+    }
+  }
+
+  boolean isEmpty() {
+    return titles.isEmpty();
+  }
+
+  int size() {
+    return titles.size();
+  }
+
+  /**
+   * search for the best matching animes; every anime is returned only once with its best matching title
+   *
+   * @param searchString
+   *          the string to search for
+   * @param maxResults
+   *          the maximum amount of results
+   * @return the best matches (highest score first)
+   */
+  List<Match> search(String searchString, int maxResults) {
+    List<String> pairs = Similarity.wordLetterPairs(searchString.toUpperCase(Locale.ROOT));
+    if (pairs.isEmpty() || maxResults <= 0) {
+      return Collections.emptyList();
+    }
+
+    // count the common letter pairs (as multiset) of every title which shares at least one letter pair
+    int[] intersections = new int[titles.size()];
+    List<Integer> candidates = new ArrayList<>();
+    for (Map.Entry<String, Integer> entry : count(pairs).entrySet()) {
+      Postings posting = postings.get(entry.getKey());
+      if (posting == null) {
+        continue;
+      }
+      for (int i = 0; i < posting.size; i++) {
+        int title = posting.titles[i];
+        if (intersections[title] == 0) {
+          candidates.add(title);
+        }
+        intersections[title] += Math.min(entry.getValue(), posting.counts[i]);
+      }
+    }
+
+    // just keep the title with the highest score per anime
+    Map<Integer, Match> bestMatches = new HashMap<>();
+    for (int title : candidates) {
+      float score = score(searchString, title, intersections[title], pairs.size());
+      Match match = bestMatches.get(ids.get(title));
+      if (match == null || match.score < score) {
+        bestMatches.put(ids.get(title), new Match(ids.get(title), titles.get(title), score));
+      }
+    }
+
+    // top k: the heap holds the worst of the best matches on top
+    PriorityQueue<Match> heap = new PriorityQueue<>(maxResults + 1, (m1, m2) -> Float.compare(m1.score, m2.score));
+    for (Match match : bestMatches.values()) {
+      if (heap.size() < maxResults) {
+        heap.add(match);
+      }
+      else if (heap.peek().score < match.score) {
+        heap.poll();
+        heap.add(match);
+      }
+    }
+
+    List<Match> matches = new ArrayList<>(heap);
+    matches.sort((m1, m2) -> Float.compare(m2.score, m1.score));
+    return matches;
+  }
+
+  /**
+   * the same calculation as in {@link Similarity#compareStrings(String, String)}
+   */
+  private float score(String searchString, int title, int intersection, int searchPairs) {
+    if (titles.get(title).equalsIgnoreCase(searchString)) {
+      return 1.0f;
+    }
+    float score = (float) (2.0 * intersection) / (searchPairs + pairSize.get(title));
+    if (Float.isNaN(score)) {
+      score = 0;
+    }
+    return score;
+  }
+
+  private static Map<String, Integer> count(List<String> pairs) {
+    Map<String, Integer> counts = new HashMap<>();
+    for (String pair : pairs) {
+      counts.merge(pair, 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  /**
+   * all titles containing a letter pair with the count of this letter pair in the title
+   */
+  private static class Postings {
+    private int[] titles = new int[4];
+    private int[] counts = new int[4];
+    private int   size   = 0;
+
+    private void add(int title, int count) {
+      if (size == titles.length) {
+        titles = Arrays.copyOf(titles, size * 2);
+        counts = Arrays.copyOf(counts, size * 2);
+      }
+      titles[size] = title;
+      counts[size] = count;
+      size++;
+    }
+  }
+
+  /**
+   * a found anime with its best matching title
+   */
+  static class Match {
+    final int    aniDbId;
+    final String title;
+    final float  score;
+
+    private Match(int aniDbId, String title, float score) {
+      this.aniDbId = aniDbId;
+      this.title = title;
+      this.score = score;
+    }
+  }
+}
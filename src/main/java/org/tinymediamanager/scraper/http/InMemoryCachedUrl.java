@@ -40,7 +40,11 @@ import okhttp3.Headers;
  * @author Manuel Laggner
  */
 public class InMemoryCachedUrl extends Url {
-  public static final CacheMap<String, CachedRequest> CACHE = new CacheMap<>(60, 10);
+  private static final int                           MAX_ENTRIES = 1000;
+  private static final long                          MAX_WEIGHT  = 64L * 1024 * 1024; // 64 MB of (gzipped) content
+
+  public static final CacheMap<String, CachedRequest> CACHE       = new CacheMap<>(60, 10, MAX_ENTRIES, MAX_WEIGHT,
+      (url, request) -> request.content.length + 2L * url.length());
 
   public InMemoryCachedUrl(String url) throws MalformedURLException {
     this.url = url;
@@ -32,6 +32,7 @@ import org.apache.commons.lang3.StringUtils;
 import okhttp3.Cache;
 import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 
 /**
@@ -76,12 +77,20 @@ public class TmmHttpClient {
   private static OkHttpClient createHttpClient() {
     OkHttpClient.Builder builder = new OkHttpClient.Builder();
 
+    // limit the requests per host (parallelism, rate and 429/503 backoff) - before logging to log every retry
+    builder.addInterceptor(TmmHttpHostLimiter.getInstance());
+
     // add an own logging interceptor to only log text responses
     builder.addInterceptor(new TmmHttpLoggingInterceptor());
 
     // pool
     builder.connectionPool(new ConnectionPool(5, 5000, TimeUnit.MILLISECONDS));
 
+    // the host limiter takes care of the parallel requests per host - also for async calls
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequestsPerHost(TmmHttpHostLimiter.MAX_CONCURRENCY);
+    builder.dispatcher(dispatcher);
+
     // timeouts
     builder.connectTimeout(60, TimeUnit.SECONDS);
     builder.writeTimeout(30, TimeUnit.SECONDS);
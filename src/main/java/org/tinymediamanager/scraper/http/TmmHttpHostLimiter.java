@@ -0,0 +1,320 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.internal.http.HttpDate;
+
+/**
+ * The class TmmHttpHostLimiter is an application interceptor which limits the requests per host:
+ * <ul>
+ * <li>the amount of parallel requests per host adapts itself (AIMD): every successful (2xx/3xx) request raises the limit slowly, a 429/503 response
+ * halves it. Server errors (5xx) and connection errors also halve it, but do not defer the host</li>
+ * <li>an optional token bucket per host limits the request rate</li>
+ * <li>if the server sends a 429/503 with Retry-After, the whole host is deferred for that time and the request is re-tried afterwards - without
+ * occupying a slot of the host while waiting</li>
+ * </ul>
+ *
+ * @author Manuel Laggner
+ */
+public class TmmHttpHostLimiter implements Interceptor {
+  private static final Logger             LOGGER              = LoggerFactory.getLogger(TmmHttpHostLimiter.class);
+  private static final TmmHttpHostLimiter INSTANCE            = new TmmHttpHostLimiter();
+
+  static final int                        INITIAL_CONCURRENCY = 4;
+  static final int                        MAX_CONCURRENCY     = 16;
+  static final int                        MAX_RETRIES         = 3;
+  static final long                       MAX_RETRY_DELAY     = 60000;
+  static final long                       DEFAULT_BACKOFF     = 2000;
+
+  private final Map<String, HostLimit>    hosts               = new ConcurrentHashMap<>();
+  private final Map<String, TokenBucket>  rateLimits          = new ConcurrentHashMap<>();
+  // the hosts which have been requested on behalf of a provider (see setCurrentProvider)
+  private final Map<String, Set<String>>  providerHosts       = new ConcurrentHashMap<>();
+  private final ThreadLocal<String>       currentProvider     = new ThreadLocal<>();
+
+  TmmHttpHostLimiter() {
+    // use the shared instance
+  }
+
+  public static TmmHttpHostLimiter getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * limit the request rate for the given host
+   *
+   * @param host
+   *          the host name
+   * @param permits
+   *          the amount of requests per period
+   * @param period
+   *          the period
+   * @param unit
+   *          the time unit of the period
+   */
+  public void setRateLimit(String host, int permits, long period, TimeUnit unit) {
+    rateLimits.put(host, new TokenBucket(permits, period, unit));
+  }
+
+  /**
+   * set the provider on whose behalf the requests of the current thread are made (null to reset it). The hosts requested for the provider are
+   * remembered for {@link #getSuggestedThreads(String, int, int)}. Threads doing requests for a provider (e.g. worker threads of the provider or
+   * the threads of a fan-out) must set the provider themselves - see {@link #callFor(String, Callable)}
+   *
+   * @param providerId
+   *          the id of the provider or null
+   */
+  public void setCurrentProvider(String providerId) {
+    if (providerId == null) {
+      currentProvider.remove();
+    }
+    else {
+      currentProvider.set(providerId);
+    }
+  }
+
+  /**
+   * get the provider on whose behalf the requests of the current thread are made
+   *
+   * @return the id of the provider or null
+   */
+  public String getCurrentProvider() {
+    return currentProvider.get();
+  }
+
+  /**
+   * do the given call on behalf of the given provider; the previous provider of the current thread is restored afterwards
+   *
+   * @param providerId
+   *          the id of the provider or null if the requests should not be attributed to any provider
+   * @param call
+   *          the call to do
+   * @return the result of the call
+   * @throws Exception
+   *           any exception of the call
+   */
+  public <T> T callFor(String providerId, Callable<T> call) throws Exception {
+    String previous = currentProvider.get();
+    setCurrentProvider(providerId);
+    try {
+      return call.call();
+    }
+    finally {
+      setCurrentProvider(previous);
+    }
+  }
+
+  /**
+   * get a suggestion for the size of thread pools issuing requests for the given provider: the current parallelism of the most restricted host of
+   * this provider
+   *
+   * @param providerId
+   *          the id of the provider the threads are working for
+   * @param defaultThreads
+   *          the amount of threads if there were no requests for this provider yet
+   * @param maxThreads
+   *          the maximum amount of threads
+   * @return the suggested amount of threads
+   */
+  public int getSuggestedThreads(String providerId, int defaultThreads, int maxThreads) {
+    Set<String> hostsOfProvider = providerId != null ? providerHosts.get(providerId) : null;
+    if (hostsOfProvider == null || hostsOfProvider.isEmpty()) {
+      return Math.min(defaultThreads, maxThreads);
+    }
+
+    int threads = maxThreads;
+    for (String host : hostsOfProvider) {
+      threads = Math.min(threads, getConcurrencyLimit(host));
+    }
+    return Math.max(1, threads);
+  }
+
+  int getConcurrencyLimit(String host) {
+    HostLimit limit = hosts.get(host);
+    return limit != null ? limit.getLimit() : INITIAL_CONCURRENCY;
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    String host = request.url().host();
+    HostLimit limit = hosts.computeIfAbsent(host, HostLimit::new);
+
+    String provider = currentProvider.get();
+    if (provider != null) {
+      providerHosts.computeIfAbsent(provider, key -> ConcurrentHashMap.newKeySet()).add(host);
+    }
+
+    for (int attempt = 0;; attempt++) {
+      try {
+        limit.acquire(rateLimits.get(host));
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("interrupted while waiting for " + host);
+      }
+
+      Response response;
+      try {
+        response = chain.proceed(request);
+      }
+      catch (IOException e) {
+        // the host could not be reached or did not answer in time (but an interruption is not caused by the host)
+        if (!(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException) {
+          limit.onError();
+        }
+        throw e;
+      }
+      finally {
+        limit.release();
+      }
+
+      int code = response.code();
+      if (code >= 200 && code < 400) {
+        limit.onSuccess();
+        return response;
+      }
+      if (code != 429 && code != 503) {
+        if (code >= 500) {
+          limit.onError();
+        }
+        // other client errors (e.g. 404) say nothing about the load of the host
+        return response;
+      }
+
+      long delay = parseRetryAfter(response.header("Retry-After"));
+      if (delay < 0 && code == 429) {
+        // too many requests without a hint - exponential backoff
+        delay = DEFAULT_BACKOFF << attempt;
+      }
+      // never block the whole host for longer than the maximum retry delay
+      limit.onBackoff(Math.max(0, Math.min(delay, MAX_RETRY_DELAY)));
+
+      // a 503 without Retry-After is most likely a real outage - do not retry it
+      if (delay < 0 || delay > MAX_RETRY_DELAY || attempt >= MAX_RETRIES) {
+        return response;
+      }
+
+      LOGGER.debug("{} answered {} - retrying in {} ms", host, code, delay);
+      response.close();
+    }
+  }
+
+  /**
+   * parse the Retry-After header (either seconds or a http date)
+   *
+   * @param retryAfter
+   *          the value of the header
+   * @return the delay in ms or -1 if there was no (valid) header
+   */
+  static long parseRetryAfter(String retryAfter) {
+    if (StringUtils.isBlank(retryAfter)) {
+      return -1;
+    }
+
+    try {
+      return (long) (Double.parseDouble(retryAfter.trim()) * 1000);
+    }
+    catch (NumberFormatException ignored) {
+      // maybe a date
+    }
+
+    Date date = HttpDate.parse(retryAfter.trim());
+    if (date != null) {
+      return Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+    return -1;
+  }
+
+  /**
+   * the state of one host
+   */
+  private static class HostLimit {
+    private final String host;
+
+    private double       limit         = INITIAL_CONCURRENCY;
+    private int          inFlight      = 0;
+    private long         deferredUntil = 0;
+
+    private HostLimit(String host) {
+      this.host = host;
+    }
+
+    private synchronized int getLimit() {
+      return (int) limit;
+    }
+
+    private synchronized void acquire(TokenBucket rateLimit) throws InterruptedException {
+      while (true) {
+        long now = System.currentTimeMillis();
+        long wait;
+
+        if (now < deferredUntil) {
+          wait = deferredUntil - now;
+        }
+        else if (inFlight >= (int) limit) {
+          // wait until a slot has been released
+          wait = 0;
+        }
+        else if (rateLimit == null || (wait = rateLimit.tryAcquire()) == 0) {
+          inFlight++;
+          return;
+        }
+
+        wait(wait);
+      }
+    }
+
+    private synchronized void release() {
+      inFlight--;
+      notifyAll();
+    }
+
+    private synchronized void onSuccess() {
+      // additive increase: about one more slot after a full round of successful requests
+      limit = Math.min(MAX_CONCURRENCY, limit + 1 / limit);
+    }
+
+    private synchronized void onError() {
+      // multiplicative decrease without deferring the host
+      limit = Math.max(1, limit / 2);
+    }
+
+    private synchronized void onBackoff(long delay) {
+      // multiplicative decrease
+      limit = Math.max(1, limit / 2);
+      deferredUntil = Math.max(deferredUntil, System.currentTimeMillis() + delay);
+      LOGGER.debug("backing off {} - {} parallel requests, deferred for {} ms", host, (int) limit, delay);
+    }
+  }
+}
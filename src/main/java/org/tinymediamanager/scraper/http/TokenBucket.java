@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class TokenBucket is used to limit the rate of requests: the bucket holds up to the given burst of permits and is refilled continuously,
+ * so bursts up to the bucket size are possible while the long term rate never exceeds permits per period
+ *
+ * @author Manuel Laggner
+ */
+public class TokenBucket {
+  private final double capacity;
+  private final double refillPerMilli;
+
+  private double       tokens;
+  private long         lastRefill;
+
+  /**
+   * create a new token bucket which allows bursts of the full amount of permits
+   *
+   * @param permits
+   *          the amount of permits per period (and the maximum burst)
+   * @param period
+   *          the period
+   * @param unit
+   *          the time unit of the period
+   */
+  public TokenBucket(int permits, long period, TimeUnit unit) {
+    this(permits, permits, period, unit);
+  }
+
+  /**
+   * create a new token bucket. Within any time span of one period at most burst + permits requests can pass
+   *
+   * @param burst
+   *          the maximum amount of permits which can be taken at once (the size of the bucket)
+   * @param permits
+   *          the amount of permits refilled per period
+   * @param period
+   *          the period
+   * @param unit
+   *          the time unit of the period
+   */
+  public TokenBucket(int burst, int permits, long period, TimeUnit unit) {
+    if (burst <= 0 || permits <= 0 || period <= 0) {
+      throw new IllegalArgumentException("burst, permits and period must be greater than 0");
+    }
+    this.capacity = burst;
+    this.refillPerMilli = permits / (double) unit.toMillis(period);
+    this.tokens = burst;
+    this.lastRefill = System.currentTimeMillis();
+  }
+
+  /**
+   * try to take one permit without waiting
+   *
+   * @return 0 if a permit has been taken; otherwise the time (in ms) until the next permit will be available
+   */
+  public synchronized long tryAcquire() {
+    refill();
+    if (tokens >= 1) {
+      tokens -= 1;
+      return 0;
+    }
+    return Math.max(1, (long) Math.ceil((1 - tokens) / refillPerMilli));
+  }
+
+  /**
+   * take one permit; waits until a permit is available
+   *
+   * @throws InterruptedException
+   *           if the thread has been interrupted while waiting
+   */
+  public void acquire() throws InterruptedException {
+    long wait;
+    while ((wait = tryAcquire()) > 0) {
+      Thread.sleep(wait);
+    }
+  }
+
+  private void refill() {
+    long now = System.currentTimeMillis();
+    if (now > lastRefill) {
+      tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMilli);
+      lastRefill = now;
+    }
+  }
+}
@@ -34,7 +34,8 @@ public class KodiMetadataProvider implements IKodiMetadataProvider {
   public static final String                      ID           = "kodi";
   private static MediaProviderInfo                providerInfo = new MediaProviderInfo(ID, "kodi.tv", "Generic Kodi type scraper");
   // cache one hour
-  protected static final CacheMap<String, String> XML_CACHE    = new CacheMap<>(60, 10);
+  protected static final CacheMap<String, String> XML_CACHE    = new CacheMap<>(60, 10, 2000, 32L * 1024 * 1024,
+      (key, xml) -> 2L * (key.length() + (xml != null ? xml.length() : 0)));
 
   public KodiMetadataProvider() {
     // preload scrapers
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,6 +47,7 @@ import org.tinymediamanager.scraper.entities.MediaType;
 import org.tinymediamanager.scraper.exceptions.MissingIdException;
 import org.tinymediamanager.scraper.exceptions.NothingFoundException;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
+import org.tinymediamanager.scraper.http.TokenBucket;
 import org.tinymediamanager.scraper.interfaces.IMovieImdbMetadataProvider;
 import org.tinymediamanager.scraper.interfaces.IMovieMetadataProvider;
 import org.tinymediamanager.scraper.omdb.entities.MovieEntity;
@@ -68,6 +70,8 @@ public class OmdbMetadataProvider implements IMovieMetadataProvider, IMovieImdbM
   private static final Logger            LOGGER       = LoggerFactory.getLogger(OmdbMetadataProvider.class);
   private static final MediaProviderInfo providerInfo = createMediaProviderInfo();
   private static final String            API_KEY      = ApiKey.decryptApikey("Isuaab2ym89iI1hOtF94nQ==");
+  // our own api key is limited to 10 calls within any 15 seconds: 1 burst + 9 refills per 15 seconds never exceed that
+  private static final TokenBucket       API_KEY_RATE = new TokenBucket(1, 9, 15, TimeUnit.SECONDS);
 
   private Controller                     controller;
 
@@ -141,7 +145,7 @@ public class OmdbMetadataProvider implements IMovieMetadataProvider, IMovieImdbM
     MovieEntity result = null;
     try {
       if (API_KEY.equals(apiKey)) {
-        OmdbConnectionCounter.trackConnections();
+        API_KEY_RATE.acquire();
       }
       result = controller.getScrapeDataById(apiKey, imdbId, "movie", true);
     }
@@ -278,7 +282,7 @@ public class OmdbMetadataProvider implements IMovieMetadataProvider, IMovieImdbM
     try {
       LOGGER.info("========= BEGIN OMDB Scraper Search for Movie: {}", query.getSearchQuery());
       if (API_KEY.equals(apiKey)) {
-        OmdbConnectionCounter.trackConnections();
+        API_KEY_RATE.acquire();
       }
       resultList = controller.getMovieSearchInfo(apiKey, query.getSearchQuery(), "movie", null);
     }
@@ -326,7 +330,7 @@ public class OmdbMetadataProvider implements IMovieMetadataProvider, IMovieImdbM
   // // First scrape the id to get the total number of Seasons
   // try {
   // if(API_KEY.equals(apiKey)){
-  // OmdbConnectionCounter.trackConnections();
+  // API_KEY_RATE.acquire();
   // }
   // LOGGER.debug("Getting TotalSeasons From Scraping");
   // result = controller.getScrapeDataById(apiKey, query.getId(OmdbMetadataProvider.providerinfo.getId()), "series", true);
@@ -17,7 +17,9 @@ package org.tinymediamanager.scraper.pornhub.v2;
 
 import java.util.SortedSet;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.StringUtils;
 import org.tinymediamanager.core.entities.MediaGenres;
 import org.tinymediamanager.core.movie.MovieSearchAndScrapeOptions;
@@ -29,6 +31,7 @@ import org.tinymediamanager.scraper.entities.MediaArtwork.MediaArtworkType;
 import org.tinymediamanager.scraper.exceptions.MissingIdException;
 import org.tinymediamanager.scraper.exceptions.NothingFoundException;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
+import org.tinymediamanager.scraper.http.TmmHttpHostLimiter;
 import org.tinymediamanager.scraper.interfaces.IMovieMetadataProvider;
 
 /**
@@ -42,9 +45,27 @@ public class Ph2MovieMetadataProvider implements IMovieMetadataProvider {
 
     public static final String USE_TMDB_FOR_MOVIES = "useTmdbForMovies";
     public static final String USE_TMDB_FOR_TV_SHOWS = "useTmdbForTvShows";
+    public static final String MAX_PARALLEL_SEARCH_PAGES = "maxParallelSearchPages";
 
     static final MediaProviderInfo PROVIDER_INFO = createMediaProviderInfo();
-    static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(4);
+    // the parallel requests per host are limited by the http client; the pool is bounded anyway to queue the requests instead of parking a thread
+    // per request in the http client. All requests of the worker threads are done on behalf of this provider
+    static final int WORKER_THREADS = 8;
+    static final ExecutorService EXECUTOR_SERVICE = createExecutorService();
+
+    private static ExecutorService createExecutorService() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(() -> {
+                    TmmHttpHostLimiter.getInstance().setCurrentProvider(ID);
+                    runnable.run();
+                }, "pornhub2-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
     private static MediaProviderInfo createMediaProviderInfo() {
         MediaProviderInfo providerInfo = new MediaProviderInfo(ID, "pornhub.com2",
@@ -60,6 +81,7 @@ public class Ph2MovieMetadataProvider implements IMovieMetadataProvider {
         providerInfo.getConfig().addBoolean("scrapeLanguageNames", true);
         providerInfo.getConfig().addBoolean("scrapeKeywordsPage", false);
         providerInfo.getConfig().addInteger("maxKeywordCount", 10);
+        providerInfo.getConfig().addInteger(MAX_PARALLEL_SEARCH_PAGES, 4);
 
         providerInfo.getConfig().load();
 
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.pornhub.v2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.scraper.MediaSearchResult;
+
+/**
+ * The class Ph2PagedSearch fetches all pages of a paged search: the first page is fetched alone to learn the page count, the remaining pages are
+ * prefetched concurrently (up to the given amount of pages at the same time). The pages are always parsed in page order, and the search stops
+ * as soon as enough good results have been found
+ *
+ * @param <T>
+ *     the type of a fetched page
+ * @author Manuel Laggner
+ */
+class Ph2PagedSearch<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Ph2PagedSearch.class);
+
+    /** results with this score (or better) are "good" results */
+    static final float GOOD_SCORE = 0.9f;
+    /** stop fetching pages after this amount of good results */
+    static final int ENOUGH_GOOD_RESULTS = 3;
+
+    interface PageFetcher<T> {
+
+        T fetch(int page) throws Exception;
+    }
+
+    interface PageParser<T> {
+
+        /**
+         * parse the page and add the search results
+         *
+         * @return the page count as found on this page
+         */
+        int parse(T page, SortedSet<MediaSearchResult> results) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final PageFetcher<T> fetcher;
+    private final PageParser<T> parser;
+    private final int maxParallelPages;
+
+    Ph2PagedSearch(ExecutorService executor, int maxParallelPages, PageFetcher<T> fetcher, PageParser<T> parser) {
+        this.executor = executor;
+        this.maxParallelPages = Math.max(1, maxParallelPages);
+        this.fetcher = fetcher;
+        this.parser = parser;
+    }
+
+    /**
+     * fetch and parse all pages into the given result set
+     *
+     * @param results
+     *     the set to add the search results to
+     * @throws Exception
+     *     any exception while fetching/parsing a page
+     */
+    void search(SortedSet<MediaSearchResult> results) throws Exception {
+        // page 1 tells us how many pages there are
+        int maxPage = parser.parse(fetcher.fetch(1), results);
+        if (maxPage <= 1 || hasEnoughResults(results)) {
+            return;
+        }
+
+        // sliding window over the remaining pages: always keep up to maxParallelPages requests running
+        List<Future<T>> pages = new ArrayList<>();
+        int nextPage = 2;
+        try {
+            while (nextPage <= maxPage && pages.size() < maxParallelPages) {
+                pages.add(submit(nextPage++));
+            }
+
+            for (int page = 2; page <= maxPage; page++) {
+                Future<T> future = pages.get(page - 2);
+                T document;
+                try {
+                    document = future.get();
+                }
+                catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+
+                // the page count may grow while paging through the results
+                int pageCount = parser.parse(document, results);
+                if (pageCount > maxPage) {
+                    maxPage = pageCount;
+                }
+
+                if (hasEnoughResults(results)) {
+                    LOGGER.debug("found enough good results after page {} of {}", page, maxPage);
+                    return;
+                }
+
+                // the slot of this page is free again
+                pages.set(page - 2, null);
+                if (nextPage <= maxPage) {
+                    pages.add(submit(nextPage++));
+                }
+            }
+        }
+        finally {
+            // cancel all prefetched pages which are not needed any more
+            for (Future<T> future : pages) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    private Future<T> submit(int page) {
+        return executor.submit(() -> fetcher.fetch(page));
+    }
+
+    private static boolean hasEnoughResults(SortedSet<MediaSearchResult> results) {
+        int good = 0;
+        for (MediaSearchResult result : results) {
+            if (result.getScore() >= GOOD_SCORE && ++good >= ENOUGH_GOOD_RESULTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
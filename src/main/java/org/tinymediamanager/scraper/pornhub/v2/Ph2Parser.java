@@ -64,6 +64,8 @@ import retrofit2.Response;
 import static org.tinymediamanager.core.entities.Person.Type.ACTOR;
 import static org.tinymediamanager.core.entities.Person.Type.PRODUCER;
 import static org.tinymediamanager.core.entities.Person.Type.WRITER;
+import static org.tinymediamanager.scraper.pornhub.v2.Ph2MovieMetadataProvider.EXECUTOR_SERVICE;
+import static org.tinymediamanager.scraper.pornhub.v2.Ph2MovieMetadataProvider.MAX_PARALLEL_SEARCH_PAGES;
 import static org.tinymediamanager.scraper.pornhub.v2.Ph2MovieMetadataProvider.PROVIDER_INFO;
 import static org.tinymediamanager.scraper.pornhub.v2.Ph2MovieMetadataProvider.USE_TMDB_FOR_MOVIES;
 import static org.tinymediamanager.scraper.pornhub.v2.Ph2MovieMetadataProvider.cleanString;
@@ -218,37 +220,30 @@ public abstract class Ph2Parser {
             // 2. try with search string and year
             if (result.isEmpty()) {
                 try {
-                    int page = 1;
-                    int maxPage;
+                    final String term = searchTerm;
+                    int maxParallelPages = PROVIDER_INFO.getConfig().getValueAsInteger(MAX_PARALLEL_SEARCH_PAGES);
 
-                    // get all result pages
-                    do {
+                    // get all result pages - the pages after the first one are prefetched concurrently
+                    Ph2PagedSearch<Document> pagedSearch = new Ph2PagedSearch<>(EXECUTOR_SERVICE, maxParallelPages, page -> {
                         Response<Document> httpResponse = api.searchService()
-                            .videos(searchTerm, page, null, null, null, null, null, null).execute();
+                            .videos(term, page, null, null, null, null, null, null).execute();
                         if (!httpResponse.isSuccessful() || httpResponse.body() == null) {
                             throw new HttpException(httpResponse.code(), httpResponse.message());
                         }
-                        /*for (BaseMovie movie : ListUtils.nullSafe(httpResponse.body().result)) {
-                            verifyMovieTitleLanguage(Locale.forLanguageTag(language), movie);
-                            result.add(morphMovieToSearchResult(movie, options));
-                        }
-
-                        maxPage = httpResponse.body().total_pages;*/
-
-                        Document html = httpResponse.body();
+                        return httpResponse.body();
+                    }, (html, results) -> {
                         // search result
                         Elements searchResult = html.select(searchResultCSSSelector);
                         for (Element e : searchResult) {
                             Movie movie = searchResult2Movie(e);
                             verifyMovieTitleLanguage(Locale.forLanguageTag(language), movie);
-                            result.add(morphMovieToSearchResult(movie, options));
+                            results.add(morphMovieToSearchResult(movie, options));
                         }
 
-                        maxPage = Integer.parseInt(html.selectFirst(".page_next_set").text());
-
-                        page++;
-                    }
-                    while (page <= maxPage);
+                        Element pageCount = html.selectFirst(".page_next_set");
+                        return pageCount != null ? Integer.parseInt(pageCount.text().trim()) : 1;
+                    });
+                    pagedSearch.search(result);
 
                     LOGGER.debug("found {} result with search string", result.size());
                 }
@@ -15,124 +15,261 @@
  */
 package org.tinymediamanager.scraper.util;
 
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * The class CacheMap is used to cache certain key/value pairs.
- * 
+ * The class CacheMap is used to cache certain key/value pairs.<br>
+ * Reads do not block: the entries are held in a {@link ConcurrentHashMap} and only the eviction is serialized. The cache can be bounded by the
+ * amount of entries and by the weight of the entries (e.g. the size in bytes); if one of the limits is exceeded, the least recently used entries
+ * are evicted until the cache is filled to 90% of the limits again. Expired entries are removed by one cleanup thread shared by all cache maps
+ *
  * @param <K>
  *          the key of the map
  * @param <T>
  *          the value
  */
 public class CacheMap<K, T> {
-  protected long                timeToLive;
-  protected Map<K, CacheObject> cachedObjects;
-  protected ReadWriteLock       readWriteLock = new ReentrantReadWriteLock();
+  private static final ScheduledThreadPoolExecutor CLEANUP_EXECUTOR = createCleanupExecutor();
+
+  protected final long                             timeToLive;
+  protected final Map<K, CacheObject>              cachedObjects    = new ConcurrentHashMap<>();
+
+  private final int                                maxEntries;
+  private final long                               maxWeight;
+  private final Weigher<K, T>                      weigher;
+  private final Object                             evictionLock     = new Object();
+
+  private final AtomicLong                         weight           = new AtomicLong(0);
+  private final AtomicLong                         hits             = new AtomicLong(0);
+  private final AtomicLong                         misses           = new AtomicLong(0);
+  private final AtomicLong                         evictions        = new AtomicLong(0);
 
   /**
    * inner class for managing the cache entries
    */
   protected class CacheObject {
-    public long lastAccessed = System.currentTimeMillis();
-    public T    value;
+    public volatile long lastAccessed = System.currentTimeMillis();
+    public final T       value;
+    public final long    weight;
 
-    protected CacheObject(T value) {
+    protected CacheObject(T value, long weight) {
       this.value = value;
+      this.weight = weight;
     }
   }
 
   /**
-   * Constructs a new CacheMap
-   * 
+   * Gets the weight of a cache entry
+   *
+   * @param <K>
+   *          the key of the map
+   * @param <T>
+   *          the value
+   */
+  @FunctionalInterface
+  public interface Weigher<K, T> {
+    /**
+     * get the weight of the given entry (e.g. the size in bytes)
+     *
+     * @param key
+     *          the key of the entry
+     * @param value
+     *          the value of the entry
+     * @return the weight (>= 0)
+     */
+    long weigh(K key, T value);
+  }
+
+  /**
+   * Constructs a new CacheMap without size limits
+   *
    * @param timeToLive
    *          time to live in the map (in seconds)
    * @param cleanupInterval
    *          cache cleaning interval (in seconds)
    */
   public CacheMap(final long timeToLive, final long cleanupInterval) {
+    this(timeToLive, cleanupInterval, 0, 0, null);
+  }
+
+  /**
+   * Constructs a new CacheMap with a maximum amount of entries
+   *
+   * @param timeToLive
+   *          time to live in the map (in seconds)
+   * @param cleanupInterval
+   *          cache cleaning interval (in seconds)
+   * @param maxEntries
+   *          the maximum amount of entries (0 for no limit)
+   */
+  public CacheMap(final long timeToLive, final long cleanupInterval, final int maxEntries) {
+    this(timeToLive, cleanupInterval, maxEntries, 0, null);
+  }
+
+  /**
+   * Constructs a new CacheMap with a maximum amount of entries and a maximum weight
+   *
+   * @param timeToLive
+   *          time to live in the map (in seconds)
+   * @param cleanupInterval
+   *          cache cleaning interval (in seconds)
+   * @param maxEntries
+   *          the maximum amount of entries (0 for no limit)
+   * @param maxWeight
+   *          the maximum weight of all entries (0 for no limit)
+   * @param weigher
+   *          the weigher for the entries (needed if there is a maximum weight)
+   */
+  public CacheMap(final long timeToLive, final long cleanupInterval, final int maxEntries, final long maxWeight, final Weigher<K, T> weigher) {
     this.timeToLive = timeToLive;
-    this.cachedObjects = new HashMap<>();
+    this.maxEntries = maxEntries;
+    this.maxWeight = weigher != null ? maxWeight : 0;
+    this.weigher = weigher;
 
-    // the thread for cleanup
+    // the (shared) thread for cleanup
     if (timeToLive > 0 && cleanupInterval > 0) {
-      Timer timer = new Timer(true);
-      timer.schedule(new TimerTask() {
-        @Override
-        public void run() {
-          cleanup();
-        }
-      }, cleanupInterval * 1000, cleanupInterval * 1000);
+      scheduleCleanup(this, cleanupInterval);
     }
   }
 
+  private static ScheduledThreadPoolExecutor createCleanupExecutor() {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "cache-cleanup");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
+  /*
+   * the cleanup task only holds a weak reference, so the cache map can be garbage collected
+   */
+  private static void scheduleCleanup(CacheMap<?, ?> cacheMap, long cleanupInterval) {
+    WeakReference<CacheMap<?, ?>> reference = new WeakReference<>(cacheMap);
+    ScheduledFuture<?>[] future = new ScheduledFuture<?>[1];
+    future[0] = CLEANUP_EXECUTOR.scheduleWithFixedDelay(() -> {
+      CacheMap<?, ?> map = reference.get();
+      if (map != null) {
+        map.cleanup();
+      }
+      else if (future[0] != null) {
+        future[0].cancel(false);
+      }
+    }, cleanupInterval, cleanupInterval, TimeUnit.SECONDS);
+  }
+
   /**
    * Put a new object to the map
-   * 
+   *
    * @param key
    *          the key of the entry
    * @param value
    *          the value of the entry
    */
   public void put(K key, T value) {
-    readWriteLock.writeLock().lock();
-    cachedObjects.put(key, new CacheObject(value));
-    readWriteLock.writeLock().unlock();
+    long entryWeight = weigher != null ? Math.max(0, weigher.weigh(key, value)) : 0;
+    if (maxWeight > 0 && entryWeight > maxWeight) {
+      // would evict the whole cache
+      remove(key);
+      return;
+    }
+
+    CacheObject old = cachedObjects.put(key, new CacheObject(value, entryWeight));
+    weight.addAndGet(entryWeight - (old != null ? old.weight : 0));
+
+    if (isOverLimit(1)) {
+      evict();
+    }
   }
 
   /**
    * Get the specified object from the map (or null if no object is found)
-   * 
+   *
    * @param key
    *          the key of the entry to get
    * @return the entry (if found) or null
    */
   public T get(K key) {
-    readWriteLock.readLock().lock();
     CacheObject c = cachedObjects.get(key);
-    readWriteLock.readLock().unlock();
+
+    // expired, but not cleaned up yet
+    if (c != null && timeToLive > 0 && System.currentTimeMillis() > (timeToLive * 1000 + c.lastAccessed)) {
+      c = null;
+    }
 
     if (c == null) {
+      misses.incrementAndGet();
       return null;
     }
     else {
       c.lastAccessed = System.currentTimeMillis();
+      hits.incrementAndGet();
       return c.value;
     }
   }
 
+  /**
+   * Get a snapshot of all keys in the map
+   *
+   * @return a copy of the key set
+   */
   public Set<K> keySet() {
-    return cachedObjects.keySet();
+    return new HashSet<>(cachedObjects.keySet());
   }
 
   /**
    * Removes the specified object from the map
-   * 
+   *
    * @param key
    *          the key of the entry
    */
   public void remove(K key) {
-    readWriteLock.writeLock().lock();
-    cachedObjects.remove(key);
-    readWriteLock.writeLock().unlock();
+    CacheObject old = cachedObjects.remove(key);
+    if (old != null) {
+      weight.addAndGet(-old.weight);
+    }
   }
 
   /**
    * Get the actual size of the map
-   * 
+   *
    * @return the actual size of the map
    */
   public int size() {
-    readWriteLock.readLock().lock();
-    int size = cachedObjects.size();
-    readWriteLock.readLock().unlock();
-    return size;
+    return cachedObjects.size();
+  }
+
+  /**
+   * Get the actual weight of all entries in the map
+   *
+   * @return the weight of all entries
+   */
+  public long weight() {
+    return weight.get();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
   }
 
   /**
@@ -144,15 +281,55 @@ public class CacheMap<K, T> {
 
   /**
    * Cleanup the map checking the time to live for each entry or force cleaning
-   * 
+   *
    * @param force
    *          force cleanup
    */
   public void cleanup(boolean force) {
     long now = System.currentTimeMillis();
 
-    readWriteLock.writeLock().lock();
-    cachedObjects.entrySet().removeIf(entry -> (now > (timeToLive * 1000 + entry.getValue().lastAccessed)) || force);
-    readWriteLock.writeLock().unlock();
+    for (Map.Entry<K, CacheObject> entry : cachedObjects.entrySet()) {
+      CacheObject c = entry.getValue();
+      if (force || now > (timeToLive * 1000 + c.lastAccessed)) {
+        // only remove the entry if it has not been replaced in the meantime
+        if (cachedObjects.remove(entry.getKey(), c)) {
+          weight.addAndGet(-c.weight);
+        }
+      }
+    }
+  }
+
+  private boolean isOverLimit(double factor) {
+    return (maxEntries > 0 && cachedObjects.size() > maxEntries * factor) || (maxWeight > 0 && weight.get() > maxWeight * factor);
+  }
+
+  /*
+   * evict the least recently used entries until the cache is filled to 90% of its limits
+   */
+  private void evict() {
+    synchronized (evictionLock) {
+      // another thread may have already evicted
+      if (!isOverLimit(1)) {
+        return;
+      }
+
+      // take a snapshot of the access times - they may change while sorting
+      List<Pair<Long, Map.Entry<K, CacheObject>>> entries = new ArrayList<>(cachedObjects.size());
+      for (Map.Entry<K, CacheObject> entry : cachedObjects.entrySet()) {
+        entries.add(new Pair<>(entry.getValue().lastAccessed, entry));
+      }
+      entries.sort(Comparator.comparing(Pair::first));
+
+      for (Pair<Long, Map.Entry<K, CacheObject>> pair : entries) {
+        if (!isOverLimit(0.9)) {
+          break;
+        }
+        CacheObject c = pair.second().getValue();
+        if (cachedObjects.remove(pair.second().getKey(), c)) {
+          weight.addAndGet(-c.weight);
+          evictions.incrementAndGet();
+        }
+      }
+    }
   }
 }
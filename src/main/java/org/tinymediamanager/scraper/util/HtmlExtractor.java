@@ -0,0 +1,431 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * The class HtmlExtractor is used to extract only some elements out of a (huge) HTML page: the page is read as a stream, only the elements matching
+ * the given selectors are cut out (along with their children) and parsed into a small {@link Document}. Reading stops as soon as every selector
+ * has been matched once, so neither the whole page is read nor the full DOM is built.<br>
+ * Supported are simple compound selectors like <code>div</code>, <code>#id</code>, <code>.class</code>, <code>[attr]</code>,
+ * <code>[attr=value]</code> and combinations of them (e.g. <code>meta[property=og:title]</code>); every selector matches the first element only
+ * (like <code>selectFirst()</code>). Elements inside a matched element can be selected in the resulting document as usual. The end of an extracted
+ * element is found by its end tag, so elements with optional end tags (like <code>li</code> or <code>p</code>) should not be used as selectors
+ *
+ * @author Manuel Laggner
+ */
+public class HtmlExtractor {
+  private static final Pattern       SELECTOR_PART = Pattern
+      .compile("#([\\w-]+)|\\.([\\w-]+)|\\[\\s*([^\\s=\\]]+)\\s*(?:=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\]]*?)))?\\s*]");
+  private static final Pattern       ATTRIBUTE     = Pattern.compile("([^\\s=/>\"']+)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]+)))?");
+  private static final Set<String>   VOID_ELEMENTS = new HashSet<>(
+      Arrays.asList("area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr"));
+  private static final int           CHUNK_SIZE    = 8192;
+
+  private final List<SimpleSelector> selectors;
+
+  /**
+   * create a new extractor for the given selectors
+   *
+   * @param selectors
+   *          the simple (compound) selectors of the elements to extract
+   */
+  public HtmlExtractor(String... selectors) {
+    this.selectors = new ArrayList<>();
+    for (String selector : selectors) {
+      this.selectors.add(new SimpleSelector(selector));
+    }
+  }
+
+  /**
+   * extract the elements out of the given stream. The stream is not closed
+   *
+   * @param is
+   *          the stream of the HTML page
+   * @param charset
+   *          the charset of the page
+   * @param baseUri
+   *          the base uri for resolving relative urls
+   * @return a document containing only the extracted elements
+   * @throws IOException
+   *           any exception while reading the stream
+   */
+  public Document extract(InputStream is, Charset charset, String baseUri) throws IOException {
+    return extract(new InputStreamReader(is, charset), baseUri);
+  }
+
+  /**
+   * extract the elements out of the given reader. The reader is not closed
+   *
+   * @param reader
+   *          the reader of the HTML page
+   * @param baseUri
+   *          the base uri for resolving relative urls
+   * @return a document containing only the extracted elements
+   * @throws IOException
+   *           any exception while reading
+   */
+  public Document extract(Reader reader, String baseUri) throws IOException {
+    return Jsoup.parse(new Scanner(reader).scan(), baseUri);
+  }
+
+  /**
+   * the scanner walks through the tags of the page and cuts out the matching elements
+   */
+  private class Scanner {
+    private final Reader        reader;
+    private final StringBuilder buffer    = new StringBuilder();
+    private final StringBuilder extracted = new StringBuilder();
+    private final boolean[]     satisfied = new boolean[selectors.size()];
+    private int                 remaining = selectors.size();
+    private int                 pos       = 0;
+    private boolean             eof       = false;
+
+    private Scanner(Reader reader) {
+      this.reader = reader;
+    }
+
+    private String scan() throws IOException {
+      while (remaining > 0) {
+        int tagStart = indexOf("<", pos);
+        if (tagStart < 0) {
+          break;
+        }
+
+        Tag tag = readTag(tagStart);
+        if (tag == null) {
+          break;
+        }
+
+        if (!tag.closing && matchAny(tag)) {
+          int end = tag.end;
+          if (!tag.selfClosing) {
+            end = findElementEnd(tag);
+          }
+          extracted.append(buffer, tagStart, end).append('\n');
+          pos = end;
+        }
+        else {
+          pos = skipRawText(tag);
+        }
+
+        // everything before the position is not needed any more
+        if (pos > CHUNK_SIZE) {
+          buffer.delete(0, pos);
+          pos = 0;
+        }
+      }
+
+      return extracted.toString();
+    }
+
+    private boolean matchAny(Tag tag) {
+      boolean matched = false;
+      for (int i = 0; i < selectors.size(); i++) {
+        if (!satisfied[i] && selectors.get(i).matches(tag)) {
+          satisfied[i] = true;
+          remaining--;
+          matched = true;
+        }
+      }
+      return matched;
+    }
+
+    /*
+     * find the end of the element starting with the given tag; tags inside are checked against the remaining selectors too
+     */
+    private int findElementEnd(Tag start) throws IOException {
+      int depth = 1;
+      int p = skipRawText(start);
+
+      while (true) {
+        int tagStart = indexOf("<", p);
+        if (tagStart < 0) {
+          return buffer.length();
+        }
+        Tag tag = readTag(tagStart);
+        if (tag == null) {
+          return buffer.length();
+        }
+        p = tag.end;
+
+        if (tag.name.equals(start.name) && !tag.name.isEmpty()) {
+          if (tag.closing) {
+            depth--;
+          }
+          else if (!tag.selfClosing) {
+            depth++;
+          }
+          if (depth == 0) {
+            return tag.end;
+          }
+        }
+        else if (!tag.closing) {
+          // already contained in the extracted element
+          matchAny(tag);
+          p = skipRawText(tag);
+        }
+      }
+    }
+
+    /*
+     * script and style contents may contain anything which looks like a tag - get the position after the contents
+     */
+    private int skipRawText(Tag tag) throws IOException {
+      if (tag.closing || tag.selfClosing || !("script".equals(tag.name) || "style".equals(tag.name))) {
+        return tag.end;
+      }
+      int end = indexOfIgnoreCase("</" + tag.name, tag.end);
+      return end < 0 ? buffer.length() : end;
+    }
+
+    /*
+     * read the tag starting at the given position (which points to a '<')
+     */
+    private Tag readTag(int tagStart) throws IOException {
+      // comments and doctype/processing instructions
+      if (startsWith("<!--", tagStart)) {
+        int end = indexOf("-->", tagStart + 4);
+        return end < 0 ? null : Tag.other(end + 3);
+      }
+      ensure(tagStart + 2);
+      if (tagStart + 1 >= buffer.length()) {
+        return null;
+      }
+      char next = buffer.charAt(tagStart + 1);
+      if (next == '!' || next == '?') {
+        int end = indexOf(">", tagStart);
+        return end < 0 ? null : Tag.other(end + 1);
+      }
+
+      boolean closing = next == '/';
+      int nameStart = closing ? tagStart + 2 : tagStart + 1;
+      ensure(nameStart + 1);
+      if (nameStart >= buffer.length() || !Character.isLetter(buffer.charAt(nameStart))) {
+        // just a '<' in the text
+        return Tag.other(tagStart + 1);
+      }
+
+      // find the end of the tag - '>' in quoted attribute values does not count
+      int p = nameStart;
+      char quote = 0;
+      while (true) {
+        if (p >= buffer.length() && !readChunk()) {
+          return null;
+        }
+        char c = buffer.charAt(p);
+        if (quote != 0) {
+          if (c == quote) {
+            quote = 0;
+          }
+        }
+        else if (c == '"' || c == '\'') {
+          quote = c;
+        }
+        else if (c == '>') {
+          break;
+        }
+        p++;
+      }
+
+      int nameEnd = nameStart;
+      while (nameEnd < p && !Character.isWhitespace(buffer.charAt(nameEnd)) && buffer.charAt(nameEnd) != '/' && buffer.charAt(nameEnd) != '>') {
+        nameEnd++;
+      }
+
+      Tag tag = new Tag();
+      tag.name = buffer.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+      tag.closing = closing;
+      tag.end = p + 1;
+      tag.selfClosing = !closing && (VOID_ELEMENTS.contains(tag.name) || buffer.charAt(p - 1) == '/');
+      if (!closing) {
+        tag.attributeText = buffer.substring(nameEnd, p);
+      }
+      return tag;
+    }
+
+    private boolean startsWith(String prefix, int from) throws IOException {
+      ensure(from + prefix.length());
+      return buffer.length() >= from + prefix.length() && buffer.substring(from, from + prefix.length()).equals(prefix);
+    }
+
+    private int indexOf(String str, int from) throws IOException {
+      while (true) {
+        int index = buffer.indexOf(str, from);
+        if (index >= 0 || !readChunk()) {
+          return index;
+        }
+        // the match may start in the previous chunk
+        from = Math.max(from, buffer.length() - CHUNK_SIZE - str.length());
+      }
+    }
+
+    private int indexOfIgnoreCase(String str, int from) throws IOException {
+      Pattern pattern = Pattern.compile(Pattern.quote(str), Pattern.CASE_INSENSITIVE);
+      while (true) {
+        Matcher matcher = pattern.matcher(buffer);
+        if (matcher.find(from)) {
+          return matcher.start();
+        }
+        if (!readChunk()) {
+          return -1;
+        }
+        from = Math.max(from, buffer.length() - CHUNK_SIZE - str.length());
+      }
+    }
+
+    private void ensure(int length) throws IOException {
+      while (buffer.length() < length && readChunk()) {
+        // read on
+      }
+    }
+
+    private boolean readChunk() throws IOException {
+      if (eof) {
+        return false;
+      }
+      char[] chunk = new char[CHUNK_SIZE];
+      int read = reader.read(chunk);
+      if (read < 0) {
+        eof = true;
+        return false;
+      }
+      buffer.append(chunk, 0, read);
+      return true;
+    }
+  }
+
+  /**
+   * a start or end tag in the page
+   */
+  private static class Tag {
+    private String              name          = "";
+    private boolean             closing       = true;
+    private boolean             selfClosing   = true;
+    private int                 end;
+    private String              attributeText = "";
+    private Map<String, String> attributes;
+
+    private static Tag other(int end) {
+      Tag tag = new Tag();
+      tag.end = end;
+      return tag;
+    }
+
+    private Map<String, String> getAttributes() {
+      if (attributes == null) {
+        attributes = new HashMap<>();
+        Matcher matcher = ATTRIBUTE.matcher(attributeText);
+        while (matcher.find()) {
+          String value = matcher.group(2) != null ? matcher.group(2) : matcher.group(3) != null ? matcher.group(3) : matcher.group(4);
+          attributes.putIfAbsent(matcher.group(1).toLowerCase(Locale.ROOT), value != null ? value : "");
+        }
+      }
+      return attributes;
+    }
+  }
+
+  /**
+   * a simple compound selector: tag name, id, classes and attributes
+   */
+  private static class SimpleSelector {
+    private final String              tagName;
+    private final List<String>        classes    = new ArrayList<>();
+    private final Map<String, String> attributes = new HashMap<>();
+    private String                    hint       = null;
+
+    private SimpleSelector(String selector) {
+      String trimmed = selector.trim();
+      int index = 0;
+      while (index < trimmed.length() && (Character.isLetterOrDigit(trimmed.charAt(index)) || trimmed.charAt(index) == '-')) {
+        index++;
+      }
+      tagName = index > 0 ? trimmed.substring(0, index).toLowerCase(Locale.ROOT) : null;
+
+      Matcher matcher = SELECTOR_PART.matcher(trimmed);
+      while (index < trimmed.length()) {
+        if (!matcher.find(index) || matcher.start() != index) {
+          throw new IllegalArgumentException("unsupported selector: " + selector);
+        }
+        if (matcher.group(1) != null) {
+          attributes.put("id", matcher.group(1));
+        }
+        else if (matcher.group(2) != null) {
+          classes.add(matcher.group(2));
+        }
+        else {
+          String value = matcher.group(4) != null ? matcher.group(4) : matcher.group(5) != null ? matcher.group(5) : matcher.group(6);
+          // null means: attribute must be present
+          attributes.put(matcher.group(3).toLowerCase(Locale.ROOT), value != null ? value.trim() : null);
+        }
+        index = matcher.end();
+      }
+
+      // a text which must be contained in the attributes - to avoid parsing the attributes of every tag
+      for (String value : attributes.values()) {
+        if (value != null && !value.isEmpty()) {
+          hint = value;
+        }
+      }
+      if (hint == null && !classes.isEmpty()) {
+        hint = classes.get(0);
+      }
+    }
+
+    private boolean matches(Tag tag) {
+      if (tagName != null && !tagName.equals(tag.name)) {
+        return false;
+      }
+      if (classes.isEmpty() && attributes.isEmpty()) {
+        return true;
+      }
+      if (hint != null && !tag.attributeText.contains(hint)) {
+        return false;
+      }
+
+      Map<String, String> tagAttributes = tag.getAttributes();
+      for (Map.Entry<String, String> entry : attributes.entrySet()) {
+        String value = tagAttributes.get(entry.getKey());
+        if (value == null || (entry.getValue() != null && !entry.getValue().equals(value))) {
+          return false;
+        }
+      }
+      if (!classes.isEmpty()) {
+        Set<String> tagClasses = new HashSet<>(Arrays.asList(tagAttributes.getOrDefault("class", "").trim().split("\\s+")));
+        return tagClasses.containsAll(classes);
+      }
+      return true;
+    }
+  }
+}
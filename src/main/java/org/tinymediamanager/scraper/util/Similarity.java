@@ -62,7 +62,7 @@ public class Similarity {
    *          the str
    * @return an ArrayList of 2-character Strings.
    */
-  private static ArrayList<String> wordLetterPairs(String str) {
+  public static ArrayList<String> wordLetterPairs(String str) {
 
     ArrayList<String> allPairs = new ArrayList<>();
     // Tokenize the string and put the tokens/words into an array
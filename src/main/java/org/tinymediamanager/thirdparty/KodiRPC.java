@@ -21,8 +21,11 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +71,7 @@ public class KodiRPC {
   private static final Logger          LOGGER                   = LoggerFactory.getLogger(KodiRPC.class);
   private static KodiRPC               instance;
   private static JavaConnectionManager cm                       = new JavaConnectionManager();
+  private static final int             EPISODE_FETCH_THREADS    = 4;
 
   private String                       kodiVersion              = "";
   private ArrayList<SplitUri>          videodatasources         = new ArrayList<>();
@@ -199,7 +203,7 @@ public class KodiRPC {
     if (call.getResults() != null && !call.getResults().isEmpty()) {
 
       // cache our video files/paths as SplitUris
-      Map<SplitUri, UUID> tmmFiles = new HashMap<>();
+      SplitUriIndex<UUID> tmmFiles = new SplitUriIndex<>();
       for (Movie movie : MovieList.getInstance().getMovies()) {
         MediaFile main = movie.getMainVideoFile();
         if (movie.isDisc()) {
@@ -225,13 +229,9 @@ public class KodiRPC {
             String ds = detectDatasource(s);
             SplitUri sp = new SplitUri(ds, s, res.label, cm.getHostConfig().getAddress()); // generate clean object
 
-            for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-              SplitUri tmmsp = entry.getKey();
-              UUID uuid = entry.getValue();
-              if (sp.equals(tmmsp)) {
-                moviemappings.put(uuid, res.movieid);
-                break;
-              }
+            UUID uuid = tmmFiles.get(sp);
+            if (uuid != null) {
+              moviemappings.put(uuid, res.movieid);
             }
           }
         }
@@ -239,25 +239,20 @@ public class KodiRPC {
           String ds = detectDatasource(res.file);
           SplitUri kodi = new SplitUri(ds, res.file, res.label, cm.getHostConfig().getAddress()); // generate clean object
 
-          for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-            SplitUri tmm = entry.getKey();
-            UUID uuid = entry.getValue();
-            if (kodi.equals(tmm)) {
-              moviemappings.put(uuid, res.movieid);
-              break;
-            }
+          UUID uuid = tmmFiles.get(kodi);
+          if (uuid != null) {
+            moviemappings.put(uuid, res.movieid);
           }
         }
       }
       LOGGER.debug("mapped {} items", moviemappings.size());
 
       // intersect
-      for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-        if (!moviemappings.containsKey(entry.getValue())) {
-          LOGGER.warn("could not map: {}", entry.getKey());
+      for (SplitUriIndex.Entry<UUID> entry : tmmFiles.getEntries()) {
+        if (!moviemappings.containsKey(entry.value)) {
+          LOGGER.warn("could not map: {}", entry.uri);
         }
       }
-      tmmFiles.clear();
     }
   }
 
@@ -270,7 +265,7 @@ public class KodiRPC {
     if (call.getResults() != null && !call.getResults().isEmpty()) {
 
       // cache our video files/paths as SplitUris
-      Map<SplitUri, UUID> tmmFiles = new HashMap<>();
+      SplitUriIndex<UUID> tmmFiles = new SplitUriIndex<>();
       for (TvShow show : TvShowList.getInstance().getTvShows()) {
         tmmFiles.put(new SplitUri(show.getDataSource(), show.getPathNIO().toString()), show.getDbId()); // folder
 
@@ -290,52 +285,84 @@ public class KodiRPC {
       }
       LOGGER.debug("TMM {} items", tmmFiles.size());
 
-      // iterate over all Kodi shows
-      for (TVShowDetail show : call.getResults()) {
-        String ds = detectDatasource(show.file);
-        SplitUri sp = new SplitUri(ds, show.file, show.label, cm.getHostConfig().getAddress()); // generate clean object
-
-        for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-          SplitUri tmmsp = entry.getKey();
-          UUID uuid = entry.getValue();
-          if (sp.equals(tmmsp)) {
-            tvshowmappings.put(uuid, show.tvshowid);
-            break;
-          }
+      // get the episodes of all Kodi shows concurrently (one call per show)
+      List<TVShowDetail> shows = call.getResults();
+      List<Future<List<EpisodeDetail>>> episodes = new ArrayList<>(shows.size());
+      ExecutorService executor = Executors.newFixedThreadPool(EPISODE_FETCH_THREADS, r -> {
+        Thread thread = new Thread(r, "kodi-episodes");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+      try {
+        for (TVShowDetail show : shows) {
+          episodes.add(executor.submit(() -> getEpisodes(show.tvshowid)));
         }
 
-        // inner call to get all episodes
-        final VideoLibrary.GetEpisodes epCall = new VideoLibrary.GetEpisodes(show.tvshowid, EpisodeFields.FILE);
-        send(epCall);
-        if (epCall.getResults() != null && !epCall.getResults().isEmpty()) {
+        // iterate over all Kodi shows
+        for (int i = 0; i < shows.size(); i++) {
+          TVShowDetail show = shows.get(i);
+          String ds = detectDatasource(show.file);
+          SplitUri sp = new SplitUri(ds, show.file, show.label, cm.getHostConfig().getAddress()); // generate clean object
+
+          UUID showUuid = tmmFiles.get(sp);
+          if (showUuid != null) {
+            tvshowmappings.put(showUuid, show.tvshowid);
+          }
+
+          List<EpisodeDetail> showEpisodes;
+          try {
+            showEpisodes = episodes.get(i).get();
+          }
+          catch (ExecutionException e) {
+            LOGGER.error("Error getting episodes of '{}': {}", show.label, e.getCause().getMessage());
+            continue;
+          }
 
-          for (EpisodeDetail ep : epCall.getResults()) {
+          for (EpisodeDetail ep : showEpisodes) {
             SplitUri spEp = new SplitUri(ds, ep.file, ep.label, cm.getHostConfig().getAddress()); // generate clean object
 
-            for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-              SplitUri tmmsp = entry.getKey();
-              UUID uuid = entry.getValue();
-              if (spEp.equals(tmmsp)) {
-                tvshowmappings.put(uuid, ep.episodeid);
-                break;
-              }
+            UUID uuid = tmmFiles.get(spEp);
+            if (uuid != null) {
+              tvshowmappings.put(uuid, ep.episodeid);
             }
           }
         }
-
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      finally {
+        executor.shutdownNow();
       }
       LOGGER.debug("mapped {} items", tvshowmappings.size());
 
       // intersect
-      for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-        if (!tvshowmappings.containsKey(entry.getValue())) {
-          LOGGER.warn("could not map: {}", entry.getKey());
+      for (SplitUriIndex.Entry<UUID> entry : tmmFiles.getEntries()) {
+        if (!tvshowmappings.containsKey(entry.value)) {
+          LOGGER.warn("could not map: {}", entry.uri);
         }
       }
-      tmmFiles.clear();
     }
   }
 
+  /**
+   * get all episodes of the given Kodi show
+   *
+   * @param tvshowid
+   *          the Kodi ID of the show
+   * @return a list of all episodes (never null)
+   */
+  private List<EpisodeDetail> getEpisodes(Integer tvshowid) {
+    final VideoLibrary.GetEpisodes epCall = new VideoLibrary.GetEpisodes(tvshowid, EpisodeFields.FILE);
+    send(epCall);
+    if (epCall.getResults() == null) {
+      return Collections.emptyList();
+    }
+    return epCall.getResults();
+  }
+
   public void refreshFromNfo(List<MediaEntity> entities) {
     for (MediaEntity entity : entities) {
       refreshFromNfo(entity);
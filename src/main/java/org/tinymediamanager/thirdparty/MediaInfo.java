@@ -642,7 +642,7 @@ public class MediaInfo implements Closeable {
    *           Signals that an I/O exception has occurred.
    */
   public static Map<StreamKind, List<Map<String, String>>> snapshot(Path file) throws IOException {
-    try (MediaInfo mi = new MediaInfo()) {
+    try (MediaInfo mi = MediaInfoPool.acquire()) {
       if (mi.open(file)) {
         return mi.snapshot();
       }
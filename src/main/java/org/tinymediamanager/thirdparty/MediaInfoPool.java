@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.thirdparty;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class MediaInfoPool. A pool of native libmediainfo handles: every worker thread acquires its own handle which is returned to the pool when
+ * the {@link MediaInfo} gets closed. This avoids creating/deleting a native handle for every file and makes it possible to run several
+ * libmediainfo calls concurrently (one handle is never used by two threads at the same time)
+ *
+ * @author Manuel Laggner
+ */
+public class MediaInfoPool {
+  private static final Logger                 LOGGER           = LoggerFactory.getLogger(MediaInfoPool.class);
+  private static final int                    MAX_IDLE_HANDLES = 16;
+
+  private static final Deque<PooledMediaInfo> IDLE             = new ConcurrentLinkedDeque<>();
+  private static final AtomicInteger          IDLE_COUNT       = new AtomicInteger(0);
+
+  private MediaInfoPool() {
+    // private constructor for utility classes
+  }
+
+  /**
+   * acquire a {@link MediaInfo} handle from the pool. The handle <b>must</b> be closed after usage (preferable via try-with-resources) to give it
+   * back to the pool
+   *
+   * @return an exclusive {@link MediaInfo} handle
+   */
+  public static MediaInfo acquire() {
+    PooledMediaInfo mediaInfo = IDLE.pollFirst();
+    if (mediaInfo != null) {
+      IDLE_COUNT.decrementAndGet();
+      return mediaInfo;
+    }
+    return new PooledMediaInfo();
+  }
+
+  /**
+   * delete all idle native handles
+   */
+  public static void clear() {
+    PooledMediaInfo mediaInfo;
+    while ((mediaInfo = IDLE.pollFirst()) != null) {
+      IDLE_COUNT.decrementAndGet();
+      dispose(mediaInfo);
+    }
+  }
+
+  private static void release(PooledMediaInfo mediaInfo) {
+    if (IDLE_COUNT.incrementAndGet() <= MAX_IDLE_HANDLES) {
+      IDLE.offerFirst(mediaInfo);
+    }
+    else {
+      // enough idle handles in the pool
+      IDLE_COUNT.decrementAndGet();
+      dispose(mediaInfo);
+    }
+  }
+
+  private static void dispose(MediaInfo mediaInfo) {
+    try {
+      if (mediaInfo.isLoaded()) {
+        mediaInfo.dispose();
+      }
+    }
+    catch (Exception | Error e) {
+      LOGGER.debug("could not dispose mediainfo handle - {}", e.getMessage());
+    }
+  }
+
+  /**
+   * a {@link MediaInfo} which returns its native handle to the pool on close
+   */
+  private static class PooledMediaInfo extends MediaInfo {
+    @Override
+    public void close() {
+      try {
+        super.close();
+      }
+      catch (Exception | Error e) {
+        // do not re-use a handle in an unknown state
+        MediaInfoPool.dispose(this);
+        return;
+      }
+      MediaInfoPool.release(this);
+    }
+  }
+}
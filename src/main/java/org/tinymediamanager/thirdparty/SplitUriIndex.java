@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tinymediamanager.thirdparty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The class SplitUriIndex is used to find the value for a {@link SplitUri} with a few map lookups rather than comparing it with every known
+ * {@link SplitUri}.<br>
+ * Two {@link SplitUri}s can only be equal if they point to the same file (relative to the datasource), so the entries are indexed by that path and
+ * only the entries with the same path are compared with {@link SplitUri#equals(Object)}. If no entry has this path (e.g. the datasource could not
+ * be detected), the entries are looked up by the filename and its parent folder - but only if exactly one entry has this name
+ *
+ * @param <V>
+ *          the type of the values
+ * @author Manuel Laggner
+ */
+class SplitUriIndex<V> {
+  private final Map<String, List<Entry<V>>> byFile     = new HashMap<>();
+  private final Map<String, List<Entry<V>>> byFilename = new HashMap<>();
+  private final List<Entry<V>>              entries    = new ArrayList<>();
+
+  /**
+   * add the given {@link SplitUri} with its value
+   *
+   * @param uri
+   *          the {@link SplitUri}
+   * @param value
+   *          the value
+   */
+  void put(SplitUri uri, V value) {
+    Entry<V> entry = new Entry<>(uri, value);
+    entries.add(entry);
+    byFile.computeIfAbsent(normalize(uri.file), k -> new ArrayList<>(1)).add(entry);
+    byFilename.computeIfAbsent(filenameKey(uri.file), k -> new ArrayList<>(1)).add(entry);
+  }
+
+  /**
+   * get the value of the (first) {@link SplitUri} which equals the given one
+   *
+   * @param uri
+   *          the {@link SplitUri} to search for
+   * @return the value or null
+   */
+  V get(SplitUri uri) {
+    List<Entry<V>> sameFile = byFile.get(normalize(uri.file));
+    if (sameFile != null) {
+      for (Entry<V> entry : sameFile) {
+        if (uri.equals(entry.uri)) {
+          return entry.value;
+        }
+      }
+      // the file is known, but on another host/datasource
+      return null;
+    }
+
+    // fallback: the filename (with its folder) is unique
+    List<Entry<V>> sameName = byFilename.get(filenameKey(uri.file));
+    if (sameName != null && sameName.size() == 1) {
+      return sameName.get(0).value;
+    }
+    return null;
+  }
+
+  /**
+   * get all indexed {@link SplitUri}s with their values (in the order they have been added)
+   *
+   * @return all entries
+   */
+  List<Entry<V>> getEntries() {
+    return entries;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * unify slashes and strip leading/trailing slashes
+   */
+  private static String normalize(String file) {
+    String normalized = file.replace('\\', '/');
+    int start = 0;
+    int end = normalized.length();
+    while (start < end && normalized.charAt(start) == '/') {
+      start++;
+    }
+    while (end > start && normalized.charAt(end - 1) == '/') {
+      end--;
+    }
+    return normalized.substring(start, end);
+  }
+
+  /**
+   * the filename with its parent folder; for disc structures (VIDEO_TS/BDMV) the folder above is taken too
+   */
+  private static String filenameKey(String file) {
+    String[] parts = normalize(file).split("/");
+    int segments = 2;
+    if (parts.length > 1) {
+      String parent = parts[parts.length - 2].toUpperCase(Locale.ROOT);
+      if ("VIDEO_TS".equals(parent) || "BDMV".equals(parent)) {
+        segments = 3;
+      }
+    }
+
+    StringBuilder key = new StringBuilder();
+    for (int i = Math.max(0, parts.length - segments); i < parts.length; i++) {
+      key.append('/').append(parts[i]);
+    }
+    return key.toString();
+  }
+
+  static class Entry<V> {
+    final SplitUri uri;
+    final V        value;
+
+    private Entry(SplitUri uri, V value) {
+      this.uri = uri;
+      this.value = value;
+    }
+  }
+}
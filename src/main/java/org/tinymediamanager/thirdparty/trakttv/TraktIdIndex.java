@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.thirdparty.trakttv;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.tinymediamanager.core.Constants;
+import org.tinymediamanager.core.entities.MediaEntity;
+
+import com.uwetrottmann.trakt5.entities.MovieIds;
+import com.uwetrottmann.trakt5.entities.ShowIds;
+
+/**
+ * The class TraktIdIndex indexes our movies/TV shows by their imdb/tmdb/tvdb/trakt IDs, so that every Trakt.tv item can be matched with a few
+ * lookups instead of looping over all our items. Additionally it remembers which items have been matched, so the remaining (not yet on Trakt.tv)
+ * items can be taken afterwards
+ *
+ * @param <T>
+ *          the type of the indexed items
+ * @author Manuel Laggner
+ */
+class TraktIdIndex<T extends MediaEntity> {
+  private final List<T>               items;
+  private final Map<Integer, List<T>> traktIds = new HashMap<>();
+  private final Map<String, List<T>>  imdbIds  = new HashMap<>();
+  private final Map<Integer, List<T>> tmdbIds  = new HashMap<>();
+  private final Map<Integer, List<T>> tvdbIds  = new HashMap<>();
+  private final Set<T>                matched  = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  TraktIdIndex(Collection<T> items) {
+    this.items = new ArrayList<>(items);
+    for (T item : this.items) {
+      put(traktIds, item.getIdAsInt(Constants.TRAKT), item);
+      put(imdbIds, item.getIdAsString(Constants.IMDB), item);
+      put(tmdbIds, item.getIdAsInt(Constants.TMDB), item);
+      put(tvdbIds, item.getIdAsInt(Constants.TVDB), item);
+    }
+  }
+
+  private static <K, T> void put(Map<K, List<T>> index, K key, T item) {
+    if (key == null || Integer.valueOf(0).equals(key) || "".equals(key)) {
+      return;
+    }
+    index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(item);
+  }
+
+  /**
+   * get all our items which match the IDs of the given Trakt.tv movie and mark them as matched
+   *
+   * @param ids
+   *          the IDs of the Trakt.tv movie
+   * @return a list of all matching items or an empty list
+   */
+  List<T> match(MovieIds ids) {
+    return match(ids.trakt, ids.imdb, ids.tmdb, null);
+  }
+
+  /**
+   * get all our items which match the IDs of the given Trakt.tv show and mark them as matched
+   *
+   * @param ids
+   *          the IDs of the Trakt.tv show
+   * @return a list of all matching items or an empty list
+   */
+  List<T> match(ShowIds ids) {
+    return match(ids.trakt, ids.imdb, ids.tmdb, ids.tvdb);
+  }
+
+  /**
+   * get all our items which match any of the given IDs and mark them as matched. Pass null for unknown IDs
+   *
+   * @param trakt
+   *          the Trakt.tv ID
+   * @param imdb
+   *          the IMDB ID
+   * @param tmdb
+   *          the TMDB ID
+   * @param tvdb
+   *          the TVDB ID
+   * @return a list of all matching items or an empty list
+   */
+  List<T> match(Integer trakt, String imdb, Integer tmdb, Integer tvdb) {
+    List<T> result = new ArrayList<>(1);
+    collect(result, trakt != null && trakt != 0 ? traktIds.get(trakt) : null);
+    collect(result, StringUtils.isNotEmpty(imdb) ? imdbIds.get(imdb) : null);
+    collect(result, tmdb != null && tmdb != 0 ? tmdbIds.get(tmdb) : null);
+    collect(result, tvdb != null && tvdb != 0 ? tvdbIds.get(tvdb) : null);
+    matched.addAll(result);
+    return result;
+  }
+
+  private static <T> void collect(List<T> result, List<T> found) {
+    if (found == null) {
+      return;
+    }
+    for (T item : found) {
+      // identity - an item may be found by several IDs
+      boolean contained = false;
+      for (T other : result) {
+        if (other == item) {
+          contained = true;
+          break;
+        }
+      }
+      if (!contained) {
+        result.add(item);
+      }
+    }
+  }
+
+  /**
+   * was the given item matched by any Trakt.tv item?
+   *
+   * @param item
+   *          the item to check
+   * @return true/false
+   */
+  boolean isMatched(T item) {
+    return matched.contains(item);
+  }
+
+  /**
+   * get all items which have not been matched by any Trakt.tv item (in the original order)
+   *
+   * @return a list of all unmatched items
+   */
+  List<T> getUnmatched() {
+    List<T> unmatched = new ArrayList<>();
+    for (T item : items) {
+      if (!matched.contains(item)) {
+        unmatched.add(item);
+      }
+    }
+    return unmatched;
+  }
+}
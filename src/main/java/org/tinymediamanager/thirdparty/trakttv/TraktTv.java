@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -60,6 +61,7 @@ import com.uwetrottmann.trakt5.entities.SyncShow;
 import com.uwetrottmann.trakt5.entities.SyncStats;
 
 import okhttp3.OkHttpClient;
+import retrofit2.Call;
 import retrofit2.Response;
 
 /**
@@ -72,10 +74,12 @@ import retrofit2.Response;
  */
 
 public class TraktTv {
-  private static final String  CLIENT_ID = ApiKey
+  private static final String  CLIENT_ID  = ApiKey
       .decryptApikey("Xd0t1yRY+HaxMl3bqILuxIaokXxekrFNj0QszCUsG6aNSbrhOhC2h5PcxDhV7wUXmBdOt9cYlMGNJjLZvKcS3xTRx3zYH7EYb7Mv5hCsMQU=");
-  private static final Logger  LOGGER    = LoggerFactory.getLogger(TraktTv.class);
-  private static final TraktV2 TRAKT     = createTraktApi();
+  private static final Logger  LOGGER     = LoggerFactory.getLogger(TraktTv.class);
+  private static final TraktV2 TRAKT      = createTraktApi();
+  /** max amount of movies/episodes sent to Trakt.tv in one request */
+  static final int             BATCH_SIZE = 500;
   private static TraktTv       instance;
 
   private static TraktV2 createTraktApi() {
@@ -206,39 +210,35 @@ public class TraktTv {
 
     LOGGER.info("You have {} movies in your Trakt.tv collection", traktMovies.size());
 
-    // loop over all movies on trakt
+    // index our movies by their IDs and look up every movie on trakt
+    TraktIdIndex<Movie> index = new TraktIdIndex<>(tmmMovies);
     for (BaseMovie traktMovie : traktMovies) {
-      // loop over TMM movies, and check if IMDBID match
-      for (int i = tmmMovies.size() - 1; i >= 0; i--) {
-        Movie tmmMovie = tmmMovies.get(i);
+      for (Movie tmmMovie : index.match(traktMovie.movie.ids)) {
+        // we have a movie match
 
-        if (matches(tmmMovie, traktMovie.movie.ids)) {
-          // we have a movie match
+        // update missing IDs (we get them for free :)
+        boolean dirty = updateIDs(tmmMovie, traktMovie.movie.ids);
 
-          // update missing IDs (we get them for free :)
-          boolean dirty = updateIDs(tmmMovie, traktMovie.movie.ids);
-
-          if (traktMovie.collected_at != null) {
-            Date collectedAt = DateTimeUtils.toDate(traktMovie.collected_at.toInstant());
-            if (!collectedAt.equals(tmmMovie.getDateAdded()))
-              // always set from trakt, if not matched (Trakt = master)
-              LOGGER.trace("Marking movie '{}' as collected on {} (was {})", tmmMovie.getTitle(), collectedAt, tmmMovie.getDateAddedAsString());
+        if (traktMovie.collected_at != null) {
+          Date collectedAt = DateTimeUtils.toDate(traktMovie.collected_at.toInstant());
+          if (!collectedAt.equals(tmmMovie.getDateAdded())) {
+            // always set from trakt, if not matched (Trakt = master)
+            LOGGER.trace("Marking movie '{}' as collected on {} (was {})", tmmMovie.getTitle(), collectedAt, tmmMovie.getDateAddedAsString());
             tmmMovie.setDateAdded(collectedAt);
             dirty = true;
-
-          }
-
-          if (dirty) {
-            tmmMovie.writeNFO();
-            tmmMovie.saveToDb();
           }
+        }
 
-          // remove it from our list (no need to add)
-          tmmMovies.remove(i);
+        if (dirty) {
+          tmmMovie.writeNFO();
+          tmmMovie.saveToDb();
         }
       }
     }
 
+    // all matched movies are already in the collection (no need to add)
+    tmmMovies = index.getUnmatched();
+
     if (tmmMovies.isEmpty()) {
       LOGGER.info("Already up-to-date - no need to add anything :)");
       return;
@@ -270,20 +270,8 @@ public class TraktTv {
       return;
     }
 
-    try {
-      LOGGER.info("Adding {} movies to Trakt.tv collection", movies.size());
-      SyncItems items = new SyncItems().movies(movies);
-      Response<SyncResponse> response = TRAKT.sync().addItemsToCollection(items).execute();
-      if (!response.isSuccessful()) {
-        LOGGER.error("failed syncing trakt: {}", response.message());
-        return;
-      }
-      LOGGER.info("Trakt add-to-library status:");
-      printStatus(response.body());
-    }
-    catch (Exception e) {
-      LOGGER.error("failed syncing trakt: {}", e.getMessage());
-    }
+    LOGGER.info("Adding {} movies to Trakt.tv collection", movies.size());
+    sendBatches(toMovieBatches(movies), TRAKT.sync()::addItemsToCollection, "add-to-library");
   }
 
   /**
@@ -427,62 +415,53 @@ public class TraktTv {
     }
     LOGGER.info("You have {} movies marked as 'watched' in your Trakt.tv collection", traktMovies.size());
 
-    // loop over all watched movies on trakt
+    // index our movies by their IDs and look up every watched movie on trakt
+    TraktIdIndex<Movie> index = new TraktIdIndex<>(tmmMovies);
     for (BaseMovie traktWatched : traktMovies) {
-      // loop over TMM movies, and check if IMDBID match
-      for (Movie tmmMovie : tmmMovies) {
-        if (matches(tmmMovie, traktWatched.movie.ids)) {
-          // we have a movie match
-
-          // update missing IDs (we get them for free :)
-          boolean dirty = updateIDs(tmmMovie, traktWatched.movie.ids);
-
-          if (!tmmMovie.isWatched()) {
-            // save Trakt watched status
-            LOGGER.info("Marking movie '{}' as watched", tmmMovie.getTitle());
-            tmmMovie.setWatched(true);
-            dirty = true;
-          }
-          if (traktWatched.last_watched_at != null) {
-            Date lastWatchedAt = DateTimeUtils.toDate(traktWatched.last_watched_at.toInstant());
-            if (!lastWatchedAt.equals(tmmMovie.getLastWatched())) {
-              // always set from trakt, if not matched (Trakt = master)
-              LOGGER.trace("Marking movie '{}' as watched on {} (was {})", tmmMovie.getTitle(), lastWatchedAt, tmmMovie.getLastWatched());
-              tmmMovie.setLastWatched(lastWatchedAt);
-              // dirty = true; // we do not write date to NFO. But just mark for syncing back...
-            }
-          }
+      for (Movie tmmMovie : index.match(traktWatched.movie.ids)) {
+        // we have a movie match
+
+        // update missing IDs (we get them for free :)
+        boolean dirty = updateIDs(tmmMovie, traktWatched.movie.ids);
 
-          if (dirty) {
-            tmmMovie.writeNFO();
-            tmmMovie.saveToDb();
+        if (!tmmMovie.isWatched()) {
+          // save Trakt watched status
+          LOGGER.info("Marking movie '{}' as watched", tmmMovie.getTitle());
+          tmmMovie.setWatched(true);
+          dirty = true;
+        }
+        if (traktWatched.last_watched_at != null) {
+          Date lastWatchedAt = DateTimeUtils.toDate(traktWatched.last_watched_at.toInstant());
+          if (!lastWatchedAt.equals(tmmMovie.getLastWatched())) {
+            // always set from trakt, if not matched (Trakt = master)
+            LOGGER.trace("Marking movie '{}' as watched on {} (was {})", tmmMovie.getTitle(), lastWatchedAt, tmmMovie.getLastWatched());
+            tmmMovie.setLastWatched(lastWatchedAt);
+            // dirty = true; // we do not write date to NFO. But just mark for syncing back...
           }
         }
+
+        if (dirty) {
+          tmmMovie.writeNFO();
+          tmmMovie.saveToDb();
+        }
       }
     }
 
     // *****************************************************************************
     // 2) mark additionally "watched" movies as 'seen' on Trakt
     // *****************************************************************************
-    // Now get all TMM watched movies...
+    // Now get all TMM watched movies which are not already watched on Trakt
+    int watchedCount = 0;
     List<Movie> tmmWatchedMovies = new ArrayList<>();
     for (Movie movie : tmmMovies) {
       if (movie.isWatched()) {
-        tmmWatchedMovies.add(movie);
-      }
-    }
-    LOGGER.info("You have now {} movies marked as 'watched' in your TMM database", tmmWatchedMovies.size());
-
-    // ...and subtract the already watched from Trakt
-    for (int i = tmmWatchedMovies.size() - 1; i >= 0; i--) {
-      for (BaseMovie traktWatched : traktMovies) {
-        Movie tmmMovie = tmmWatchedMovies.get(i);
-        if (matches(tmmMovie, traktWatched.movie.ids)) {
-          tmmWatchedMovies.remove(i);
-          break;
+        watchedCount++;
+        if (!index.isMatched(movie)) {
+          tmmWatchedMovies.add(movie);
         }
       }
     }
+    LOGGER.info("You have now {} movies marked as 'watched' in your TMM database", watchedCount);
 
     if (tmmWatchedMovies.isEmpty()) {
       LOGGER.info("no new watched movies for Trakt sync found.");
@@ -511,20 +490,8 @@ public class TraktTv {
       return;
     }
 
-    try {
-      LOGGER.info("Marking {} movies as 'watched' to Trakt.tv collection", movies.size());
-      SyncItems items = new SyncItems().movies(movies);
-      Response<SyncResponse> response = TRAKT.sync().addItemsToWatchedHistory(items).execute();
-      if (!response.isSuccessful()) {
-        LOGGER.error("failed syncing trakt: {}", response.message());
-        return;
-      }
-      LOGGER.info("Trakt mark-as-watched status:");
-      printStatus(response.body());
-    }
-    catch (Exception e) {
-      LOGGER.error("failed syncing trakt: {}", e.getMessage());
-    }
+    LOGGER.info("Marking {} movies as 'watched' to Trakt.tv collection", movies.size());
+    sendBatches(toMovieBatches(movies), TRAKT.sync()::addItemsToWatchedHistory, "mark-as-watched");
   }
 
   /**
@@ -587,54 +554,55 @@ public class TraktTv {
     // remember which episodes are already in trakt
     Set<TvShowEpisode> episodesInTrakt = new HashSet<>();
 
+    // index our shows by their IDs and look up every show on trakt
+    TraktIdIndex<TvShow> index = new TraktIdIndex<>(tvShows);
     for (BaseShow traktShow : traktShows) {
-      for (TvShow tmmShow : tvShows) {
-        if (matches(tmmShow, traktShow.show.ids)) {
-          // ok, we have a show match
-
-          // update show IDs from trakt
-          boolean dirty = updateIDs(tmmShow, traktShow.show.ids);
-
-          // update collection date from trakt (show)
-          if (traktShow.last_collected_at != null) {
-            Date collectedAt = DateTimeUtils.toDate(traktShow.last_collected_at.toInstant());
-            if (!collectedAt.equals(tmmShow.getDateAdded())) {
-              // always set from trakt, if not matched (Trakt = master)
-              LOGGER.trace("Marking TvShow '{}' as collected on {} (was {})", tmmShow.getTitle(), collectedAt, tmmShow.getDateAddedAsString());
-              tmmShow.setDateAdded(collectedAt);
-              dirty = true;
-            }
+      for (TvShow tmmShow : index.match(traktShow.show.ids)) {
+        // ok, we have a show match
+
+        // update show IDs from trakt
+        boolean dirty = updateIDs(tmmShow, traktShow.show.ids);
+
+        // update collection date from trakt (show)
+        if (traktShow.last_collected_at != null) {
+          Date collectedAt = DateTimeUtils.toDate(traktShow.last_collected_at.toInstant());
+          if (!collectedAt.equals(tmmShow.getDateAdded())) {
+            // always set from trakt, if not matched (Trakt = master)
+            LOGGER.trace("Marking TvShow '{}' as collected on {} (was {})", tmmShow.getTitle(), collectedAt, tmmShow.getDateAddedAsString());
+            tmmShow.setDateAdded(collectedAt);
+            dirty = true;
           }
+        }
 
-          // update collection date from trakt (episodes)
-          for (BaseSeason bs : traktShow.seasons) {
-            for (BaseEpisode be : bs.episodes) {
-              TvShowEpisode tmmEP = tmmShow.getEpisode(bs.number, be.number);
-              if (tmmEP == null) {
-                continue;
-              }
+        // update collection date from trakt (episodes)
+        Map<Long, TvShowEpisode> episodes = indexEpisodes(tmmShow);
+        for (BaseSeason bs : traktShow.seasons) {
+          for (BaseEpisode be : bs.episodes) {
+            TvShowEpisode tmmEP = episodes.get(episodeKey(bs.number, be.number));
+            if (tmmEP == null) {
+              continue;
+            }
 
-              episodesInTrakt.add(tmmEP);
+            episodesInTrakt.add(tmmEP);
 
-              // update ep IDs - NOT YET POSSIBLE
-              // boolean epDirty = updateIDs(tmmEP, be.ids);
+            // update ep IDs - NOT YET POSSIBLE
+            // boolean epDirty = updateIDs(tmmEP, be.ids);
 
-              if (be.collected_at != null) {
-                Date collectedAt = DateTimeUtils.toDate(be.collected_at.toInstant());
-                if (!collectedAt.equals(tmmEP.getDateAdded())) {
-                  tmmEP.setDateAdded(collectedAt);
-                  tmmEP.writeNFO();
-                  tmmEP.saveToDb();
-                  // epDirty = true;
-                }
+            if (be.collected_at != null) {
+              Date collectedAt = DateTimeUtils.toDate(be.collected_at.toInstant());
+              if (!collectedAt.equals(tmmEP.getDateAdded())) {
+                tmmEP.setDateAdded(collectedAt);
+                tmmEP.writeNFO();
+                tmmEP.saveToDb();
+                // epDirty = true;
               }
             }
           }
+        }
 
-          if (dirty) {
-            tmmShow.writeNFO();
-            tmmShow.saveToDb();
-          }
+        if (dirty) {
+          tmmShow.writeNFO();
+          tmmShow.saveToDb();
         }
       }
     }
@@ -642,29 +610,21 @@ public class TraktTv {
     // *****************************************************************************
     // 2) add all our shows to Trakt collection (we have the physical file)
     // *****************************************************************************
-    LOGGER.info("Adding {} TvShows to Trakt.tv collection", tvShows.size());
-    // send show per show; sending all together may result too often in a timeout
+    List<SyncShow> shows = new ArrayList<>();
     for (TvShow tvShow : tvShows) {
       SyncShow show = toSyncShow(tvShow, false, episodesInTrakt);
-      if (show == null) {
-        continue;
+      if (show != null) {
+        shows.add(show);
       }
+    }
 
-      try {
-        SyncItems items = new SyncItems().shows(show);
-        Response<SyncResponse> response = TRAKT.sync().addItemsToCollection(items).execute();
-        if (!response.isSuccessful()) {
-          LOGGER.error("failed syncing trakt: {}", response.message());
-          return;
-        }
-        LOGGER.debug("Trakt add-to-library status: {}", tvShow.getTitle());
-        printStatus(response.body());
-      }
-      catch (Exception e) {
-        LOGGER.error("failed syncing trakt: {}", e.getMessage());
-        return;
-      }
+    if (shows.isEmpty()) {
+      LOGGER.info("Already up-to-date - no need to add anything :)");
+      return;
     }
+
+    LOGGER.info("Adding {} TvShows to Trakt.tv collection", shows.size());
+    sendBatches(toShowBatches(shows), TRAKT.sync()::addItemsToCollection, "add-to-library");
   }
 
   /**
@@ -708,53 +668,54 @@ public class TraktTv {
     }
 
     LOGGER.info("You have {} TvShows marked as watched on Trakt.tv", traktShows.size());
+    // index our shows by their IDs and look up every watched show on trakt
+    TraktIdIndex<TvShow> index = new TraktIdIndex<>(tvShows);
     for (BaseShow traktShow : traktShows) {
-      for (TvShow tmmShow : tvShows) {
-        if (matches(tmmShow, traktShow.show.ids)) {
-          // ok, we have a show match
-
-          // update show IDs from trakt
-          boolean dirty = updateIDs(tmmShow, traktShow.show.ids);
-
-          // update watched date from trakt (show)
-          if (traktShow.last_watched_at != null) {
-            Date lastWatchedAt = DateTimeUtils.toDate(traktShow.last_watched_at.toInstant());
-            if (!lastWatchedAt.equals(tmmShow.getLastWatched())) {
-              // always set from trakt, if not matched (Trakt = master)
-              LOGGER.trace("Marking TvShow '{}' as watched on {} (was {})", tmmShow.getTitle(), lastWatchedAt, tmmShow.getLastWatched());
-              tmmShow.setLastWatched(lastWatchedAt);
-              // dirty = true; // we do not write date to NFO. But just mark for syncing back...
-            }
+      for (TvShow tmmShow : index.match(traktShow.show.ids)) {
+        // ok, we have a show match
+
+        // update show IDs from trakt
+        boolean dirty = updateIDs(tmmShow, traktShow.show.ids);
+
+        // update watched date from trakt (show)
+        if (traktShow.last_watched_at != null) {
+          Date lastWatchedAt = DateTimeUtils.toDate(traktShow.last_watched_at.toInstant());
+          if (!lastWatchedAt.equals(tmmShow.getLastWatched())) {
+            // always set from trakt, if not matched (Trakt = master)
+            LOGGER.trace("Marking TvShow '{}' as watched on {} (was {})", tmmShow.getTitle(), lastWatchedAt, tmmShow.getLastWatched());
+            tmmShow.setLastWatched(lastWatchedAt);
+            // dirty = true; // we do not write date to NFO. But just mark for syncing back...
           }
+        }
 
-          // update collection date from trakt (episodes)
-          for (BaseSeason bs : traktShow.seasons) {
-            for (BaseEpisode be : bs.episodes) {
-              TvShowEpisode tmmEP = tmmShow.getEpisode(bs.number, be.number);
-              if (tmmEP == null) {
-                continue;
-              }
-              // update ep IDs - NOT YET POSSIBLE
-              // boolean epDirty = updateIDs(tmmEP, be.ids);
+        // update collection date from trakt (episodes)
+        Map<Long, TvShowEpisode> episodes = indexEpisodes(tmmShow);
+        for (BaseSeason bs : traktShow.seasons) {
+          for (BaseEpisode be : bs.episodes) {
+            TvShowEpisode tmmEP = episodes.get(episodeKey(bs.number, be.number));
+            if (tmmEP == null) {
+              continue;
+            }
+            // update ep IDs - NOT YET POSSIBLE
+            // boolean epDirty = updateIDs(tmmEP, be.ids);
 
-              if (!tmmEP.isWatched()) {
-                tmmEP.setWatched(true);
-                tmmEP.writeNFO();
-                tmmEP.saveToDb();
-              }
-              if (be.last_watched_at != null) {
-                Date lastWatchedAt = DateTimeUtils.toDate(be.last_watched_at.toInstant());
-                if (!lastWatchedAt.equals(tmmEP.getLastWatched())) {
-                  tmmEP.setLastWatched(lastWatchedAt);
-                }
+            if (!tmmEP.isWatched()) {
+              tmmEP.setWatched(true);
+              tmmEP.writeNFO();
+              tmmEP.saveToDb();
+            }
+            if (be.last_watched_at != null) {
+              Date lastWatchedAt = DateTimeUtils.toDate(be.last_watched_at.toInstant());
+              if (!lastWatchedAt.equals(tmmEP.getLastWatched())) {
+                tmmEP.setLastWatched(lastWatchedAt);
               }
             }
           }
+        }
 
-          if (dirty) {
-            tmmShow.writeNFO();
-            tmmShow.saveToDb();
-          }
+        if (dirty) {
+          tmmShow.writeNFO();
+          tmmShow.saveToDb();
         }
       }
     }
@@ -762,30 +723,22 @@ public class TraktTv {
     // *****************************************************************************
     // 2) add all our shows to Trakt watched
     // *****************************************************************************
-    LOGGER.info("Adding up to {} TvShows as watched on Trakt.tv", tvShows.size());
-    // send show per show; sending all together may result too often in a timeout
+    List<SyncShow> shows = new ArrayList<>();
     for (TvShow show : tvShows) {
       // get items to sync
       SyncShow sync = toSyncShow(show, true, new HashSet<>());
-      if (sync == null) {
-        continue;
+      if (sync != null) {
+        shows.add(sync);
       }
+    }
 
-      try {
-        SyncItems items = new SyncItems().shows(sync);
-        Response<SyncResponse> response = TRAKT.sync().addItemsToWatchedHistory(items).execute();
-        if (!response.isSuccessful()) {
-          LOGGER.error("failed syncing trakt: {}", response.message());
-          return;
-        }
-        LOGGER.debug("Trakt add-to-library status: {}", show.getTitle());
-        printStatus(response.body());
-      }
-      catch (Exception e) {
-        LOGGER.error("failed syncing trakt: {}", e.getMessage());
-        return;
-      }
+    if (shows.isEmpty()) {
+      LOGGER.info("no new watched TvShows for Trakt sync found.");
+      return;
     }
+
+    LOGGER.info("Adding {} TvShows as watched on Trakt.tv", shows.size());
+    sendBatches(toShowBatches(shows), TRAKT.sync()::addItemsToWatchedHistory, "mark-as-watched");
   }
 
   public void syncTraktTvShowWatched() {
@@ -938,37 +891,87 @@ public class TraktTv {
     return dirty;
   }
 
-  private boolean matches(TvShow tmmShow, ShowIds ids) {
-    if (ids.trakt != null && ids.trakt != 0 && ids.trakt == tmmShow.getIdAsInt(Constants.TRAKT)) {
-      return true;
-    }
-    if (StringUtils.isNotEmpty(ids.imdb) && ids.imdb.equals(tmmShow.getIdAsString(Constants.IMDB))) {
-      return true;
-    }
-    if (ids.tmdb != null && ids.tmdb != 0 && ids.tmdb == tmmShow.getIdAsInt(Constants.TMDB)) {
-      return true;
+  /**
+   * index the episodes of the given show by season/episode number; the first episode wins (like {@link TvShow#getEpisode(int, int)})
+   */
+  private static Map<Long, TvShowEpisode> indexEpisodes(TvShow tmmShow) {
+    Map<Long, TvShowEpisode> episodes = new HashMap<>();
+    for (TvShowEpisode episode : tmmShow.getEpisodes()) {
+      episodes.putIfAbsent(episodeKey(episode.getSeason(), episode.getEpisode()), episode);
     }
-    if (ids.tvdb != null && ids.tvdb != 0 && ids.tvdb == tmmShow.getIdAsInt(Constants.TVDB)) {
-      return true;
+    return episodes;
+  }
+
+  private static long episodeKey(int season, int episode) {
+    return ((long) season << 32) | (episode & 0xffffffffL);
+  }
+
+  /**
+   * split the movies into batches of up to {@link #BATCH_SIZE} movies
+   */
+  static List<SyncItems> toMovieBatches(List<SyncMovie> movies) {
+    List<SyncItems> batches = new ArrayList<>();
+    for (int i = 0; i < movies.size(); i += BATCH_SIZE) {
+      batches.add(new SyncItems().movies(new ArrayList<>(movies.subList(i, Math.min(i + BATCH_SIZE, movies.size())))));
     }
-    // not used atm
-    // if (ids.tvrage != null && ids.tvrage != 0 && ids.tvrage == tmmShow.getIdAsInt(Constants.TVRAGEID)) {
-    // return true;
-    // }
-    return false;
+    return batches;
   }
 
-  private boolean matches(Movie tmmMovie, MovieIds ids) {
-    if (ids.trakt != null && ids.trakt != 0 && ids.trakt == tmmMovie.getIdAsInt(Constants.TRAKT)) {
-      return true;
+  /**
+   * split the shows into batches of up to {@link #BATCH_SIZE} episodes; a single show is never split
+   */
+  static List<SyncItems> toShowBatches(List<SyncShow> shows) {
+    List<SyncItems> batches = new ArrayList<>();
+    List<SyncShow> batch = new ArrayList<>();
+    int batchSize = 0;
+    for (SyncShow show : shows) {
+      int showSize = 0;
+      if (show.seasons != null) {
+        for (SyncSeason season : show.seasons) {
+          showSize += season.episodes != null ? season.episodes.size() : 0;
+        }
+      }
+
+      if (!batch.isEmpty() && batchSize + showSize > BATCH_SIZE) {
+        batches.add(new SyncItems().shows(batch));
+        batch = new ArrayList<>();
+        batchSize = 0;
+      }
+      batch.add(show);
+      batchSize += showSize;
     }
-    if (StringUtils.isNotEmpty(ids.imdb) && ids.imdb.equals(tmmMovie.getIdAsString(Constants.IMDB))) {
-      return true;
+    if (!batch.isEmpty()) {
+      batches.add(new SyncItems().shows(batch));
     }
-    if (ids.tmdb != null && ids.tmdb != 0 && ids.tmdb == tmmMovie.getIdAsInt(Constants.TMDB)) {
-      return true;
+    return batches;
+  }
+
+  /**
+   * send all batches to Trakt.tv; stops at the first failing batch
+   *
+   * @param batches
+   *          the batches to send
+   * @param call
+   *          the Trakt.tv call for one batch
+   * @param action
+   *          the name of the action for logging
+   */
+  private void sendBatches(List<SyncItems> batches, Function<SyncItems, Call<SyncResponse>> call, String action) {
+    for (SyncItems items : batches) {
+      try {
+        Response<SyncResponse> response = call.apply(items).execute();
+        if (!response.isSuccessful()) {
+          LOGGER.error("failed syncing trakt: {}", response.message());
+          return;
+        }
+        LOGGER.info("Trakt {} status:", action);
+        printStatus(response.body());
+      }
+      catch (Exception e) {
+        LOGGER.error("failed syncing trakt: {}", e.getMessage());
+        return;
+      }
     }
-    return false;
   }
 
   private SyncMovie toSyncMovie(Movie tmmMovie, boolean watched) {
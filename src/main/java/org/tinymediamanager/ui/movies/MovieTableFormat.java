@@ -18,7 +18,6 @@ package org.tinymediamanager.ui.movies;
 import java.awt.FontMetrics;
 import java.util.Comparator;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.function.Function;
@@ -202,12 +201,9 @@ public class MovieTableFormat extends TmmTableFormat<Movie> {
      * audio codec and channels(hidden per default)
      */
     col = new Column(BUNDLE.getString("metatag.audio"), "audio", movie -> {
-      List<MediaFile> videos = movie.getMediaFiles(MediaFileType.VIDEO);
-      if (!videos.isEmpty()) {
-        MediaFile mediaFile = videos.get(0);
-        if (StringUtils.isNotBlank(mediaFile.getAudioCodec())) {
-          return mediaFile.getAudioCodec() + " " + mediaFile.getAudioChannels();
-        }
+      MediaFile mediaFile = movie.getFirstMediaFile(MediaFileType.VIDEO);
+      if (mediaFile != null && StringUtils.isNotBlank(mediaFile.getAudioCodec())) {
+        return mediaFile.getAudioCodec() + " " + mediaFile.getAudioChannels();
       }
       return "";
     }, String.class);
@@ -221,7 +217,7 @@ public class MovieTableFormat extends TmmTableFormat<Movie> {
      */
     col = new Column(BUNDLE.getString("metatag.size"), "fileSize", movie -> {
       long size = 0;
-      for (MediaFile mf : movie.getMediaFiles(MediaFileType.VIDEO)) {
+      for (MediaFile mf : movie.getMediaFilesOfType(MediaFileType.VIDEO)) {
         size += mf.getFilesize();
       }
       return (int) (size / (1000.0 * 1000.0)) + " M";
@@ -45,7 +45,7 @@ public class MovieVideoExtrasFilter extends AbstractMovieUIFilter {
 
   @Override
   public boolean accept(Movie movie) {
-    return !movie.getMediaFiles(MediaFileType.EXTRA).isEmpty();
+    return movie.hasMediaFiles(MediaFileType.EXTRA);
   }
 
   @Override
@@ -141,7 +141,7 @@ public class MovieSetTableFormat extends TmmTableFormat<TmmTreeNode> {
     Object userObject = node.getUserObject();
     if (userObject instanceof Movie) {
       long size = 0;
-      for (MediaFile mf : ((Movie) userObject).getMediaFiles(MediaFileType.VIDEO)) {
+      for (MediaFile mf : ((Movie) userObject).getMediaFilesOfType(MediaFileType.VIDEO)) {
         size += mf.getFilesize();
       }
 
@@ -215,7 +215,7 @@ public class TvShowTableFormat extends TmmTreeTableFormat<TmmTreeNode> {
     Object userObject = node.getUserObject();
     if (userObject instanceof TvShowEpisode) {
       long size = 0;
-      for (MediaFile mf : ((TvShowEpisode) userObject).getMediaFiles(MediaFileType.VIDEO)) {
+      for (MediaFile mf : ((TvShowEpisode) userObject).getMediaFilesOfType(MediaFileType.VIDEO)) {
         size += mf.getFilesize();
       }
 
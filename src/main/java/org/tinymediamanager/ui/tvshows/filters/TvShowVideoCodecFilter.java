@@ -56,7 +56,7 @@ public class TvShowVideoCodecFilter extends AbstractCheckComboBoxTvShowUIFilter<
 
     // search codec in the episodes
     for (TvShowEpisode episode : episodes) {
-      List<MediaFile> mfs = episode.getMediaFiles(MediaFileType.VIDEO);
+      List<MediaFile> mfs = episode.getMediaFilesOfType(MediaFileType.VIDEO);
       for (MediaFile mf : mfs) {
         if (invert ^ codecs.contains(mf.getVideoCodec())) {
           return true;
@@ -56,7 +56,7 @@ public class TvShowVideoContainerFilter extends AbstractCheckComboBoxTvShowUIFil
 
     // search container in the episodes
     for (TvShowEpisode episode : episodes) {
-      List<MediaFile> mfs = episode.getMediaFiles(MediaFileType.VIDEO);
+      List<MediaFile> mfs = episode.getMediaFilesOfType(MediaFileType.VIDEO);
       for (MediaFile mf : mfs) {
         if (invert ^ selectedValues.contains(mf.getContainerFormat())) {
           return true;
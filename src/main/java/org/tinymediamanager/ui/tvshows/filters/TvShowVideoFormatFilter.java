@@ -48,7 +48,7 @@ public class TvShowVideoFormatFilter extends AbstractCheckComboBoxTvShowUIFilter
     List<String> selectedValues = checkComboBox.getSelectedItems();
 
     for (TvShowEpisode episode : episodes) {
-      List<MediaFile> mfs = episode.getMediaFiles(MediaFileType.VIDEO);
+      List<MediaFile> mfs = episode.getMediaFilesOfType(MediaFileType.VIDEO);
       for (MediaFile mf : mfs) {
         if (invert ^ (selectedValues.contains(mf.getVideoFormat()) || selectedValues.contains(mf.getVideoDefinitionCategory()))) {
           return true;
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.movie.entities.Movie;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+public class BinaryRecordCodecTest extends BasicTest {
+
+  @BeforeClass
+  public static void setup() {
+    deleteSettingsFolder();
+    Settings.getInstance(getSettingsFolder());
+  }
+
+  private static ObjectMapper configure(ObjectMapper mapper) {
+    mapper.configure(MapperFeature.AUTO_DETECT_GETTERS, false);
+    mapper.configure(MapperFeature.AUTO_DETECT_IS_GETTERS, false);
+    mapper.configure(MapperFeature.AUTO_DETECT_SETTERS, false);
+    mapper.configure(MapperFeature.AUTO_DETECT_FIELDS, false);
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    return mapper;
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    BinaryRecordCodec<Movie> codec = new BinaryRecordCodec<>(configure(new ObjectMapper(new SmileFactory())), Movie.class);
+
+    Movie movie = new Movie();
+    movie.setTitle("Binary Movie");
+    movie.setYear(2020);
+    movie.setPath("/media/movies/Binary Movie");
+
+    byte[] record = codec.encode(movie);
+    Movie decoded = codec.decode(record);
+
+    assertThat(decoded.getTitle()).isEqualTo("Binary Movie");
+    assertThat(decoded.getYear()).isEqualTo(2020);
+    assertThat(decoded.getPath()).isEqualTo("/media/movies/Binary Movie");
+  }
+
+  @Test
+  public void testJsonMigration() throws Exception {
+    ObjectMapper jsonMapper = configure(new ObjectMapper());
+    BinaryRecordCodec<Movie> codec = new BinaryRecordCodec<>(configure(new ObjectMapper(new SmileFactory())), Movie.class);
+
+    Movie movie = new Movie();
+    movie.setTitle("Migrated Movie");
+    String json = jsonMapper.writerFor(Movie.class).writeValueAsString(movie);
+
+    byte[] record = codec.fromJson(json, jsonMapper);
+    assertThat(codec.decode(record).getTitle()).isEqualTo("Migrated Movie");
+    assertThat(jsonMapper.readTree(codec.toJson(record, jsonMapper))).isEqualTo(jsonMapper.readTree(json));
+  }
+
+  @Test
+  public void testFailedMigrationKeepsRecords() throws Exception {
+    ObjectMapper jsonMapper = configure(new ObjectMapper());
+    BinaryRecordCodec<Movie> codec = new BinaryRecordCodec<>(configure(new ObjectMapper(new SmileFactory())), Movie.class);
+
+    Movie movie = new Movie();
+    movie.setTitle("Migrated Movie");
+    UUID valid = UUID.randomUUID();
+    UUID newerVersion = UUID.randomUUID();
+
+    MVStore mvStore = new MVStore.Builder().open();
+    try {
+      MVMap<UUID, byte[]> binaryMap = mvStore.openMap("binary");
+      MVMap<UUID, String> jsonMap = mvStore.openMap("json");
+      MVMap<UUID, Integer> failedMap = mvStore.openMap("failed");
+      binaryMap.put(valid, codec.encode(movie));
+      binaryMap.put(newerVersion, new byte[] { 'T', 'M', 'M', 99, 0, 0 });
+
+      assertThat(codec.migrateToJson(binaryMap, jsonMap, failedMap, jsonMapper)).isEqualTo(1);
+      assertThat(jsonMap.keySet()).containsExactly(valid);
+      assertThat(binaryMap.keySet()).containsExactly(newerVersion);
+      assertThat(failedMap.get(newerVersion)).isEqualTo(1);
+
+      // the failed record is given up after the max attempts, but still kept
+      for (int i = 0; i < BinaryRecordCodec.MAX_MIGRATION_ATTEMPTS + 2; i++) {
+        assertThat(codec.migrateToJson(binaryMap, jsonMap, failedMap, jsonMapper)).isEqualTo(0);
+      }
+      assertThat(failedMap.get(newerVersion)).isEqualTo(BinaryRecordCodec.MAX_MIGRATION_ATTEMPTS);
+      assertThat(binaryMap.keySet()).containsExactly(newerVersion);
+    }
+    finally {
+      mvStore.close();
+    }
+  }
+
+  @Test
+  public void testRemoveUnmigrated() throws Exception {
+    UUID uuid = UUID.randomUUID();
+
+    MVStore mvStore = new MVStore.Builder().open();
+    try {
+      MVMap<UUID, byte[]> binaryMap = mvStore.openMap("binary");
+      MVMap<UUID, Integer> failedMap = mvStore.openMap("failed");
+      binaryMap.put(uuid, new byte[] { 'T', 'M', 'M', 99, 0, 0 });
+      failedMap.put(uuid, BinaryRecordCodec.MAX_MIGRATION_ATTEMPTS);
+
+      // the entity has been written in the actual format
+      BinaryRecordCodec.removeUnmigrated(binaryMap, failedMap, uuid);
+      assertThat(binaryMap).isEmpty();
+      assertThat(failedMap).isEmpty();
+    }
+    finally {
+      mvStore.close();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidHeader() throws Exception {
+    BinaryRecordCodec<Movie> codec = new BinaryRecordCodec<>(configure(new ObjectMapper(new SmileFactory())), Movie.class);
+    codec.decode(new byte[] { 'X', 'M', 'M', 1, 0 });
+  }
+}
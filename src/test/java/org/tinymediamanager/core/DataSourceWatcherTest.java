@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+
+public class DataSourceWatcherTest extends BasicTest {
+  private Path               dataSource;
+  private DataSourceWatcher  watcher;
+  private Map<Path, Integer> changedFolders = new ConcurrentHashMap<>();
+
+  @Before
+  public void setup() throws Exception {
+    deleteSettingsFolder();
+    dataSource = Paths.get(getSettingsFolder(), "movies").toAbsolutePath().normalize();
+    Files.createDirectories(dataSource.resolve("Existing (2019)"));
+
+    // report the first level beneath the datasource
+    watcher = new DataSourceWatcher("test", 500, 60000, 2, (ds, changed) -> ds.resolve(ds.relativize(changed).getName(0)), (ds, folders) -> {
+      for (Path folder : folders) {
+        changedFolders.merge(folder, 1, Integer::sum);
+      }
+    });
+    watcher.start(Collections.singletonList(dataSource.toString()));
+
+    // give the watcher some time to register the tree
+    Thread.sleep(500);
+  }
+
+  @After
+  public void tearDown() {
+    watcher.stop();
+  }
+
+  @Test
+  public void testDebounce() throws Exception {
+    Path movieDir = dataSource.resolve("Movie (2020)");
+    Files.createDirectories(movieDir);
+    for (int i = 0; i < 5; i++) {
+      Files.write(movieDir.resolve("movie" + i + ".avi"), new byte[] { 1 });
+      Thread.sleep(100);
+    }
+    Files.write(dataSource.resolve("Existing (2019)").resolve("movie.avi"), new byte[] { 1 });
+
+    waitForReports();
+
+    assertThat(changedFolders).containsOnlyKeys(movieDir, dataSource.resolve("Existing (2019)"));
+    // all events of a folder within the debounce time are reported at once
+    assertThat(changedFolders.get(movieDir)).isEqualTo(1);
+  }
+
+  @Test
+  public void testOwnChanges() throws Exception {
+    Path existing = dataSource.resolve("Existing (2019)");
+    Path nfo = existing.resolve("movie.nfo");
+    DataSourceWatcher.markOwnChange(nfo);
+    Files.write(nfo, new byte[] { 1 });
+    Files.write(existing.resolve("movie.avi.part"), new byte[] { 1 });
+
+    Path movieDir = dataSource.resolve("Movie (2020)");
+    Files.createDirectories(movieDir);
+    Files.write(movieDir.resolve("movie.avi"), new byte[] { 1 });
+
+    waitForReports();
+
+    // neither own changes nor temp files are reported
+    assertThat(changedFolders).containsOnlyKeys(movieDir);
+    assertThat(DataSourceWatcher.isOwnChange(existing, 0)).isTrue();
+    assertThat(DataSourceWatcher.isOwnChange(movieDir, 0)).isFalse();
+  }
+
+  @Test
+  public void testOwnChangesWithoutWatcher() throws Exception {
+    watcher.stop();
+
+    // nothing is recorded if no watcher is running
+    Path nfo = dataSource.resolve("Existing (2019)").resolve("movie.nfo");
+    DataSourceWatcher.markOwnChange(nfo);
+    assertThat(DataSourceWatcher.isOwnChange(nfo, 0)).isFalse();
+  }
+
+  private void waitForReports() throws InterruptedException {
+    // debounce time + reporting interval + some tolerance for slow file systems
+    for (int i = 0; i < 50 && changedFolders.isEmpty(); i++) {
+      Thread.sleep(100);
+    }
+    Thread.sleep(1000);
+  }
+}
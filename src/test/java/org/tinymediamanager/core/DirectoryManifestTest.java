@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.h2.mvstore.MVStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.DirectoryManifest.Recorder;
+
+public class DirectoryManifestTest extends BasicTest {
+  private MVStore           mvStore;
+  private DirectoryManifest manifest;
+  private Path              movieDir;
+
+  @Before
+  public void setup() throws Exception {
+    deleteSettingsFolder();
+    Path folder = Paths.get(getSettingsFolder()).toAbsolutePath();
+    movieDir = folder.resolve("Movie (2020)");
+    Files.createDirectories(movieDir.resolve("extras"));
+    Files.write(movieDir.resolve("movie.avi"), new byte[] { 1 });
+    Files.write(movieDir.resolve("extras/extra.avi"), new byte[] { 1 });
+
+    // in memory
+    mvStore = new MVStore.Builder().open();
+    manifest = new DirectoryManifest(mvStore.openMap("manifest"));
+  }
+
+  @After
+  public void tearDown() {
+    mvStore.close();
+  }
+
+  @Test
+  public void testUnchanged() throws Exception {
+    record();
+
+    List<Path> known = new ArrayList<>();
+    assertThat(manifest.isUnchanged(movieDir, known)).isTrue();
+    assertThat(known).contains(movieDir, movieDir.resolve("movie.avi"), movieDir.resolve("extras"), movieDir.resolve("extras/extra.avi"));
+  }
+
+  @Test
+  public void testDateChangedOnly() throws Exception {
+    record();
+
+    // same entries, but another date
+    touch(movieDir.resolve("extras"));
+    assertThat(manifest.isUnchanged(movieDir, new ArrayList<>())).isTrue();
+  }
+
+  @Test
+  public void testChanged() throws Exception {
+    record();
+
+    // a new file in a sub folder
+    Files.write(movieDir.resolve("extras/extra2.avi"), new byte[] { 1 });
+    touch(movieDir.resolve("extras"));
+
+    List<Path> known = new ArrayList<>();
+    assertThat(manifest.isUnchanged(movieDir, known)).isFalse();
+    assertThat(known).isEmpty();
+
+    // record again
+    record();
+    assertThat(manifest.isUnchanged(movieDir, known)).isTrue();
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    record();
+
+    manifest.invalidate(movieDir.resolve("extras"));
+    assertThat(manifest.isUnchanged(movieDir, new ArrayList<>())).isFalse();
+  }
+
+  private void record() throws IOException {
+    Recorder recorder = manifest.startRecording(movieDir);
+    Files.walkFileTree(movieDir, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        recorder.directory(dir, attrs);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        recorder.file(file);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    manifest.commit(recorder);
+  }
+
+  private void touch(Path dir) throws IOException {
+    FileTime lastModified = Files.getLastModifiedTime(dir);
+    Files.setLastModifiedTime(dir, FileTime.fromMillis(lastModified.toMillis() + 10000));
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+public class ImageUtilsTest extends BasicTest {
+  private static final MockWebServer mockWebServer = new MockWebServer();
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    deleteSettingsFolder();
+    mockWebServer.start();
+  }
+
+  @AfterClass
+  public static void shutDown() throws Exception {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void testDownloadOnceForAllFilenames() throws Exception {
+    byte[] image = new byte[] { 1, 2, 3, 4, 5 };
+    mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(new Buffer().write(image)));
+    String url = mockWebServer.url("poster.jpg").toString();
+
+    Path folder = Paths.get(getSettingsFolder(), "movie");
+    Files.createDirectories(folder);
+
+    // poster.jpg, folder.jpg and movie-poster.jpg from the same url
+    for (String filename : new String[] { "poster.jpg", "folder.jpg", "movie-poster.jpg" }) {
+      Path file = ImageUtils.downloadImage(url, folder, filename);
+      assertThat(Files.readAllBytes(file)).isEqualTo(image);
+    }
+
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.thirdparty.MediaInfo.StreamKind;
+
+public class MediaInfoCacheTest extends BasicTest {
+  private Path folder;
+
+  @Before
+  public void setup() throws Exception {
+    deleteSettingsFolder();
+    folder = Paths.get(getSettingsFolder());
+    Files.createDirectories(folder);
+    MediaInfoCache.getInstance().open(folder.resolve("mediainfo.db"), "1.0");
+  }
+
+  @After
+  public void tearDown() {
+    MediaInfoCache.getInstance().close();
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    MediaInfoCache cache = MediaInfoCache.getInstance();
+
+    Path file = folder.resolve("video.avi");
+    Files.write(file, "some video content".getBytes(StandardCharsets.UTF_8));
+    MediaFile mf = new MediaFile(file);
+    MediaFileHelper.gatherFileInformation(mf);
+
+    String key = MediaInfoCache.createKey(mf);
+    assertThat(key).isNotNull();
+    assertThat(cache.get(key)).isNull();
+
+    Map<StreamKind, List<Map<String, String>>> snapshot = createSnapshot();
+    cache.put(key, snapshot);
+    assertThat(cache.get(key)).isEqualTo(snapshot);
+    assertThat(cache.getHits()).isGreaterThanOrEqualTo(1);
+
+    // a moved file has the same key
+    Path moved = folder.resolve("moved.avi");
+    Files.move(file, moved);
+    MediaFile movedMf = new MediaFile(moved);
+    MediaFileHelper.gatherFileInformation(movedMf);
+    assertThat(MediaInfoCache.createKey(movedMf)).isEqualTo(key);
+
+    // a changed file has another key
+    Files.write(moved, "some other video content".getBytes(StandardCharsets.UTF_8));
+    MediaFileHelper.gatherFileInformation(movedMf);
+    assertThat(MediaInfoCache.createKey(movedMf)).isNotEqualTo(key);
+  }
+
+  @Test
+  public void testEviction() {
+    MediaInfoCache cache = MediaInfoCache.getInstance();
+
+    cache.put("1", createSnapshot());
+    cache.put("2", createSnapshot());
+    cache.put("3", createSnapshot());
+    assertThat(cache.getEntryCount()).isEqualTo(3);
+
+    // too many entries
+    cache.evict(0, 2);
+    assertThat(cache.getEntryCount()).isEqualTo(2);
+
+    // too old entries
+    cache.evict(System.currentTimeMillis() + 1, 10);
+    assertThat(cache.getEntryCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testVersionChange() {
+    MediaInfoCache cache = MediaInfoCache.getInstance();
+    cache.put("1", createSnapshot());
+    cache.close();
+
+    cache.open(folder.resolve("mediainfo.db"), "1.0");
+    assertThat(cache.getEntryCount()).isEqualTo(1);
+    cache.close();
+
+    cache.open(folder.resolve("mediainfo.db"), "2.0");
+    assertThat(cache.getEntryCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testClosed() {
+    MediaInfoCache cache = MediaInfoCache.getInstance();
+    cache.put("1", createSnapshot());
+    cache.close();
+
+    // no exceptions if the cache has been closed by another thread
+    assertThat(cache.get("1")).isNull();
+    cache.put("2", createSnapshot());
+    assertThat(cache.getEntryCount()).isEqualTo(0);
+  }
+
+  private Map<StreamKind, List<Map<String, String>>> createSnapshot() {
+    Map<StreamKind, List<Map<String, String>>> snapshot = new EnumMap<>(StreamKind.class);
+    Map<String, String> general = new HashMap<>();
+    general.put("Format", "AVI");
+    general.put("Duration", "5400000");
+    List<Map<String, String>> streams = new ArrayList<>();
+    streams.add(general);
+    snapshot.put(StreamKind.General, streams);
+    return snapshot;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class NfoWriterTest {
+
+  @Test
+  public void testWrite() throws Exception {
+    Path nfo = Files.createTempFile("movie", ".nfo");
+    try {
+      NfoWriter writer = new NfoWriter();
+      writer.append(getTransformer(), createDocument("2020-01-01 10:00:00", "Aladdin"));
+
+      // windows conform line endings
+      String xml = new String(writer.getContent(), StandardCharsets.UTF_8);
+      assertThat(xml).contains("<title>Aladdin</title>\r\n").doesNotContain("\r\r").doesNotMatch("(?s).*[^\r]\n.*");
+
+      assertThat(writer.write(nfo)).isTrue();
+      assertThat(Files.readAllBytes(nfo)).isEqualTo(writer.getContent());
+
+      // only the comment changed
+      writer = new NfoWriter();
+      writer.append(getTransformer(), createDocument("2020-02-02 12:00:00", "Aladdin"));
+      assertThat(writer.write(nfo)).isFalse();
+
+      // the content changed
+      writer = new NfoWriter();
+      writer.append(getTransformer(), createDocument("2020-02-02 12:00:00", "Hook"));
+      assertThat(writer.write(nfo)).isTrue();
+      assertThat(new String(Files.readAllBytes(nfo), StandardCharsets.UTF_8)).contains("<title>Hook</title>");
+    }
+    finally {
+      Files.deleteIfExists(nfo);
+    }
+  }
+
+  private Document createDocument(String date, String title) throws Exception {
+    Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+    document.setXmlStandalone(true);
+    document.appendChild(document.createComment("created on " + date));
+
+    Element root = document.createElement("movie");
+    document.appendChild(root);
+    Element element = document.createElement("title");
+    element.setTextContent(title);
+    root.appendChild(element);
+
+    return document;
+  }
+
+  private Transformer getTransformer() throws Exception {
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+    return transformer;
+  }
+}
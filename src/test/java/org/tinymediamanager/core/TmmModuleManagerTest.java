@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TmmModuleManagerTest {
+
+  @After
+  public void tearDown() {
+    TmmModuleManager.getInstance().finishStartup().join();
+  }
+
+  @Test
+  public void testStartupSteps() throws Exception {
+    TmmModuleManager moduleManager = TmmModuleManager.getInstance();
+    List<String> order = new CopyOnWriteArrayList<>();
+
+    // both independent steps need to run at the same time to pass the latch
+    CountDownLatch latch = new CountDownLatch(2);
+    moduleManager.addStartupStep("a", () -> {
+      latch.countDown();
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+      order.add("a");
+    });
+    moduleManager.addStartupStep("b", () -> {
+      latch.countDown();
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+      order.add("b");
+    });
+    moduleManager.addStartupStep("c", () -> order.add("c"), "a", "b");
+
+    moduleManager.awaitStartupStep("c");
+    assertThat(order).hasSize(3);
+    assertThat(order.get(2)).isEqualTo("c");
+  }
+
+  @Test
+  public void testFailingStartupStep() throws Exception {
+    TmmModuleManager moduleManager = TmmModuleManager.getInstance();
+    AtomicBoolean dependentRun = new AtomicBoolean(false);
+
+    moduleManager.addStartupStep("failing", () -> {
+      throw new IllegalStateException("file is locked");
+    });
+    moduleManager.addStartupStep("dependent", () -> dependentRun.set(true), "failing");
+
+    try {
+      moduleManager.awaitStartupStep("dependent");
+      fail("exception expected");
+    }
+    catch (IllegalStateException e) {
+      assertThat(e.getMessage()).isEqualTo("file is locked");
+    }
+    assertThat(dependentRun.get()).isFalse();
+  }
+
+  @Test
+  public void testStartupStepWithError() throws Exception {
+    TmmModuleManager moduleManager = TmmModuleManager.getInstance();
+
+    moduleManager.addStartupStep("native", () -> {
+      throw new UnsatisfiedLinkError("no mediainfo in java.library.path");
+    });
+    moduleManager.addStartupStep("ok", () -> {
+    });
+
+    try {
+      moduleManager.awaitStartupStep("native");
+      fail("error expected");
+    }
+    catch (UnsatisfiedLinkError e) {
+      assertThat(e.getMessage()).contains("mediainfo");
+    }
+
+    // the failed step must be reported in the startup result
+    assertThat(moduleManager.finishStartup().join()).containsExactly("native");
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.entities;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+import org.tinymediamanager.core.MediaFileType;
+import org.tinymediamanager.scraper.entities.MediaArtwork.MediaArtworkType;
+
+public class MediaEntityTest {
+
+  @Test
+  public void testMediaFileIndex() {
+    MediaEntity entity = new TestEntity();
+    MediaFile video1 = new MediaFile(Paths.get("/media/movie/movie-cd1.avi"), MediaFileType.VIDEO);
+    MediaFile video2 = new MediaFile(Paths.get("/media/movie/movie-cd2.avi"), MediaFileType.VIDEO);
+    MediaFile poster = new MediaFile(Paths.get("/media/movie/poster.jpg"), MediaFileType.POSTER);
+
+    assertThat(entity.hasMediaFiles(MediaFileType.VIDEO)).isFalse();
+    assertThat(entity.getFirstMediaFile(MediaFileType.VIDEO)).isNull();
+    assertThat(entity.getMediaFilesOfType(MediaFileType.VIDEO)).isEmpty();
+
+    entity.addToMediaFiles(video2);
+    entity.addToMediaFiles(poster);
+    entity.addToMediaFiles(video1);
+
+    assertThat(entity.hasMediaFiles(MediaFileType.VIDEO)).isTrue();
+    assertThat(entity.hasMediaFiles(MediaFileType.FANART)).isFalse();
+    assertThat(entity.getFirstMediaFile(MediaFileType.VIDEO)).isSameAs(video1);
+    assertThat(entity.getMediaFilesOfType(MediaFileType.VIDEO)).containsExactly(video1, video2);
+    assertThat(entity.getMediaFiles(MediaFileType.POSTER)).containsExactly(poster);
+    assertThat(entity.getMediaFiles(MediaFileType.VIDEO, MediaFileType.POSTER)).containsExactlyInAnyOrder(video1, video2, poster);
+
+    // the snapshot does not change after a removal
+    List<MediaFile> videos = entity.getMediaFilesOfType(MediaFileType.VIDEO);
+    entity.removeFromMediaFiles(video1);
+    assertThat(videos).containsExactly(video1, video2);
+    assertThat(entity.getMediaFilesOfType(MediaFileType.VIDEO)).containsExactly(video2);
+
+    // changing the type of a media file moves it in the index
+    entity.addToMediaFiles(new MediaFile(Paths.get("/media/movie/poster.jpg"), MediaFileType.FANART));
+    assertThat(entity.hasMediaFiles(MediaFileType.POSTER)).isFalse();
+    assertThat(entity.hasMediaFiles(MediaFileType.FANART)).isTrue();
+
+    entity.removeAllMediaFiles(MediaFileType.FANART);
+    assertThat(entity.hasMediaFiles(MediaFileType.FANART)).isFalse();
+
+    entity.removeAllMediaFiles();
+    assertThat(entity.hasMediaFiles(MediaFileType.VIDEO)).isFalse();
+  }
+
+  private static class TestEntity extends MediaEntity {
+    @Override
+    public MediaFile getMainFile() {
+      return getFirstMediaFile(MediaFileType.VIDEO);
+    }
+
+    @Override
+    public void saveToDb() {
+    }
+
+    @Override
+    public void deleteFromDb() {
+    }
+
+    @Override
+    public void callbackForWrittenArtwork(MediaArtworkType type) {
+    }
+
+    @Override
+    protected Comparator<MediaFile> getMediaFileComparator() {
+      return Comparator.comparing(MediaFile::getFilename);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.jmte;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.floreysoft.jmte.Engine;
+
+public class TemplateCompilerTest {
+
+  @Test
+  public void testTransform() {
+    Engine engine = Engine.createEngine();
+    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
+
+    AtomicInteger morphed = new AtomicInteger();
+    TemplateCompiler compiler = new TemplateCompiler(engine, pattern -> {
+      morphed.incrementAndGet();
+      return pattern.replace("${name", "${movie.title");
+    });
+
+    Map<String, Object> movie = new HashMap<>();
+    movie.put("title", "Aladdin");
+    Map<String, Object> root = new HashMap<>();
+    root.put("movie", movie);
+
+    assertThat(compiler.transform("${name} (1992)", root)).isEqualTo("Aladdin (1992)");
+    assertThat(compiler.transform("${name;upper}", root)).isEqualTo("ALADDIN");
+
+    // the same pattern is compiled only once
+    movie.put("title", "Hook");
+    assertThat(compiler.transform("${name} (1992)", root)).isEqualTo("Hook (1992)");
+    assertThat(compiler.compile("${name} (1992)")).isSameAs(compiler.compile("${name} (1992)"));
+    assertThat(morphed.get()).isEqualTo(2);
+  }
+}
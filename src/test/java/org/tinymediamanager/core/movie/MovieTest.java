@@ -37,6 +37,29 @@ import org.tinymediamanager.scraper.util.StrgUtils;
 public class MovieTest extends BasicTest {
   private Movie m = new Movie();
 
+  @Test
+  public void testMovieIndexes() {
+    MovieList movieList = MovieList.getInstance();
+
+    Movie movie = new Movie();
+    movie.setTitle("Index Test");
+    movie.setPath(Paths.get("target/test-classes/index test").toAbsolutePath().toString());
+    movieList.addMovie(movie);
+
+    Assert.assertSame(movie, movieList.lookupMovie(movie.getDbId()));
+    Assert.assertSame(movie, movieList.getMovieByPath(Paths.get("target/test-classes/../test-classes/index test")));
+    Assert.assertEquals(1, movieList.getMoviesByPath(Paths.get("target/test-classes/index test")).size());
+
+    // path changes are reflected in the index
+    movie.setPath(Paths.get("target/test-classes/index test 2").toAbsolutePath().toString());
+    Assert.assertNull(movieList.getMovieByPath(Paths.get("target/test-classes/index test")));
+    Assert.assertSame(movie, movieList.getMovieByPath(Paths.get("target/test-classes/index test 2")));
+
+    movieList.removeMovies(Collections.singletonList(movie));
+    Assert.assertNull(movieList.lookupMovie(movie.getDbId()));
+    Assert.assertTrue(movieList.getMoviesByPath(Paths.get("target/test-classes/index test 2")).isEmpty());
+  }
+
   @Test
   public void trailerDetection() {
     String m = "So.Dark.the.Night.1946.720p.BluRay.x264-x0r[Trailer-Theatrical-Trailer].mkv";
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tinymediamanager.core.Utils;
+
+public class SegmentedDownloadTest {
+  private static final int    LENGTH = (int) (SegmentedDownload.MIN_SEGMENT_SIZE * 3 + 12345);
+  private static final String ETAG   = "\"abc\"";
+
+  private byte[]              data;
+  private Path                file;
+
+  @Before
+  public void setUp() throws Exception {
+    data = new byte[LENGTH];
+    new Random(42).nextBytes(data);
+    file = Files.createTempFile("segmented", ".part");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(SegmentedDownload.getStateFile(file));
+  }
+
+  @Test
+  public void testDownload() throws Exception {
+    List<Long> requestedRanges = new CopyOnWriteArrayList<>();
+
+    SegmentedDownload download = new SegmentedDownload(file, LENGTH, ETAG, SegmentedDownload.MAX_CONNECTIONS);
+    boolean finished = download.download((from, to) -> {
+      requestedRanges.add(from);
+      return range(from, to);
+    }, () -> false, (done, length, speed) -> {
+    });
+
+    assertThat(finished).isTrue();
+    assertThat(requestedRanges).hasSize(3);
+    assertThat(Files.readAllBytes(file)).isEqualTo(data);
+    assertThat(SegmentedDownload.getStateFile(file)).doesNotExist();
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    interrupt();
+
+    // resume - only the missing parts are requested
+    List<Long> requestedRanges = new CopyOnWriteArrayList<>();
+    SegmentedDownload resumed = new SegmentedDownload(file, LENGTH, ETAG, SegmentedDownload.MAX_CONNECTIONS);
+    assertThat(resumed.isResumed()).isTrue();
+    assertThat(resumed.getBytesDone()).isGreaterThan(0);
+
+    resumed.download((from, to) -> {
+      requestedRanges.add(from);
+      return range(from, to);
+    }, () -> false, (done, length, speed) -> {
+    });
+
+    assertThat(requestedRanges).hasSize(3).doesNotContain(0L);
+    assertThat(Files.readAllBytes(file)).isEqualTo(data);
+  }
+
+  @Test
+  public void testNoResumeOfChangedFile() throws Exception {
+    interrupt();
+
+    // another ETag: the remote file has been changed
+    SegmentedDownload changed = new SegmentedDownload(file, LENGTH, "\"def\"", SegmentedDownload.MAX_CONNECTIONS);
+    assertThat(changed.isResumed()).isFalse();
+    assertThat(changed.getBytesDone()).isZero();
+  }
+
+  @Test
+  public void testNoStateWithoutValidator() throws Exception {
+    SegmentedDownload download = new SegmentedDownload(file, LENGTH, "", SegmentedDownload.MAX_CONNECTIONS);
+    assertThat(download.isResumable()).isFalse();
+    try {
+      download.download((from, to) -> new BrokenInputStream(range(from, to), 1024 * 1024), () -> false, (done, length, speed) -> {
+      });
+      fail("download should have failed");
+    }
+    catch (IOException e) {
+      // expected
+    }
+    assertThat(SegmentedDownload.getStateFile(file)).doesNotExist();
+  }
+
+  @Test
+  public void testCleanupTempFiles() throws Exception {
+    Path folder = Files.createTempDirectory("segmented");
+    try {
+      Path stale = Files.write(folder.resolve("stale.mkv.1234.part"), new byte[] { 1 });
+      Path staleState = Files.write(folder.resolve("stale.mkv.1234.part.state"), new byte[] { 1 });
+      Path recent = Files.write(folder.resolve("recent.mkv.5678.part"), new byte[] { 1 });
+      Path other = Files.write(folder.resolve("other.txt"), new byte[] { 1 });
+
+      FileTime old = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(3));
+      Files.setLastModifiedTime(stale, old);
+      Files.setLastModifiedTime(staleState, old);
+      Files.setLastModifiedTime(other, old);
+
+      DownloadTask.cleanupTempFiles(folder);
+
+      assertThat(stale).doesNotExist();
+      assertThat(staleState).doesNotExist();
+      assertThat(recent).exists();
+      assertThat(other).exists();
+    }
+    finally {
+      Utils.deleteDirectoryRecursive(folder);
+    }
+  }
+
+  private void interrupt() throws Exception {
+    // every connection breaks after 1MB
+    SegmentedDownload download = new SegmentedDownload(file, LENGTH, ETAG, SegmentedDownload.MAX_CONNECTIONS);
+    try {
+      download.download((from, to) -> new BrokenInputStream(range(from, to), 1024 * 1024), () -> false, (done, length, speed) -> {
+      });
+      fail("download should have failed");
+    }
+    catch (IOException e) {
+      // expected
+    }
+    assertThat(SegmentedDownload.getStateFile(file)).exists();
+  }
+
+  private InputStream range(long from, long to) {
+    return new ByteArrayInputStream(data, (int) from, (int) (to - from + 1));
+  }
+
+  private static class BrokenInputStream extends FilterInputStream {
+    private long left;
+
+    private BrokenInputStream(InputStream in, long left) {
+      super(in);
+      this.left = left;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (left <= 0) {
+        throw new IOException("connection reset");
+      }
+      int count = super.read(b, off, (int) Math.min(len, left));
+      left -= count;
+      return count;
+    }
+  }
+}
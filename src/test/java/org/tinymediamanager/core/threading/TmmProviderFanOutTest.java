@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TmmProviderFanOutTest {
+
+  @Test
+  public void testMergeOrderAndConcurrency() {
+    List<Integer> providers = Arrays.asList(3, 1, 2);
+
+    // all providers need to run at the same time to pass the latch
+    CountDownLatch latch = new CountDownLatch(providers.size());
+    List<String> result = TmmProviderFanOut.callAll(providers, provider -> {
+      latch.countDown();
+      if (!latch.await(10, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("not called concurrently");
+      }
+      return Collections.singletonList("p" + provider);
+    }, (provider, e) -> {
+    });
+
+    assertThat(result).containsExactly("p3", "p1", "p2");
+  }
+
+  @Test
+  public void testDeadlineAndErrors() throws Exception {
+    List<String> providers = Arrays.asList("slow", "failing", "fast");
+    List<String> errors = new CopyOnWriteArrayList<>();
+    CountDownLatch slowCancelled = new CountDownLatch(1);
+
+    List<String> result = TmmProviderFanOut.callAll(providers, provider -> {
+      switch (provider) {
+        case "slow":
+          try {
+            Thread.sleep(60000);
+          }
+          catch (InterruptedException e) {
+            slowCancelled.countDown();
+            throw e;
+          }
+          return Collections.singletonList(provider);
+
+        case "failing":
+          throw new IllegalStateException("boom");
+
+        default:
+          return Collections.singletonList(provider);
+      }
+    }, (provider, e) -> errors.add(provider + ":" + e.getMessage()), 300);
+
+    assertThat(result).containsExactly("fast");
+    assertThat(errors).containsExactly("failing:boom");
+    // the call of the slow provider has been cancelled after the deadline
+    assertThat(slowCancelled.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+}
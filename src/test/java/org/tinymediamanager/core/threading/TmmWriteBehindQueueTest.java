@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.movie.entities.Movie;
+
+public class TmmWriteBehindQueueTest extends BasicTest {
+
+  @Test
+  public void testCoalescing() {
+    List<Movie> written = new CopyOnWriteArrayList<>();
+    TmmWriteBehindQueue<Movie> queue = new TmmWriteBehindQueue<>("test", 60000, written::add);
+
+    Movie movie1 = new Movie();
+    Movie movie2 = new Movie();
+
+    for (int i = 0; i < 10; i++) {
+      queue.enqueue(movie1);
+      queue.enqueue(movie2);
+    }
+    assertThat(written).isEmpty();
+    assertThat(queue.getPendingCount()).isEqualTo(2);
+
+    // shutdown must write everything
+    queue.shutdown();
+    assertThat(written).containsExactlyInAnyOrder(movie1, movie2);
+    assertThat(queue.getPendingCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDiscard() {
+    List<Movie> written = new CopyOnWriteArrayList<>();
+    TmmWriteBehindQueue<Movie> queue = new TmmWriteBehindQueue<>("test", 60000, written::add);
+
+    Movie movie = new Movie();
+    queue.enqueue(movie);
+    queue.discard(movie.getDbId());
+    queue.shutdown();
+
+    assertThat(written).isEmpty();
+  }
+
+  @Test
+  public void testWriteThrough() {
+    List<Movie> written = new CopyOnWriteArrayList<>();
+    TmmWriteBehindQueue<Movie> queue = new TmmWriteBehindQueue<>("test", 0, written::add);
+
+    Movie movie = new Movie();
+    queue.enqueue(movie);
+    assertThat(written).containsExactly(movie);
+
+    queue.shutdown();
+  }
+
+  @Test
+  public void testRetryAfterFailure() {
+    List<Movie> written = new CopyOnWriteArrayList<>();
+    AtomicInteger attempts = new AtomicInteger();
+    TmmWriteBehindQueue<Movie> queue = new TmmWriteBehindQueue<>("test", 60000, movie -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new IllegalStateException("first write fails");
+      }
+      written.add(movie);
+    });
+
+    Movie movie = new Movie();
+    queue.enqueue(movie);
+
+    // the failed entity must be kept for the next try
+    queue.flush(movie.getDbId());
+    assertThat(written).isEmpty();
+    assertThat(queue.getPendingCount()).isEqualTo(1);
+
+    queue.shutdown();
+    assertThat(written).containsExactly(movie);
+    assertThat(queue.getPendingCount()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testEnqueueAfterShutdown() {
+    TmmWriteBehindQueue<Movie> queue = new TmmWriteBehindQueue<>("test", 60000, movie -> {
+    });
+    queue.shutdown();
+
+    queue.enqueue(new Movie());
+  }
+
+  @Test
+  public void testFailureOnShutdown() {
+    TmmWriteBehindQueue<Movie> queue = new TmmWriteBehindQueue<>("test", 60000, movie -> {
+      throw new IllegalStateException("store closed");
+    });
+
+    queue.enqueue(new Movie());
+    assertThatThrownBy(queue::shutdown).isInstanceOf(IllegalStateException.class);
+  }
+}
@@ -1,6 +1,10 @@
 package org.tinymediamanager.core.tvshow;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -38,4 +42,17 @@ public class TvShowExportTest extends BasicTest {
     TvShowExporter exporter = new TvShowExporter(Paths.get("templates", "TvShowDetailExampleXml"));
     exporter.export(list.getTvShows(), Paths.get(getSettingsFolder(), "TvShowDetailExampleXml"));
   }
+
+  @Test
+  public void testProgress() throws Exception {
+    TvShowList list = TvShowList.getInstance();
+    List<Integer> progress = new ArrayList<>();
+
+    TvShowExporter exporter = new TvShowExporter(Paths.get("templates", "TvShowDetailExampleXml"));
+    exporter.setProgressListener((done, total) -> progress.add(done));
+    exporter.export(list.getTvShows(), Paths.get(getSettingsFolder(), "TvShowDetailExampleXmlProgress"));
+
+    // the progress is published by the exporting thread and never goes backwards
+    assertThat(progress).isSorted().endsWith(list.getTvShows().size());
+  }
 }
@@ -73,6 +73,25 @@ public class TvShowTest extends BasicTest {
     }
   }
 
+  @Test
+  public void testLookupTvShow() throws Exception {
+    TmmModuleManager.getInstance().startUp();
+    TvShowModuleManager.getInstance().startUp();
+    createFakeShow("Lookup Show");
+
+    TvShowList instance = TvShowList.getInstance();
+    TvShow tvShow = instance.lookupTvShow(getUUID("Lookup Show"));
+    assertThat(tvShow).isNotNull();
+    assertThat(tvShow.getTitle()).isEqualTo("Lookup Show");
+    assertThat(instance.lookupTvShow(null)).isNull();
+
+    instance.removeTvShow(tvShow);
+    assertThat(instance.lookupTvShow(getUUID("Lookup Show"))).isNull();
+
+    TvShowModuleManager.getInstance().shutDown();
+    TmmModuleManager.getInstance().shutDown();
+  }
+
   /**
    * Test TV renamer
    * 
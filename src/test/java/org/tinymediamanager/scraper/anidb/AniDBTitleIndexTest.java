@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.anidb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.tinymediamanager.scraper.util.Similarity;
+
+public class AniDBTitleIndexTest {
+
+  @Test
+  public void testSearch() {
+    AniDBTitleIndex index = new AniDBTitleIndex();
+    index.add(1, "Cowboy Bebop");
+    index.add(1, "Kaubōi Bibappu");
+    index.add(2, "Cowboy Bebop: Tengoku no Tobira");
+    index.add(3, "Naruto");
+    index.add(4, "Naruto Shippuuden");
+
+    List<AniDBTitleIndex.Match> matches = index.search("cowboy bebop", 10);
+
+    // every anime only once - with its best title; no anime without any common letter pair
+    assertThat(matches).extracting(match -> match.aniDbId).containsExactly(1, 2);
+    assertThat(matches.get(0).title).isEqualTo("Cowboy Bebop");
+    assertThat(matches.get(0).score).isEqualTo(1.0f);
+    // same score as the string comparison
+    assertThat(matches.get(1).score).isEqualTo(Similarity.compareStrings("Cowboy Bebop: Tengoku no Tobira", "cowboy bebop"));
+
+    // top k
+    assertThat(index.search("naruto", 1)).extracting(match -> match.aniDbId).containsExactly(3);
+    assertThat(index.search("xyz", 10)).isEmpty();
+  }
+}
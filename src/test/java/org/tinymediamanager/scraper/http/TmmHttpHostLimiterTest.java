@@ -0,0 +1,153 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class TmmHttpHostLimiterTest {
+  private MockWebServer      mockWebServer;
+  private TmmHttpHostLimiter limiter;
+  private OkHttpClient       client;
+
+  @Before
+  public void setUp() throws Exception {
+    mockWebServer = new MockWebServer();
+    mockWebServer.start();
+    limiter = new TmmHttpHostLimiter();
+    client = new OkHttpClient.Builder().addInterceptor(limiter).build();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    mockWebServer.shutdown();
+  }
+
+  @Test
+  public void testRetryAfter() throws Exception {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+    mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("ok"));
+
+    long start = System.currentTimeMillis();
+    try (Response response = client.newCall(new Request.Builder().url(mockWebServer.url("/")).build()).execute()) {
+      assertThat(response.code()).isEqualTo(200);
+      assertThat(response.body().string()).isEqualTo("ok");
+    }
+    assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(1000);
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(2);
+
+    // halved after the 429
+    assertThat(limiter.getConcurrencyLimit(mockWebServer.getHostName())).isEqualTo(TmmHttpHostLimiter.INITIAL_CONCURRENCY / 2);
+  }
+
+  @Test
+  public void testServiceUnavailableWithoutRetryAfter() throws Exception {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+
+    try (Response response = client.newCall(new Request.Builder().url(mockWebServer.url("/")).build()).execute()) {
+      assertThat(response.code()).isEqualTo(503);
+    }
+    assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testRateLimit() throws Exception {
+    limiter.setRateLimit(mockWebServer.getHostName(), 2, 1, TimeUnit.SECONDS);
+    for (int i = 0; i < 3; i++) {
+      mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+    }
+
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < 3; i++) {
+      client.newCall(new Request.Builder().url(mockWebServer.url("/")).build()).execute().close();
+    }
+    // the third request has to wait for a new token
+    assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(400);
+  }
+
+  @Test
+  public void testServerErrorIsNoSuccess() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+    }
+    mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+
+    limiter.setCurrentProvider("test");
+    try {
+      for (int i = 0; i < 11; i++) {
+        client.newCall(new Request.Builder().url(mockWebServer.url("/")).build()).execute().close();
+      }
+    }
+    finally {
+      limiter.setCurrentProvider(null);
+    }
+
+    // raised by the successful requests, halved by the server error
+    int limit = limiter.getConcurrencyLimit(mockWebServer.getHostName());
+    assertThat(limit).isLessThan(TmmHttpHostLimiter.INITIAL_CONCURRENCY);
+    // the threads are sized from the hosts of the provider
+    assertThat(limiter.getSuggestedThreads("test", 3, 8)).isEqualTo(limit);
+    assertThat(limiter.getSuggestedThreads("unknown", 3, 8)).isEqualTo(3);
+  }
+
+  @Test
+  public void testCallForProvider() throws Exception {
+    mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+
+    limiter.setCurrentProvider("metadata");
+    try {
+      // the requests of the call are attributed to the given provider only
+      String provider = limiter.callFor("artwork", () -> {
+        client.newCall(new Request.Builder().url(mockWebServer.url("/")).build()).execute().close();
+        return limiter.getCurrentProvider();
+      });
+      assertThat(provider).isEqualTo("artwork");
+      assertThat(limiter.getCurrentProvider()).isEqualTo("metadata");
+    }
+    finally {
+      limiter.setCurrentProvider(null);
+    }
+
+    assertThat(limiter.getSuggestedThreads("artwork", 3, 8)).isEqualTo(limiter.getConcurrencyLimit(mockWebServer.getHostName()));
+    assertThat(limiter.getSuggestedThreads("metadata", 3, 8)).isEqualTo(3);
+  }
+
+  @Test
+  public void testTokenBucketBurst() {
+    // no burst: the second permit is available after 1/9 of the period
+    TokenBucket bucket = new TokenBucket(1, 9, 15, TimeUnit.SECONDS);
+    assertThat(bucket.tryAcquire()).isEqualTo(0);
+    assertThat(bucket.tryAcquire()).isGreaterThan(1000);
+  }
+
+  @Test
+  public void testParseRetryAfter() {
+    assertThat(TmmHttpHostLimiter.parseRetryAfter("2")).isEqualTo(2000);
+    assertThat(TmmHttpHostLimiter.parseRetryAfter(null)).isEqualTo(-1);
+    assertThat(TmmHttpHostLimiter.parseRetryAfter("foo")).isEqualTo(-1);
+  }
+}
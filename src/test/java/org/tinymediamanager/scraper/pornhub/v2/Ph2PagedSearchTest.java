@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.pornhub.v2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.tinymediamanager.scraper.MediaSearchResult;
+import org.tinymediamanager.scraper.entities.MediaType;
+
+public class Ph2PagedSearchTest {
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testPrefetchAllPages() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    // pages 2-4 are prefetched at the same time - every one of them waits for the others
+    CountDownLatch firstWindow = new CountDownLatch(3);
+
+    Ph2PagedSearch<Integer> search = new Ph2PagedSearch<>(executor, 3, page -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        if (page >= 2 && page <= 4) {
+          firstWindow.countDown();
+          if (!firstWindow.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("pages 2-4 have not been fetched concurrently");
+          }
+        }
+        return page;
+      }
+      finally {
+        running.decrementAndGet();
+      }
+    }, (page, results) -> {
+      results.add(new MediaSearchResult("test", MediaType.MOVIE, "id" + page, "title " + page, 2020, 0.5f));
+      return 7;
+    });
+
+    SortedSet<MediaSearchResult> results = new TreeSet<>();
+    search.search(results);
+
+    assertThat(results).hasSize(7);
+    // never more than the allowed parallel pages
+    assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+  }
+
+  @Test
+  public void testStopEarly() throws Exception {
+    AtomicInteger fetched = new AtomicInteger();
+
+    Ph2PagedSearch<Integer> search = new Ph2PagedSearch<>(executor, 2, page -> {
+      fetched.incrementAndGet();
+      return page;
+    }, (page, results) -> {
+      results.add(new MediaSearchResult("test", MediaType.MOVIE, "id" + page, "title " + page, 2020, 1f));
+      return 50;
+    });
+
+    SortedSet<MediaSearchResult> results = new TreeSet<>();
+    search.search(results);
+
+    assertThat(results).hasSize(Ph2PagedSearch.ENOUGH_GOOD_RESULTS);
+    assertThat(fetched.get()).isLessThan(10);
+  }
+}
@@ -0,0 +1,67 @@
+package org.tinymediamanager.scraper.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class CacheMapTest {
+
+  @Test
+  public void testMaxEntries() throws Exception {
+    CacheMap<Integer, String> cache = new CacheMap<>(60, 0, 10);
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, "value" + i);
+      Thread.sleep(2);
+    }
+    assertThat(cache.size()).isEqualTo(10);
+
+    // touch the first entry - it is not the least recently used any more
+    assertThat(cache.get(0)).isEqualTo("value0");
+
+    cache.put(10, "value10");
+    // evicted to 90%
+    assertThat(cache.size()).isEqualTo(9);
+    assertThat(cache.get(0)).isNotNull();
+    assertThat(cache.get(1)).isNull();
+    assertThat(cache.get(2)).isNull();
+    assertThat(cache.get(10)).isNotNull();
+    assertThat(cache.getEvictions()).isEqualTo(2);
+  }
+
+  @Test
+  public void testMaxWeight() {
+    CacheMap<String, byte[]> cache = new CacheMap<>(60, 0, 0, 1000, (key, value) -> value.length);
+    cache.put("a", new byte[400]);
+    cache.put("b", new byte[400]);
+    assertThat(cache.weight()).isEqualTo(800);
+
+    // replacing an entry updates the weight
+    cache.put("b", new byte[500]);
+    assertThat(cache.weight()).isEqualTo(900);
+
+    cache.put("c", new byte[200]);
+    assertThat(cache.weight()).isLessThanOrEqualTo(900);
+    assertThat(cache.get("c")).isNotNull();
+
+    // too large for the whole cache
+    cache.put("d", new byte[2000]);
+    assertThat(cache.get("d")).isNull();
+
+    cache.cleanup(true);
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.weight()).isEqualTo(0);
+  }
+
+  @Test
+  public void testStatistics() {
+    CacheMap<String, String> cache = new CacheMap<>(60, 10);
+    cache.put("a", "a");
+    cache.get("a");
+    cache.get("a");
+    cache.get("b");
+
+    assertThat(cache.getHits()).isEqualTo(2);
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.keySet()).containsOnly("a");
+  }
+}
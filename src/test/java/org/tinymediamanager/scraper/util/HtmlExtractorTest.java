@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+public class HtmlExtractorTest {
+  private static final String BASE_URL = "https://www.example.com/";
+
+  @Test
+  public void testSameResultAsFullDom() throws Exception {
+    String html = new String(Files.readAllBytes(Paths.get("src/test/resources/html/pornhub_search.html")), StandardCharsets.UTF_8);
+
+    Document full = Jsoup.parse(html, BASE_URL);
+    Document extracted = new HtmlExtractor("#videoSearchResult", ".page_next_set", "meta[property=og:title]")
+        .extract(new StringReader(html), BASE_URL);
+
+    String selector = "#videoSearchResult .pcVideoListItem a[href]";
+    assertThat(hrefs(extracted, selector)).containsExactly(BASE_URL + "view_video.php?viewkey=ph1", BASE_URL + "view_video.php?viewkey=ph2");
+    assertThat(hrefs(extracted, selector)).isEqualTo(hrefs(full, selector));
+    assertThat(extracted.selectFirst("a[title]").attr("title")).isEqualTo("First \"video\"");
+    assertThat(extracted.selectFirst(".page_next_set").text()).isEqualTo("5");
+    assertThat(extracted.selectFirst("[property=og:title]").attr("content")).isEqualTo("Search & results");
+
+    // not extracted
+    assertThat(extracted.selectFirst("#footer")).isNull();
+    assertThat(extracted.selectFirst(".header")).isNull();
+  }
+
+  @Test
+  public void testStopReading() throws Exception {
+    StringBuilder html = new StringBuilder("<html><body><div id=\"wanted\"><div>inner</div></div>");
+    for (int i = 0; i < 100000; i++) {
+      html.append("<p>filler ").append(i).append("</p>");
+    }
+    html.append("</body></html>");
+
+    CountingReader reader = new CountingReader(html.toString());
+    Document extracted = new HtmlExtractor("div#wanted").extract(reader, BASE_URL);
+
+    assertThat(extracted.selectFirst("#wanted > div").text()).isEqualTo("inner");
+    // only the first chunk has been read
+    assertThat(reader.read).isLessThan(html.length() / 10);
+  }
+
+  private static List<String> hrefs(Document document, String selector) {
+    return document.select(selector).stream().map(element -> element.absUrl("href")).collect(Collectors.toList());
+  }
+
+  private static class CountingReader extends StringReader {
+    private long read = 0;
+
+    private CountingReader(String s) {
+      super(s);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws java.io.IOException {
+      int count = super.read(cbuf, off, len);
+      if (count > 0) {
+        read += count;
+      }
+      return count;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.thirdparty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class SplitUriIndexTest {
+
+  @Test
+  public void testGet() {
+    SplitUriIndex<String> index = new SplitUriIndex<>();
+    index.put(new SplitUri("/media/movies", "/media/movies/Alien (1979)/Alien.mkv"), "alien");
+    index.put(new SplitUri("/media/movies", "/media/movies/Aliens (1986)/Aliens.mkv"), "aliens");
+    index.put(new SplitUri("/media/movies", "/media/movies/Heat (1995)/VIDEO_TS/VIDEO_TS.IFO"), "heat");
+    index.put(new SplitUri("/media/movies", "/media/movies/Ronin (1998)/VIDEO_TS/VIDEO_TS.IFO"), "ronin");
+
+    assertThat(index.size()).isEqualTo(4);
+
+    // same file (relative to the datasource)
+    assertThat(index.get(new SplitUri("/mnt/nas/movies", "/mnt/nas/movies/Aliens (1986)/Aliens.mkv"))).isEqualTo("aliens");
+    assertThat(index.get(new SplitUri("/mnt/nas/movies", "/mnt/nas/movies/Ronin (1998)/VIDEO_TS/VIDEO_TS.IFO"))).isEqualTo("ronin");
+
+    // unknown datasource - found by the (unique) filename with its folder
+    assertThat(index.get(new SplitUri("/mnt", "/mnt/nas/movies/Alien (1979)/Alien.mkv"))).isEqualTo("alien");
+    assertThat(index.get(new SplitUri("/mnt", "/mnt/nas/movies/Heat (1995)/VIDEO_TS/VIDEO_TS.IFO"))).isEqualTo("heat");
+    assertThat(index.get(new SplitUri("/mnt", "/mnt/nas/movies/Up (2009)/Up.mkv"))).isNull();
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 - 2020 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.thirdparty.trakttv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.tinymediamanager.core.Constants;
+import org.tinymediamanager.core.movie.entities.Movie;
+
+import com.uwetrottmann.trakt5.entities.MovieIds;
+import com.uwetrottmann.trakt5.entities.SyncEpisode;
+import com.uwetrottmann.trakt5.entities.SyncItems;
+import com.uwetrottmann.trakt5.entities.SyncMovie;
+import com.uwetrottmann.trakt5.entities.SyncSeason;
+import com.uwetrottmann.trakt5.entities.SyncShow;
+
+public class TraktIdIndexTest {
+
+  @Test
+  public void testMatch() {
+    Movie imdb = movie(Constants.IMDB, "tt0103064");
+    Movie tmdb = movie(Constants.TMDB, 280);
+    Movie trakt = movie(Constants.TRAKT, 12);
+    Movie both = movie(Constants.IMDB, "tt0088247");
+    both.setId(Constants.TMDB, 218);
+    Movie none = new Movie();
+
+    TraktIdIndex<Movie> index = new TraktIdIndex<>(Arrays.asList(imdb, tmdb, trakt, both, none));
+
+    assertThat(index.match(ids(null, "tt0103064", null))).containsExactly(imdb);
+    assertThat(index.match(ids(null, null, 280))).containsExactly(tmdb);
+    assertThat(index.match(ids(12, null, null))).containsExactly(trakt);
+    // found by two IDs, but returned only once
+    assertThat(index.match(ids(null, "tt0088247", 218))).containsExactly(both);
+    assertThat(index.match(ids(99, "tt0000000", 0))).isEmpty();
+
+    assertThat(index.isMatched(imdb)).isTrue();
+    assertThat(index.isMatched(none)).isFalse();
+    assertThat(index.getUnmatched()).containsExactly(none);
+  }
+
+  @Test
+  public void testMovieBatches() {
+    List<SyncMovie> movies = new ArrayList<>();
+    for (int i = 0; i < TraktTv.BATCH_SIZE * 2 + 1; i++) {
+      movies.add(new SyncMovie());
+    }
+
+    List<SyncItems> batches = TraktTv.toMovieBatches(movies);
+    assertThat(batches).hasSize(3);
+    assertThat(batches.get(0).movies).hasSize(TraktTv.BATCH_SIZE);
+    assertThat(batches.get(2).movies).hasSize(1);
+  }
+
+  @Test
+  public void testShowBatches() {
+    // 3 shows with 60% of a batch each - every show in its own batch; a show is never split
+    int episodes = TraktTv.BATCH_SIZE * 6 / 10;
+    List<SyncShow> shows = Arrays.asList(show(episodes), show(episodes), show(episodes), show(1));
+
+    List<SyncItems> batches = TraktTv.toShowBatches(shows);
+    assertThat(batches).hasSize(3);
+    assertThat(batches.get(2).shows).hasSize(2);
+  }
+
+  private static Movie movie(String key, Object id) {
+    Movie movie = new Movie();
+    movie.setId(key, id);
+    return movie;
+  }
+
+  private static MovieIds ids(Integer trakt, String imdb, Integer tmdb) {
+    MovieIds ids = new MovieIds();
+    ids.trakt = trakt;
+    ids.imdb = imdb;
+    ids.tmdb = tmdb;
+    return ids;
+  }
+
+  private static SyncShow show(int episodes) {
+    List<SyncEpisode> syncEpisodes = new ArrayList<>();
+    for (int i = 1; i <= episodes; i++) {
+      syncEpisodes.add(new SyncEpisode().number(i));
+    }
+    return new SyncShow().seasons(Collections.singletonList(new SyncSeason().number(1).episodes(syncEpisodes)));
+  }
+}